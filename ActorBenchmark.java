@@ -0,0 +1,108 @@
+package com.example.robotgui;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compares the batched tick, in which every robot updates itself in turn, with {@link ActorMode} on each of its
+ * executions, at several numbers of robots.
+ * Usage: {@code ActorBenchmark [--ticks N] [--think-micros N] [--max-platform N] [robots...]}
+ * <p>
+ * Each size runs in a generated world of foraging whisker robots, food and obstacles, scaled so the density stays
+ * the same. With {@code --think-micros}, every decision also blocks for that long, as a behaviour waiting on I/O or
+ * a model would; blocking is where virtual threads pay off, since thousands of them wait at once on a few carrier
+ * threads, while for cheap decisions the messages cost more than the decisions themselves. Platform threads are
+ * only tried up to {@code --max-platform} robots, as a platform thread per robot exhausts memory long before 100k,
+ * and virtual threads only on JDKs that have them. The first two ticks, which also start the actors, are not
+ * measured.
+ */
+public final class ActorBenchmark {
+    private static final double AREA_PER_ROBOT = 40_000; // Arena area per robot, in square units
+
+    private ActorBenchmark() {
+        // Utility class
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Command line arguments.
+     */
+    public static void main(String[] args) {
+        int ticks = 10, maxPlatform = 10_000;
+        long thinkNanos = 0;
+        List<Integer> sizes = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--ticks" -> ticks = Integer.parseInt(args[++i]);
+                case "--think-micros" -> thinkNanos = Long.parseLong(args[++i]) * 1000;
+                case "--max-platform" -> maxPlatform = Integer.parseInt(args[++i]);
+                default -> sizes.add(Integer.parseInt(args[i]));
+            }
+        }
+        if (sizes.isEmpty()) {
+            sizes.addAll(List.of(1_000, 10_000, 100_000));
+        }
+        boolean virtual = ActorMode.isVirtualThreadsAvailable();
+        if (!virtual) {
+            System.out.println("Virtual threads need JDK 21 or later; running on "
+                    + System.getProperty("java.version"));
+        }
+
+        System.out.printf("%9s %12s %12s %12s %12s   (ms/tick, think %d us)%n", "robots", "batched", "sequential",
+                "platform", "virtual", thinkNanos / 1000);
+        for (int robots : sizes) {
+            ScenarioSpec spec = spec(robots);
+            String batched = format(run(spec, null, ticks));
+            String sequential = format(run(spec, ActorMode.Execution.SEQUENTIAL, thinkNanos, ticks));
+            String platform = robots <= maxPlatform
+                    ? format(run(spec, ActorMode.Execution.PLATFORM_THREADS, thinkNanos, ticks)) : "skipped";
+            String virtualResult = virtual
+                    ? format(run(spec, ActorMode.Execution.VIRTUAL_THREADS, thinkNanos, ticks)) : "n/a";
+            System.out.printf("%9d %12s %12s %12s %12s%n", robots, batched, sequential, platform, virtualResult);
+        }
+    }
+
+    /**
+     * Returns a world of foragers at the same density whatever their number.
+     */
+    private static ScenarioSpec spec(int robots) {
+        double width = Math.sqrt(robots * AREA_PER_ROBOT * 4 / 3);
+        return new ScenarioSpec("Actors " + robots).seed(robots).size(width, width * 3 / 4)
+                .count(ItemType.WHISKER_ROBOT, robots).radius(ItemType.WHISKER_ROBOT, 6)
+                .count(ItemType.FOOD, robots / 2).radius(ItemType.FOOD, 4)
+                .scatteredObstacles(Math.max(1, robots / 100), 30);
+    }
+
+    private static double run(ScenarioSpec spec, ActorMode.Execution execution, long thinkNanos, int ticks) {
+        ActorMode.Behaviour forager = new ActorMode.Forager();
+        ActorMode.Behaviour behaviour = thinkNanos == 0 ? forager : (perception, intent) -> {
+            LockSupport.parkNanos(thinkNanos); // Stands in for blocking work
+            forager.decide(perception, intent);
+        };
+        try (ActorMode mode = new ActorMode(execution, EnumSet.of(ItemType.WHISKER_ROBOT), () -> behaviour)) {
+            return run(spec, mode, ticks);
+        }
+    }
+
+    /**
+     * Returns the mean time of a tick after two warm-up ticks, with robots run by a controller or by themselves.
+     */
+    private static double run(ScenarioSpec spec, RobotController controller, int ticks) {
+        RobotArena arena = ScenarioGenerator.generate(spec);
+        arena.setRobotController(controller);
+        arena.update();
+        arena.update();
+        long start = System.nanoTime();
+        for (int t = 0; t < ticks; t++) {
+            arena.update();
+        }
+        return (System.nanoTime() - start) / 1e6 / ticks;
+    }
+
+    private static String format(double millis) {
+        return String.format("%.2f", millis);
+    }
+}
@@ -0,0 +1,535 @@
+package com.example.robotgui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Runs robots as actors: each robot's decisions are made by its own thread, which receives a snapshot of what the
+ * robot senses through a mailbox and posts back an intent, while the arena applies the intents in tick order.
+ * <p>
+ * At the start of every update, after queued commands are applied, the arena's thread perceives for every
+ * controlled robot: its own position and heading, the nearest food in its sensing reach, and whether an obstacle
+ * or another robot blocks it. All robots perceive the same state, as of the tick boundary. The snapshots go to the
+ * actors' mailboxes and the arena's thread waits until every actor has posted its intent: keep the heading, steer
+ * towards a point, or turn. The arena then updates its items in their usual order, applying each robot's intent,
+ * moving it with the usual sweep against walls and obstacles and letting it eat food it touches. Robots of other
+ * types update themselves as before. Behaviours see only their snapshot and never the arena, so they may block,
+ * for example on I/O or a model, without holding up any other robot.
+ * <p>
+ * Actors run on virtual threads where the JDK has them (21 and later, found by reflection so the code still
+ * builds and runs on 17), on platform threads, or inline on the arena's thread as a baseline without any message
+ * passing. Actors are kept per slot and live until {@link #close()}; a robot that takes over a slot takes over its
+ * actor. A platform thread per actor costs a native thread and its stack for as long as the mode lives, so that
+ * execution only suits a few thousand robots. Controlled robots keep their type's energy rules: they spend energy
+ * as they act, regain it from meals and die when it runs out, as in their own updates.
+ * <p>
+ * The arena's thread waits for intents only until a timeout. An actor that has not answered by then stops the
+ * mode: the tick fails, as every later one does, until the mode is closed.
+ */
+public class ActorMode implements RobotController, AutoCloseable {
+
+    /**
+     * Where actors make their decisions.
+     */
+    public enum Execution {
+        SEQUENTIAL, // Inline on the arena's thread, one robot after another
+        PLATFORM_THREADS, // A platform thread per actor
+        VIRTUAL_THREADS // A virtual thread per actor, on JDK 21 and later
+    }
+
+    /**
+     * What a robot senses at a tick boundary. Written by the arena's thread before it is sent and only read by the
+     * actor afterwards.
+     */
+    public static final class Perception {
+        long tick;
+        double x, y, dirX, dirY, radius, speed;
+        boolean food; // Whether food is in reach
+        double foodX, foodY; // Position of the nearest food in reach
+        boolean blocked; // Whether an obstacle or a robot ahead is within the safety margin
+
+        /** @return The tick the snapshot was taken after. */
+        public long getTick() {
+            return tick;
+        }
+
+        /** @return The robot's x-coordinate. */
+        public double getX() {
+            return x;
+        }
+
+        /** @return The robot's y-coordinate. */
+        public double getY() {
+            return y;
+        }
+
+        /** @return The x-component of the robot's unit heading. */
+        public double getDirX() {
+            return dirX;
+        }
+
+        /** @return The y-component of the robot's unit heading. */
+        public double getDirY() {
+            return dirY;
+        }
+
+        /** @return The robot's radius. */
+        public double getRadius() {
+            return radius;
+        }
+
+        /** @return The robot's speed. */
+        public double getSpeed() {
+            return speed;
+        }
+
+        /** @return True if food is within the robot's sensing reach. */
+        public boolean hasFood() {
+            return food;
+        }
+
+        /** @return The x-coordinate of the nearest food in reach, if there is any. */
+        public double getFoodX() {
+            return foodX;
+        }
+
+        /** @return The y-coordinate of the nearest food in reach, if there is any. */
+        public double getFoodY() {
+            return foodY;
+        }
+
+        /** @return True if an obstacle, or a robot ahead, is within the robot's safety margin. */
+        public boolean isBlocked() {
+            return blocked;
+        }
+    }
+
+    /**
+     * What a robot means to do this tick. Written by the actor and applied by the arena's thread.
+     */
+    public static final class Intent {
+        private static final int KEEP = 0, STEER = 1, TURN = 2;
+        private int kind;
+        private double a, b; // Direction to steer towards, or cosine and sine of the turn
+
+        /**
+         * Keeps the current heading.
+         */
+        public void keep() {
+            kind = KEEP;
+        }
+
+        /**
+         * Steers towards a direction, as the robots' own steering does.
+         *
+         * @param dx The x-component of the direction.
+         * @param dy The y-component of the direction.
+         */
+        public void steer(double dx, double dy) {
+            kind = STEER;
+            a = dx;
+            b = dy;
+        }
+
+        /**
+         * Turns the heading by an angle.
+         *
+         * @param cos The cosine of the angle.
+         * @param sin The sine of the angle.
+         */
+        public void turn(double cos, double sin) {
+            kind = TURN;
+            a = cos;
+            b = sin;
+        }
+    }
+
+    /**
+     * Decides a robot's intent from its perception. Called on the robot's actor thread; must not touch the arena.
+     */
+    public interface Behaviour {
+
+        /**
+         * Decides what the robot does this tick.
+         *
+         * @param perception What the robot senses.
+         * @param intent     Where to write the decision; it holds the previous decision until written.
+         */
+        void decide(Perception perception, Intent intent);
+    }
+
+    /**
+     * Turns away from whatever blocks the robot, and otherwise heads for the nearest food in reach.
+     */
+    public static final class Forager implements Behaviour {
+        @Override
+        public void decide(Perception perception, Intent intent) {
+            if (perception.isBlocked()) {
+                intent.turn(Robot.QUARTER_TURN_COS, Robot.QUARTER_TURN_SIN);
+            } else if (perception.hasFood()) {
+                intent.steer(perception.getFoodX() - perception.getX(), perception.getFoodY() - perception.getY());
+            } else {
+                intent.keep();
+            }
+        }
+    }
+
+    /** Default time the arena's thread waits for all intents of a tick, in milliseconds. */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 10_000;
+    private static final Perception STOP = new Perception(); // Tells an actor to finish
+    private static final double SAFETY_MARGIN = 10; // Distance at which obstacles and robots ahead block
+
+    /**
+     * A robot's decision maker, kept per slot.
+     */
+    private final class Actor {
+        final Perception perception = new Perception();
+        final Intent intent = new Intent();
+        final Behaviour behaviour;
+        final BlockingQueue<Perception> mailbox = new ArrayBlockingQueue<>(1);
+        long handle = ArenaItem.NO_HANDLE; // Robot the actor decides for
+        long intentTick = -1; // Tick of the perception the intent answers
+        Thread thread; // Null when deciding inline
+
+        Actor(Behaviour behaviour) {
+            this.behaviour = behaviour;
+        }
+
+        void run() {
+            try {
+                while (true) {
+                    Perception message = mailbox.take();
+                    if (message == STOP) {
+                        return;
+                    }
+                    decide();
+                    if (remaining.decrementAndGet() == 0) {
+                        LockSupport.unpark(waiter); // The last intent of the tick is in
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void decide() {
+            try {
+                behaviour.decide(perception, intent);
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+                intent.keep();
+            }
+            intentTick = perception.tick; // Published to the arena's thread by the countdown
+        }
+    }
+
+    private final Execution execution;
+    private final ThreadFactory threadFactory; // Null for sequential execution
+    private final Set<ItemType> controlled; // Robot types run as actors
+    private final Supplier<Behaviour> behaviours; // Creates the behaviour of each new actor
+    private Actor[] actors = new Actor[64]; // By slot
+    private int actorCount;
+    private final ArrayList<Actor> dispatched = new ArrayList<>(); // Actors sent a perception this tick
+    private final AtomicInteger remaining = new AtomicInteger(); // Intents still missing this tick
+    private volatile Thread waiter; // The arena's thread, woken by the last intent
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>(); // First behaviour error
+    private final ArrayList<ArenaItem> sensed = new ArrayList<>(); // Reused result list of perception queries
+    private long timeoutNanos = DEFAULT_TIMEOUT_MILLIS * 1_000_000; // Longest wait for the intents of a tick
+    private boolean timedOut; // Set when an actor missed the timeout; the mode is then unusable
+    private boolean closed;
+
+    /**
+     * Creates an actor mode running whisker and beam sensor robots as foragers.
+     *
+     * @param execution Where actors make their decisions.
+     * @throws UnsupportedOperationException If virtual threads are asked for and the JDK has none.
+     */
+    public ActorMode(Execution execution) {
+        this(execution, EnumSet.of(ItemType.WHISKER_ROBOT, ItemType.BEAM_SENSOR_ROBOT), Forager::new);
+    }
+
+    /**
+     * Creates an actor mode.
+     *
+     * @param execution  Where actors make their decisions.
+     * @param controlled The robot types run as actors; others update themselves.
+     * @param behaviours Creates the behaviour of each actor.
+     * @throws UnsupportedOperationException If virtual threads are asked for and the JDK has none.
+     */
+    public ActorMode(Execution execution, Set<ItemType> controlled, Supplier<Behaviour> behaviours) {
+        this.execution = execution;
+        this.controlled = EnumSet.copyOf(controlled);
+        this.behaviours = behaviours;
+        switch (execution) {
+            case SEQUENTIAL -> threadFactory = null;
+            case PLATFORM_THREADS -> threadFactory = runnable -> {
+                Thread thread = new Thread(null, runnable, "robot-actor", 256 * 1024); // Deciding needs little stack
+                thread.setDaemon(true);
+                return thread;
+            };
+            default -> {
+                threadFactory = virtualThreadFactory();
+                if (threadFactory == null) {
+                    throw new UnsupportedOperationException("Virtual threads need JDK 21 or later");
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether this JDK can run actors on virtual threads.
+     *
+     * @return True on JDK 21 and later.
+     */
+    public static boolean isVirtualThreadsAvailable() {
+        return virtualThreadFactory() != null;
+    }
+
+    /**
+     * Looks up {@code Thread.ofVirtual().name("robot-actor").factory()} by reflection, so this class also builds
+     * and runs on JDKs without virtual threads.
+     *
+     * @return The factory, or null if virtual threads are not available.
+     */
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class).invoke(builder, "robot-actor");
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null; // Missing before JDK 19, and disabled as a preview feature before 21
+        }
+    }
+
+    /**
+     * Sends every controlled robot's perception to its actor and waits for all intents.
+     *
+     * @param arena The arena about to be updated.
+     */
+    @Override
+    public void prepare(RobotArena arena) {
+        if (closed) {
+            throw new IllegalStateException("Actor mode is closed");
+        }
+        if (timedOut) {
+            throw new IllegalStateException("Actor mode stopped after a robot behaviour timed out");
+        }
+        dispatched.clear();
+        for (ArenaItem item : arena.getDynamicItems()) {
+            if (item instanceof Robot && controlled.contains(item.getType())) {
+                Robot robot = (Robot) item;
+                Actor actor = actorFor(robot.id);
+                actor.handle = robot.getHandle();
+                perceive(robot, arena, actor.perception);
+                dispatched.add(actor);
+            }
+        }
+
+        if (threadFactory == null) {
+            for (Actor actor : dispatched) {
+                actor.decide();
+            }
+        } else if (!dispatched.isEmpty()) {
+            waiter = Thread.currentThread();
+            remaining.set(dispatched.size()); // Before any message, so no actor sees a stale count
+            for (Actor actor : dispatched) {
+                actor.mailbox.add(actor.perception); // Never full: an actor has at most one message per tick
+            }
+            long deadline = System.nanoTime() + timeoutNanos;
+            while (remaining.get() > 0) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) {
+                    timedOut = true; // Late intents would be counted against a later tick
+                    throw new IllegalStateException(remaining.get() + " robot behaviours did not decide within "
+                            + timeoutNanos / 1_000_000 + " ms");
+                }
+                LockSupport.parkNanos(this, left);
+            }
+        }
+        RuntimeException error = failure.getAndSet(null);
+        if (error != null) {
+            throw new IllegalStateException("A robot behaviour failed", error);
+        }
+    }
+
+    private Actor actorFor(int slot) {
+        if (slot >= actors.length) {
+            actors = Arrays.copyOf(actors, Math.max(slot + 1, actors.length * 2));
+        }
+        Actor actor = actors[slot];
+        if (actor == null) {
+            actor = new Actor(behaviours.get());
+            if (threadFactory != null) {
+                actor.thread = threadFactory.newThread(actor::run);
+                actor.thread.start();
+            }
+            actors[slot] = actor;
+            actorCount++;
+        }
+        return actor;
+    }
+
+    /**
+     * Fills a perception from the arena as it is at the tick boundary.
+     */
+    private void perceive(Robot robot, RobotArena arena, Perception perception) {
+        perception.tick = arena.getTick();
+        perception.x = robot.x;
+        perception.y = robot.y;
+        perception.dirX = robot.dirX;
+        perception.dirY = robot.dirY;
+        perception.radius = robot.radius;
+        perception.speed = robot.speed;
+        perception.food = false;
+        perception.blocked = false;
+
+        double reach = robot.getSensingReach();
+        sensed.clear();
+        arena.queryItems(robot.x - reach, robot.y - reach, robot.x + reach, robot.y + reach, sensed);
+        double nearestFood = reach * reach;
+        for (ArenaItem item : sensed) {
+            if (item == robot || !item.alive) {
+                continue;
+            }
+            double dx = item.x - robot.x;
+            double dy = item.y - robot.y;
+            if (item instanceof Food) {
+                double distanceSq = dx * dx + dy * dy;
+                if (distanceSq < nearestFood) {
+                    nearestFood = distanceSq;
+                    perception.food = true;
+                    perception.foodX = item.x;
+                    perception.foodY = item.y;
+                }
+            } else if (item instanceof Obstacle) {
+                if (((Obstacle) item).distanceTo(robot.x, robot.y) < robot.radius + SAFETY_MARGIN) {
+                    perception.blocked = true;
+                }
+            } else if (dx * robot.dirX + dy * robot.dirY > 0) {
+                double gap = robot.radius + item.radius + SAFETY_MARGIN;
+                if (dx * dx + dy * dy < gap * gap) {
+                    perception.blocked = true; // Another robot ahead
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies a controlled robot's intent, moves it and lets it eat food it touches. Robots of other types, and
+     * robots added since the perceptions were sent, behave as without actors.
+     *
+     * @param robot The robot to update.
+     * @param arena The arena being updated.
+     */
+    @Override
+    public void control(Robot robot, RobotArena arena) {
+        if (!controlled.contains(robot.getType())) {
+            robot.update(arena);
+            return;
+        }
+        if (robot.removeIfExhausted(arena)) {
+            return;
+        }
+        boolean turned = false;
+        Actor actor = robot.id < actors.length ? actors[robot.id] : null;
+        if (actor != null && actor.handle == robot.getHandle() && actor.intentTick == arena.getTick()) {
+            Intent intent = actor.intent;
+            if (intent.kind == Intent.STEER) {
+                robot.steerToward(intent.a, intent.b);
+            } else if (intent.kind == Intent.TURN) {
+                robot.turn(intent.a, intent.b);
+                turned = true;
+            }
+        }
+        robot.spendEnergy(arena, turned);
+        robot.move(arena);
+        robot.stayInArenaBounds(arena);
+
+        sensed.clear();
+        arena.queryStatic(robot.getMinX(), robot.getMinY(), robot.getMaxX(), robot.getMaxY(), sensed);
+        for (ArenaItem item : sensed) {
+            if (item instanceof Food && item.alive && robot.overlaps(item)) {
+                arena.publishEvent(SimulationEvent.MEAL, robot, item);
+                arena.removeItem(item);
+                robot.gainMealEnergy();
+                break; // One meal per tick, as the robots' own updates
+            }
+        }
+    }
+
+    /**
+     * Sets how long the arena's thread waits for all intents of a tick before the mode stops.
+     *
+     * @param millis The timeout in milliseconds, at least 1.
+     * @throws IllegalArgumentException If the timeout is below 1.
+     */
+    public void setTimeoutMillis(long millis) {
+        if (millis < 1) {
+            throw new IllegalArgumentException("Timeout must be positive: " + millis);
+        }
+        timeoutNanos = millis * 1_000_000;
+    }
+
+    /**
+     * Returns where actors make their decisions.
+     *
+     * @return The execution.
+     */
+    public Execution getExecution() {
+        return execution;
+    }
+
+    /**
+     * Returns the number of actors created so far, one per slot a controlled robot has used.
+     *
+     * @return The actor count.
+     */
+    public int getActorCount() {
+        return actorCount;
+    }
+
+    /**
+     * Stops every actor thread and waits for them to finish, up to the timeout. Actors still deciding then, such as
+     * the one that timed out, are interrupted and left to end by themselves; their threads are daemons.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Actor actor : actors) {
+            if (actor != null && actor.thread != null) {
+                actor.mailbox.clear(); // Only holds a perception an actor missed a timeout on
+                actor.mailbox.add(STOP);
+            }
+        }
+        long deadline = System.nanoTime() + timeoutNanos;
+        for (Actor actor : actors) {
+            if (actor != null && actor.thread != null) {
+                try {
+                    long left = deadline - System.nanoTime();
+                    if (left > 0) {
+                        actor.thread.join(Math.max(1, left / 1_000_000));
+                    }
+                    if (actor.thread.isAlive()) {
+                        actor.thread.interrupt();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
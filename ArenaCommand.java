@@ -0,0 +1,16 @@
+package com.example.robotgui;
+
+/**
+ * A change to an arena requested from outside the simulation, such as adding a robot from the toolbar or dragging
+ * one with the mouse. Commands are submitted with {@link RobotArena#submit(ArenaCommand)} from any thread and
+ * applied by the simulation thread between ticks, so they never interleave with an update.
+ */
+public interface ArenaCommand {
+
+    /**
+     * Applies the change. Called on the simulation thread at a tick boundary.
+     *
+     * @param arena The arena the command was submitted to.
+     */
+    void apply(RobotArena arena);
+}
@@ -0,0 +1,157 @@
+package com.example.robotgui;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Reads and writes arena configurations in the plain text format used by the Save/Load menu.
+ * Each line describes one item: its type name, position and radius, followed by type specific attributes
+ * (for obstacles, the vertex count and vertices of their outline; for robots, their tunable parameters).
+ * Kept free of JavaFX so configurations can also be used by headless tools such as the simulation server.
+ */
+public final class ArenaConfig {
+
+    private ArenaConfig() {
+        // Utility class
+    }
+
+    /**
+     * Converts the items of an arena into configuration text.
+     *
+     * @param arena The arena to describe.
+     * @return The configuration text, one line per item.
+     */
+    public static String format(RobotArena arena) {
+        StringBuilder data = new StringBuilder();
+        for (ArenaItem item : arena.getItems()) {
+            data.append(item.getClass().getSimpleName()).append(",")
+                    .append(item.x).append(",")
+                    .append(item.y).append(",")
+                    .append(item.radius);
+
+            // Include additional attributes for specific types
+            if (item instanceof Obstacle) {
+                // Vertex count followed by the outline's vertices relative to the position
+                ConvexPolygon shape = ((Obstacle) item).getShape();
+                data.append(",").append(shape.getVertexCount());
+                for (int i = 0; i < shape.getVertexCount(); i++) {
+                    data.append(",").append(shape.getX(i)).append(",").append(shape.getY(i));
+                }
+            } else if (item instanceof WhiskerRobot) {
+                WhiskerRobot bot = (WhiskerRobot) item;
+                data.append(",").append(bot.getSpeed()).append(",").append(bot.getWhiskerLength());
+            } else if (item instanceof BeamSensorRobot) {
+                BeamSensorRobot bot = (BeamSensorRobot) item;
+                data.append(",").append(bot.getSensorRange()).append(",").append(bot.getEnergy())
+                        .append(",").append(bot.getSpeed()).append(",").append(bot.getTurnAngle())
+                        .append(",").append(bot.getDetectionAngle());
+            } else if (item instanceof LidarRobot) {
+                LidarRobot bot = (LidarRobot) item;
+                data.append(",").append(bot.getSpeed()).append(",").append(bot.getRayCount())
+                        .append(",").append(bot.getRange());
+            } else if (item instanceof ControllableRobot) {
+                ControllableRobot bot = (ControllableRobot) item;
+                data.append(",").append(bot.getSpeed()).append(",").append(bot.getHealth())
+                        .append(",").append(bot.getScore());
+            }
+            data.append("\n");
+        }
+        return data.toString();
+    }
+
+    /**
+     * Saves the items of an arena to a file.
+     *
+     * @param arena The arena to save.
+     * @param file  The file to write.
+     * @throws IOException If an error occurs while writing the file.
+     */
+    public static void save(RobotArena arena, File file) throws IOException {
+        Files.write(file.toPath(), format(arena).getBytes()); // Write configuration to file
+    }
+
+    /**
+     * Loads arena items from a specified file into a new arena.
+     *
+     * @param file   The file containing the arena configuration.
+     * @param width  The width of the new arena.
+     * @param height The height of the new arena.
+     * @return The arena described by the file.
+     * @throws IOException If an error occurs while reading the file.
+     */
+    public static RobotArena load(File file, double width, double height) throws IOException {
+        RobotArena arena = new RobotArena(width, height);
+        List<String> lines = Files.readAllLines(file.toPath());
+        for (String line : lines) {
+            String[] parts = line.split(",");
+            String type = parts[0];
+            double x = Double.parseDouble(parts[1]);
+            double y = Double.parseDouble(parts[2]);
+            double radius = Double.parseDouble(parts[3]);
+
+            // Add items based on their type
+            switch (type) {
+                case "WhiskerRobot":
+                    if (parts.length > 5) {
+                        // Speed and whisker length; older files use the defaults
+                        arena.addItem(new WhiskerRobot(x, y, radius, Math.PI / 4,
+                                Double.parseDouble(parts[4]), Double.parseDouble(parts[5])));
+                    } else {
+                        arena.addItem(new WhiskerRobot(x, y, radius, Math.PI / 4, 2, 50));
+                    }
+                    break;
+                case "Obstacle":
+                    if (parts.length > 4) {
+                        // Exact outline: vertex count followed by vertex coordinates
+                        int vertexCount = Integer.parseInt(parts[4]);
+                        double[] xs = new double[vertexCount];
+                        double[] ys = new double[vertexCount];
+                        for (int i = 0; i < vertexCount; i++) {
+                            xs[i] = Double.parseDouble(parts[5 + 2 * i]);
+                            ys[i] = Double.parseDouble(parts[6 + 2 * i]);
+                        }
+                        arena.addItem(new Obstacle(x, y, radius, new ConvexPolygon(xs, ys)));
+                    } else {
+                        arena.addItem(new Obstacle(x, y, radius)); // Older files only have the triangle's size
+                    }
+                    break;
+                case "PredatorRobot":
+                    arena.addItem(new PredatorRobot(x, y, radius, Math.PI / 4, 1.2));
+                    break;
+                case "Food":
+                    arena.addItem(new Food(x, y, radius));
+                    break;
+                case "BeamSensorRobot":
+                    double sensorRange = Double.parseDouble(parts[4]);
+                    double energy = Double.parseDouble(parts[5]);
+                    if (parts.length > 8) {
+                        // Speed and angles; older files use the defaults
+                        BeamSensorRobot beamRobot = new BeamSensorRobot(x, y, radius, Math.PI / 4,
+                                Double.parseDouble(parts[6]), sensorRange, energy);
+                        beamRobot.setTurnAngle(Double.parseDouble(parts[7]));
+                        beamRobot.setDetectionAngle(Double.parseDouble(parts[8]));
+                        arena.addItem(beamRobot);
+                    } else {
+                        arena.addItem(new BeamSensorRobot(x, y, radius, Math.PI / 4, 2, sensorRange, energy));
+                    }
+                    break;
+                case "LidarRobot":
+                    arena.addItem(new LidarRobot(x, y, radius, Math.PI / 4, Double.parseDouble(parts[4]),
+                            Integer.parseInt(parts[5]), Double.parseDouble(parts[6])));
+                    break;
+                case "ControllableRobot":
+                    double speed = Double.parseDouble(parts[4]);
+                    int health = Integer.parseInt(parts[5]);
+                    int score = Integer.parseInt(parts[6]);
+                    ControllableRobot controllableRobot = new ControllableRobot(x, y, radius, speed);
+                    controllableRobot.reduceHealth(100 - health); // Adjust health to match saved value
+                    controllableRobot.increaseScore(score);
+                    arena.addItem(controllableRobot);
+                    break;
+            }
+        }
+        return arena;
+    }
+}
@@ -8,6 +8,15 @@ import javafx.scene.canvas.GraphicsContext;
 public abstract class ArenaItem {
     protected double x, y; // Position
     protected double radius; // Size
+    /** Handle value that never resolves to an item. */
+    public static final long NO_HANDLE = -1;
+
+    protected int id = -1; // Slot assigned by the arena, -1 while not in an arena
+    protected int generation; // Generation of the slot when the item was added
+    protected long sequence; // Order in which the item joined its arena; arena order is ascending sequence
+    protected boolean alive; // True while the item is part of an arena
+    boolean tombstone; // Set on removal: the arena's lists may still hold the item until they are compacted
+    int packedIndex; // Entry in the arena's packed coordinates of the item's type
 
     public ArenaItem(double x, double y, double radius) {
         this.x = x;
@@ -15,6 +24,111 @@ public abstract class ArenaItem {
         this.radius = radius;
     }
 
+    /**
+     * Returns the identifier assigned to this item by its arena: the number of its slot.
+     * Slots are reused after an item leaves the arena; use {@link #getHandle()} to refer to one item over time.
+     * @return The item identifier, or -1 if the item has not been added to an arena.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Returns the generation of the item's slot, which tells this item apart from other items that used the slot.
+     * @return The generation assigned when the item was added to an arena.
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns a handle that identifies this item for as long as it stays in its arena.
+     * Unlike a reference, the handle stops resolving when the item is removed, even if the object is reused.
+     * @return The handle combining the slot and its generation, or {@link #NO_HANDLE} if not in an arena.
+     */
+    public long getHandle() {
+        return id < 0 ? NO_HANDLE : (long) generation << 32 | id;
+    }
+
+    /**
+     * Returns the concrete type of this item.
+     * @return The ItemType of this item.
+     */
+    public abstract ItemType getType();
+
+    /**
+     * Returns whether the item is static, i.e. never moves or changes by itself.
+     * Static items are not updated each tick and are kept in the arena's static index.
+     * @return True for static items, false (the default) for items with behaviour.
+     */
+    public boolean isStatic() {
+        return false;
+    }
+
+    /**
+     * Returns the left edge of the item's axis-aligned bounding box.
+     * @return The minimum x-coordinate covered by the item.
+     */
+    public double getMinX() {
+        return x - radius;
+    }
+
+    /**
+     * Returns the top edge of the item's axis-aligned bounding box.
+     * @return The minimum y-coordinate covered by the item.
+     */
+    public double getMinY() {
+        return y - radius;
+    }
+
+    /**
+     * Returns the right edge of the item's axis-aligned bounding box.
+     * @return The maximum x-coordinate covered by the item.
+     */
+    public double getMaxX() {
+        return x + radius;
+    }
+
+    /**
+     * Returns the bottom edge of the item's axis-aligned bounding box.
+     * @return The maximum y-coordinate covered by the item.
+     */
+    public double getMaxY() {
+        return y + radius;
+    }
+
+    /**
+     * Returns the number of values written by {@link #saveState(double[], int)}.
+     * Subclasses with more state add their own values after those of their superclass.
+     * @return The number of state values.
+     */
+    public int getStateSize() {
+        return 3;
+    }
+
+    /**
+     * Writes the item's mutable state, such as its position, into an array.
+     * Together with the item's type this is enough to restore the item exactly.
+     * @param state  The array to write to.
+     * @param offset The index of the first value.
+     */
+    public void saveState(double[] state, int offset) {
+        state[offset] = x;
+        state[offset + 1] = y;
+        state[offset + 2] = radius;
+    }
+
+    /**
+     * Restores the item's mutable state from values written by {@link #saveState(double[], int)}.
+     * @param state  The array to read from.
+     * @param offset The index of the first value.
+     */
+    public void loadState(double[] state, int offset) {
+        x = state[offset];
+        y = state[offset + 1];
+        radius = state[offset + 2];
+    }
+
     /**
      * Draws the item on the canvas.
      * @param gc GraphicsContext used to render the item.
@@ -33,6 +147,9 @@ public abstract class ArenaItem {
      * @return True if the items overlap, false otherwise.
      */
     public boolean overlaps(ArenaItem other) {
+        if (other instanceof Obstacle) {
+            return other.overlaps(this); // Obstacles know their exact shape
+        }
         double dx = this.x - other.x;
         double dy = this.y - other.y;
         double distance = Math.sqrt(dx * dx + dy * dy);
@@ -0,0 +1,493 @@
+package com.example.robotgui;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Periodically saves the whole arena to disk without holding up the simulation, so a crashed run can be recovered.
+ * <p>
+ * At the first tick boundary after each interval, the ticking thread copies the list of items into the reused array
+ * of a snapshot, one bulk copy of references. A writer thread then reads the items' ids, generations, types,
+ * obstacle outlines, which are immutable and shared, and state values, in chunks, and serialises them to a
+ * temporary file, forces it to disk, and rotates it into place with atomic renames, keeping the previous save as
+ * well. The items must not change while they are read, so the arena runs the snapshot before its items next change:
+ * the ticking thread then reads the chunks the writer has not reached itself, which is no work at all when the
+ * writer kept up. When the writer is still busy with the last snapshot, the save is skipped until it is free, so a
+ * slow disk never stalls the tick.
+ * <p>
+ * A lock file exists while autosaving and is removed by {@link #close()}, so a lock found on startup means the last
+ * run did not shut down cleanly; {@link #readLatest(File)} then returns the newest save that is intact. Saves are
+ * checked with a CRC32 trailer, so a file torn by a crash is never restored. Restored items keep their ids and
+ * generations, like a rewind. Kept free of JavaFX so headless tools such as the simulation server can autosave.
+ * <p>
+ * File layout (big-endian):
+ * <pre>
+ * int magic, int version, long tick, double width, double height, double timeStep, int count, count x record,
+ * int crc32 of everything before it
+ * record: int id, int generation, byte type, [int n, 2n x double vertex], int size, size x double state
+ * </pre>
+ * The vertices are only present for obstacles. Records are in arena order, which restoring keeps.
+ */
+public class Autosave implements TickRecorder, AutoCloseable {
+    /** Default time between saves, in milliseconds. */
+    public static final long DEFAULT_INTERVAL_MILLIS = 10_000;
+    /** Name of the newest save. */
+    public static final String FILE_NAME = "autosave.bin";
+    /** Name of the save before the newest. */
+    public static final String PREVIOUS_FILE_NAME = "autosave.1.bin";
+    /** Name of the save being written. */
+    public static final String TEMP_FILE_NAME = "autosave.tmp";
+    /** Name of the file that exists while autosaving. */
+    public static final String LOCK_FILE_NAME = "autosave.lock";
+
+    private static final int MAGIC = 0x52534156; // "RSAV"
+    private static final int VERSION = 1;
+
+    /**
+     * The packed state of an arena at one tick boundary, reused from save to save. The items are captured by
+     * reference and read chunk by chunk by whichever thread, the writer or the ticking thread, takes the chunk first.
+     */
+    private static final class Snapshot {
+        static final int CHUNK = 4096; // Items read at a time
+
+        long tick;
+        double width, height, timeStep;
+        int count; // Items held
+        Object[] items; // The items in arena order, cleared as they are read
+        int[] ids = new int[64];
+        int[] generations = new int[64];
+        byte[] types = new byte[64];
+        ConvexPolygon[] shapes = new ConvexPolygon[64]; // Outline of obstacles, null for other items
+        int[] offsets = new int[64]; // Start of each item's values in the values of its chunk
+        int[] sizes = new int[64]; // Number of values of each item
+        double[][] values = new double[1][]; // State values of the items of each chunk, back to back
+        int chunkCount; // Chunks of CHUNK items, the last one possibly shorter
+        final AtomicInteger nextChunk = new AtomicInteger(); // First chunk neither thread has taken
+        final AtomicInteger chunksRead = new AtomicInteger(); // Chunks completely read
+
+        /**
+         * Copies the arena's settings and the references to its items. Must be called on the ticking thread.
+         */
+        void capture(RobotArena arena) {
+            tick = arena.getTick();
+            width = arena.getWidth();
+            height = arena.getHeight();
+            timeStep = arena.getTimeStep();
+            ArrayList<ArenaItem> arenaItems = arena.getItems();
+            count = arenaItems.size();
+            if (ids.length < count) {
+                int grown = Math.max(count, ids.length * 2);
+                ids = new int[grown];
+                generations = new int[grown];
+                types = new byte[grown];
+                shapes = new ConvexPolygon[grown];
+                offsets = new int[grown];
+                sizes = new int[grown];
+            }
+            // A new untyped array each time: copying into a long-lived or typed array checks or records every
+            // reference, which costs far more than allocating
+            items = arenaItems.toArray();
+            Arrays.fill(shapes, count, shapes.length, null); // Do not keep old outlines reachable
+            chunkCount = (count + CHUNK - 1) / CHUNK;
+            if (values.length < chunkCount) {
+                values = Arrays.copyOf(values, Math.max(chunkCount, values.length * 2));
+            }
+            chunksRead.set(0);
+            nextChunk.set(0); // Last, so neither thread takes a chunk before the rest is set
+        }
+
+        /**
+         * Reads the chunks no thread has taken yet, then waits for the other thread to finish the one it is
+         * reading, so every item has been read on return.
+         */
+        void readRemaining() {
+            int chunk;
+            while ((chunk = nextChunk.getAndIncrement()) < chunkCount) {
+                read(chunk);
+                chunksRead.incrementAndGet(); // Publishes the chunk's values to the other thread
+            }
+            while (chunksRead.get() < chunkCount) {
+                Thread.yield(); // The other thread's chunk: at most CHUNK items, well under a millisecond
+            }
+        }
+
+        private void read(int chunk) {
+            int first = chunk * CHUNK, last = Math.min(count, first + CHUNK);
+            double[] chunkValues = values[chunk];
+            if (chunkValues == null) {
+                chunkValues = new double[CHUNK * 4];
+            }
+            int end = 0;
+            for (int i = first; i < last; i++) {
+                ArenaItem item = (ArenaItem) items[i];
+                items[i] = null; // Do not keep removed items reachable
+                ids[i] = item.id;
+                generations[i] = item.generation;
+                types[i] = (byte) item.getType().getCode();
+                shapes[i] = item instanceof Obstacle ? ((Obstacle) item).getShape() : null;
+                int size = item.getStateSize();
+                if (chunkValues.length < end + size) {
+                    chunkValues = Arrays.copyOf(chunkValues, Math.max(end + size, chunkValues.length * 2));
+                }
+                offsets[i] = end;
+                sizes[i] = size;
+                item.saveState(chunkValues, end);
+                end += size;
+            }
+            values[chunk] = chunkValues;
+        }
+    }
+
+    private static final Snapshot END = new Snapshot(); // Tells the writer to finish
+
+    private final File directory; // Where saves are written
+    private final long intervalNanos; // Time between saves
+    private final BlockingQueue<Snapshot> queued = new ArrayBlockingQueue<>(2); // Room for a snapshot and the end
+    private final BlockingQueue<Snapshot> free = new ArrayBlockingQueue<>(1); // The snapshot, while not queued
+    private final Thread writer;
+    private long lastSave; // Time of the last snapshot, from System.nanoTime
+    private long captureNanos; // Time the ticking thread spent on the last snapshot
+    private long skipped; // Saves skipped because the writer was busy, counted by the ticking thread
+    private volatile long written; // Saves completed
+    private volatile long lastWrittenTick = -1; // Tick of the newest completed save
+    private volatile IOException failure; // First error of the writer, after which saves stop
+    private volatile boolean closed; // Set once close has started
+
+    /**
+     * Starts autosaving into a directory: creates the lock file and the writer thread. The first save is made at
+     * the first tick after one interval.
+     *
+     * @param directory      The directory saves are written to, created if needed.
+     * @param intervalMillis The time between saves, in milliseconds.
+     * @throws IOException If the directory or the lock file cannot be created.
+     */
+    public Autosave(File directory, long intervalMillis) throws IOException {
+        if (intervalMillis < 1) {
+            throw new IllegalArgumentException("Invalid autosave interval: " + intervalMillis);
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory " + directory);
+        }
+        this.directory = directory;
+        this.intervalNanos = intervalMillis * 1_000_000;
+        Files.write(new File(directory, LOCK_FILE_NAME).toPath(), new byte[0]);
+        free.add(new Snapshot());
+        lastSave = System.nanoTime();
+        writer = new Thread(this::writeSnapshots, "autosave-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Takes a snapshot if the interval has passed and the writer is free.
+     *
+     * @param arena The arena that was just updated.
+     */
+    @Override
+    public void record(RobotArena arena) {
+        if (!closed && System.nanoTime() - lastSave >= intervalNanos) {
+            save(arena);
+        }
+    }
+
+    /**
+     * Takes a snapshot now unless the writer is still busy with the previous one.
+     *
+     * @param arena The arena to save.
+     * @return True if a snapshot was taken.
+     */
+    public boolean save(RobotArena arena) {
+        Snapshot snapshot = closed || failure != null ? null : free.poll();
+        if (snapshot == null) {
+            skipped++; // The writer is behind or has failed; never wait for it
+            return false;
+        }
+        long start = System.nanoTime();
+        snapshot.capture(arena);
+        arena.runBeforeChange(() -> {
+            long helpStart = System.nanoTime();
+            snapshot.readRemaining(); // Usually nothing is left: the writer read the items between ticks
+            captureNanos += System.nanoTime() - helpStart;
+        });
+        lastSave = System.nanoTime();
+        captureNanos = lastSave - start;
+        queued.add(snapshot); // Always fits: there is one snapshot and room for it and the end marker
+        return true;
+    }
+
+    /**
+     * Body of the writer thread: writes queued snapshots until the end marker.
+     */
+    private void writeSnapshots() {
+        try {
+            while (true) {
+                Snapshot snapshot = queued.take();
+                if (snapshot == END) {
+                    break;
+                }
+                snapshot.readRemaining();
+                try {
+                    write(snapshot);
+                    lastWrittenTick = snapshot.tick;
+                    written++;
+                } catch (IOException e) {
+                    failure = e; // Later saves are skipped rather than written
+                }
+                free.add(snapshot);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(Snapshot snapshot) throws IOException {
+        File temp = new File(directory, TEMP_FILE_NAME);
+        try (FileOutputStream file = new FileOutputStream(temp)) {
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(
+                    new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), crc));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(snapshot.tick);
+            out.writeDouble(snapshot.width);
+            out.writeDouble(snapshot.height);
+            out.writeDouble(snapshot.timeStep);
+            out.writeInt(snapshot.count);
+            for (int i = 0; i < snapshot.count; i++) {
+                out.writeInt(snapshot.ids[i]);
+                out.writeInt(snapshot.generations[i]);
+                out.writeByte(snapshot.types[i]);
+                ConvexPolygon shape = snapshot.shapes[i];
+                if (shape != null) {
+                    out.writeInt(shape.getVertexCount());
+                    for (int v = 0; v < shape.getVertexCount(); v++) {
+                        out.writeDouble(shape.getX(v));
+                        out.writeDouble(shape.getY(v));
+                    }
+                }
+                double[] values = snapshot.values[i / Snapshot.CHUNK];
+                int start = snapshot.offsets[i], end = start + snapshot.sizes[i];
+                out.writeInt(end - start);
+                for (int v = start; v < end; v++) {
+                    out.writeDouble(values[v]);
+                }
+            }
+            out.flush();
+            int checksum = (int) crc.getValue();
+            out.writeInt(checksum); // Not part of its own checksum, which was taken before
+            out.flush();
+            file.getFD().sync(); // On disk before it replaces a good save
+        }
+
+        // Keep the previous save until the new one is in place; a crash in between leaves both intact files
+        File current = new File(directory, FILE_NAME);
+        if (current.exists()) {
+            Files.move(current.toPath(), new File(directory, PREVIOUS_FILE_NAME).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.move(temp.toPath(), current.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory();
+    }
+
+    /**
+     * Forces the renames to disk where the platform allows opening a directory.
+     */
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not supported on this platform; the renames still reach the disk eventually
+        }
+    }
+
+    /**
+     * Stops autosaving, waits for a pending save to be written and removes the lock file, marking a clean
+     * shutdown.
+     *
+     * @throws IOException If the writer failed to write a save.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        queued.add(END);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Files.deleteIfExists(new File(directory, LOCK_FILE_NAME).toPath());
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Returns whether autosaving into a directory was started and never closed, as after a crash.
+     *
+     * @param directory The autosave directory.
+     * @return True if the lock file exists.
+     */
+    public static boolean wasInterrupted(File directory) {
+        return new File(directory, LOCK_FILE_NAME).exists();
+    }
+
+    /**
+     * Reads the newest intact save of a directory, looking at every file a crash during rotation may leave.
+     *
+     * @param directory The autosave directory.
+     * @return The saved arena, or null if there is no intact save.
+     */
+    public static RobotArena readLatest(File directory) {
+        RobotArena latest = null;
+        for (String name : new String[]{FILE_NAME, TEMP_FILE_NAME, PREVIOUS_FILE_NAME}) {
+            File file = new File(directory, name);
+            if (!file.isFile()) {
+                continue;
+            }
+            try {
+                RobotArena arena = read(file);
+                if (latest == null || arena.getTick() > latest.getTick()) {
+                    latest = arena;
+                }
+            } catch (IOException e) {
+                // Torn or damaged by a crash; an older save may still be intact
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Reads a save into a new arena.
+     *
+     * @param file The save.
+     * @return The saved arena, at the saved tick.
+     * @throws IOException If the file cannot be read or is not an intact save.
+     */
+    public static RobotArena read(File file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        if (bytes.length < 4) {
+            throw new IOException("Truncated autosave " + file);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 4);
+        ByteBuffer data = ByteBuffer.wrap(bytes);
+        if (data.getInt(bytes.length - 4) != (int) crc.getValue()) {
+            throw new IOException("Damaged autosave " + file);
+        }
+        try {
+            if (data.getInt() != MAGIC || data.getInt() != VERSION) {
+                throw new IOException("Not an autosave of this version: " + file);
+            }
+            long tick = data.getLong();
+            RobotArena arena = new RobotArena(data.getDouble(), data.getDouble());
+            arena.setTimeStep(data.getDouble());
+            int count = data.getInt();
+            ArrayList<ArenaItem> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int id = data.getInt();
+                int generation = data.getInt();
+                ItemType type = ItemType.fromCode(data.get());
+                ConvexPolygon shape = null;
+                if (type == ItemType.OBSTACLE) {
+                    int vertexCount = data.getInt();
+                    double[] xs = new double[vertexCount];
+                    double[] ys = new double[vertexCount];
+                    for (int v = 0; v < vertexCount; v++) {
+                        xs[v] = data.getDouble();
+                        ys[v] = data.getDouble();
+                    }
+                    shape = new ConvexPolygon(xs, ys);
+                }
+                double[] state = new double[data.getInt()];
+                for (int v = 0; v < state.length; v++) {
+                    state[v] = data.getDouble();
+                }
+                ArenaItem item = shape != null
+                        ? new Obstacle(state[0], state[1], state[2], shape)
+                        : type.newInstance(state[0], state[1], state[2]);
+                item.loadState(state, 0);
+                item.id = id;
+                item.generation = generation;
+                items.add(item);
+            }
+            arena.restore(tick, items);
+            return arena;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Malformed autosave " + file, e);
+        }
+    }
+
+    /**
+     * Returns the directory saves are written to.
+     *
+     * @return The directory.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns how long the ticking thread spent copying the arena for the last save, including any item states it
+     * read itself because the next tick started before the writer had read them.
+     *
+     * @return The time in nanoseconds.
+     */
+    public long getCaptureNanos() {
+        return captureNanos;
+    }
+
+    /**
+     * Returns the number of saves skipped because the writer was still busy or had failed.
+     *
+     * @return The skipped save count.
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Returns the number of saves written so far.
+     *
+     * @return The written save count.
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    /**
+     * Returns the tick of the newest save written.
+     *
+     * @return The tick, or -1 before the first save.
+     */
+    public long getLastWrittenTick() {
+        return lastWrittenTick;
+    }
+
+    /**
+     * Returns the error that stopped the writer, if any.
+     *
+     * @return The error, or null while saving works.
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+}
@@ -10,11 +10,16 @@ import javafx.scene.paint.Color;
  */
 public class BeamSensorRobot extends Robot {
     // Constants
-    private static final double TURN_ANGLE = Math.PI / 4; // 45 degrees
-    private static final double DETECTION_ANGLE = Math.PI / 6; // 30 degrees
+    public static final double DEFAULT_TURN_ANGLE = Math.PI / 4; // 45 degrees
+    public static final double DEFAULT_DETECTION_ANGLE = Math.PI / 6; // 30 degrees
 
   
     private double sensorRange; // Range of the beam sensor
+    private double turnAngle = DEFAULT_TURN_ANGLE; // Angle turned away from a detected obstacle
+    private double detectionAngle = DEFAULT_DETECTION_ANGLE; // Largest angle off the heading at which items are seen
+    private double turnCos = Math.cos(turnAngle), turnSin = Math.sin(turnAngle); // Cached for every turn
+    private double detectionCos = Math.cos(detectionAngle); // Cached for every detection
+    private double detectionSin = Math.sin(detectionAngle); // Cached for obstacle detection
 
     // Energy level of the robot
     private double energy;
@@ -44,13 +49,12 @@ public class BeamSensorRobot extends Robot {
     @Override
     public void update(RobotArena arena) {
 
-        if (energy <= 0) {
-            arena.removeItem(this); // Remove robot from the arena when energy is depleted
+        if (removeIfExhausted(arena)) {
             return;
         }
 
-        move(); // Move in the current direction
-        energy -= 0.05; // Reduce energy gradually with each update
+        move(arena); // Move in the current direction
+        spendEnergy(arena, false);
 
         // Detect items in the robot's path
         ArenaItem detectedItem = detectItemInPath(arena);
@@ -72,7 +76,7 @@ public class BeamSensorRobot extends Robot {
      * The robot turns away by a predefined angle.
      */
     private void handleDetectedObstacle() {
-        angle += TURN_ANGLE; // Turn away from obstacle, robot, or wall
+        turn(turnCos, turnSin); // Turn away from obstacle, robot, or wall
         energy -= 0.5; // Turning consumes additional energy
     }
 
@@ -83,15 +87,52 @@ public class BeamSensorRobot extends Robot {
      * @param arena The RobotArena that contains all items.
      */
     private void moveTowardFood(ArenaItem food, RobotArena arena) {
-        double dx = food.x - this.x;
-        double dy = food.y - this.y;
-        this.angle = Math.atan2(dy, dx);
+        navigateToward(arena, food.x, food.y); // Around obstacles between the robot and the food
 
         // Absorb food if overlapping
         if (this.overlaps(food)) {
+            arena.publishEvent(SimulationEvent.MEAL, this, food);
             arena.removeItem(food);
-            energy += 10; // Replenish energy upon consuming food
+            gainMealEnergy();
+        }
+    }
+
+    /**
+     * Removes the robot if its energy is depleted.
+     *
+     * @param arena The arena containing the robot.
+     * @return True if the robot died and was removed.
+     */
+    @Override
+    protected boolean removeIfExhausted(RobotArena arena) {
+        if (energy > 0) {
+            return false;
         }
+        arena.publishEvent(SimulationEvent.DEATH, this, null);
+        arena.removeItem(this); // Remove robot from the arena when energy is depleted
+        return true;
+    }
+
+    /**
+     * Reduces energy gradually, in proportion to the simulated time, and by a further 0.5 for a turn.
+     *
+     * @param arena  The arena containing the robot.
+     * @param turned Whether the robot turned away from something this tick.
+     */
+    @Override
+    protected void spendEnergy(RobotArena arena, boolean turned) {
+        energy -= 0.05 * arena.getTimeStep();
+        if (turned) {
+            energy -= 0.5; // Turning consumes additional energy
+        }
+    }
+
+    /**
+     * Replenishes 10 energy.
+     */
+    @Override
+    protected void gainMealEnergy() {
+        energy += 10;
     }
 
     /**
@@ -123,11 +164,11 @@ public class BeamSensorRobot extends Robot {
         // Draw beam sensor
         gc.setStroke(Color.YELLOW);
         gc.setLineWidth(1);
-        gc.strokeLine(x, y, x + sensorRange * Math.cos(angle), y + sensorRange * Math.sin(angle));
+        gc.strokeLine(x, y, x + sensorRange * dirX, y + sensorRange * dirY);
 
         // Optionally alternate beam color for a pulsating effect
         gc.setStroke(Color.color(1, 1, 0, 0.5)); // Semi-transparent yellow
-        gc.strokeLine(x, y, x + (sensorRange * 0.8) * Math.cos(angle), y + (sensorRange * 0.8) * Math.sin(angle));
+        gc.strokeLine(x, y, x + (sensorRange * 0.8) * dirX, y + (sensorRange * 0.8) * dirY);
 
         // Draw sensor range circle
         gc.setStroke(Color.LIGHTGRAY);
@@ -142,30 +183,48 @@ public class BeamSensorRobot extends Robot {
     }
 
     /**
-     * Detects the first item in the robot's path within the sensor range.
+     * Returns how far the beam sensor reaches from the robot's centre.
+     *
+     * @return The sensing reach.
+     */
+    @Override
+    protected double getSensingReach() {
+        return Math.max(super.getSensingReach(), sensorRange);
+    }
+
+    /**
+     * Detects the first item, in arena order, in the robot's path within the sensor range.
      * @param arena The arena to search for items.
      * @return The detected ArenaItem, or null if no item is found.
      */
     private ArenaItem detectItemInPath(RobotArena arena) {
-        return arena.getItems().stream()
-                .filter(item -> item != this) // Exclude self
-                .filter(item -> {
-                    // Check if item is within sensor range
-                    double dx = item.x - this.x;
-                    double dy = item.y - this.y;
-                    double distance = Math.sqrt(dx * dx + dy * dy);
-                    return distance <= sensorRange;
-                })
-                .filter(item -> {
-                    // Check if item is within the detection angle
-                    double dx = item.x - this.x;
-                    double dy = item.y - this.y;
-                    double angleToItem = Math.atan2(dy, dx);
-                    double angleDifference = Math.abs(angle - angleToItem);
-                    return angleDifference < DETECTION_ANGLE || angleDifference > 2 * Math.PI - DETECTION_ANGLE;
-                })
-                .findFirst()
-                .orElse(null); // Return the first detected item or null
+        // Only items whose centres lie within the sensor range can be detected; nearby is in arena order
+        collectNearby(arena, x - sensorRange, y - sensorRange, x + sensorRange, y + sensorRange);
+
+        for (ArenaItem item : nearby) {
+            if (item instanceof Obstacle) {
+                // Obstacles, whose boxes the query already matched, are detected when their outline reaches into
+                // the beam's cone anywhere within range
+                if (((Obstacle) item).intersectsSector(x, y, dirX, dirY, detectionCos, detectionSin, sensorRange)) {
+                    return item;
+                }
+                continue;
+            }
+            // Check if item is within sensor range
+            double dx = item.x - this.x;
+            double dy = item.y - this.y;
+            double distanceSq = dx * dx + dy * dy;
+            if (distanceSq > sensorRange * sensorRange) {
+                continue;
+            }
+            // Check if item is within the detection angle: the angle between the heading and
+            // the direction to the item is below detectionAngle when its cosine is above detectionCos
+            double dot = dx * dirX + dy * dirY;
+            if (dot > 0 && dot * dot > detectionCos * detectionCos * distanceSq) {
+                return item;
+            }
+        }
+        return null; // Nothing in the beam
     }
 
     /**
@@ -179,8 +238,8 @@ public class BeamSensorRobot extends Robot {
         double arenaHeight = arena.getHeight();
 
         // Calculate beam endpoint
-        double beamEndX = x + sensorRange * Math.cos(angle);
-        double beamEndY = y + sensorRange * Math.sin(angle);
+        double beamEndX = x + sensorRange * dirX;
+        double beamEndY = y + sensorRange * dirY;
 
         // Check for intersection with each wall
         return intersectsLine(x, y, beamEndX, beamEndY, 0, 0, arenaWidth, 0) || // Top wall
@@ -223,6 +282,46 @@ public class BeamSensorRobot extends Robot {
         this.sensorRange = sensorRange;
     }
 
+    /**
+     * Returns the angle the robot turns away from a detected obstacle, robot or wall.
+     *
+     * @return The turn angle in radians.
+     */
+    public double getTurnAngle() {
+        return turnAngle;
+    }
+
+    /**
+     * Sets the angle the robot turns away from a detected obstacle, robot or wall.
+     *
+     * @param turnAngle The turn angle in radians.
+     */
+    public void setTurnAngle(double turnAngle) {
+        this.turnAngle = turnAngle;
+        turnCos = Math.cos(turnAngle);
+        turnSin = Math.sin(turnAngle);
+    }
+
+    /**
+     * Returns the largest angle between the heading and an item at which the beam detects the item.
+     *
+     * @return The detection angle in radians.
+     */
+    public double getDetectionAngle() {
+        return detectionAngle;
+    }
+
+    /**
+     * Sets the largest angle between the heading and an item at which the beam detects the item.
+     *
+     * @param detectionAngle The detection angle in radians, below a quarter turn.
+     */
+    public void setDetectionAngle(double detectionAngle) {
+        this.detectionAngle = detectionAngle;
+        detectionCos = Math.cos(detectionAngle);
+        detectionSin = Math.sin(detectionAngle);
+    }
+
     // Getter and setter for energy
     public double getEnergy() {
         return energy;
@@ -231,4 +330,55 @@ public class BeamSensorRobot extends Robot {
     public void setEnergy(double energy) {
         this.energy = energy;
     }
+
+    /**
+     * Returns the number of state values, including the sensor range, energy and angles.
+     *
+     * @return The number of state values.
+     */
+    @Override
+    public int getStateSize() {
+        return super.getStateSize() + 4;
+    }
+
+    /**
+     * Writes the robot's state, including the sensor range, energy and angles, into an array.
+     *
+     * @param state  The array to write to.
+     * @param offset The index of the first value.
+     */
+    @Override
+    public void saveState(double[] state, int offset) {
+        super.saveState(state, offset);
+        int i = offset + super.getStateSize();
+        state[i] = sensorRange;
+        state[i + 1] = energy;
+        state[i + 2] = turnAngle;
+        state[i + 3] = detectionAngle;
+    }
+
+    /**
+     * Restores the robot's state, including the sensor range, energy and angles, from an array.
+     *
+     * @param state  The array to read from.
+     * @param offset The index of the first value.
+     */
+    @Override
+    public void loadState(double[] state, int offset) {
+        super.loadState(state, offset);
+        int i = offset + super.getStateSize();
+        sensorRange = state[i];
+        energy = state[i + 1];
+        setTurnAngle(state[i + 2]);
+        setDetectionAngle(state[i + 3]);
+    }
+
+    /**
+     * Returns the type of this item.
+     * @return ItemType.BEAM_SENSOR_ROBOT
+     */
+    @Override
+    public ItemType getType() {
+        return ItemType.BEAM_SENSOR_ROBOT;
+    }
 }
@@ -0,0 +1,84 @@
+package com.example.robotgui;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A lock-free queue of {@link ArenaCommand}s with any number of producers and a single consumer.
+ * <p>
+ * The queue is a linked list with a dummy head, as described by Dmitry Vyukov: a producer swaps its node into the
+ * tail with one atomic exchange and then links the previous tail to it, so producers never wait for each other or
+ * for the consumer. The consumer follows the links from the head without any atomic operation. Between the
+ * exchange and the link a node is not yet reachable; the consumer stops there and picks it up on its next drain.
+ * <p>
+ * Each drain only applies the commands submitted before it started, so commands that submit further commands
+ * cannot keep a drain going; those are applied at the next tick boundary.
+ */
+public class CommandQueue {
+
+    /**
+     * A queued command and the link to the next one.
+     */
+    private static final class Node {
+        ArenaCommand command; // Cleared once applied, so the dummy head holds nothing
+        volatile Node next;
+
+        Node(ArenaCommand command) {
+            this.command = command;
+        }
+    }
+
+    private final AtomicReference<Node> tail; // Last submitted node, swapped by producers
+    private Node head; // Dummy node before the first queued command, only touched by the consumer
+
+    /**
+     * Creates an empty queue.
+     */
+    public CommandQueue() {
+        head = new Node(null);
+        tail = new AtomicReference<>(head);
+    }
+
+    /**
+     * Queues a command. Safe to call from any thread, and never blocks.
+     *
+     * @param command The command.
+     */
+    public void submit(ArenaCommand command) {
+        Node node = new Node(command);
+        Node previous = tail.getAndSet(node);
+        previous.next = node; // Publishes the node, and the command written before the exchange, to the consumer
+    }
+
+    /**
+     * Returns whether no command is waiting. Only meaningful on the consumer thread.
+     *
+     * @return True if a drain would apply nothing.
+     */
+    public boolean isEmpty() {
+        return head.next == null;
+    }
+
+    /**
+     * Applies every command submitted before the call, in submission order. Must only be called by one thread at a
+     * time. If a command throws, the commands before it stay applied and those after it stay queued.
+     *
+     * @param arena The arena passed to the commands.
+     * @return The number of commands applied.
+     */
+    public int drain(RobotArena arena) {
+        Node last = tail.get();
+        int applied = 0;
+        while (head != last) {
+            Node next = head.next;
+            if (next == null) {
+                break; // A producer has swapped the tail but not linked its node yet
+            }
+            head = next; // The applied node becomes the dummy head
+            ArenaCommand command = next.command;
+            next.command = null;
+            command.apply(arena);
+            applied++;
+        }
+        return applied;
+    }
+}
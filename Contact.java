@@ -0,0 +1,86 @@
+package com.example.robotgui;
+
+/**
+ * The earliest contact found by a swept collision test.
+ * A single instance is reused for every test to keep collision checks free of garbage.
+ */
+public final class Contact {
+    /** Fraction of the movement at which contact happens, 1 or more if the movement is free. */
+    public double time;
+    /** X component of the unit surface normal at the contact, pointing towards the moving circle. */
+    public double normalX;
+    /** Y component of the unit surface normal at the contact, pointing towards the moving circle. */
+    public double normalY;
+    /** The item that was hit, or null for the arena walls or when nothing was hit. */
+    public ArenaItem item;
+
+    /**
+     * Resets the contact to "no hit".
+     */
+    public void clear() {
+        time = Double.POSITIVE_INFINITY;
+        normalX = 0;
+        normalY = 0;
+        item = null;
+    }
+
+    /**
+     * Records a hit if it is earlier than the current one.
+     *
+     * @param t  Fraction of the movement at which the hit happens.
+     * @param nx X component of the surface normal.
+     * @param ny Y component of the surface normal.
+     * @return True if the hit was recorded.
+     */
+    boolean offer(double t, double nx, double ny) {
+        if (t < time) {
+            time = t;
+            normalX = nx;
+            normalY = ny;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Computes when a moving point first comes within a distance of a fixed point, which is the
+     * time of impact of two circles when the distance is the sum of their radii.
+     *
+     * @param px       X-coordinate of the moving point at the start of the movement.
+     * @param py       Y-coordinate of the moving point at the start of the movement.
+     * @param dx       X component of the movement.
+     * @param dy       Y component of the movement.
+     * @param cx       X-coordinate of the fixed point.
+     * @param cy       Y-coordinate of the fixed point.
+     * @param distance The distance at which the two touch.
+     * @return The fraction of the movement at which they first touch, or positive infinity if they never do.
+     *         Points that already touch give 0 only if they are moving closer.
+     */
+    public static double timeOfImpact(double px, double py, double dx, double dy,
+                                      double cx, double cy, double distance) {
+        double ox = px - cx, oy = py - cy;
+        double c = ox * ox + oy * oy - distance * distance;
+        double b = ox * dx + oy * dy; // Half the linear coefficient of |o + t d|^2 = distance^2
+        if (c <= 0) {
+            return b < 0 ? 0 : Double.POSITIVE_INFINITY; // Already touching: only a hit when closing in
+        }
+        double a = dx * dx + dy * dy;
+        if (b >= 0 || a == 0) {
+            return Double.POSITIVE_INFINITY; // Moving apart or not moving
+        }
+        double discriminant = b * b - a * c;
+        if (discriminant < 0) {
+            return Double.POSITIVE_INFINITY; // Passes by without touching
+        }
+        return (-b - Math.sqrt(discriminant)) / a;
+    }
+
+    /**
+     * Returns whether anything was hit within the movement.
+     *
+     * @return True if the contact time is within [0, 1].
+     */
+    public boolean isHit() {
+        return time <= 1;
+    }
+}
@@ -3,6 +3,8 @@ package com.example.robotgui;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 
+import java.util.ArrayList;
+
 /**
  * A controllable robot that can move, interact with items in the arena, and display health and score.
  * Features include:
@@ -13,6 +15,10 @@ public class ControllableRobot extends ArenaItem {
     private double speed; // Movement speed of the robot
     private int health; // Health of the robot (0 to 100)
     private int score; // Score tracking for interactions
+    private final ArrayList<ArenaItem> touching = new ArrayList<>(); // Reused list of static items in reach
+    private static final ItemType[] ROBOT_TYPES = {ItemType.WHISKER_ROBOT, ItemType.PREDATOR_ROBOT,
+            ItemType.BEAM_SENSOR_ROBOT, ItemType.CONTROLLABLE_ROBOT,
+            ItemType.LIDAR_ROBOT}; // The dynamic item types
 
     /**
      * Constructs a controllable robot with the given attributes.
@@ -115,19 +121,30 @@ public class ControllableRobot extends ArenaItem {
      */
     @Override
     public void update(RobotArena arena) {
-        for (ArenaItem item : arena.getItems()) {
-            if (item != this) {
-                if (item instanceof Food && isCollidingWith(item)) {
-                    arena.removeItem(item); // Remove the food from the arena
-                    increaseHealth(10); // Increase health by 10 when food is eaten
-                    increaseScore(5); // Increase score by 5
-                } else if (isCollidingWith(item)) {
-                    reduceHealth(10); // Reduce health by 10 on collision
-                }
+        // Static items (food and obstacles) that can be touched, copied so eaten food can be removed
+        touching.clear();
+        arena.queryStatic(x - radius, y - radius, x + radius, y + radius, touching);
+        for (ArenaItem item : touching) {
+            if (item instanceof Food && isCollidingWith(item)) {
+                arena.publishEvent(SimulationEvent.MEAL, this, item);
+                arena.removeItem(item); // Remove the food from the arena
+                increaseHealth(10); // Increase health by 10 when food is eaten
+                increaseScore(5); // Increase score by 5
+            } else if (isCollidingWith(item)) {
+                reduceHealth(10); // Reduce health by 10 on collision
+            }
+        }
+        for (ItemType type : ROBOT_TYPES) { // Robots are circles, so a distance scan finds the collisions
+            PackedItems robots = arena.getPacked(type);
+            int colliding = DistanceKernels.countWithin(robots.x, robots.y, robots.radius, robots.size, x, y, radius);
+            if (type == ItemType.CONTROLLABLE_ROBOT) {
+                colliding--; // This robot always lies within its own radius
             }
+            reduceHealth(10 * colliding); // Reduce health by 10 per collision
         }
 
         if (health <= 0) {
+            arena.publishEvent(SimulationEvent.DEATH, this, null);
             arena.removeItem(this); // Remove the robot if health is 0
         }
     }
@@ -138,10 +155,7 @@ public class ControllableRobot extends ArenaItem {
      * @return True if the items are colliding, false otherwise.
      */
     private boolean isCollidingWith(ArenaItem other) {
-        double dx = this.x - other.x;
-        double dy = this.y - other.y;
-        double distance = Math.sqrt(dx * dx + dy * dy);
-        return distance < this.radius + other.radius;
+        return overlaps(other); // Uses the exact outline for obstacles
     }
 
     /**
@@ -188,4 +202,53 @@ public class ControllableRobot extends ArenaItem {
             gc.fillText("Score: " + score, x - radius, y - radius - 20);
         }
     }
+
+    /**
+     * Returns the number of state values, including the speed, health and score.
+     *
+     * @return The number of state values.
+     */
+    @Override
+    public int getStateSize() {
+        return super.getStateSize() + 3;
+    }
+
+    /**
+     * Writes the robot's state, including the speed, health and score, into an array.
+     *
+     * @param state  The array to write to.
+     * @param offset The index of the first value.
+     */
+    @Override
+    public void saveState(double[] state, int offset) {
+        super.saveState(state, offset);
+        int i = offset + super.getStateSize();
+        state[i] = speed;
+        state[i + 1] = health;
+        state[i + 2] = score;
+    }
+
+    /**
+     * Restores the robot's state, including the speed, health and score, from an array.
+     *
+     * @param state  The array to read from.
+     * @param offset The index of the first value.
+     */
+    @Override
+    public void loadState(double[] state, int offset) {
+        super.loadState(state, offset);
+        int i = offset + super.getStateSize();
+        speed = state[i];
+        health = (int) state[i + 1];
+        score = (int) state[i + 2];
+    }
+
+    /**
+     * Returns the type of this item.
+     * @return ItemType.CONTROLLABLE_ROBOT
+     */
+    @Override
+    public ItemType getType() {
+        return ItemType.CONTROLLABLE_ROBOT;
+    }
 }
@@ -0,0 +1,431 @@
+package com.example.robotgui;
+
+/**
+ * An immutable convex polygon in local coordinates, used as the exact shape of obstacles.
+ * <p>
+ * The polygon is stored both as its vertices and as the intersection of half-planes {@code n . p <= d},
+ * one per edge with an outward normal, which makes containment, ray and overlap tests simple loops.
+ * All query coordinates are relative to the polygon's origin; callers translate world positions first.
+ */
+public final class ConvexPolygon {
+    private final double[] xs, ys; // Vertices, in order around the polygon
+    private final double[] normalX, normalY; // Outward unit normal of each edge (edge i runs from vertex i to i + 1)
+    private final double[] offset; // Half-plane offset of each edge: n . p <= offset for points inside
+    private final double minX, minY, maxX, maxY; // Local bounding box
+    private final double boundingRadius; // Distance from the origin to the farthest vertex
+
+    /**
+     * Creates a polygon from its vertices, given in order around the polygon (either direction).
+     *
+     * @param xs The x-coordinates of the vertices, relative to the origin.
+     * @param ys The y-coordinates of the vertices, relative to the origin.
+     * @throws IllegalArgumentException If fewer than three vertices are given.
+     */
+    public ConvexPolygon(double[] xs, double[] ys) {
+        if (xs.length < 3 || xs.length != ys.length) {
+            throw new IllegalArgumentException("A polygon needs at least three vertices");
+        }
+        int n = xs.length;
+        this.xs = xs.clone();
+        this.ys = ys.clone();
+        normalX = new double[n];
+        normalY = new double[n];
+        offset = new double[n];
+
+        // The vertex average lies inside a convex polygon and tells which side of each edge is inside
+        double centreX = 0, centreY = 0;
+        double lowX = Double.POSITIVE_INFINITY, lowY = Double.POSITIVE_INFINITY;
+        double highX = Double.NEGATIVE_INFINITY, highY = Double.NEGATIVE_INFINITY;
+        double farthest = 0;
+        for (int i = 0; i < n; i++) {
+            centreX += xs[i] / n;
+            centreY += ys[i] / n;
+            lowX = Math.min(lowX, xs[i]);
+            lowY = Math.min(lowY, ys[i]);
+            highX = Math.max(highX, xs[i]);
+            highY = Math.max(highY, ys[i]);
+            farthest = Math.max(farthest, xs[i] * xs[i] + ys[i] * ys[i]);
+        }
+        for (int i = 0; i < n; i++) {
+            int j = (i + 1) % n;
+            double edgeX = xs[j] - xs[i];
+            double edgeY = ys[j] - ys[i];
+            double length = Math.sqrt(edgeX * edgeX + edgeY * edgeY);
+            double nx = edgeY / length;
+            double ny = -edgeX / length;
+            if (nx * (centreX - xs[i]) + ny * (centreY - ys[i]) > 0) {
+                nx = -nx; // Flip so the normal points away from the inside
+                ny = -ny;
+            }
+            normalX[i] = nx;
+            normalY[i] = ny;
+            offset[i] = nx * xs[i] + ny * ys[i];
+        }
+        minX = lowX;
+        minY = lowY;
+        maxX = highX;
+        maxY = highY;
+        boundingRadius = Math.sqrt(farthest);
+    }
+
+    /**
+     * Creates the isosceles triangle that obstacles have always been drawn as:
+     * apex at the top, base at the bottom, both half-extents equal to the given size.
+     *
+     * @param size The half-width and half-height of the triangle.
+     * @return The triangle.
+     */
+    public static ConvexPolygon triangle(double size) {
+        return new ConvexPolygon(new double[]{0, -size, size}, new double[]{-size, size, size});
+    }
+
+    /**
+     * Creates a rectangle of the given length and thickness along a direction, centred on the origin.
+     *
+     * @param length    The length of the rectangle along the direction.
+     * @param thickness The extent of the rectangle across the direction.
+     * @param dirX      The x component of the unit direction.
+     * @param dirY      The y component of the unit direction.
+     * @return The rectangle.
+     */
+    public static ConvexPolygon rectangle(double length, double thickness, double dirX, double dirY) {
+        double ax = dirX * length / 2, ay = dirY * length / 2; // Half-length along the direction
+        double bx = -dirY * thickness / 2, by = dirX * thickness / 2; // Half-thickness across it
+        return new ConvexPolygon(
+                new double[]{-ax - bx, ax - bx, ax + bx, -ax + bx},
+                new double[]{-ay - by, ay - by, ay + by, -ay + by});
+    }
+
+    /** @return The number of vertices. */
+    public int getVertexCount() {
+        return xs.length;
+    }
+
+    /**
+     * @param i Vertex index.
+     * @return The local x-coordinate of the vertex.
+     */
+    public double getX(int i) {
+        return xs[i];
+    }
+
+    /**
+     * @param i Vertex index.
+     * @return The local y-coordinate of the vertex.
+     */
+    public double getY(int i) {
+        return ys[i];
+    }
+
+    /** @return The left edge of the local bounding box. */
+    public double getMinX() {
+        return minX;
+    }
+
+    /** @return The top edge of the local bounding box. */
+    public double getMinY() {
+        return minY;
+    }
+
+    /** @return The right edge of the local bounding box. */
+    public double getMaxX() {
+        return maxX;
+    }
+
+    /** @return The bottom edge of the local bounding box. */
+    public double getMaxY() {
+        return maxY;
+    }
+
+    /** @return The distance from the origin to the farthest vertex. */
+    public double getBoundingRadius() {
+        return boundingRadius;
+    }
+
+    /**
+     * Checks whether a point lies inside the polygon.
+     *
+     * @param px Local x-coordinate of the point.
+     * @param py Local y-coordinate of the point.
+     * @return True if the point is inside or on the boundary.
+     */
+    public boolean contains(double px, double py) {
+        for (int i = 0; i < offset.length; i++) {
+            if (normalX[i] * px + normalY[i] * py > offset[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the distance from a point to the polygon, 0 if the point is inside.
+     *
+     * @param px Local x-coordinate of the point.
+     * @param py Local y-coordinate of the point.
+     * @return The distance to the nearest point of the polygon.
+     */
+    public double distanceTo(double px, double py) {
+        if (contains(px, py)) {
+            return 0;
+        }
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < xs.length; i++) {
+            int j = (i + 1) % xs.length;
+            best = Math.min(best, pointSegmentDistanceSq(px, py, xs[i], ys[i], xs[j], ys[j]));
+        }
+        return Math.sqrt(best);
+    }
+
+    /**
+     * Returns the distance from a line segment to the polygon, 0 if they intersect.
+     *
+     * @param ax Local x-coordinate of the segment start.
+     * @param ay Local y-coordinate of the segment start.
+     * @param bx Local x-coordinate of the segment end.
+     * @param by Local y-coordinate of the segment end.
+     * @return The distance between the closest points of the segment and the polygon.
+     */
+    public double distanceToSegment(double ax, double ay, double bx, double by) {
+        if (raycast(ax, ay, bx - ax, by - ay, 1) <= 1) {
+            return 0; // The segment enters the polygon
+        }
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < xs.length; i++) {
+            int j = (i + 1) % xs.length;
+            best = Math.min(best, segmentSegmentDistanceSq(ax, ay, bx, by, xs[i], ys[i], xs[j], ys[j]));
+        }
+        return Math.sqrt(best);
+    }
+
+    /**
+     * Intersects the ray {@code origin + t * direction} with the polygon (Cyrus-Beck clipping).
+     *
+     * @param ox   Local x-coordinate of the ray origin.
+     * @param oy   Local y-coordinate of the ray origin.
+     * @param dx   X component of the ray direction.
+     * @param dy   Y component of the ray direction.
+     * @param maxT The largest parameter of interest.
+     * @return The smallest t in [0, maxT] at which the ray is inside the polygon, or positive infinity if none.
+     */
+    public double raycast(double ox, double oy, double dx, double dy, double maxT) {
+        double enter = 0;
+        double exit = maxT;
+        for (int i = 0; i < offset.length; i++) {
+            double denominator = normalX[i] * dx + normalY[i] * dy;
+            double distance = offset[i] - (normalX[i] * ox + normalY[i] * oy); // >= 0 when origin is inside edge i
+            if (denominator == 0) {
+                if (distance < 0) {
+                    return Double.POSITIVE_INFINITY; // Parallel to and outside this edge
+                }
+            } else {
+                double t = distance / denominator;
+                if (denominator < 0) {
+                    enter = Math.max(enter, t); // Ray is entering through this edge
+                } else {
+                    exit = Math.min(exit, t); // Ray is leaving through this edge
+                }
+                if (enter > exit) {
+                    return Double.POSITIVE_INFINITY;
+                }
+            }
+        }
+        return enter;
+    }
+
+    /**
+     * Checks whether the polygon reaches into a circular sector: the points within a range of an apex whose direction
+     * from the apex is closer to a heading than the sector's half-angle.
+     * <p>
+     * If the point of the polygon nearest the apex lies in the sector, they share it. Otherwise a polygon that still
+     * reaches into the sector crosses one of the sector's edge rays no farther away than that point, because the
+     * segment from it to a point in the sector lies in the polygon, so casting both edge rays settles it.
+     *
+     * @param px    Local x-coordinate of the apex.
+     * @param py    Local y-coordinate of the apex.
+     * @param dirX  X component of the unit heading.
+     * @param dirY  Y component of the unit heading.
+     * @param cos   Cosine of the half-angle, which must be below a quarter turn.
+     * @param sin   Sine of the half-angle.
+     * @param range Radius of the sector.
+     * @return True if the polygon and the sector share a point.
+     */
+    public boolean intersectsSector(double px, double py, double dirX, double dirY, double cos, double sin,
+                                    double range) {
+        if (contains(px, py)) {
+            return true;
+        }
+        double nearestSq = Double.MAX_VALUE, nearestX = 0, nearestY = 0;
+        for (int i = 0; i < xs.length; i++) {
+            int j = (i + 1) % xs.length;
+            double abX = xs[j] - xs[i], abY = ys[j] - ys[i];
+            double lengthSq = abX * abX + abY * abY;
+            double t = lengthSq > 0 ? ((px - xs[i]) * abX + (py - ys[i]) * abY) / lengthSq : 0;
+            t = Math.max(0, Math.min(1, t));
+            double dx = xs[i] + t * abX - px;
+            double dy = ys[i] + t * abY - py;
+            if (dx * dx + dy * dy < nearestSq) {
+                nearestSq = dx * dx + dy * dy;
+                nearestX = dx;
+                nearestY = dy;
+            }
+        }
+        if (nearestSq > range * range) {
+            return false; // The whole polygon is out of range
+        }
+        double dot = nearestX * dirX + nearestY * dirY;
+        if (dot > 0 && dot * dot > cos * cos * nearestSq) {
+            return true;
+        }
+        return raycast(px, py, dirX * cos - dirY * sin, dirX * sin + dirY * cos, range) <= range
+                || raycast(px, py, dirX * cos + dirY * sin, dirY * cos - dirX * sin, range) <= range;
+    }
+
+    /**
+     * Sweeps a circle along a movement and finds when it first touches the polygon.
+     * This is a ray cast against the polygon grown by the circle's radius: each edge pushed out by the radius,
+     * plus a circle of that radius around each vertex. A circle that already overlaps the polygon only
+     * counts as hitting it if the movement takes it deeper, so overlapping robots can always move free.
+     *
+     * @param px      Local x-coordinate of the circle's centre at the start of the movement.
+     * @param py      Local y-coordinate of the circle's centre at the start of the movement.
+     * @param r       The radius of the circle.
+     * @param dx      X component of the movement.
+     * @param dy      Y component of the movement.
+     * @param contact Receives the hit if it is earlier than the contact's current one.
+     * @return True if an earlier hit was recorded in the contact.
+     */
+    public boolean sweepCircle(double px, double py, double r, double dx, double dy, Contact contact) {
+        double startDistance = distanceTo(px, py);
+        if (startDistance < r) {
+            if (distanceTo(px + dx, py + dy) >= startDistance) {
+                return false; // Already touching but moving away
+            }
+            return offerNormalAt(px, py, 0, contact);
+        }
+
+        double best = Double.POSITIVE_INFINITY;
+        double bestX = 0, bestY = 0;
+        int n = xs.length;
+        for (int i = 0; i < n; i++) {
+            // Edge pushed outwards by the radius, only hit when moving against its normal
+            double approach = normalX[i] * dx + normalY[i] * dy;
+            if (approach < 0) {
+                double t = (offset[i] + r - (normalX[i] * px + normalY[i] * py)) / approach;
+                if (t >= 0 && t < best) {
+                    int j = (i + 1) % n;
+                    double hitX = px + t * dx - normalX[i] * r; // Touching point on the original edge
+                    double hitY = py + t * dy - normalY[i] * r;
+                    double edgeX = xs[j] - xs[i], edgeY = ys[j] - ys[i];
+                    double along = (hitX - xs[i]) * edgeX + (hitY - ys[i]) * edgeY;
+                    if (along >= 0 && along <= edgeX * edgeX + edgeY * edgeY) {
+                        best = t;
+                        bestX = normalX[i];
+                        bestY = normalY[i];
+                    }
+                }
+            }
+
+            // Rounded corner around the vertex
+            double t = Contact.timeOfImpact(px, py, dx, dy, xs[i], ys[i], r);
+            if (t < best) {
+                best = t;
+                bestX = (px + t * dx - xs[i]) / r;
+                bestY = (py + t * dy - ys[i]) / r;
+            }
+        }
+        return best <= 1 && contact.offer(best, bestX, bestY);
+    }
+
+    /**
+     * Offers a contact at a point that already touches the polygon, with the normal pointing away from the
+     * nearest part of the outline.
+     */
+    private boolean offerNormalAt(double px, double py, double t, Contact contact) {
+        if (contains(px, py)) {
+            // Inside: push out through the edge with the least penetration
+            int bestEdge = 0;
+            double bestDepth = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < offset.length; i++) {
+                double depth = normalX[i] * px + normalY[i] * py - offset[i];
+                if (depth > bestDepth) {
+                    bestDepth = depth;
+                    bestEdge = i;
+                }
+            }
+            return contact.offer(t, normalX[bestEdge], normalY[bestEdge]);
+        }
+        // Outside: the normal runs from the closest point on the outline to the point
+        double bestSq = Double.MAX_VALUE;
+        double closestX = 0, closestY = 0;
+        for (int i = 0; i < xs.length; i++) {
+            int j = (i + 1) % xs.length;
+            double abX = xs[j] - xs[i], abY = ys[j] - ys[i];
+            double u = ((px - xs[i]) * abX + (py - ys[i]) * abY) / (abX * abX + abY * abY);
+            u = Math.max(0, Math.min(1, u));
+            double qx = xs[i] + u * abX, qy = ys[i] + u * abY;
+            double distanceSq = (px - qx) * (px - qx) + (py - qy) * (py - qy);
+            if (distanceSq < bestSq) {
+                bestSq = distanceSq;
+                closestX = qx;
+                closestY = qy;
+            }
+        }
+        double distance = Math.sqrt(bestSq);
+        return contact.offer(t, (px - closestX) / distance, (py - closestY) / distance);
+    }
+
+    /**
+     * Checks whether this polygon overlaps another one, using the separating axis theorem.
+     *
+     * @param other   The other polygon.
+     * @param offsetX X position of the other polygon's origin relative to this one's.
+     * @param offsetY Y position of the other polygon's origin relative to this one's.
+     * @return True if the polygons overlap.
+     */
+    public boolean overlaps(ConvexPolygon other, double offsetX, double offsetY) {
+        return !hasSeparatingAxis(this, other, offsetX, offsetY) && !hasSeparatingAxis(other, this, -offsetX, -offsetY);
+    }
+
+    /**
+     * Checks the edge normals of one polygon for an axis separating it from another.
+     */
+    private static boolean hasSeparatingAxis(ConvexPolygon a, ConvexPolygon b, double offsetX, double offsetY) {
+        for (int i = 0; i < a.offset.length; i++) {
+            double nx = a.normalX[i], ny = a.normalY[i];
+            double lowest = Double.MAX_VALUE;
+            for (int j = 0; j < b.xs.length; j++) {
+                lowest = Math.min(lowest, nx * (b.xs[j] + offsetX) + ny * (b.ys[j] + offsetY));
+            }
+            if (lowest > a.offset[i]) {
+                return true; // Every vertex of b is outside this edge of a
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the squared distance from a point to a line segment.
+     */
+    static double pointSegmentDistanceSq(double px, double py, double ax, double ay, double bx, double by) {
+        double abX = bx - ax, abY = by - ay;
+        double lengthSq = abX * abX + abY * abY;
+        double t = lengthSq > 0 ? ((px - ax) * abX + (py - ay) * abY) / lengthSq : 0;
+        t = Math.max(0, Math.min(1, t));
+        double dx = ax + t * abX - px;
+        double dy = ay + t * abY - py;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Returns the squared distance between two line segments that do not cross.
+     */
+    private static double segmentSegmentDistanceSq(double ax, double ay, double bx, double by,
+                                                   double cx, double cy, double dx, double dy) {
+        return Math.min(
+                Math.min(pointSegmentDistanceSq(ax, ay, cx, cy, dx, dy),
+                        pointSegmentDistanceSq(bx, by, cx, cy, dx, dy)),
+                Math.min(pointSegmentDistanceSq(cx, cy, ax, ay, bx, by),
+                        pointSegmentDistanceSq(dx, dy, ax, ay, bx, by)));
+    }
+}
@@ -0,0 +1,395 @@
+package com.example.robotgui;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Checks that the accelerated queries robots sense through give the same results as brute force, and that runs of
+ * the library's scenarios have not changed.
+ * Usage: {@code DifferentialCheck [--runs N] [--ticks N] [--seed N] [--scenario FILE] [--golden FILE] [--record]}
+ * <p>
+ * Each differential run generates a random small world twice, and runs one copy as usual and the other in the
+ * arena's reference mode, where every query is answered by brute force and SIMD kernels are off, tick by tick.
+ * After every tick the whole state of both copies must be identical, which covers every query a robot makes
+ * as it makes it. On the accelerated copy, every robot's neighbourhood must also match a scan of all items, every
+ * item a robot overlaps must be among its candidates, and the navigator's grid and cached paths must match a
+ * rebuild. Every few ticks an obstacle is moved and food is added in both copies, as the UI would, to exercise
+ * the incremental updates.
+ * <p>
+ * A run that diverges is shrunk: items and obstacles are removed, and the arena made smaller, for as long as the
+ * divergence remains. The smallest scenario found is printed as a scenario file, which {@code --scenario} replays.
+ * <p>
+ * Finally the library's smaller scenarios are run for a fixed number of ticks and a checksum of every state along
+ * the way is compared with the golden checksums in {@code golden-runs.properties}; {@code --record} writes them
+ * instead. Checksums only change when behaviour does, so they are recorded again after intended changes.
+ */
+public final class DifferentialCheck {
+    private static final int PERTURB_INTERVAL = 25; // Ticks between moving an obstacle and adding food
+    private static final int GOLDEN_TICKS = 200; // Ticks of a golden run
+    private static final long GOLDEN_MAX_ITEMS = 5_000; // Largest library scenario given a golden run
+    private static final int MAX_ROBOTS = 12; // Most robots of each type in a random world
+    private static final ItemType[] ROBOT_TYPES = {ItemType.WHISKER_ROBOT, ItemType.PREDATOR_ROBOT,
+            ItemType.BEAM_SENSOR_ROBOT, ItemType.CONTROLLABLE_ROBOT, ItemType.LIDAR_ROBOT};
+    private static final Comparator<ArenaItem> ARENA_ORDER = Comparator.comparingLong(item -> item.sequence);
+
+    /**
+     * Where and how the two copies of a world first differed.
+     */
+    private static final class Divergence {
+        final int tick; // Tick after which the difference was found
+        final String description; // What differed
+
+        Divergence(int tick, String description) {
+            this.tick = tick;
+            this.description = description;
+        }
+    }
+
+    private DifferentialCheck() {
+        // Utility class
+    }
+
+    /**
+     * Runs the checks.
+     *
+     * @param args Command line arguments.
+     * @throws IOException If the golden checksums cannot be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        int runs = 20, ticks = 300;
+        long seed = 1;
+        File scenario = null, golden = new File("golden-runs.properties");
+        boolean record = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--runs" -> runs = Integer.parseInt(args[++i]);
+                case "--ticks" -> ticks = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--scenario" -> scenario = new File(args[++i]);
+                case "--golden" -> golden = new File(args[++i]);
+                case "--record" -> record = true;
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+
+        List<ScenarioSpec> specs = new ArrayList<>();
+        if (scenario != null) {
+            specs.add(ScenarioSpec.load(scenario));
+        } else {
+            for (int run = 0; run < runs; run++) {
+                specs.add(randomSpec(seed + run));
+            }
+        }
+        int diverged = 0;
+        for (ScenarioSpec spec : specs) {
+            Divergence divergence = compare(spec, ticks);
+            if (divergence == null) {
+                continue;
+            }
+            diverged++;
+            System.out.println(spec.getName() + " diverged after tick " + divergence.tick + ": "
+                    + divergence.description);
+            shrink(spec, divergence);
+        }
+        System.out.printf("%d of %d differential runs of %d ticks diverged%n", diverged, specs.size(), ticks);
+
+        int changed = scenario != null ? 0 : checkGolden(golden, record);
+        if (diverged > 0 || changed > 0) {
+            throw new IllegalStateException(diverged + " differential runs diverged, " + changed
+                    + " golden checksums differ");
+        }
+    }
+
+    /**
+     * Returns a small random world: a few robots of each type, food spread or clustered, and no obstacles,
+     * scattered ones or a maze.
+     */
+    private static ScenarioSpec randomSpec(long seed) {
+        Random random = new Random(seed);
+        ScenarioSpec spec = new ScenarioSpec("Random " + seed).seed(seed)
+                .size(300 + random.nextInt(500), 300 + random.nextInt(400));
+        for (ItemType type : ROBOT_TYPES) {
+            spec.count(type, random.nextInt(MAX_ROBOTS + 1)).radius(type, 5 + random.nextInt(11));
+        }
+        spec.count(ItemType.FOOD, random.nextInt(41)).radius(ItemType.FOOD, 3 + random.nextInt(6));
+        if (random.nextBoolean()) {
+            spec.clustered(ItemType.FOOD, 1 + random.nextInt(4), 20 + random.nextInt(60));
+        }
+        switch (random.nextInt(3)) {
+            case 0 -> spec.noObstacles();
+            case 1 -> spec.scatteredObstacles(random.nextInt(13), 15 + random.nextInt(26));
+            default -> spec.maze(80 + random.nextInt(71), 4 + random.nextInt(5));
+        }
+        return spec;
+    }
+
+    /**
+     * Runs a world as usual and in reference mode side by side, and returns the first difference, or null if there
+     * is none within the ticks.
+     */
+    private static Divergence compare(ScenarioSpec spec, int ticks) {
+        RobotArena fast = ScenarioGenerator.generate(spec);
+        RobotArena reference = ScenarioGenerator.generate(spec);
+        reference.setReferenceQueries(true);
+        Random perturbations = new Random(spec.getSeed());
+        boolean vector = DistanceKernels.isVectorEnabled();
+        try {
+            for (int tick = 0; tick < ticks; tick++) {
+                fast.update();
+                DistanceKernels.setVectorEnabled(false);
+                reference.update();
+                DistanceKernels.setVectorEnabled(vector);
+
+                String difference = checkQueries(fast);
+                if (difference == null) {
+                    difference = compareStates(fast, reference);
+                }
+                if (difference != null) {
+                    return new Divergence(tick, difference);
+                }
+                if (tick % PERTURB_INTERVAL == PERTURB_INTERVAL - 1) {
+                    perturb(fast, reference, perturbations);
+                }
+            }
+            return null;
+        } catch (RuntimeException e) {
+            return new Divergence((int) fast.getTick(), e.toString()); // A crash in either copy counts as a divergence
+        } finally {
+            DistanceKernels.setVectorEnabled(vector);
+        }
+    }
+
+    /**
+     * Moves the same obstacle by the same amount, and adds the same food, in both copies of a world.
+     */
+    private static void perturb(RobotArena fast, RobotArena reference, Random random) {
+        List<Obstacle> obstacles = fast.getObstacles();
+        if (!obstacles.isEmpty()) {
+            int index = random.nextInt(obstacles.size());
+            double dx = random.nextGaussian() * 20, dy = random.nextGaussian() * 20;
+            for (RobotArena arena : List.of(fast, reference)) {
+                Obstacle obstacle = arena.getObstacles().get(index);
+                obstacle.x += dx;
+                obstacle.y += dy;
+                arena.itemMoved(obstacle);
+            }
+        }
+        double x = random.nextDouble() * fast.getWidth(), y = random.nextDouble() * fast.getHeight();
+        fast.addItem(new Food(x, y, 5));
+        reference.addItem(new Food(x, y, 5));
+    }
+
+    /**
+     * Checks the accelerated queries of every robot against brute force, and the navigator against a rebuild.
+     *
+     * @return A description of the first difference, or null if there is none.
+     */
+    private static String checkQueries(RobotArena arena) {
+        List<ArenaItem> items = arena.getItems();
+        List<ArenaItem> expected = new ArrayList<>();
+        Set<ArenaItem> candidates = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (ArenaItem item : arena.getDynamicItems()) {
+            if (!(item instanceof Robot)) {
+                continue;
+            }
+            Robot robot = (Robot) item;
+
+            // The neighbourhood a robot senses, from its neighbour list or the indexes, against every item
+            double reach = robot.getSensingReach();
+            double minX = robot.x - reach, minY = robot.y - reach, maxX = robot.x + reach, maxY = robot.y + reach;
+            robot.collectNearby(arena, minX, minY, maxX, maxY);
+            expected.clear();
+            for (ArenaItem other : items) {
+                if (other != robot && other.getMinX() <= maxX && other.getMaxX() >= minX
+                        && other.getMinY() <= maxY && other.getMaxY() >= minY) {
+                    expected.add(other);
+                }
+            }
+            expected.sort(ARENA_ORDER);
+            if (!robot.nearby.equals(expected)) {
+                return "Robot " + robot.getId() + " senses " + ids(robot.nearby) + " but " + ids(expected)
+                        + " are within its reach";
+            }
+
+            // Every item the robot overlaps must be among the candidates its overlap checks look at
+            robot.collectNearby(arena, robot.getMinX(), robot.getMinY(), robot.getMaxX(), robot.getMaxY());
+            candidates.clear();
+            candidates.addAll(robot.nearby);
+            for (ArenaItem other : items) {
+                if (other != robot && robot.overlaps(other) && !candidates.contains(other)) {
+                    return "Robot " + robot.getId() + " overlaps item " + other.getId()
+                            + ", which its candidates miss";
+                }
+            }
+        }
+        return arena.getObstacles().isEmpty() ? null : arena.getNavigator().checkAgainstRebuild();
+    }
+
+    private static String ids(List<ArenaItem> items) {
+        int[] ids = new int[items.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = items.get(i).getId();
+        }
+        return Arrays.toString(ids);
+    }
+
+    /**
+     * Compares every item of two arenas, in arena order.
+     *
+     * @return A description of the first difference, or null if the arenas are identical.
+     */
+    private static String compareStates(RobotArena fast, RobotArena reference) {
+        List<ArenaItem> fastItems = fast.getItems(), referenceItems = reference.getItems();
+        if (fastItems.size() != referenceItems.size()) {
+            return "The arena holds " + fastItems.size() + " items, but " + referenceItems.size()
+                    + " in reference mode";
+        }
+        for (int i = 0; i < fastItems.size(); i++) {
+            ArenaItem a = fastItems.get(i), b = referenceItems.get(i);
+            if (a.getType() != b.getType() || a.getId() != b.getId()) {
+                return "Item " + i + " is " + a.getType() + " " + a.getId() + ", but " + b.getType() + " "
+                        + b.getId() + " in reference mode";
+            }
+            double[] stateA = new double[a.getStateSize()], stateB = new double[b.getStateSize()];
+            a.saveState(stateA, 0);
+            b.saveState(stateB, 0);
+            if (!Arrays.equals(stateA, stateB)) {
+                return a.getType() + " " + a.getId() + " has state " + Arrays.toString(stateA) + ", but "
+                        + Arrays.toString(stateB) + " in reference mode";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Shrinks a diverging world for as long as it still diverges, and prints the smallest one found.
+     */
+    private static void shrink(ScenarioSpec spec, Divergence divergence) {
+        boolean shrunk = true;
+        while (shrunk) {
+            shrunk = false;
+            for (ScenarioSpec candidate : smaller(spec)) {
+                Divergence found = compare(candidate, divergence.tick + 1); // No need to run past the divergence
+                if (found != null) {
+                    spec = candidate;
+                    divergence = found;
+                    shrunk = true;
+                    break;
+                }
+            }
+        }
+        System.out.println("Smallest reproducer, diverging after tick " + divergence.tick + ": "
+                + divergence.description);
+        System.out.print(spec.format());
+    }
+
+    /**
+     * Returns the worlds one step smaller than a spec, fewest items first: each type's count halved or reduced by
+     * one, obstacles removed or halved, and the arena halved.
+     */
+    private static List<ScenarioSpec> smaller(ScenarioSpec spec) {
+        List<ScenarioSpec> candidates = new ArrayList<>();
+        for (ItemType type : ItemType.values()) {
+            int count = spec.getCount(type);
+            if (count > 0) {
+                candidates.add(copy(spec).count(type, count / 2));
+                if (count > 1) {
+                    candidates.add(copy(spec).count(type, count - 1));
+                }
+            }
+        }
+        if (spec.getLayout() != ScenarioSpec.Layout.NONE) {
+            candidates.add(copy(spec).noObstacles());
+        }
+        if (spec.getLayout() == ScenarioSpec.Layout.SCATTERED && spec.getObstacleCount() > 1) {
+            candidates.add(copy(spec).scatteredObstacles(spec.getObstacleCount() / 2, spec.getObstacleSize()));
+        }
+        if (spec.getWidth() > 200 && spec.getHeight() > 200) {
+            candidates.add(copy(spec).size(spec.getWidth() / 2, spec.getHeight() / 2));
+        }
+        candidates.sort(Comparator.comparingLong(ScenarioSpec::getTotalCount));
+        return candidates;
+    }
+
+    private static ScenarioSpec copy(ScenarioSpec spec) {
+        return ScenarioSpec.parse(spec.getName(), spec.format());
+    }
+
+    /**
+     * Runs the library's smaller scenarios and compares their checksums with the golden ones, or records them.
+     *
+     * @return The number of scenarios whose checksum differs from the golden one or is missing.
+     */
+    private static int checkGolden(File file, boolean record) throws IOException {
+        Properties golden = new Properties();
+        if (!record) {
+            if (!file.exists()) {
+                System.out.println("No golden checksums in " + file + "; record them with --record");
+                return 0;
+            }
+            try (Reader reader = Files.newBufferedReader(file.toPath())) {
+                golden.load(reader);
+            }
+        }
+        int ticks = record ? GOLDEN_TICKS : Integer.parseInt(golden.getProperty("ticks", "" + GOLDEN_TICKS).trim());
+
+        StringBuilder text = new StringBuilder();
+        text.append("# Trajectory checksums of the library's scenarios, written by DifferentialCheck --record\n");
+        text.append("ticks = ").append(ticks).append('\n');
+        int changed = 0;
+        for (ScenarioSpec spec : ScenarioLibrary.all()) {
+            if (spec.getTotalCount() > GOLDEN_MAX_ITEMS) {
+                continue;
+            }
+            String key = spec.getName().toLowerCase(Locale.ROOT).replace(' ', '_');
+            String checksum = Long.toHexString(checksum(spec, ticks));
+            text.append(key).append(" = ").append(checksum).append('\n');
+            String expected = golden.getProperty(key);
+            String verdict = record ? "recorded" : checksum.equals(expected == null ? null : expected.trim())
+                    ? "ok" : "CHANGED from " + expected;
+            if (!record && !verdict.equals("ok")) {
+                changed++;
+            }
+            System.out.printf("%-20s %16s  %s%n", spec.getName(), checksum, verdict);
+        }
+        if (record) {
+            Files.writeString(file.toPath(), text);
+        }
+        return changed;
+    }
+
+    /**
+     * Returns a checksum of the type and state of every item after every tick of a run.
+     */
+    private static long checksum(ScenarioSpec spec, int ticks) {
+        RobotArena arena = ScenarioGenerator.generate(spec);
+        long checksum = 0;
+        double[] state = new double[0];
+        for (int tick = 0; tick < ticks; tick++) {
+            arena.update();
+            for (ArenaItem item : arena.getItems()) {
+                if (state.length < item.getStateSize()) {
+                    state = new double[item.getStateSize()];
+                }
+                item.saveState(state, 0);
+                checksum = checksum * 31 + item.getType().ordinal();
+                for (int i = 0; i < item.getStateSize(); i++) {
+                    checksum = checksum * 31 + Double.doubleToLongBits(state[i]);
+                }
+            }
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.robotgui;
+
+/**
+ * Brute-force distance scans over packed coordinate arrays, with an optional SIMD mode.
+ * <p>
+ * Each kernel compares a point with many items at once: squared distances, the nearest item, and the first or
+ * number of items whose circles come within a distance. The scalar loops here always work. When the
+ * {@code jdk.incubator.vector} module is present (run with {@code --add-modules jdk.incubator.vector}) the same
+ * scans can run on {@link VectorDistanceKernels}, 4 to 8 doubles per instruction depending on the CPU.
+ * Both modes compute the same squared distances without fused multiply-add and break ties towards the lowest
+ * index, so their results are identical and switching mode never changes a simulation.
+ * <p>
+ * Distances are squared and compared strictly, so an item exactly at the limit is not within it.
+ */
+public final class DistanceKernels {
+    private static final boolean VECTOR_AVAILABLE = detectVectorSupport(); // Whether the Vector API can be used
+    private static boolean vectorEnabled = VECTOR_AVAILABLE; // Set before the simulation starts, read on the hot path
+
+    private DistanceKernels() {
+        // Utility class
+    }
+
+    /**
+     * Checks that the Vector API module is part of the runtime and its kernels load.
+     */
+    private static boolean detectVectorSupport() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+        try {
+            return VectorDistanceKernels.lanes() > 1;
+        } catch (LinkageError e) {
+            return false; // Module present but unusable, e.g. without the incubator classes
+        }
+    }
+
+    /**
+     * Returns whether SIMD kernels can be used in this runtime.
+     *
+     * @return True if the Vector API is available.
+     */
+    public static boolean isVectorAvailable() {
+        return VECTOR_AVAILABLE;
+    }
+
+    /**
+     * Turns the SIMD kernels on or off. Has no effect when they are not available. Should be set before the
+     * simulation starts.
+     *
+     * @param vector True to use the Vector API, false for the scalar loops.
+     */
+    public static void setVectorEnabled(boolean vector) {
+        vectorEnabled = vector && VECTOR_AVAILABLE;
+    }
+
+    /**
+     * Returns whether the SIMD kernels are in use.
+     *
+     * @return True if scans run on the Vector API.
+     */
+    public static boolean isVectorEnabled() {
+        return vectorEnabled;
+    }
+
+    /**
+     * Returns the number of doubles processed per instruction in the current mode.
+     *
+     * @return The lane count, 1 for the scalar loops.
+     */
+    public static int lanes() {
+        return vectorEnabled ? VectorDistanceKernels.lanes() : 1;
+    }
+
+    /**
+     * Writes the squared distance from a point to each item.
+     *
+     * @param xs    The items' x-coordinates.
+     * @param ys    The items' y-coordinates.
+     * @param count The number of items.
+     * @param px    The x-coordinate of the point.
+     * @param py    The y-coordinate of the point.
+     * @param out   Receives the squared distances, at least count long.
+     */
+    public static void squaredDistances(double[] xs, double[] ys, int count, double px, double py, double[] out) {
+        if (vectorEnabled) {
+            VectorDistanceKernels.squaredDistances(xs, ys, count, px, py, out);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            double dx = xs[i] - px;
+            double dy = ys[i] - py;
+            out[i] = dx * dx + dy * dy;
+        }
+    }
+
+    /**
+     * Finds the item nearest to a point.
+     *
+     * @param xs    The items' x-coordinates.
+     * @param ys    The items' y-coordinates.
+     * @param count The number of items.
+     * @param px    The x-coordinate of the point.
+     * @param py    The y-coordinate of the point.
+     * @return The lowest index at the smallest finite distance, or -1 if there is none.
+     */
+    public static int nearest(double[] xs, double[] ys, int count, double px, double py) {
+        if (vectorEnabled) {
+            return VectorDistanceKernels.nearest(xs, ys, count, px, py);
+        }
+        int nearest = -1;
+        double nearestDistanceSq = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            double dx = xs[i] - px;
+            double dy = ys[i] - py;
+            double distanceSq = dx * dx + dy * dy;
+            if (distanceSq < nearestDistanceSq) {
+                nearestDistanceSq = distanceSq;
+                nearest = i;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Finds the first item whose circle overlaps a circle, i.e. whose centre is closer than the sum of the radii.
+     *
+     * @param xs     The items' x-coordinates.
+     * @param ys     The items' y-coordinates.
+     * @param radii  The items' radii.
+     * @param count  The number of items.
+     * @param px     The x-coordinate of the circle's centre.
+     * @param py     The y-coordinate of the circle's centre.
+     * @param radius The radius of the circle.
+     * @return The lowest overlapping index, or -1 if no item overlaps.
+     */
+    public static int firstWithin(double[] xs, double[] ys, double[] radii, int count,
+                                  double px, double py, double radius) {
+        if (vectorEnabled) {
+            return VectorDistanceKernels.firstWithin(xs, ys, radii, count, px, py, radius);
+        }
+        for (int i = 0; i < count; i++) {
+            double dx = xs[i] - px;
+            double dy = ys[i] - py;
+            double limit = radii[i] + radius;
+            if (dx * dx + dy * dy < limit * limit) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Counts the items whose circles overlap a circle.
+     *
+     * @param xs     The items' x-coordinates.
+     * @param ys     The items' y-coordinates.
+     * @param radii  The items' radii.
+     * @param count  The number of items.
+     * @param px     The x-coordinate of the circle's centre.
+     * @param py     The y-coordinate of the circle's centre.
+     * @param radius The radius of the circle.
+     * @return The number of overlapping items.
+     */
+    public static int countWithin(double[] xs, double[] ys, double[] radii, int count,
+                                  double px, double py, double radius) {
+        if (vectorEnabled) {
+            return VectorDistanceKernels.countWithin(xs, ys, radii, count, px, py, radius);
+        }
+        int within = 0;
+        for (int i = 0; i < count; i++) {
+            double dx = xs[i] - px;
+            double dy = ys[i] - py;
+            double limit = radii[i] + radius;
+            if (dx * dx + dy * dy < limit * limit) {
+                within++;
+            }
+        }
+        return within;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.robotgui;
+
+/**
+ * Receives simulation events read from an {@link EventRing}.
+ * Event fields are passed as primitives so that neither publishing nor consuming an event allocates.
+ */
+@FunctionalInterface
+public interface EventHandler {
+
+    /**
+     * Handles one event. Called on the consumer's own thread, never on the simulation thread.
+     *
+     * @param type     The kind of event.
+     * @param tick     The arena tick in which the event happened.
+     * @param subject  Handle of the item that caused the event. Unlike its slot id, the handle tells the item
+     *                 apart from later items reusing the slot.
+     * @param object   Handle of the item affected by the event, or {@link ArenaItem#NO_HANDLE} if there is none.
+     * @param x        The x-coordinate where the event happened.
+     * @param y        The y-coordinate where the event happened.
+     */
+    void onEvent(SimulationEvent type, long tick, long subject, long object, double x, double y);
+}
@@ -0,0 +1,104 @@
+package com.example.robotgui;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Consumes events from an {@link EventRing} on its own thread and passes them to a handler.
+ * The processor only ever reads from the ring, so however slow the handler is, the simulation is never held up;
+ * events that are overwritten before the processor reaches them are counted as dropped.
+ */
+public class EventProcessor implements Runnable, EventHandler {
+    private static final int BATCH_SIZE = 256; // Events delivered per drain call
+    private static final int SPIN_TRIES = 100; // Empty polls before the thread starts parking
+    private static final long PARK_NANOS = 1_000_000; // Sleep between polls once idle
+
+    private final EventRing ring;
+    private final EventHandler handler;
+    private final String name;
+    private long sequence; // Next sequence to read
+    private long delivered; // Events delivered in the current drain call
+    private volatile long droppedCount; // Events overwritten before they could be read
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * Creates a processor that starts reading at the ring's next published event.
+     *
+     * @param ring    The ring to read from.
+     * @param handler The handler receiving events on the processor thread.
+     * @param name    Name of the processor thread.
+     */
+    public EventProcessor(EventRing ring, EventHandler handler, String name) {
+        this.ring = ring;
+        this.handler = handler;
+        this.name = name;
+        this.sequence = ring.getCursor() + 1; // Only report events published from now on
+    }
+
+    /**
+     * Starts the processor on a new daemon thread.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the processor thread after its current batch.
+     */
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Returns the number of events that were overwritten before this processor could read them.
+     *
+     * @return The number of dropped events.
+     */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * Polls the ring until stopped, spinning briefly and then parking while there is nothing to read.
+     */
+    @Override
+    public void run() {
+        int idle = 0;
+        while (running) {
+            delivered = 0;
+            long start = sequence;
+            sequence = ring.drainTo(sequence, this, BATCH_SIZE);
+            long skipped = sequence - start - delivered;
+            if (skipped > 0) {
+                droppedCount += skipped; // Only this thread writes the counter
+            }
+            if (sequence == start) {
+                if (++idle > SPIN_TRIES) {
+                    LockSupport.parkNanos(PARK_NANOS);
+                } else {
+                    Thread.onSpinWait();
+                }
+            } else {
+                idle = 0;
+            }
+        }
+    }
+
+    /**
+     * Counts and forwards an event to the handler.
+     */
+    @Override
+    public void onEvent(SimulationEvent type, long tick, long subject, long object, double x, double y) {
+        delivered++;
+        handler.onEvent(type, tick, subject, object, x, y);
+    }
+}
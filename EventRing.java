@@ -0,0 +1,136 @@
+package com.example.robotgui;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A single-producer ring buffer of simulation events, in the style of the LMAX Disruptor.
+ * <p>
+ * Events are stored as primitive fields in preallocated parallel arrays, so publishing allocates nothing.
+ * The producer (the thread that updates the arena) never waits for consumers: once the ring is full the
+ * oldest slots are overwritten. Consumers track their own position and detect when they have been lapped,
+ * so a slow consumer loses events instead of slowing the simulation down.
+ * <p>
+ * Each slot is guarded seqlock style: the producer announces the sequence it is about to write before
+ * touching the slot, and a consumer discards a read if that announcement shows the slot was reused meanwhile.
+ */
+public class EventRing {
+    private final int capacity; // Number of slots, a power of two
+    private final int mask; // capacity - 1, for cheap index wrapping
+
+    // Slot storage, one entry per slot
+    private final int[] types;
+    private final long[] ticks;
+    private final long[] subjects;
+    private final long[] objects;
+    private final double[] xs;
+    private final double[] ys;
+
+    private long nextSequence; // Next sequence to publish, only touched by the producer
+    private final AtomicLong claimed = new AtomicLong(-1); // Highest sequence the producer has started writing
+    private final AtomicLong cursor = new AtomicLong(-1); // Highest sequence that is fully published
+
+    /**
+     * Creates a ring with at least the given number of slots, rounded up to a power of two.
+     *
+     * @param minCapacity The minimum number of events the ring can hold.
+     */
+    public EventRing(int minCapacity) {
+        if (minCapacity < 1 || minCapacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity out of range: " + minCapacity);
+        }
+        int size = 1;
+        while (size < minCapacity) {
+            size <<= 1;
+        }
+        capacity = size;
+        mask = capacity - 1;
+        types = new int[capacity];
+        ticks = new long[capacity];
+        subjects = new long[capacity];
+        objects = new long[capacity];
+        xs = new double[capacity];
+        ys = new double[capacity];
+    }
+
+    /**
+     * Publishes an event. Must only be called from the single producer thread. Never blocks.
+     *
+     * @param type    The kind of event.
+     * @param tick    The arena tick in which the event happened.
+     * @param subject Handle of the item that caused the event, see {@link ArenaItem#getHandle()}.
+     * @param object  Handle of the item affected by the event, or {@link ArenaItem#NO_HANDLE} if there is none.
+     * @param x       The x-coordinate where the event happened.
+     * @param y       The y-coordinate where the event happened.
+     */
+    public void publish(SimulationEvent type, long tick, long subject, long object, double x, double y) {
+        long sequence = nextSequence++;
+        int index = (int) sequence & mask;
+        claimed.setOpaque(sequence); // Tell readers this slot is about to change
+        VarHandle.storeStoreFence();
+        types[index] = type.ordinal();
+        ticks[index] = tick;
+        subjects[index] = subject;
+        objects[index] = object;
+        xs[index] = x;
+        ys[index] = y;
+        cursor.setRelease(sequence); // Make the slot visible to consumers
+    }
+
+    /**
+     * Returns the number of slots in the ring.
+     *
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the highest fully published sequence.
+     *
+     * @return The sequence of the newest event, or -1 if nothing has been published.
+     */
+    public long getCursor() {
+        return cursor.getAcquire();
+    }
+
+    /**
+     * Delivers the published events from a consumer's position onwards to a handler.
+     * If the consumer has been lapped, the overwritten events are skipped.
+     *
+     * @param sequence The next sequence the consumer wants to read.
+     * @param handler  The handler receiving the events.
+     * @param maxBatch The maximum number of events to deliver in this call.
+     * @return The consumer's new position. Any gap larger than the number of delivered events was dropped.
+     */
+    long drainTo(long sequence, EventHandler handler, int maxBatch) {
+        long available = getCursor();
+        long end = Math.min(available, sequence + maxBatch - 1);
+        while (sequence <= end) {
+            long oldest = available - capacity + 1;
+            if (sequence < oldest) {
+                sequence = oldest; // Lapped by the producer, skip what was overwritten
+                end = Math.min(available, sequence + maxBatch - 1);
+                continue;
+            }
+            int index = (int) sequence & mask;
+            int type = types[index];
+            long tick = ticks[index];
+            long subject = subjects[index];
+            long object = objects[index];
+            double x = xs[index];
+            double y = ys[index];
+            VarHandle.loadLoadFence();
+            if (claimed.getOpaque() - capacity >= sequence) {
+                available = getCursor(); // Slot was reused while reading, retry from the new oldest event
+                sequence = Math.max(sequence + 1, available - capacity + 1);
+                end = Math.min(available, sequence + maxBatch - 1);
+                continue;
+            }
+            handler.onEvent(SimulationEvent.fromOrdinal(type), tick, subject, object, x, y);
+            sequence++;
+        }
+        return sequence;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.robotgui;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * An event handler that keeps running totals of each event type.
+ * Totals are updated on the consumer thread and may be read from any thread.
+ */
+public class EventStatistics implements EventHandler {
+    private final AtomicLongArray counts = new AtomicLongArray(SimulationEvent.values().length);
+
+    /**
+     * Adds the event to the total of its type.
+     */
+    @Override
+    public void onEvent(SimulationEvent type, long tick, long subject, long object, double x, double y) {
+        counts.incrementAndGet(type.ordinal());
+    }
+
+    /**
+     * Returns how many events of a type have been seen.
+     *
+     * @param type The event type.
+     * @return The total for that type.
+     */
+    public long getCount(SimulationEvent type) {
+        return counts.get(type.ordinal());
+    }
+
+    /**
+     * Resets all totals to zero.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+    }
+}
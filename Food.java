@@ -39,4 +39,22 @@ public class Food extends ArenaItem {
     public void update(RobotArena arena) {
         // Food items are stationary and do not update their state.
     }
+
+    /**
+     * Food items never move by themselves, so they are kept in the arena's static index and skipped by updates.
+     * @return true
+     */
+    @Override
+    public boolean isStatic() {
+        return true;
+    }
+
+    /**
+     * Returns the type of this item.
+     * @return ItemType.FOOD
+     */
+    @Override
+    public ItemType getType() {
+        return ItemType.FOOD;
+    }
 }
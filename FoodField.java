@@ -0,0 +1,438 @@
+package com.example.robotgui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A grid of travel distances to the nearest food, routed around obstacles, that foragers descend to find food.
+ * <p>
+ * The arena is divided into square cells. Cells whose centre lies within the clearance of an obstacle are blocked.
+ * Every other cell holds the length of the shortest 8-connected path from it to a cell containing food, in
+ * fifths of a cell (orthogonal steps cost 5, diagonal steps 7, and diagonals may not cut blocked corners), along
+ * with the food its path leads to. Reading the descent direction at a position costs a look at 8 neighbours.
+ * <p>
+ * The field is updated incrementally. Added food is seeded as a new source and spreads only into cells it gets
+ * closer to. Eaten food clears the cells it owned, which no other path passes through, and the cells are filled
+ * again from their surviving neighbours. Changes are queued and applied together at the next read, so food
+ * eaten by several robots in one tick costs one pass. Obstacle changes, moved food and restores rebuild the
+ * whole field. Either way the distances are exact, so they do not depend on the order of changes.
+ */
+public class FoodField {
+    /** Default side length of a cell. */
+    public static final double DEFAULT_CELL_SIZE = 10;
+    /** Default distance from obstacles within which cells are blocked, about a robot's radius. */
+    public static final double DEFAULT_CLEARANCE = 15;
+    /** Distance of a cell with no path to any food. */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int ORTHOGONAL_COST = 5; // Cost of a step to a side neighbour
+    private static final int DIAGONAL_COST = 7; // Cost of a step to a corner neighbour, about 5 * sqrt(2)
+    private static final int[] STEP_X = {1, -1, 0, 0, 1, 1, -1, -1}; // Neighbour offsets, sides first
+    private static final int[] STEP_Y = {0, 0, 1, -1, 1, -1, 1, -1};
+    private static final double[] UNIT_X = new double[8], UNIT_Y = new double[8]; // Neighbour directions
+    private static final int MAX_PENDING = 512; // Queued changes beyond which a rebuild is cheaper
+    private static final double MAX_DEFAULT_CELLS = 1 << 20; // Cells beyond which the default cell size grows
+
+    static {
+        for (int k = 0; k < 8; k++) {
+            double length = Math.sqrt(STEP_X[k] * STEP_X[k] + STEP_Y[k] * STEP_Y[k]);
+            UNIT_X[k] = STEP_X[k] / length;
+            UNIT_Y[k] = STEP_Y[k] / length;
+        }
+    }
+
+    private final RobotArena arena; // Arena whose food and obstacles define the field
+    private final double cellSize; // Side length of a cell
+    private final double clearance; // Distance from obstacles within which cells are blocked
+    private final int columns, rows; // Grid dimensions
+    private final int[] distance; // Path length to the nearest food, by cell
+    private final long[] owner; // Handle of the food each cell's path leads to, by cell
+    private final boolean[] blocked; // Cells too close to an obstacle to pass
+    private boolean rebuildNeeded = true; // Set when the whole field must be recomputed
+    private long[] pendingAdded = new long[16], pendingRemoved = new long[16]; // Queued food handles
+    private int[] pendingRemovedCell = new int[16]; // Cell of each queued removal
+    private int addedCount, removedCount; // Number of queued changes
+    private long[] heap = new long[256]; // Priority queue of distance << 32 | cell
+    private int heapSize;
+    private int[] region = new int[64]; // Cells cleared by a removal
+    private final ArrayList<ArenaItem> found = new ArrayList<>(); // Reused result list of food queries
+    private long relaxations; // Cells improved since construction, for measuring update cost
+
+    /**
+     * Creates a field over an arena with the default clearance and cell size. Arenas too large for about a
+     * million default cells get proportionally larger cells, so the grid stays within a few tens of megabytes.
+     *
+     * @param arena The arena to cover.
+     */
+    public FoodField(RobotArena arena) {
+        this(arena, Math.max(DEFAULT_CELL_SIZE, Math.sqrt(arena.getWidth() * arena.getHeight() / MAX_DEFAULT_CELLS)),
+                DEFAULT_CLEARANCE);
+    }
+
+    /**
+     * Creates a field over an arena.
+     *
+     * @param arena     The arena to cover.
+     * @param cellSize  The side length of a cell.
+     * @param clearance The distance from obstacles within which cells are blocked.
+     */
+    public FoodField(RobotArena arena, double cellSize, double clearance) {
+        this.arena = arena;
+        this.cellSize = cellSize;
+        this.clearance = clearance;
+        columns = Math.max(1, (int) Math.ceil(arena.getWidth() / cellSize));
+        rows = Math.max(1, (int) Math.ceil(arena.getHeight() / cellSize));
+        distance = new int[columns * rows];
+        owner = new long[columns * rows];
+        blocked = new boolean[columns * rows];
+    }
+
+    /**
+     * Returns the cell containing a position, clamped to the grid.
+     *
+     * @param x The x-coordinate.
+     * @param y The y-coordinate.
+     * @return The cell index.
+     */
+    private int cellAt(double x, double y) {
+        int column = Math.min(columns - 1, Math.max(0, (int) (x / cellSize)));
+        int row = Math.min(rows - 1, Math.max(0, (int) (y / cellSize)));
+        return row * columns + column;
+    }
+
+    /**
+     * Queues a food item that has joined the arena.
+     *
+     * @param food The new food.
+     */
+    void foodAdded(Food food) {
+        if (rebuildNeeded) {
+            return; // Picked up by the rebuild
+        }
+        if (addedCount == pendingAdded.length) {
+            if (addedCount >= MAX_PENDING) {
+                invalidate();
+                return;
+            }
+            pendingAdded = Arrays.copyOf(pendingAdded, addedCount * 2);
+        }
+        pendingAdded[addedCount++] = food.getHandle();
+    }
+
+    /**
+     * Queues a food item that has left the arena. Must be called while its handle is still the one it was added with.
+     *
+     * @param food The removed food.
+     */
+    void foodRemoved(Food food) {
+        if (rebuildNeeded) {
+            return;
+        }
+        if (removedCount == pendingRemoved.length) {
+            if (removedCount >= MAX_PENDING) {
+                invalidate();
+                return;
+            }
+            pendingRemoved = Arrays.copyOf(pendingRemoved, removedCount * 2);
+            pendingRemovedCell = Arrays.copyOf(pendingRemovedCell, removedCount * 2);
+        }
+        pendingRemoved[removedCount] = food.getHandle();
+        pendingRemovedCell[removedCount++] = cellAt(food.x, food.y);
+    }
+
+    /**
+     * Marks the whole field for recomputation, for example after obstacles changed.
+     */
+    void invalidate() {
+        rebuildNeeded = true;
+        addedCount = 0;
+        removedCount = 0;
+    }
+
+    /**
+     * Applies the queued changes, or rebuilds the field if needed.
+     */
+    private void sync() {
+        if (rebuildNeeded) {
+            rebuild();
+        } else if (addedCount > 0 || removedCount > 0) {
+            for (int i = 0; i < removedCount; i++) {
+                clearOwnedRegion(pendingRemovedCell[i], pendingRemoved[i]);
+            }
+            for (int i = 0; i < addedCount; i++) {
+                ArenaItem food = arena.resolve(pendingAdded[i]);
+                if (food != null) { // Food added and eaten before the field was read is skipped
+                    seed(cellAt(food.x, food.y), food.getHandle());
+                }
+            }
+            removedCount = 0;
+            addedCount = 0;
+            propagate();
+        }
+    }
+
+    /**
+     * Recomputes the blocked cells and distances from scratch.
+     */
+    private void rebuild() {
+        rebuildNeeded = false;
+        addedCount = 0;
+        removedCount = 0;
+        Arrays.fill(blocked, false);
+        for (Obstacle obstacle : arena.getObstacles()) {
+            int minColumn = Math.max(0, (int) ((obstacle.getMinX() - clearance) / cellSize));
+            int maxColumn = Math.min(columns - 1, (int) ((obstacle.getMaxX() + clearance) / cellSize));
+            int minRow = Math.max(0, (int) ((obstacle.getMinY() - clearance) / cellSize));
+            int maxRow = Math.min(rows - 1, (int) ((obstacle.getMaxY() + clearance) / cellSize));
+            for (int row = minRow; row <= maxRow; row++) {
+                for (int column = minColumn; column <= maxColumn; column++) {
+                    double centreX = (column + 0.5) * cellSize;
+                    double centreY = (row + 0.5) * cellSize;
+                    if (obstacle.distanceTo(centreX, centreY) < clearance) {
+                        blocked[row * columns + column] = true;
+                    }
+                }
+            }
+        }
+        Arrays.fill(distance, UNREACHABLE);
+        Arrays.fill(owner, ArenaItem.NO_HANDLE);
+        heapSize = 0;
+        for (Food food : arena.getFood()) {
+            seed(cellAt(food.x, food.y), food.getHandle());
+        }
+        propagate();
+    }
+
+    /**
+     * Makes a cell a source of the field.
+     */
+    private void seed(int cell, long handle) {
+        if (distance[cell] > 0) {
+            distance[cell] = 0;
+            owner[cell] = handle;
+            push(0, cell);
+        }
+    }
+
+    /**
+     * Clears every cell whose path led to removed food and queues their surviving neighbours, which the
+     * cleared cells are filled from again. Food remaining inside the cleared cells is seeded again.
+     */
+    private void clearOwnedRegion(int start, long handle) {
+        if (owner[start] != handle) {
+            return; // The food shared its cell with other food, whose paths every cell kept
+        }
+        // Paths lead from food cell to food cell through cells of the same owner, so the owned region is connected
+        int size = 0;
+        region[size++] = start;
+        owner[start] = ArenaItem.NO_HANDLE;
+        distance[start] = UNREACHABLE;
+        for (int i = 0; i < size; i++) {
+            int cell = region[i];
+            int column = cell % columns, row = cell / columns;
+            for (int k = 0; k < 8; k++) {
+                int nc = column + STEP_X[k], nr = row + STEP_Y[k];
+                if (nc >= 0 && nc < columns && nr >= 0 && nr < rows) {
+                    int next = nr * columns + nc;
+                    if (owner[next] == handle) {
+                        if (size == region.length) {
+                            region = Arrays.copyOf(region, size * 2);
+                        }
+                        region[size++] = next;
+                        owner[next] = ArenaItem.NO_HANDLE;
+                        distance[next] = UNREACHABLE;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            int cell = region[i];
+            int column = cell % columns, row = cell / columns;
+            for (int k = 0; k < 8; k++) {
+                int nc = column + STEP_X[k], nr = row + STEP_Y[k];
+                if (nc >= 0 && nc < columns && nr >= 0 && nr < rows) {
+                    int next = nr * columns + nc;
+                    if (distance[next] != UNREACHABLE) {
+                        push(distance[next], next); // Settled already; relaxed again into the region
+                    }
+                }
+            }
+        }
+        // Other food inside the region is a source again
+        found.clear();
+        for (int i = 0; i < size; i++) {
+            int cell = region[i];
+            double left = (cell % columns) * cellSize, top = (cell / columns) * cellSize;
+            arena.queryStatic(left, top, left + cellSize, top + cellSize, found);
+        }
+        for (ArenaItem item : found) {
+            if (item instanceof Food && item.getHandle() != handle) {
+                int cell = cellAt(item.x, item.y);
+                if (owner[cell] == ArenaItem.NO_HANDLE) {
+                    seed(cell, item.getHandle());
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from the queued cells, improving every cell a shorter path reaches.
+     */
+    private void propagate() {
+        while (heapSize > 0) {
+            long top = pop();
+            int d = (int) (top >>> 32);
+            int cell = (int) top;
+            if (d != distance[cell]) {
+                continue; // Superseded by a shorter path, or cleared by a later removal
+            }
+            int column = cell % columns, row = cell / columns;
+            for (int k = 0; k < 8; k++) {
+                int nc = column + STEP_X[k], nr = row + STEP_Y[k];
+                if (nc < 0 || nc >= columns || nr < 0 || nr >= rows) {
+                    continue;
+                }
+                int next = nr * columns + nc;
+                if (blocked[next]) {
+                    continue;
+                }
+                int cost = ORTHOGONAL_COST;
+                if (k >= 4) {
+                    if (blocked[row * columns + nc] || blocked[nr * columns + column]) {
+                        continue; // Diagonal would cut an obstacle's corner
+                    }
+                    cost = DIAGONAL_COST;
+                }
+                int candidate = d + cost;
+                if (candidate < distance[next]) {
+                    distance[next] = candidate;
+                    owner[next] = owner[cell];
+                    relaxations++;
+                    push(candidate, next);
+                }
+            }
+        }
+    }
+
+    private void push(int d, int cell) {
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heapSize * 2);
+        }
+        long entry = (long) d << 32 | cell;
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= entry) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = entry;
+    }
+
+    private long pop() {
+        long top = heap[0];
+        long last = heap[--heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) child++;
+            if (heap[child] >= last) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        if (heapSize > 0) {
+            heap[i] = last;
+        }
+        return top;
+    }
+
+    /**
+     * Returns the path length from a position to the nearest food.
+     *
+     * @param x The x-coordinate.
+     * @param y The y-coordinate.
+     * @return The distance in arena units, or positive infinity if no food can be reached.
+     */
+    public double distanceAt(double x, double y) {
+        sync();
+        int d = distance[cellAt(x, y)];
+        return d == UNREACHABLE ? Double.POSITIVE_INFINITY : d * cellSize / ORTHOGONAL_COST;
+    }
+
+    /**
+     * Writes the direction of steepest descent at a position: the neighbouring cells closer to food, weighted by
+     * how much closer they are. From a blocked or cut-off cell it points at the closest reachable neighbour.
+     *
+     * @param x   The x-coordinate.
+     * @param y   The y-coordinate.
+     * @param out Receives the unnormalised direction in elements 0 and 1.
+     * @return False if no neighbour leads closer to food.
+     */
+    public boolean descend(double x, double y, double[] out) {
+        sync();
+        int cell = cellAt(x, y);
+        int column = cell % columns, row = cell / columns;
+        int here = distance[cell];
+        double sumX = 0, sumY = 0;
+        int best = UNREACHABLE, bestStep = -1;
+        for (int k = 0; k < 8; k++) {
+            int nc = column + STEP_X[k], nr = row + STEP_Y[k];
+            if (nc < 0 || nc >= columns || nr < 0 || nr >= rows) {
+                continue;
+            }
+            int d = distance[nr * columns + nc];
+            if (d == UNREACHABLE || (k >= 4 && (blocked[row * columns + nc] || blocked[nr * columns + column]))) {
+                continue;
+            }
+            if (d < best) {
+                best = d;
+                bestStep = k;
+            }
+            if (here != UNREACHABLE && d < here) {
+                double drop = (here - d) / (double) (k >= 4 ? DIAGONAL_COST : ORTHOGONAL_COST);
+                sumX += drop * UNIT_X[k];
+                sumY += drop * UNIT_Y[k];
+            }
+        }
+        if (sumX == 0 && sumY == 0) {
+            if (bestStep < 0 || best >= here) {
+                return false;
+            }
+            sumX = UNIT_X[bestStep];
+            sumY = UNIT_Y[bestStep];
+        }
+        out[0] = sumX;
+        out[1] = sumY;
+        return true;
+    }
+
+    /**
+     * Returns whether a position lies in a cell blocked by an obstacle.
+     *
+     * @param x The x-coordinate.
+     * @param y The y-coordinate.
+     * @return True if the cell is blocked.
+     */
+    public boolean isBlocked(double x, double y) {
+        sync();
+        return blocked[cellAt(x, y)];
+    }
+
+    /**
+     * Returns the number of cell improvements made since the field was created, a measure of update work.
+     *
+     * @return The relaxation count.
+     */
+    public long getRelaxations() {
+        return relaxations;
+    }
+
+    /**
+     * Returns the side length of a cell.
+     *
+     * @return The cell size.
+     */
+    public double getCellSize() {
+        return cellSize;
+    }
+}
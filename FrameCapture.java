@@ -0,0 +1,277 @@
+package com.example.robotgui;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Records a run as image frames, drawn off-screen every Nth tick and written to disk on a background thread.
+ * <p>
+ * Frames are drawn by a {@link TileRasterizer} with an opaque white background, so capturing works the same with
+ * and without a window, and is paced by simulated ticks rather than by the display. Each drawn frame is copied into
+ * one of a fixed number of buffers and handed to the writer thread through a bounded queue. When the writer falls
+ * behind and every buffer is queued, frames are dropped, and counted, before they are drawn, so a slow disk never
+ * stalls the tick. The writer produces either a PNG file per frame, named after its tick, or one stream of raw
+ * frames, each width * height big-endian ARGB ints, which video encoders read directly, for example with
+ * {@code ffmpeg -f rawvideo -pixel_format argb -video_size 800x600 -i frames.argb}.
+ * <p>
+ * Ticks replayed after a rewind are captured again; PNG frames of those ticks are overwritten. Kept free of JavaFX
+ * so headless tools such as the simulation server can record runs.
+ */
+public class FrameCapture implements TickRecorder, AutoCloseable {
+    /** Default number of frames that may wait for the writer. */
+    public static final int DEFAULT_QUEUE_FRAMES = 8;
+    /** Name of the file raw frames are written to. */
+    public static final String RAW_FILE_NAME = "frames.argb";
+
+    /**
+     * How frames are written.
+     */
+    public enum Format {
+        PNG, // One image file per frame
+        RAW // One stream of uncompressed ARGB frames
+    }
+
+    /**
+     * A frame waiting for the writer.
+     */
+    private static final class Frame {
+        final int[] pixels;
+        long tick; // Tick the frame shows
+
+        Frame(int size) {
+            pixels = new int[size];
+        }
+    }
+
+    private static final Frame END = new Frame(0); // Tells the writer to finish
+
+    private final File directory; // Where frames are written
+    private final Format format;
+    private final int interval; // Ticks between captured frames
+    private final TileRasterizer rasterizer; // Draws frames on the ticking thread
+    private final BlockingQueue<Frame> queued; // Frames waiting for the writer
+    private final BlockingQueue<Frame> free; // Buffers not currently queued or being written
+    private final Thread writer;
+    private final PngEncoder pngEncoder = new PngEncoder(); // Only used by the writer thread
+    private OutputStream rawStream; // Stream of raw frames, opened by the writer thread
+    private byte[] rawBytes; // Reused bytes of one raw frame
+    private long captured, dropped; // Frames handed to the writer and frames dropped, counted by the ticking thread
+    private volatile long written; // Frames written to disk
+    private volatile IOException failure; // First error of the writer, after which frames are dropped
+    private volatile boolean closed; // Set once close has started
+
+    /**
+     * Creates a capture and starts its writer thread.
+     *
+     * @param directory The directory frames are written to, created if needed.
+     * @param format    How frames are written.
+     * @param interval  The number of ticks between captured frames, 1 for every tick.
+     * @param width     The width of a frame in pixels.
+     * @param height    The height of a frame in pixels.
+     * @throws IOException If the directory cannot be created.
+     */
+    public FrameCapture(File directory, Format format, int interval, int width, int height) throws IOException {
+        this(directory, format, interval, width, height, DEFAULT_QUEUE_FRAMES);
+    }
+
+    /**
+     * Creates a capture and starts its writer thread.
+     *
+     * @param directory   The directory frames are written to, created if needed.
+     * @param format      How frames are written.
+     * @param interval    The number of ticks between captured frames, 1 for every tick.
+     * @param width       The width of a frame in pixels.
+     * @param height      The height of a frame in pixels.
+     * @param queueFrames The number of frames that may wait for the writer before frames are dropped.
+     * @throws IOException If the directory cannot be created.
+     */
+    public FrameCapture(File directory, Format format, int interval, int width, int height, int queueFrames)
+            throws IOException {
+        if (interval < 1 || queueFrames < 1) {
+            throw new IllegalArgumentException("Invalid capture: interval " + interval + ", queue " + queueFrames);
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory " + directory);
+        }
+        this.directory = directory;
+        this.format = format;
+        this.interval = interval;
+        rasterizer = new TileRasterizer(width, height);
+        rasterizer.setBackground(0xFFFFFFFF);
+        queued = new ArrayBlockingQueue<>(queueFrames + 1); // Room for the end marker
+        free = new ArrayBlockingQueue<>(queueFrames);
+        for (int i = 0; i < queueFrames; i++) {
+            free.add(new Frame(width * height));
+        }
+        writer = new Thread(this::writeFrames, "frame-capture-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Sets which part of the arena frames show, as {@link TileRasterizer#setViewport}. Frames show the arena from
+     * its origin at one pixel per unit unless changed.
+     *
+     * @param originX The x-coordinate of the arena point at the top-left pixel.
+     * @param originY The y-coordinate of the arena point at the top-left pixel.
+     * @param scale   The number of pixels per arena unit.
+     */
+    public void setViewport(double originX, double originY, double scale) {
+        rasterizer.setViewport(originX, originY, scale);
+    }
+
+    /**
+     * Captures a frame if the tick is a multiple of the interval and a buffer is free; drops it otherwise.
+     *
+     * @param arena The arena that was just updated.
+     */
+    @Override
+    public void record(RobotArena arena) {
+        if (closed || arena.getTick() % interval != 0) {
+            return;
+        }
+        Frame frame = failure == null ? free.poll() : null;
+        if (frame == null) {
+            dropped++; // The writer is behind or has failed; never wait for it
+            return;
+        }
+        rasterizer.render(arena);
+        System.arraycopy(rasterizer.getPixels(), 0, frame.pixels, 0, frame.pixels.length);
+        frame.tick = arena.getTick();
+        queued.add(frame); // Always fits: there are no more buffers than queue places
+        captured++;
+    }
+
+    /**
+     * Body of the writer thread: writes queued frames until the end marker.
+     */
+    private void writeFrames() {
+        try {
+            while (true) {
+                Frame frame = queued.take();
+                if (frame == END) {
+                    break;
+                }
+                if (failure == null) {
+                    try {
+                        write(frame);
+                        written++;
+                    } catch (IOException e) {
+                        failure = e; // Later frames are dropped rather than written
+                    }
+                }
+                free.add(frame);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                if (rawStream != null) {
+                    rawStream.close();
+                }
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+            pngEncoder.close();
+        }
+    }
+
+    private void write(Frame frame) throws IOException {
+        int width = rasterizer.getWidth(), height = rasterizer.getHeight();
+        if (format == Format.PNG) {
+            File file = new File(directory, String.format("frame-%010d.png", frame.tick));
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16)) {
+                pngEncoder.write(frame.pixels, width, height, out);
+            }
+            return;
+        }
+        if (rawStream == null) {
+            rawStream = new BufferedOutputStream(new FileOutputStream(new File(directory, RAW_FILE_NAME)), 1 << 20);
+            rawBytes = new byte[width * height * 4];
+        }
+        int[] pixels = frame.pixels;
+        for (int i = 0, j = 0; i < pixels.length; i++, j += 4) {
+            int pixel = pixels[i];
+            rawBytes[j] = (byte) (pixel >>> 24);
+            rawBytes[j + 1] = (byte) (pixel >>> 16);
+            rawBytes[j + 2] = (byte) (pixel >>> 8);
+            rawBytes[j + 3] = (byte) pixel;
+        }
+        rawStream.write(rawBytes);
+    }
+
+    /**
+     * Stops capturing, waits for the queued frames to be written and stops the threads.
+     *
+     * @throws IOException If the writer failed to write a frame or to close the raw stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        queued.add(END);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rasterizer.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Returns the directory frames are written to.
+     *
+     * @return The directory.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the number of frames handed to the writer.
+     *
+     * @return The captured frame count.
+     */
+    public long getCaptured() {
+        return captured;
+    }
+
+    /**
+     * Returns the number of frames dropped because the writer was behind or had failed.
+     *
+     * @return The dropped frame count.
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Returns the number of frames written so far.
+     *
+     * @return The written frame count.
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    /**
+     * Returns the error that stopped the writer, if any.
+     *
+     * @return The error, or null while writing works.
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+}
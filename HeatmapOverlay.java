@@ -0,0 +1,108 @@
+package com.example.robotgui;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+/**
+ * Draws an {@link OccupancyHeatmap} over the arena as one image with a pixel per cell, scaled up to the arena.
+ * <p>
+ * Counts are mapped on a logarithmic scale, relative to the busiest cell, through a colour table running from
+ * transparent through blue, green and yellow to red. The colours are written into an int ARGB buffer that is
+ * copied into a {@link WritableImage} in one call, so the overlay costs one image draw rather than a
+ * {@code fillRect} per cell. The image is only refreshed when asked, since occupancy changes slowly.
+ */
+public class HeatmapOverlay {
+    private static final int LEVELS = 256; // Entries in the colour table
+    private static final int[] COLORS = buildColorTable();
+
+    private final OccupancyHeatmap heatmap; // The counts to show
+    private final int[] totals; // Reused counts of the shown type
+    private final int[] pixels; // Reused ARGB pixels, one per cell
+    private final WritableImage image; // Image drawn over the arena
+    private ItemType type; // Robot type shown, or null for all
+
+    /**
+     * Creates an overlay for a heatmap.
+     *
+     * @param heatmap The heatmap to show.
+     */
+    public HeatmapOverlay(OccupancyHeatmap heatmap) {
+        this.heatmap = heatmap;
+        int cellCount = heatmap.getColumns() * heatmap.getRows();
+        totals = new int[cellCount];
+        pixels = new int[cellCount];
+        image = new WritableImage(heatmap.getColumns(), heatmap.getRows());
+    }
+
+    /**
+     * Builds the colour table: transparent, then blue, green, yellow and red with rising opacity.
+     */
+    private static int[] buildColorTable() {
+        double[][] stops = { // Position, red, green, blue, alpha
+                {0.00, 0, 0, 255, 0},
+                {0.25, 0, 0, 255, 110},
+                {0.50, 0, 200, 0, 140},
+                {0.75, 255, 230, 0, 170},
+                {1.00, 255, 0, 0, 200}};
+        int[] table = new int[LEVELS];
+        for (int i = 0; i < LEVELS; i++) {
+            double t = i / (double) (LEVELS - 1);
+            int s = 0;
+            while (s < stops.length - 2 && t > stops[s + 1][0]) {
+                s++;
+            }
+            double f = (t - stops[s][0]) / (stops[s + 1][0] - stops[s][0]);
+            int r = (int) Math.round(stops[s][1] + f * (stops[s + 1][1] - stops[s][1]));
+            int g = (int) Math.round(stops[s][2] + f * (stops[s + 1][2] - stops[s][2]));
+            int b = (int) Math.round(stops[s][3] + f * (stops[s + 1][3] - stops[s][3]));
+            int a = (int) Math.round(stops[s][4] + f * (stops[s + 1][4] - stops[s][4]));
+            table[i] = a << 24 | r << 16 | g << 8 | b;
+        }
+        return table;
+    }
+
+    /**
+     * Selects the robot type shown.
+     *
+     * @param type The type to show, or null for all robots.
+     */
+    public void setType(ItemType type) {
+        this.type = type;
+    }
+
+    /**
+     * Returns the robot type shown.
+     *
+     * @return The type, or null for all robots.
+     */
+    public ItemType getType() {
+        return type;
+    }
+
+    /**
+     * Recomputes the image from the heatmap's current counts.
+     */
+    public void refresh() {
+        int largest = heatmap.totals(type, totals);
+        double scale = largest > 0 ? (LEVELS - 1) / Math.log1p(largest) : 0;
+        for (int i = 0; i < totals.length; i++) {
+            pixels[i] = COLORS[(int) (Math.log1p(totals[i]) * scale)];
+        }
+        image.getPixelWriter().setPixels(0, 0, heatmap.getColumns(), heatmap.getRows(),
+                PixelFormat.getIntArgbInstance(), pixels, 0, heatmap.getColumns());
+    }
+
+    /**
+     * Draws the overlay, scaled so each pixel covers its cell, without smoothing between cells.
+     *
+     * @param gc The GraphicsContext used for drawing.
+     */
+    public void draw(GraphicsContext gc) {
+        boolean smoothing = gc.isImageSmoothing();
+        gc.setImageSmoothing(false);
+        gc.drawImage(image, 0, 0, heatmap.getColumns() * heatmap.getCellSize(),
+                heatmap.getRows() * heatmap.getCellSize());
+        gc.setImageSmoothing(smoothing);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.robotgui;
+
+/**
+ * Enumerates the concrete kinds of items that can live in the arena.
+ * Each type has a stable numeric code used wherever item state is written out in binary form,
+ * such as the state stream sent to remote viewers.
+ */
+public enum ItemType {
+    WHISKER_ROBOT(1),
+    PREDATOR_ROBOT(2),
+    BEAM_SENSOR_ROBOT(3),
+    CONTROLLABLE_ROBOT(4),
+    OBSTACLE(5),
+    FOOD(6),
+    LIDAR_ROBOT(7);
+
+    private final int code; // Stable wire code of the type
+
+    ItemType(int code) {
+        this.code = code;
+    }
+
+    /**
+     * Returns the stable numeric code of this type.
+     *
+     * @return The type code.
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Looks up the type with the given numeric code.
+     *
+     * @param code The type code.
+     * @return The matching ItemType.
+     * @throws IllegalArgumentException If no type has the given code.
+     */
+    public static ItemType fromCode(int code) {
+        for (ItemType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown item type code: " + code);
+    }
+
+    /**
+     * Creates a default instance of this type at the given position.
+     * Used where only the appearance of an item is needed, for example when drawing remote state.
+     *
+     * @param x      The x-coordinate of the item.
+     * @param y      The y-coordinate of the item.
+     * @param radius The radius of the item.
+     * @return A new ArenaItem of this type.
+     */
+    public ArenaItem newInstance(double x, double y, double radius) {
+        switch (this) {
+            case WHISKER_ROBOT:
+                return new WhiskerRobot(x, y, radius, 0, 2, 50);
+            case PREDATOR_ROBOT:
+                return new PredatorRobot(x, y, radius, 0, 1.2);
+            case BEAM_SENSOR_ROBOT:
+                return new BeamSensorRobot(x, y, radius, 0, 1.5, 100, 50);
+            case CONTROLLABLE_ROBOT:
+                return new ControllableRobot(x, y, radius, 5);
+            case OBSTACLE:
+                return new Obstacle(x, y, radius);
+            case LIDAR_ROBOT:
+                return new LidarRobot(x, y, radius, 0, 1.5, LidarRobot.DEFAULT_RAY_COUNT, LidarRobot.DEFAULT_RANGE);
+            default:
+                return new Food(x, y, radius);
+        }
+    }
+}
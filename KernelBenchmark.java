@@ -0,0 +1,130 @@
+package com.example.robotgui;
+
+import java.util.Random;
+
+/**
+ * Measures the {@link DistanceKernels} scans with the scalar loops and, when available, the Vector API.
+ * Usage: {@code java --add-modules jdk.incubator.vector KernelBenchmark [items...]}
+ * <p>
+ * Each kernel is run over random points until a fixed time has passed, after a warm-up, and reported as
+ * nanoseconds per scanned item. The two modes are also checked to give identical results.
+ */
+public final class KernelBenchmark {
+    private static final long WARM_UP_NANOS = 500_000_000; // Time spent compiling the loops before measuring
+    private static final long MEASURE_NANOS = 1_000_000_000; // Time measured per kernel and mode
+    private static final int QUERIES = 64; // Different query points cycled through
+
+    private KernelBenchmark() {
+        // Utility class
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Item counts to benchmark, 1000, 10000 and 100000 by default.
+     */
+    public static void main(String[] args) {
+        int[] sizes = args.length > 0 ? new int[args.length] : new int[]{1_000, 10_000, 100_000};
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+        boolean vector = DistanceKernels.isVectorAvailable();
+        if (vector) {
+            DistanceKernels.setVectorEnabled(true);
+            System.out.println("Vector API available, " + DistanceKernels.lanes() + " lanes of double");
+        } else {
+            System.out.println("Vector API not available, scalar loops only"
+                    + " (run with --add-modules jdk.incubator.vector)");
+        }
+        System.out.printf("%-12s %9s %12s %12s %8s%n", "kernel", "items", "scalar ns", "vector ns", "speedup");
+
+        for (int size : sizes) {
+            Random random = new Random(size);
+            double[] xs = new double[size], ys = new double[size], radii = new double[size], out = new double[size];
+            for (int i = 0; i < size; i++) {
+                xs[i] = random.nextDouble() * 800;
+                ys[i] = random.nextDouble() * 600;
+                radii[i] = 0.001 + random.nextDouble() * 0.01; // Tiny, so overlap scans usually run to the end
+            }
+            double[] qx = new double[QUERIES], qy = new double[QUERIES];
+            for (int q = 0; q < QUERIES; q++) {
+                qx[q] = random.nextDouble() * 800;
+                qy[q] = random.nextDouble() * 600;
+            }
+
+            for (int kernel = 0; kernel < 4; kernel++) {
+                DistanceKernels.setVectorEnabled(false);
+                long scalarResult = run(kernel, xs, ys, radii, out, qx, qy, WARM_UP_NANOS, null);
+                double scalar = measure(kernel, xs, ys, radii, out, qx, qy);
+                String vectorText = "-", speedupText = "-";
+                if (vector) {
+                    DistanceKernels.setVectorEnabled(true);
+                    long vectorResult = run(kernel, xs, ys, radii, out, qx, qy, WARM_UP_NANOS, null);
+                    if (vectorResult != scalarResult) {
+                        throw new IllegalStateException("Scalar and vector results differ for " + name(kernel));
+                    }
+                    double vectorNanos = measure(kernel, xs, ys, radii, out, qx, qy);
+                    vectorText = String.format("%.3f", vectorNanos);
+                    speedupText = String.format("%.2fx", scalar / vectorNanos);
+                }
+                System.out.printf("%-12s %9d %12.3f %12s %8s%n", name(kernel), size, scalar, vectorText, speedupText);
+            }
+        }
+    }
+
+    private static String name(int kernel) {
+        return switch (kernel) {
+            case 0 -> "distances";
+            case 1 -> "nearest";
+            case 2 -> "firstWithin";
+            default -> "countWithin";
+        };
+    }
+
+    /**
+     * Returns the time per scanned item of a kernel in the current mode.
+     */
+    private static double measure(int kernel, double[] xs, double[] ys, double[] radii, double[] out,
+                                  double[] qx, double[] qy) {
+        long[] calls = new long[1];
+        long start = System.nanoTime();
+        run(kernel, xs, ys, radii, out, qx, qy, MEASURE_NANOS, calls);
+        long elapsed = System.nanoTime() - start;
+        return (double) elapsed / (calls[0] * xs.length);
+    }
+
+    /**
+     * Calls a kernel for every query point, over and over until the duration has passed.
+     *
+     * @return A checksum of the results of the first round, to compare the modes.
+     */
+    private static long run(int kernel, double[] xs, double[] ys, double[] radii, double[] out,
+                            double[] qx, double[] qy, long durationNanos, long[] calls) {
+        int count = xs.length;
+        long checksum = 0;
+        long rounds = 0;
+        long deadline = System.nanoTime() + durationNanos;
+        do {
+            for (int q = 0; q < QUERIES; q++) {
+                long result;
+                switch (kernel) {
+                    case 0 -> {
+                        DistanceKernels.squaredDistances(xs, ys, count, qx[q], qy[q], out);
+                        result = Double.doubleToLongBits(out[q % count]);
+                    }
+                    case 1 -> result = DistanceKernels.nearest(xs, ys, count, qx[q], qy[q]);
+                    case 2 -> result = DistanceKernels.firstWithin(xs, ys, radii, count, qx[q], qy[q], 3);
+                    default -> result = DistanceKernels.countWithin(xs, ys, radii, count, qx[q], qy[q], 3);
+                }
+                if (rounds == 0) {
+                    checksum = checksum * 31 + result;
+                }
+            }
+            rounds++;
+        } while (System.nanoTime() < deadline);
+        if (calls != null) {
+            calls[0] = rounds * QUERIES;
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.robotgui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures the batched {@link RayCaster} against casting every ray alone against every item.
+ * Usage: {@code LidarBenchmark [--rays N] [--ticks N] [robots...]}
+ * <p>
+ * Each size runs the "Lidar swarm" world scaled to the number of robots, so the density stays the same. Reported
+ * are the time of one batched scan of every robot's rays, the time of a whole tick including the scan, and the
+ * time the brute-force reference takes per scan, estimated from a sample of robots. The batched scans of the
+ * sample are also checked to match the reference exactly.
+ */
+public final class LidarBenchmark {
+    private static final int SAMPLE = 50; // Robots cast by the reference, as it is far slower
+    private static final double AREA_PER_ROBOT = 2400.0 * 1800 / 1000; // Arena area per robot, as in the library
+
+    private LidarBenchmark() {
+        // Utility class
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Command line arguments.
+     */
+    public static void main(String[] args) {
+        int rays = LidarRobot.DEFAULT_RAY_COUNT, ticks = 50;
+        List<Integer> sizes = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--rays" -> rays = Integer.parseInt(args[++i]);
+                case "--ticks" -> ticks = Integer.parseInt(args[++i]);
+                default -> sizes.add(Integer.parseInt(args[i]));
+            }
+        }
+        if (sizes.isEmpty()) {
+            sizes.addAll(List.of(1_000, 10_000));
+        }
+
+        System.out.printf("%9s %6s %12s %12s %14s   (ms)%n", "robots", "rays", "batched scan", "tick",
+                "reference scan");
+        for (int robots : sizes) {
+            RobotArena arena = ScenarioGenerator.generate(spec(robots));
+            List<LidarRobot> lidars = new ArrayList<>();
+            for (ArenaItem item : arena.getDynamicItems()) {
+                LidarRobot robot = (LidarRobot) item;
+                robot.setRayCount(rays);
+                lidars.add(robot);
+            }
+            for (int t = 0; t < ticks; t++) {
+                arena.update(); // Warm up, and spread the robots out of their initial places
+            }
+
+            RayCaster caster = new RayCaster();
+            long start = System.nanoTime();
+            for (int t = 0; t < ticks; t++) {
+                caster.cast(arena, lidars);
+            }
+            double scan = (System.nanoTime() - start) / 1e6 / ticks;
+
+            start = System.nanoTime();
+            for (int t = 0; t < ticks; t++) {
+                arena.update();
+            }
+            double tick = (System.nanoTime() - start) / 1e6 / ticks;
+
+            lidars.clear();
+            for (ArenaItem item : arena.getDynamicItems()) {
+                lidars.add((LidarRobot) item);
+            }
+            double reference = checkAgainstReference(arena, lidars, caster);
+            System.out.printf("%9d %6d %12.3f %12.3f %14.3f%n", robots, rays, scan, tick, reference);
+        }
+    }
+
+    /**
+     * Returns a world of lidar robots at the density of the library's swarm whatever their number.
+     */
+    private static ScenarioSpec spec(int robots) {
+        double width = Math.sqrt(robots * AREA_PER_ROBOT * 4 / 3);
+        return new ScenarioSpec("Lidar " + robots).seed(robots).size(width, width * 3 / 4)
+                .count(ItemType.LIDAR_ROBOT, robots).radius(ItemType.LIDAR_ROBOT, 8)
+                .count(ItemType.FOOD, robots * 3 / 2).radius(ItemType.FOOD, 5)
+                .clustered(ItemType.FOOD, Math.max(1, robots / 80), 120)
+                .scatteredObstacles(Math.max(1, robots * 2 / 25), 40);
+    }
+
+    /**
+     * Casts a sample of the robots with the reference, checks the batched scans match, and returns the estimated
+     * time of a reference scan of every robot.
+     */
+    private static double checkAgainstReference(RobotArena arena, List<LidarRobot> lidars, RayCaster caster) {
+        caster.cast(arena, lidars);
+        int sample = Math.min(SAMPLE, lidars.size());
+        long start = System.nanoTime();
+        for (int i = 0; i < sample; i++) {
+            LidarRobot robot = lidars.get(i * lidars.size() / sample);
+            double[] distances = new double[robot.getRayCount()];
+            ItemType[] hits = new ItemType[robot.getRayCount()];
+            RayCaster.castReference(arena, robot, distances, hits);
+            if (!Arrays.equals(distances, robot.getDistances()) || !Arrays.equals(hits, robot.getHitTypes())) {
+                throw new IllegalStateException("Batched scan differs from the reference for robot " + robot.getId());
+            }
+        }
+        return (System.nanoTime() - start) / 1e6 * lidars.size() / Math.max(1, sample);
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.robotgui;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+import java.util.Arrays;
+
+/**
+ * A robot with a scanning lidar: a fan of rays spread evenly around it, each reporting the distance to the first
+ * wall or item it meets and the type of that item.
+ * <p>
+ * The arena casts the rays of all lidar robots as one batch through a {@link RayCaster} at the start of every tick,
+ * before any robot moves, so the robot acts on a scan of the arena as the tick began. It heads for the nearest food
+ * any ray sees; otherwise, when something is close ahead, it turns towards the longest free ray. Like the other
+ * foragers, it loses energy over time and regains it by eating.
+ */
+public class LidarRobot extends Robot {
+    /** Default number of rays. */
+    public static final int DEFAULT_RAY_COUNT = 64;
+    /** Default distance the rays reach. */
+    public static final double DEFAULT_RANGE = 150;
+    private static final double CLEARANCE = 15; // Free distance beyond the radius wanted ahead
+    private static final double FRONT_ANGLE = Math.PI / 8; // Rays within this angle of the heading look ahead
+
+    private int rayCount; // Number of rays
+    private double range; // Distance the rays reach
+    private double energy; // Energy level of the robot
+    private double[] directions; // Ray directions relative to the heading, shared, from RayCaster.directions
+    private double[] distances; // Distance along each ray from the last scan
+    private ItemType[] hitTypes; // Type of the item each ray hit in the last scan, null for walls and nothing
+
+    /**
+     * Constructs a LidarRobot with the specified position, size, movement and scanner attributes.
+     *
+     * @param x        The x-coordinate of the robot's center.
+     * @param y        The y-coordinate of the robot's center.
+     * @param radius   The radius of the robot.
+     * @param angle    The initial movement direction in radians.
+     * @param speed    The speed of the robot.
+     * @param rayCount The number of rays.
+     * @param range    The distance the rays reach.
+     */
+    public LidarRobot(double x, double y, double radius, double angle, double speed, int rayCount, double range) {
+        super(x, y, radius, angle, speed);
+        this.range = range;
+        this.energy = 100; // Initial energy level
+        setRayCount(rayCount);
+    }
+
+    /**
+     * Updates the robot from its latest scan: heads for food, avoids what is close ahead, and eats food it touches.
+     *
+     * @param arena The arena containing all items.
+     */
+    @Override
+    public void update(RobotArena arena) {
+        if (energy <= 0) {
+            arena.publishEvent(SimulationEvent.DEATH, this, null);
+            arena.removeItem(this); // Remove the robot if energy is depleted
+            return;
+        }
+        energy -= 0.05 * arena.getTimeStep(); // Reduce energy over time
+
+        int target = nearestRay(ItemType.FOOD);
+        if (target < 0 && isBlockedAhead()) {
+            target = longestRay();
+        }
+        if (target >= 0) {
+            steerToward(dirX * directions[2 * target] - dirY * directions[2 * target + 1],
+                    dirX * directions[2 * target + 1] + dirY * directions[2 * target]);
+        }
+
+        move(arena);
+        eatTouchingFood(arena);
+        stayInArenaBounds(arena);
+    }
+
+    /**
+     * Returns the ray that hits an item of a type closest, or -1 if none does.
+     */
+    private int nearestRay(ItemType type) {
+        int nearest = -1;
+        for (int k = 0; k < rayCount; k++) {
+            if (hitTypes[k] == type && (nearest < 0 || distances[k] < distances[nearest])) {
+                nearest = k;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Checks whether any ray looking ahead hits something within the clearance.
+     */
+    private boolean isBlockedAhead() {
+        double cosLimit = Math.cos(FRONT_ANGLE);
+        for (int k = 0; k < rayCount; k++) {
+            if (directions[2 * k] >= cosLimit && distances[k] < radius + CLEARANCE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the ray with the most free distance, preferring those closest to the heading.
+     */
+    private int longestRay() {
+        int longest = 0;
+        for (int k = 1; k < rayCount; k++) {
+            if (distances[k] > distances[longest]
+                    || distances[k] == distances[longest] && directions[2 * k] > directions[2 * longest]) {
+                longest = k;
+            }
+        }
+        return longest;
+    }
+
+    /**
+     * Eats one food item the robot overlaps, if any.
+     */
+    private void eatTouchingFood(RobotArena arena) {
+        collectNearby(arena, x - radius, y - radius, x + radius, y + radius);
+        for (ArenaItem item : nearby) {
+            if (item instanceof Food && overlaps(item)) {
+                arena.publishEvent(SimulationEvent.MEAL, this, item);
+                arena.removeItem(item);
+                energy = Math.min(energy + 20, 100); // Regain energy, capped at 100
+                return;
+            }
+        }
+    }
+
+    /**
+     * Draws the robot, the rays of its last scan and its energy level.
+     *
+     * @param gc The GraphicsContext used for rendering.
+     */
+    @Override
+    public void draw(GraphicsContext gc) {
+        // Draw rays, coloured by what they hit
+        gc.setLineWidth(0.5);
+        for (int k = 0; k < rayCount; k++) {
+            double rayX = dirX * directions[2 * k] - dirY * directions[2 * k + 1];
+            double rayY = dirX * directions[2 * k + 1] + dirY * directions[2 * k];
+            ItemType hit = hitTypes[k];
+            gc.setStroke(hit == ItemType.FOOD ? Color.color(0, 0.6, 0, 0.6)
+                    : hit != null || distances[k] < range ? Color.color(1, 0, 0, 0.4)
+                    : Color.color(0.5, 0.5, 0.5, 0.3));
+            gc.strokeLine(x, y, x + distances[k] * rayX, y + distances[k] * rayY);
+        }
+
+        // Draw robot body
+        gc.setFill(Color.DARKORANGE);
+        gc.fillOval(x - radius, y - radius, radius * 2, radius * 2);
+        gc.setStroke(Color.BLACK);
+        gc.setLineWidth(2);
+        gc.strokeOval(x - radius, y - radius, radius * 2, radius * 2);
+
+        // Draw the scanner head towards the heading
+        gc.setFill(Color.BLACK);
+        gc.fillOval(x + dirX * radius * 0.5 - radius * 0.25, y + dirY * radius * 0.5 - radius * 0.25,
+                radius * 0.5, radius * 0.5);
+
+        // Draw energy level
+        gc.setFill(Color.GREEN);
+        gc.fillRect(x - radius, y - radius - 10, (energy / 100) * radius * 2, 5);
+        gc.setStroke(Color.BLACK);
+        gc.setLineWidth(1);
+        gc.strokeRect(x - radius, y - radius - 10, radius * 2, 5);
+    }
+
+    /**
+     * Returns the robot's energy level.
+     *
+     * @return The energy, from 0 to 100.
+     */
+    public double getEnergy() {
+        return energy;
+    }
+
+    /**
+     * Returns the number of rays.
+     *
+     * @return The ray count.
+     */
+    public int getRayCount() {
+        return rayCount;
+    }
+
+    /**
+     * Sets the number of rays. The scan reads as clear until the rays are next cast.
+     *
+     * @param rayCount The ray count, at least 1.
+     * @throws IllegalArgumentException If the count is below 1.
+     */
+    public void setRayCount(int rayCount) {
+        if (rayCount < 1) {
+            throw new IllegalArgumentException("A lidar needs at least one ray: " + rayCount);
+        }
+        this.rayCount = rayCount;
+        directions = RayCaster.directions(rayCount);
+        distances = new double[rayCount];
+        hitTypes = new ItemType[rayCount];
+        Arrays.fill(distances, range);
+    }
+
+    /**
+     * Returns the distance the rays reach.
+     *
+     * @return The range.
+     */
+    public double getRange() {
+        return range;
+    }
+
+    /**
+     * Sets the distance the rays reach, from the next scan.
+     *
+     * @param range The range.
+     */
+    public void setRange(double range) {
+        this.range = range;
+    }
+
+    /**
+     * Returns the distance along each ray from the last scan, at most the range. Ray k leaves at
+     * {@code 2 * PI * k / getRayCount()} radians from the heading. Filled by the arena's {@link RayCaster}.
+     *
+     * @return The distances, indexed by ray. Only modified by the ray caster.
+     */
+    public double[] getDistances() {
+        return distances;
+    }
+
+    /**
+     * Returns the type of the item each ray hit in the last scan.
+     *
+     * @return The types, indexed by ray, null where a ray hit a wall or nothing. Only modified by the ray caster.
+     */
+    public ItemType[] getHitTypes() {
+        return hitTypes;
+    }
+
+    /**
+     * Returns the number of state values, including the energy, range and ray count.
+     *
+     * @return The number of state values.
+     */
+    @Override
+    public int getStateSize() {
+        return super.getStateSize() + 3;
+    }
+
+    /**
+     * Writes the robot's state, including the energy, range and ray count, into an array.
+     * The scan is not part of the state, as it is cast again at the start of every tick.
+     *
+     * @param state  The array to write to.
+     * @param offset The index of the first value.
+     */
+    @Override
+    public void saveState(double[] state, int offset) {
+        super.saveState(state, offset);
+        int i = offset + super.getStateSize();
+        state[i] = energy;
+        state[i + 1] = range;
+        state[i + 2] = rayCount;
+    }
+
+    /**
+     * Restores the robot's state, including the energy, range and ray count, from an array.
+     *
+     * @param state  The array to read from.
+     * @param offset The index of the first value.
+     */
+    @Override
+    public void loadState(double[] state, int offset) {
+        super.loadState(state, offset);
+        int i = offset + super.getStateSize();
+        energy = state[i];
+        range = state[i + 1];
+        int rays = (int) state[i + 2];
+        if (rays != rayCount) {
+            setRayCount(rays);
+        }
+    }
+
+    /**
+     * Returns the type of this item.
+     * @return ItemType.LIDAR_ROBOT
+     */
+    @Override
+    public ItemType getType() {
+        return ItemType.LIDAR_ROBOT;
+    }
+}
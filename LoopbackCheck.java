@@ -0,0 +1,207 @@
+package com.example.robotgui;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Checks that a remote viewer sees exactly what the server simulates, without JavaFX.
+ * Usage: {@code LoopbackCheck [--frames N] [--tps N] [--seed N] [--scenario name|file]}
+ * <p>
+ * A {@link SimulationServer} runs a scenario on an ephemeral loopback port and a {@link ViewerClient} connects to
+ * it. After every tick the server's arena is captured as the stream quantises it: ids in arena order, types,
+ * positions, radii and obstacle outlines. Every state the viewer publishes must match the capture of its tick
+ * exactly. Halfway through, the viewer is forced to resynchronise from a keyframe, as when it falls behind.
+ * <p>
+ * Every few ticks an obstacle is moved, another is replaced by a wall and food is added, so the deltas carry
+ * removals, additions with reused ids and new outlines as well as movement.
+ */
+public final class LoopbackCheck {
+    private static final int PERTURB_INTERVAL = 25; // Ticks between changes to the arena
+    private static final long FRAME_TIMEOUT_MILLIS = 10_000; // Longest wait for the next state
+
+    /**
+     * An arena's state at one tick, quantised like the stream.
+     */
+    private static final class Expected {
+        final int[] ids;
+        final ItemType[] types;
+        final int[] xs, ys, radii; // Quantised positions and radii
+        final int[][] shapes; // Quantised outline vertices as x, y pairs, null for items without an outline
+
+        Expected(List<ArenaItem> items) {
+            int count = items.size();
+            ids = new int[count];
+            types = new ItemType[count];
+            xs = new int[count];
+            ys = new int[count];
+            radii = new int[count];
+            shapes = new int[count][];
+            for (int i = 0; i < count; i++) {
+                ArenaItem item = items.get(i);
+                ids[i] = item.getId();
+                types[i] = item.getType();
+                xs[i] = StateStreamEncoder.quantise(item.x);
+                ys[i] = StateStreamEncoder.quantise(item.y);
+                radii[i] = StateStreamEncoder.quantise(item.radius);
+                if (item instanceof Obstacle) {
+                    ConvexPolygon shape = ((Obstacle) item).getShape();
+                    shapes[i] = new int[shape.getVertexCount() * 2];
+                    for (int j = 0; j < shape.getVertexCount(); j++) {
+                        shapes[i][j * 2] = StateStreamEncoder.quantise(shape.getX(j));
+                        shapes[i][j * 2 + 1] = StateStreamEncoder.quantise(shape.getY(j));
+                    }
+                }
+            }
+        }
+    }
+
+    private LoopbackCheck() {
+        // Utility class
+    }
+
+    /**
+     * Runs the check.
+     *
+     * @param args Command line arguments.
+     * @throws IOException If the scenario cannot be read or the connection cannot be established.
+     * @throws InterruptedException If interrupted while waiting for frames.
+     * @throws IllegalArgumentException If an option is unknown or has no value.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int frames = 300;
+        double tps = 120;
+        long seed = 1;
+        String scenario = "Sampler";
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for option: " + args[i]);
+            }
+            switch (args[i]) {
+                case "--frames" -> frames = Integer.parseInt(args[i + 1]);
+                case "--tps" -> tps = Double.parseDouble(args[i + 1]);
+                case "--seed" -> seed = Long.parseLong(args[i + 1]);
+                case "--scenario" -> scenario = args[i + 1];
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        File specFile = new File(scenario);
+        RobotArena arena = ScenarioGenerator.generate(specFile.isFile() ? ScenarioSpec.load(specFile)
+                : ScenarioLibrary.byName(scenario));
+        Map<Long, Expected> expected = new ConcurrentHashMap<>(); // Captured states by tick, until checked
+        Random random = new Random(seed);
+        SimulationServer server = new SimulationServer(arena, 0, tps);
+        server.setRecorders(recorded -> {
+            if (recorded.getTick() % PERTURB_INTERVAL == 0) {
+                perturb(recorded, random); // Before the capture, so the tick's frame carries the changes
+            }
+            expected.put(recorded.getTick(), new Expected(recorded.getItems()));
+        });
+
+        int checked = 0, differed = 0;
+        server.start();
+        try (ViewerClient client = new ViewerClient(InetAddress.getLoopbackAddress().getHostAddress(),
+                server.getPort())) {
+            long lastTick = -1;
+            long deadline = System.currentTimeMillis() + FRAME_TIMEOUT_MILLIS;
+            while (checked < frames) {
+                StateFrame frame = client.getLatestFrame();
+                if (frame == null || frame.getTick() == lastTick) {
+                    if (!client.isConnected() || System.currentTimeMillis() > deadline) {
+                        throw new IllegalStateException("No state received after tick " + lastTick);
+                    }
+                    Thread.sleep(1);
+                    continue;
+                }
+                lastTick = frame.getTick();
+                deadline = System.currentTimeMillis() + FRAME_TIMEOUT_MILLIS;
+                String difference = compare(expected.get(lastTick), frame);
+                if (difference != null) {
+                    differed++;
+                    System.out.println("Tick " + lastTick + ": " + difference);
+                }
+                long checkedTick = lastTick;
+                expected.keySet().removeIf(tick -> tick <= checkedTick);
+                checked++;
+                if (checked == frames / 2) {
+                    server.resyncViewers();
+                }
+            }
+        } finally {
+            server.stop();
+        }
+        System.out.printf("%d of %d states received over loopback differed from the arena%n", differed, checked);
+        if (differed > 0) {
+            throw new IllegalStateException(differed + " received states differ");
+        }
+    }
+
+    /**
+     * Moves an obstacle, replaces another with a wall and adds food.
+     */
+    private static void perturb(RobotArena arena, Random random) {
+        List<Obstacle> obstacles = arena.getObstacles();
+        if (!obstacles.isEmpty()) {
+            Obstacle moved = obstacles.get(random.nextInt(obstacles.size()));
+            moved.x += random.nextGaussian() * 20;
+            moved.y += random.nextGaussian() * 20;
+            arena.itemMoved(moved);
+            arena.removeItem(obstacles.get(random.nextInt(obstacles.size())));
+        }
+        double x = random.nextDouble() * arena.getWidth(), y = random.nextDouble() * arena.getHeight();
+        arena.addItem(Obstacle.wall(x, y, x + random.nextGaussian() * 60, y + random.nextGaussian() * 60,
+                4 + random.nextInt(6)));
+        arena.addItem(new Food(random.nextDouble() * arena.getWidth(), random.nextDouble() * arena.getHeight(), 5));
+    }
+
+    /**
+     * Compares a received state with the arena's state at its tick.
+     *
+     * @return A description of the first difference, or null if there is none.
+     */
+    private static String compare(Expected expected, StateFrame frame) {
+        if (expected == null) {
+            return "no arena state was captured for this tick";
+        }
+        if (frame.getCount() != expected.ids.length) {
+            return "received " + frame.getCount() + " items, the arena has " + expected.ids.length;
+        }
+        double scale = StateStreamEncoder.POSITION_SCALE;
+        for (int i = 0; i < frame.getCount(); i++) {
+            int id = expected.ids[i];
+            if (frame.getId(i) != id || frame.getType(i) != expected.types[i]) {
+                return "item " + i + " is " + frame.getType(i) + " " + frame.getId(i) + ", expected "
+                        + expected.types[i] + " " + id;
+            }
+            if (frame.getX(i) != expected.xs[i] / scale || frame.getY(i) != expected.ys[i] / scale
+                    || frame.getRadius(i) != expected.radii[i] / scale) {
+                return "item " + id + " is at (" + frame.getX(i) + ", " + frame.getY(i) + ") with radius "
+                        + frame.getRadius(i) + ", expected (" + expected.xs[i] / scale + ", "
+                        + expected.ys[i] / scale + ") with radius " + expected.radii[i] / scale;
+            }
+            ConvexPolygon shape = frame.getShape(i);
+            int[] vertices = expected.shapes[i];
+            if ((shape == null) != (vertices == null)) {
+                return "item " + id + (shape == null ? " has no outline" : " has an unexpected outline");
+            }
+            if (shape == null) {
+                continue;
+            }
+            if (shape.getVertexCount() * 2 != vertices.length) {
+                return "item " + id + " has " + shape.getVertexCount() + " outline vertices, expected "
+                        + vertices.length / 2;
+            }
+            for (int j = 0; j < shape.getVertexCount(); j++) {
+                if (shape.getX(j) != vertices[j * 2] / scale || shape.getY(j) != vertices[j * 2 + 1] / scale) {
+                    return "item " + id + " outline vertex " + j + " differs";
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.robotgui;
+
+/**
+ * Largest-triangle-three-buckets downsampling of a line series.
+ * <p>
+ * The first and last points are kept. The points between are split into equal buckets, and from each bucket the
+ * point forming the largest triangle with the point chosen from the previous bucket and the average of the next
+ * bucket is kept. Peaks and troughs survive, which plain averaging or striding would flatten or miss, so a chart
+ * drawn from a few hundred points looks like one drawn from all of them.
+ */
+public final class Lttb {
+
+    private Lttb() {
+        // Utility class
+    }
+
+    /**
+     * Downsamples a series.
+     *
+     * @param xs        The x-coordinates, in ascending order.
+     * @param ys        The y-coordinates.
+     * @param count     The number of points in the series.
+     * @param threshold The number of points to keep, at least 3 to have any effect.
+     * @param outX      Receives the kept x-coordinates, at least min(count, threshold) long.
+     * @param outY      Receives the kept y-coordinates, at least min(count, threshold) long.
+     * @return The number of points written.
+     */
+    public static int downsample(double[] xs, double[] ys, int count, int threshold, double[] outX, double[] outY) {
+        if (threshold >= count || threshold < 3) {
+            System.arraycopy(xs, 0, outX, 0, count); // Nothing to drop
+            System.arraycopy(ys, 0, outY, 0, count);
+            return count;
+        }
+        double bucketSize = (double) (count - 2) / (threshold - 2); // Inner points per bucket
+        int kept = 0;
+        int previous = 0; // Point kept from the previous bucket
+        outX[kept] = xs[0];
+        outY[kept++] = ys[0];
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Average of the next bucket, or the last point for the final bucket
+            int nextStart = (int) ((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, count);
+            double averageX = 0, averageY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += xs[i];
+                averageY += ys[i];
+            }
+            int nextCount = nextEnd - nextStart;
+            if (nextCount > 0) {
+                averageX /= nextCount;
+                averageY /= nextCount;
+            } else {
+                averageX = xs[count - 1];
+                averageY = ys[count - 1];
+            }
+
+            // The point of this bucket with the largest triangle
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+            double previousX = xs[previous], previousY = ys[previous];
+            double largestArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((previousX - averageX) * (ys[i] - previousY)
+                        - (previousX - xs[i]) * (averageY - previousY)); // Twice the triangle's area
+                if (area > largestArea) {
+                    largestArea = area;
+                    chosen = i;
+                }
+            }
+            outX[kept] = xs[chosen];
+            outY[kept++] = ys[chosen];
+            previous = chosen;
+        }
+        outX[kept] = xs[count - 1];
+        outY[kept++] = ys[count - 1];
+        return kept;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.robotgui;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the {@link Navigator}: plain A* against jump point search on the same queries, and the path cache while
+ * robots forage through a maze.
+ * Usage: {@code NavigationBenchmark [--queries N] [--ticks N] [mazeCells...]}
+ * <p>
+ * Each size generates a maze of about that many cells, all the same size, so the corridors stay as wide. Random
+ * queries between points of the arena are searched with both algorithms, which must agree on every path length.
+ * The maze is then stocked with whisker robots and run, reporting the time of a tick and how many paths the
+ * robots asked for were served from the cache.
+ */
+public final class NavigationBenchmark {
+    private static final double MAZE_CELL = 100; // Side of a maze cell, as in the library's maze
+
+    private NavigationBenchmark() {
+        // Utility class
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Command line arguments.
+     */
+    public static void main(String[] args) {
+        int queries = 2_000, ticks = 200;
+        List<Integer> sizes = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--queries" -> queries = Integer.parseInt(args[++i]);
+                case "--ticks" -> ticks = Integer.parseInt(args[++i]);
+                default -> sizes.add(Integer.parseInt(args[i]));
+            }
+        }
+        if (sizes.isEmpty()) {
+            sizes.addAll(List.of(100, 10_000));
+        }
+
+        System.out.printf("%10s %9s %10s %10s %9s %10s %10s   (us/query, ms/tick)%n", "maze cells", "reachable", "A*",
+                "JPS", "tick", "searches", "cache hits");
+        for (int cells : sizes) {
+            RobotArena arena = ScenarioGenerator.generate(spec(cells));
+            Navigator navigator = arena.getNavigator();
+            Random random = new Random(cells);
+            double[] points = new double[4 * queries];
+            for (int i = 0; i < points.length; i += 2) {
+                points[i] = random.nextDouble() * arena.getWidth();
+                points[i + 1] = random.nextDouble() * arena.getHeight();
+            }
+            int[] costs = new int[queries];
+            double aStar = time(navigator, points, Navigator.Search.A_STAR, costs);
+            double jumpPoint = time(navigator, points, Navigator.Search.JUMP_POINT, costs);
+            int reachable = 0;
+            for (int cost : costs) {
+                if (cost != Navigator.UNREACHABLE) {
+                    reachable++;
+                }
+            }
+
+            long searches = navigator.getSearches(), hits = navigator.getCacheHits();
+            long start = System.nanoTime();
+            for (int t = 0; t < ticks; t++) {
+                arena.update();
+            }
+            double tick = (System.nanoTime() - start) / 1e6 / ticks;
+            System.out.printf("%10d %9d %10.1f %10.1f %9.3f %10d %10d%n", cells, reachable, aStar, jumpPoint, tick,
+                    navigator.getSearches() - searches, navigator.getCacheHits() - hits);
+        }
+    }
+
+    /**
+     * Returns a maze of foragers and food with about a number of cells, each holding a forager or food.
+     */
+    private static ScenarioSpec spec(int cells) {
+        double width = MAZE_CELL * Math.ceil(Math.sqrt(cells * 4.0 / 3));
+        return new ScenarioSpec("Navigation " + cells).seed(cells).size(width, width * 3 / 4)
+                .count(ItemType.WHISKER_ROBOT, cells / 2).radius(ItemType.WHISKER_ROBOT, 10)
+                .count(ItemType.FOOD, cells / 2).radius(ItemType.FOOD, 5).maze(MAZE_CELL, 8);
+    }
+
+    /**
+     * Returns the mean time of a search between each pair of points with one algorithm, checking each path length
+     * against the one already in costs, if any, and storing it there.
+     */
+    private static double time(Navigator navigator, double[] points, Navigator.Search search, int[] costs) {
+        boolean check = search != Navigator.Search.A_STAR;
+        long start = System.nanoTime();
+        for (int i = 0; i < costs.length; i++) {
+            int cost = navigator.pathCost(points[4 * i], points[4 * i + 1], points[4 * i + 2], points[4 * i + 3],
+                    search);
+            if (check && cost != costs[i]) {
+                throw new IllegalStateException(search + " path length " + cost + " differs from A* " + costs[i]
+                        + " for query " + i);
+            }
+            costs[i] = cost;
+        }
+        return (System.nanoTime() - start) / 1e3 / costs.length;
+    }
+}
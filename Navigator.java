@@ -0,0 +1,849 @@
+package com.example.robotgui;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Plans paths around obstacles on an occupancy grid, for robots heading to a target they cannot reach in a
+ * straight line.
+ * <p>
+ * The arena is divided into square cells, and cells whose centre lies within the clearance of an obstacle are
+ * blocked, as in the {@link FoodField}. Paths are searched with A* or jump point search over 8-connected moves
+ * that never cut a blocked corner, then reduced to the corners of the line-of-sight path through them.
+ * <p>
+ * Paths are cached by goal cell and start region, a square block of cells, so robots in one region heading for the
+ * same target share one search: a robot joins the cached path at the farthest of its first waypoints it can see,
+ * and only plans a path of its own when it sees none of them. Searches that find no path are cached as well.
+ * <p>
+ * The grid is kept up to date incrementally. Each obstacle's blocked cells are recorded, so adding, removing or
+ * moving an obstacle only changes the cells under it. Cached paths that newly blocked cells cut are dropped, as
+ * are those that newly freed cells could shorten, decided from a lower bound on the length of any path through
+ * or diagonally past them; every other cached path stays a shortest one. Dropped paths are searched again when
+ * next asked for.
+ */
+public class Navigator {
+    /** Default side length of a cell. */
+    public static final double DEFAULT_CELL_SIZE = 10;
+    /** Default distance from obstacles within which cells are blocked, about a robot's radius. */
+    public static final double DEFAULT_CLEARANCE = 15;
+    /** Default side length of a start region, in cells. */
+    public static final int DEFAULT_REGION_CELLS = 8;
+    /** Default number of cached paths. */
+    public static final int DEFAULT_MAX_PATHS = 4096;
+    /** Cost of a path that does not exist. */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /**
+     * The search used to plan paths. Both find paths of the same, shortest, length.
+     */
+    public enum Search {
+        A_STAR, // Expands every cell closer than the goal
+        JUMP_POINT // Skips along straight and diagonal runs of free cells, expanding only where paths may turn
+    }
+
+    private static final int ORTHOGONAL_COST = 5; // Cost of a step to a side neighbour, as in FoodField
+    private static final int DIAGONAL_COST = 7; // Cost of a step to a corner neighbour, about 5 * sqrt(2)
+    private static final int[] STEP_X = {1, -1, 0, 0, 1, 1, -1, -1}; // Neighbour offsets, sides first
+    private static final int[] STEP_Y = {0, 0, 1, -1, 1, -1, 1, -1};
+    private static final int LOOKAHEAD = 3; // Waypoints past the start tried when joining a shared path
+    private static final int MAX_SNAP = 3; // Rings of cells searched for a free cell around a blocked end
+    private static final double MAX_DEFAULT_CELLS = 1 << 20; // Cells beyond which the default cell size grows
+
+    /**
+     * A cached search result.
+     */
+    private static final class Path {
+        final int start, goal; // Cells searched between
+        final int cost; // Length of the grid path, UNREACHABLE if there is none
+        final int[] route; // Cells where the grid path turns, from start to goal, or null if there is no path
+        final int[] waypoints; // Cells of the line-of-sight path's corners, or null if there is no path
+        final int minColumn, minRow, maxColumn, maxRow; // Bounds of the route, which contain the waypoints
+
+        Path(int start, int goal, int cost, int[] route, int[] waypoints, int columns) {
+            this.start = start;
+            this.goal = goal;
+            this.cost = cost;
+            this.route = route;
+            this.waypoints = waypoints;
+            int minC = Integer.MAX_VALUE, minR = Integer.MAX_VALUE, maxC = -1, maxR = -1;
+            if (route != null) {
+                for (int cell : route) {
+                    minC = Math.min(minC, cell % columns);
+                    maxC = Math.max(maxC, cell % columns);
+                    minR = Math.min(minR, cell / columns);
+                    maxR = Math.max(maxR, cell / columns);
+                }
+            }
+            minColumn = minC;
+            minRow = minR;
+            maxColumn = maxC;
+            maxRow = maxR;
+        }
+    }
+
+    private final RobotArena arena; // Arena whose obstacles block cells
+    private final double cellSize; // Side length of a cell
+    private final double clearance; // Distance from obstacles within which cells are blocked
+    private final int columns, rows; // Grid dimensions
+    private final int regionCells; // Side length of a start region, in cells
+    private final int regionColumns, regionCount; // Start regions per row, and in all
+    private final int[] blockers; // Number of obstacles blocking each cell
+    private final IdentityHashMap<Obstacle, int[]> footprints = new IdentityHashMap<>(); // Cells each blocks
+    private final LinkedHashMap<Long, Path> paths; // Cached paths by goal cell and start key, least recent first
+    private boolean rebuildNeeded = true; // Set when the whole grid must be recomputed
+    private Search search = Search.JUMP_POINT; // Search used for new paths
+    private final int[] cost, parent, visited; // Search state by cell; only valid where visited is the current mark
+    private int mark; // Incremented for every search, so the search state needs no clearing
+    private long[] heap = new long[256]; // Open cells as estimate << 32 | cell
+    private int heapSize;
+    private int[] chain = new int[64]; // Cells of the last search's path, from start to goal
+    private int[] corners = new int[64]; // Reused turning points and waypoints while reducing a path
+    private int[] footprint = new int[64]; // Reused cells while measuring an obstacle
+    private long searches, cacheHits; // Counts since construction
+
+    /**
+     * Creates a navigator over an arena with the default clearance, cell size, region size and cache size.
+     * Arenas too large for about a million default cells get proportionally larger cells.
+     *
+     * @param arena The arena to cover.
+     */
+    public Navigator(RobotArena arena) {
+        this(arena, Math.max(DEFAULT_CELL_SIZE, Math.sqrt(arena.getWidth() * arena.getHeight() / MAX_DEFAULT_CELLS)),
+                DEFAULT_CLEARANCE, DEFAULT_REGION_CELLS, DEFAULT_MAX_PATHS);
+    }
+
+    /**
+     * Creates a navigator over an arena.
+     *
+     * @param arena       The arena to cover.
+     * @param cellSize    The side length of a cell.
+     * @param clearance   The distance from obstacles within which cells are blocked.
+     * @param regionCells The side length of a start region, in cells; 1 gives every start cell its own paths.
+     * @param maxPaths    The number of paths cached, beyond which the least recently used are dropped.
+     */
+    public Navigator(RobotArena arena, double cellSize, double clearance, int regionCells, int maxPaths) {
+        this.arena = arena;
+        this.cellSize = cellSize;
+        this.clearance = clearance;
+        this.regionCells = regionCells;
+        columns = Math.max(1, (int) Math.ceil(arena.getWidth() / cellSize));
+        rows = Math.max(1, (int) Math.ceil(arena.getHeight() / cellSize));
+        regionColumns = (columns + regionCells - 1) / regionCells;
+        regionCount = regionColumns * ((rows + regionCells - 1) / regionCells);
+        blockers = new int[columns * rows];
+        cost = new int[columns * rows];
+        parent = new int[columns * rows];
+        visited = new int[columns * rows];
+        paths = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Path> eldest) {
+                return size() > maxPaths;
+            }
+        };
+    }
+
+    /**
+     * Returns the search used for new paths.
+     *
+     * @return The search.
+     */
+    public Search getSearch() {
+        return search;
+    }
+
+    /**
+     * Sets the search used for new paths. Cached paths are kept, as both searches find paths of the same length.
+     *
+     * @param search The search.
+     */
+    public void setSearch(Search search) {
+        this.search = search;
+    }
+
+    /**
+     * Returns the number of searches run since the navigator was created.
+     *
+     * @return The search count.
+     */
+    public long getSearches() {
+        return searches;
+    }
+
+    /**
+     * Returns the number of requests answered from the cache since the navigator was created.
+     *
+     * @return The cache hit count.
+     */
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * Returns the number of paths cached.
+     *
+     * @return The cache size.
+     */
+    public int getCachedPaths() {
+        return paths.size();
+    }
+
+    /**
+     * Returns the cell containing a position, clamped to the grid.
+     */
+    private int cellAt(double x, double y) {
+        int column = Math.min(columns - 1, Math.max(0, (int) (x / cellSize)));
+        int row = Math.min(rows - 1, Math.max(0, (int) (y / cellSize)));
+        return row * columns + column;
+    }
+
+    private boolean isFree(int column, int row) {
+        return column >= 0 && column < columns && row >= 0 && row < rows && blockers[row * columns + column] == 0;
+    }
+
+    /**
+     * Records an obstacle that has joined the arena, blocking the cells around it.
+     *
+     * @param obstacle The new obstacle.
+     */
+    void obstacleAdded(Obstacle obstacle) {
+        if (rebuildNeeded) {
+            return; // Picked up by the rebuild
+        }
+        int count = measure(obstacle);
+        int[] cells = Arrays.copyOf(footprint, count);
+        footprints.put(obstacle, cells);
+        int minColumn = columns, minRow = rows, maxColumn = -1, maxRow = -1;
+        for (int cell : cells) {
+            if (blockers[cell]++ == 0) {
+                minColumn = Math.min(minColumn, cell % columns);
+                maxColumn = Math.max(maxColumn, cell % columns);
+                minRow = Math.min(minRow, cell / columns);
+                maxRow = Math.max(maxRow, cell / columns);
+            }
+        }
+        if (maxColumn >= 0) {
+            dropCutPaths(minColumn, minRow, maxColumn, maxRow);
+        }
+    }
+
+    /**
+     * Records an obstacle that has left the arena, freeing the cells only it blocked.
+     *
+     * @param obstacle The removed obstacle.
+     */
+    void obstacleRemoved(Obstacle obstacle) {
+        if (rebuildNeeded) {
+            return;
+        }
+        int[] cells = footprints.remove(obstacle);
+        if (cells == null) {
+            return;
+        }
+        int minColumn = columns, minRow = rows, maxColumn = -1, maxRow = -1;
+        for (int cell : cells) {
+            if (--blockers[cell] == 0) {
+                minColumn = Math.min(minColumn, cell % columns);
+                maxColumn = Math.max(maxColumn, cell % columns);
+                minRow = Math.min(minRow, cell / columns);
+                maxRow = Math.max(maxRow, cell / columns);
+            }
+        }
+        if (maxColumn >= 0) {
+            dropShortenedPaths(minColumn, minRow, maxColumn, maxRow);
+        }
+    }
+
+    /**
+     * Records an obstacle that was moved or reshaped, freeing the cells it blocked before and blocking new ones.
+     *
+     * @param obstacle The changed obstacle.
+     */
+    void obstacleMoved(Obstacle obstacle) {
+        obstacleRemoved(obstacle);
+        obstacleAdded(obstacle);
+    }
+
+    /**
+     * Marks the whole grid for recomputation, for example after the arena was restored.
+     */
+    void invalidate() {
+        rebuildNeeded = true;
+    }
+
+    /**
+     * Rebuilds the grid if needed.
+     */
+    private void sync() {
+        if (!rebuildNeeded) {
+            return;
+        }
+        rebuildNeeded = false;
+        Arrays.fill(blockers, 0);
+        footprints.clear();
+        paths.clear();
+        for (Obstacle obstacle : arena.getObstacles()) {
+            int count = measure(obstacle);
+            int[] cells = Arrays.copyOf(footprint, count);
+            footprints.put(obstacle, cells);
+            for (int cell : cells) {
+                blockers[cell]++;
+            }
+        }
+    }
+
+    /**
+     * Writes the cells an obstacle blocks into {@link #footprint} and returns their number.
+     */
+    private int measure(Obstacle obstacle) {
+        int minColumn = Math.max(0, (int) ((obstacle.getMinX() - clearance) / cellSize));
+        int maxColumn = Math.min(columns - 1, (int) ((obstacle.getMaxX() + clearance) / cellSize));
+        int minRow = Math.max(0, (int) ((obstacle.getMinY() - clearance) / cellSize));
+        int maxRow = Math.min(rows - 1, (int) ((obstacle.getMaxY() + clearance) / cellSize));
+        int count = 0;
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                if (obstacle.distanceTo((column + 0.5) * cellSize, (row + 0.5) * cellSize) < clearance) {
+                    if (count == footprint.length) {
+                        footprint = Arrays.copyOf(footprint, count * 2);
+                    }
+                    footprint[count++] = row * columns + column;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Drops the cached paths whose grid route, or line-of-sight waypoints, newly blocked cells within a box cut.
+     * A route that stays clear is still a shortest one, as blocking cells makes no path shorter.
+     */
+    private void dropCutPaths(int minColumn, int minRow, int maxColumn, int maxRow) {
+        Iterator<Path> iterator = paths.values().iterator();
+        while (iterator.hasNext()) {
+            Path path = iterator.next();
+            if (path.route == null) {
+                if (blockers[path.start] > 0 || blockers[path.goal] > 0) {
+                    iterator.remove(); // Requests no longer snap to these cells
+                }
+                continue; // Blocking cells cannot create a path
+            }
+            if (path.maxColumn < minColumn || path.minColumn > maxColumn
+                    || path.maxRow < minRow || path.minRow > maxRow) {
+                continue; // Blocking cells cannot cut a path that stays clear of them
+            }
+            boolean cut = blockers[path.start] > 0; // A route of one cell has no runs
+            for (int i = 1; i < path.route.length && !cut; i++) {
+                cut = !isRunFree(path.route[i - 1], path.route[i]);
+            }
+            for (int i = 1; i < path.waypoints.length && !cut; i++) {
+                cut = !isClear(path.waypoints[i - 1], path.waypoints[i]);
+            }
+            if (cut) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Checks whether every cell of a straight or diagonal run between two cells, both included, is free, and no
+     * diagonal step of it cuts a blocked corner.
+     */
+    private boolean isRunFree(int from, int to) {
+        int column = from % columns, row = from / columns;
+        int dx = Integer.signum(to % columns - column), dy = Integer.signum(to / columns - row);
+        while (true) {
+            if (!isFree(column, row)) {
+                return false;
+            }
+            if (row * columns + column == to) {
+                return true;
+            }
+            if (dx != 0 && dy != 0 && (!isFree(column + dx, row) || !isFree(column, row + dy))) {
+                return false;
+            }
+            column += dx;
+            row += dy;
+        }
+    }
+
+    /**
+     * Drops the cached paths that newly freed cells within a box could shorten or create: those whose length
+     * exceeds the shortest conceivable path from their start to their goal through the box, grown by a cell for
+     * the diagonal steps past the freed cells' corners that they allow.
+     */
+    private void dropShortenedPaths(int minColumn, int minRow, int maxColumn, int maxRow) {
+        minColumn--;
+        minRow--;
+        maxColumn++;
+        maxRow++;
+        Iterator<Path> iterator = paths.values().iterator();
+        while (iterator.hasNext()) {
+            Path path = iterator.next();
+            if (path.cost == UNREACHABLE || path.cost > distanceToBox(path.start, minColumn, minRow, maxColumn, maxRow)
+                    + distanceToBox(path.goal, minColumn, minRow, maxColumn, maxRow)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the length of the shortest unobstructed path from a cell to the nearest cell of a box.
+     */
+    private int distanceToBox(int cell, int minColumn, int minRow, int maxColumn, int maxRow) {
+        int column = cell % columns, row = cell / columns;
+        int dx = Math.max(0, Math.max(minColumn - column, column - maxColumn));
+        int dy = Math.max(0, Math.max(minRow - row, row - maxRow));
+        return octile(dx, dy);
+    }
+
+    /**
+     * Returns the length of the shortest unobstructed 8-connected path across a number of columns and rows.
+     */
+    private static int octile(int dx, int dy) {
+        return ORTHOGONAL_COST * Math.max(dx, dy) + (DIAGONAL_COST - ORTHOGONAL_COST) * Math.min(dx, dy);
+    }
+
+    private int estimate(int cell, int goal) {
+        return octile(Math.abs(cell % columns - goal % columns), Math.abs(cell / columns - goal / columns));
+    }
+
+    /**
+     * Checks whether the straight line between two positions crosses no blocked cell, other than the cells the
+     * line starts and ends in. Robots use this to decide whether they need a path at all.
+     *
+     * @param x0 The x-coordinate of the start.
+     * @param y0 The y-coordinate of the start.
+     * @param x1 The x-coordinate of the end.
+     * @param y1 The y-coordinate of the end.
+     * @return True if the line is clear.
+     */
+    public boolean hasLineOfSight(double x0, double y0, double x1, double y1) {
+        sync();
+        return isClear(cellAt(x0, y0), cellAt(x1, y1));
+    }
+
+    /**
+     * Checks whether the line between the centres of two cells crosses no blocked cell besides the two, and passes
+     * no blocked corner diagonally.
+     */
+    private boolean isClear(int from, int to) {
+        int column = from % columns, row = from / columns;
+        int endColumn = to % columns, endRow = to / columns;
+        int nx = Math.abs(endColumn - column), ny = Math.abs(endRow - row);
+        int sx = endColumn > column ? 1 : -1, sy = endRow > row ? 1 : -1;
+        for (int ix = 0, iy = 0; ix < nx || iy < ny; ) {
+            // Compares where the line next crosses a column and a row boundary, in exact integer arithmetic
+            long decision = (long) (1 + 2 * ix) * ny - (long) (1 + 2 * iy) * nx;
+            if (decision == 0) {
+                if (!isFree(column + sx, row) || !isFree(column, row + sy)) {
+                    return false; // Passes exactly through a corner next to a blocked cell
+                }
+                column += sx;
+                row += sy;
+                ix++;
+                iy++;
+            } else if (decision < 0) {
+                column += sx;
+                ix++;
+            } else {
+                row += sy;
+                iy++;
+            }
+            if ((column != endColumn || row != endRow) && !isFree(column, row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a free cell near a cell, the cell itself if it is free, or -1 if none is near.
+     */
+    private int snap(int cell) {
+        int column = cell % columns, row = cell / columns;
+        if (blockers[cell] == 0) {
+            return cell;
+        }
+        for (int ring = 1; ring <= MAX_SNAP; ring++) {
+            int best = -1, bestDistance = Integer.MAX_VALUE;
+            for (int r = row - ring; r <= row + ring; r++) {
+                for (int c = column - ring; c <= column + ring; c++) {
+                    if (Math.max(Math.abs(c - column), Math.abs(r - row)) == ring && isFree(c, r)) {
+                        int distance = (c - column) * (c - column) + (r - row) * (r - row);
+                        if (distance < bestDistance) {
+                            best = r * columns + c;
+                            bestDistance = distance;
+                        }
+                    }
+                }
+            }
+            if (best >= 0) {
+                return best;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Writes the direction a robot at a position should head in to reach a goal around obstacles.
+     * The goal should not be in sight, or a straight line to it is shorter.
+     *
+     * @param x     The x-coordinate of the robot.
+     * @param y     The y-coordinate of the robot.
+     * @param goalX The x-coordinate of the goal.
+     * @param goalY The y-coordinate of the goal.
+     * @param out   Receives the unnormalised direction in elements 0 and 1.
+     * @return False if no path leads to the goal.
+     */
+    public boolean steer(double x, double y, double goalX, double goalY, double[] out) {
+        sync();
+        int start = snap(cellAt(x, y));
+        int goal = snap(cellAt(goalX, goalY));
+        if (start < 0 || goal < 0) {
+            return false;
+        }
+        int startColumn = start % columns, startRow = start / columns;
+        int region = startRow / regionCells * regionColumns + startColumn / regionCells;
+        Path path = cachedPath(goal, region, start);
+        int target = join(path, start);
+        if (target < 0 && path.start != start) {
+            // Cut off from the region's path, for example by a wall through the region: plan from this cell
+            path = cachedPath(goal, regionCount + start, start);
+            target = Math.min(1, path.waypoints == null ? -1 : path.waypoints.length - 1);
+        }
+        if (target < 0) {
+            return false;
+        }
+        int cell = path.waypoints[target];
+        out[0] = (cell % columns + 0.5) * cellSize - x;
+        out[1] = (cell / columns + 0.5) * cellSize - y;
+        return true;
+    }
+
+    /**
+     * Returns the cached path for a goal and start key, searching from a start cell if there is none.
+     */
+    private Path cachedPath(int goal, int startKey, int start) {
+        long key = (long) goal << 32 | startKey;
+        Path path = paths.get(key);
+        if (path != null) {
+            cacheHits++;
+            return path;
+        }
+        path = plan(start, goal);
+        paths.put(key, path);
+        return path;
+    }
+
+    /**
+     * Returns the farthest of the first waypoints of a path in sight of a cell, or -1 if none is.
+     */
+    private int join(Path path, int cell) {
+        if (path.waypoints == null) {
+            return -1;
+        }
+        for (int i = Math.min(path.waypoints.length - 1, LOOKAHEAD); i >= 0; i--) {
+            if (isClear(cell, path.waypoints[i]) && (i > 0 || path.waypoints[0] != cell)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the length of the shortest path between two positions, searched with the given search and without
+     * the cache. For comparing the searches.
+     *
+     * @param x0     The x-coordinate of the start.
+     * @param y0     The y-coordinate of the start.
+     * @param x1     The x-coordinate of the goal.
+     * @param y1     The y-coordinate of the goal.
+     * @param search The search to use.
+     * @return The length in fifths of a cell, or {@link #UNREACHABLE}.
+     */
+    public int pathCost(double x0, double y0, double x1, double y1, Search search) {
+        sync();
+        int start = snap(cellAt(x0, y0));
+        int goal = snap(cellAt(x1, y1));
+        if (start < 0 || goal < 0) {
+            return UNREACHABLE;
+        }
+        Search previous = this.search;
+        this.search = search;
+        try {
+            return plan(start, goal).cost;
+        } finally {
+            this.search = previous;
+        }
+    }
+
+    /**
+     * Compares the incrementally kept grid and the length of every cached path with a navigator built from
+     * scratch, which searches each path again with plain A*. Used by {@link DifferentialCheck}.
+     *
+     * @return A description of the first difference, or null if there is none.
+     */
+    String checkAgainstRebuild() {
+        sync();
+        Navigator fresh = new Navigator(arena, cellSize, clearance, regionCells, 1);
+        fresh.search = Search.A_STAR;
+        fresh.sync();
+        for (int cell = 0; cell < blockers.length; cell++) {
+            if (blockers[cell] != fresh.blockers[cell]) {
+                return "Navigator cell " + cell + " is blocked by " + blockers[cell] + " obstacles, but by "
+                        + fresh.blockers[cell] + " after a rebuild";
+            }
+        }
+        for (Path path : paths.values()) { // Reading the values does not reorder the cache
+            int expected = fresh.plan(path.start, path.goal).cost;
+            if (path.cost != expected) {
+                return "Navigator path from cell " + path.start + " to cell " + path.goal + " has cached length "
+                        + path.cost + ", but " + expected + " after a rebuild";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Searches for a path between two free cells and reduces it to waypoints.
+     */
+    private Path plan(int start, int goal) {
+        searches++;
+        int length = search == Search.JUMP_POINT ? searchJumpPoints(start, goal) : searchAStar(start, goal);
+        if (length == 0) {
+            return new Path(start, goal, UNREACHABLE, null, null, columns);
+        }
+        // The route keeps the cells where the grid path changes direction
+        int count = 0;
+        corners[count++] = chain[0];
+        for (int i = 1; i < length - 1; i++) {
+            if (direction(chain[i - 1], chain[i]) != direction(chain[i], chain[i + 1])) {
+                corners[count++] = chain[i];
+            }
+        }
+        if (length > 1) {
+            corners[count++] = chain[length - 1];
+        }
+        int[] route = Arrays.copyOf(corners, count);
+
+        // The waypoints keep only the cells where the line of sight from the previous waypoint ends
+        count = 0;
+        corners[count++] = chain[0];
+        int anchor = 0;
+        for (int i = 2; i < length; i++) {
+            if (!isClear(chain[anchor], chain[i])) {
+                anchor = i - 1;
+                corners[count++] = chain[anchor];
+            }
+        }
+        if (length > 1) {
+            corners[count++] = chain[length - 1];
+        }
+        return new Path(start, goal, cost[goal], route, Arrays.copyOf(corners, count), columns);
+    }
+
+    /**
+     * Returns the direction of a straight or diagonal run between two cells, as one of 9 codes.
+     */
+    private int direction(int from, int to) {
+        return 3 * Integer.signum(to / columns - from / columns) + Integer.signum(to % columns - from % columns);
+    }
+
+    /**
+     * Runs A* from start to goal, leaving the path's cells in {@link #chain}. Returns the number of cells, 0 if
+     * the goal cannot be reached.
+     */
+    private int searchAStar(int start, int goal) {
+        open(start, goal);
+        while (heapSize > 0) {
+            long top = pop();
+            int cell = (int) top;
+            if ((int) (top >>> 32) != cost[cell] + estimate(cell, goal)) {
+                continue; // Superseded by a shorter path
+            }
+            if (cell == goal) {
+                return trace(goal);
+            }
+            int column = cell % columns, row = cell / columns;
+            for (int k = 0; k < 8; k++) {
+                int nc = column + STEP_X[k], nr = row + STEP_Y[k];
+                if (!isFree(nc, nr) || k >= 4 && (!isFree(nc, row) || !isFree(column, nr))) {
+                    continue; // Blocked, or a diagonal that would cut a blocked corner
+                }
+                relax(cell, nr * columns + nc, cost[cell] + (k >= 4 ? DIAGONAL_COST : ORTHOGONAL_COST), goal);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Runs jump point search from start to goal, leaving the jump points of the path in {@link #chain}. Returns
+     * their number, 0 if the goal cannot be reached. Consecutive jump points lie on a straight or diagonal line of
+     * free cells.
+     */
+    private int searchJumpPoints(int start, int goal) {
+        open(start, goal);
+        int goalColumn = goal % columns, goalRow = goal / columns;
+        while (heapSize > 0) {
+            long top = pop();
+            int cell = (int) top;
+            if ((int) (top >>> 32) != cost[cell] + estimate(cell, goal)) {
+                continue;
+            }
+            if (cell == goal) {
+                return trace(goal);
+            }
+            int column = cell % columns, row = cell / columns;
+            int from = parent[cell];
+            for (int k = 0; k < 8; k++) {
+                int dx = STEP_X[k], dy = STEP_Y[k];
+                if (!isNaturalOrForced(column, row, from, dx, dy)) {
+                    continue;
+                }
+                int jumpPoint = jump(column + dx, row + dy, dx, dy, goalColumn, goalRow);
+                if (jumpPoint >= 0) {
+                    int steps = octile(Math.abs(jumpPoint % columns - column), Math.abs(jumpPoint / columns - row));
+                    relax(cell, jumpPoint, cost[cell] + steps, goal);
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Checks whether a search arriving at a cell from its parent should continue in a direction. From the start
+     * every free direction is tried; otherwise only those a shortest path through the cell can take.
+     */
+    private boolean isNaturalOrForced(int column, int row, int from, int dx, int dy) {
+        if (!isFree(column + dx, row + dy) || dx != 0 && dy != 0 && (!isFree(column + dx, row)
+                || !isFree(column, row + dy))) {
+            return false;
+        }
+        if (from < 0) {
+            return true;
+        }
+        int px = Integer.signum(column - from % columns), py = Integer.signum(row - from / columns);
+        if (px != 0 && py != 0) {
+            // Diagonal arrival: onwards along the diagonal or either of its sides
+            return dx == px && dy == py || dx == px && dy == 0 || dx == 0 && dy == py;
+        }
+        if (px != 0) {
+            // Horizontal arrival: onwards, up, down, and the diagonals between onwards and those
+            return dx == px || dx == 0;
+        }
+        return dy == py || dy == 0;
+    }
+
+    /**
+     * Moves from a cell in a direction until reaching the goal, a jump point where a shortest path may turn, or a
+     * blocked cell. Returns the cell reached, or -1 if the run ends without one.
+     */
+    private int jump(int column, int row, int dx, int dy, int goalColumn, int goalRow) {
+        while (true) {
+            if (!isFree(column, row)) {
+                return -1;
+            }
+            if (column == goalColumn && row == goalRow) {
+                return row * columns + column;
+            }
+            if (dx != 0 && dy != 0) {
+                if (jump(column + dx, row, dx, 0, goalColumn, goalRow) >= 0
+                        || jump(column, row + dy, 0, dy, goalColumn, goalRow) >= 0) {
+                    return row * columns + column; // A straight run from here finds something
+                }
+                if (!isFree(column + dx, row) || !isFree(column, row + dy)) {
+                    return -1; // The diagonal would cut a blocked corner
+                }
+            } else if (dx != 0) {
+                if (isFree(column, row - 1) && !isFree(column - dx, row - 1)
+                        || isFree(column, row + 1) && !isFree(column - dx, row + 1)) {
+                    return row * columns + column; // Passing the end of a wall: paths may turn around it
+                }
+            } else if (isFree(column - 1, row) && !isFree(column - 1, row - dy)
+                    || isFree(column + 1, row) && !isFree(column + 1, row - dy)) {
+                return row * columns + column;
+            }
+            column += dx;
+            row += dy;
+        }
+    }
+
+    /**
+     * Starts a search: resets the open list and opens the start cell.
+     */
+    private void open(int start, int goal) {
+        mark++;
+        heapSize = 0;
+        visited[start] = mark;
+        cost[start] = 0;
+        parent[start] = -1;
+        push((long) estimate(start, goal) << 32 | start);
+    }
+
+    /**
+     * Records a path to a cell through another if it is the first or shortest found so far.
+     */
+    private void relax(int from, int cell, int pathCost, int goal) {
+        if (visited[cell] != mark || pathCost < cost[cell]) {
+            visited[cell] = mark;
+            cost[cell] = pathCost;
+            parent[cell] = from;
+            push((long) (pathCost + estimate(cell, goal)) << 32 | cell);
+        }
+    }
+
+    /**
+     * Writes the cells from the start to a cell into {@link #chain} by following the parents, returning their number.
+     */
+    private int trace(int cell) {
+        int length = 0;
+        for (int c = cell; c >= 0; c = parent[c]) {
+            length++;
+        }
+        if (chain.length < length) {
+            chain = new int[Math.max(length, chain.length * 2)];
+        }
+        for (int c = cell, i = length - 1; c >= 0; c = parent[c], i--) {
+            chain[i] = c;
+        }
+        if (corners.length < length) {
+            corners = new int[chain.length];
+        }
+        return length;
+    }
+
+    private void push(long entry) {
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heapSize * 2);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int parentIndex = (i - 1) >>> 1;
+            if (heap[parentIndex] <= entry) break;
+            heap[i] = heap[parentIndex];
+            i = parentIndex;
+        }
+        heap[i] = entry;
+    }
+
+    private long pop() {
+        long top = heap[0];
+        long last = heap[--heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) child++;
+            if (heap[child] >= last) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        if (heapSize > 0) {
+            heap[i] = last;
+        }
+        return top;
+    }
+}
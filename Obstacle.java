@@ -7,20 +7,191 @@ import javafx.scene.paint.CycleMethod;
 import javafx.scene.paint.Stop;
 
 /**
- * Represents a static triangular obstacle in the arena.
+ * Represents a static obstacle in the arena.
  * Obstacles do not move but serve as barriers or challenges for robots in the arena.
+ * <p>
+ * Each obstacle has an exact convex polygon shape, a triangle by default. Collision and sensing use that
+ * shape rather than a circle, after a cheap bounding box test. The radius is the obstacle's nominal size.
  */
 public class Obstacle extends ArenaItem {
+    private final ConvexPolygon shape; // Exact outline, relative to (x, y)
 
     /**
-     * Constructs an obstacle with the specified position and size.
+     * Constructs a triangular obstacle with the specified position and size.
      *
      * @param x      The x-coordinate of the obstacle's center.
      * @param y      The y-coordinate of the obstacle's center.
      * @param radius The radius defining the size of the obstacle.
      */
     public Obstacle(double x, double y, double radius) {
+        this(x, y, radius, ConvexPolygon.triangle(radius));
+    }
+
+    /**
+     * Constructs an obstacle with an arbitrary convex shape.
+     *
+     * @param x     The x-coordinate of the obstacle's reference point.
+     * @param y     The y-coordinate of the obstacle's reference point.
+     * @param shape The outline of the obstacle, relative to (x, y).
+     */
+    public Obstacle(double x, double y, ConvexPolygon shape) {
+        this(x, y, shape.getBoundingRadius(), shape);
+    }
+
+    /**
+     * Constructs an obstacle with an arbitrary convex shape and a given nominal size.
+     *
+     * @param x      The x-coordinate of the obstacle's reference point.
+     * @param y      The y-coordinate of the obstacle's reference point.
+     * @param radius The nominal size of the obstacle.
+     * @param shape  The outline of the obstacle, relative to (x, y).
+     */
+    public Obstacle(double x, double y, double radius, ConvexPolygon shape) {
         super(x, y, radius);
+        this.shape = shape;
+    }
+
+    /**
+     * Creates a straight wall between two points.
+     *
+     * @param x1        The x-coordinate of one end of the wall.
+     * @param y1        The y-coordinate of one end of the wall.
+     * @param x2        The x-coordinate of the other end of the wall.
+     * @param y2        The y-coordinate of the other end of the wall.
+     * @param thickness The thickness of the wall.
+     * @return A rectangular obstacle centred between the two points.
+     */
+    public static Obstacle wall(double x1, double y1, double x2, double y2, double thickness) {
+        double length = Math.sqrt((x2 - x1) * (x2 - x1) + (y2 - y1) * (y2 - y1));
+        double dirX = length > 0 ? (x2 - x1) / length : 1;
+        double dirY = length > 0 ? (y2 - y1) / length : 0;
+        return new Obstacle((x1 + x2) / 2, (y1 + y2) / 2,
+                ConvexPolygon.rectangle(length, thickness, dirX, dirY));
+    }
+
+    /**
+     * Returns the exact outline of the obstacle.
+     *
+     * @return The shape, relative to the obstacle's position.
+     */
+    public ConvexPolygon getShape() {
+        return shape;
+    }
+
+    /**
+     * Returns the distance from a point to the obstacle's outline, 0 if the point is inside.
+     *
+     * @param px The x-coordinate of the point.
+     * @param py The y-coordinate of the point.
+     * @return The distance to the obstacle.
+     */
+    public double distanceTo(double px, double py) {
+        return shape.distanceTo(px - x, py - y);
+    }
+
+    /**
+     * Returns the distance from a line segment, such as a whisker, to the obstacle.
+     *
+     * @param ax The x-coordinate of the segment start.
+     * @param ay The y-coordinate of the segment start.
+     * @param bx The x-coordinate of the segment end.
+     * @param by The y-coordinate of the segment end.
+     * @return The distance between the segment and the obstacle, 0 if they intersect.
+     */
+    public double distanceToSegment(double ax, double ay, double bx, double by) {
+        return shape.distanceToSegment(ax - x, ay - y, bx - x, by - y);
+    }
+
+    /**
+     * Checks whether the obstacle reaches into a circular sector, such as the cone of a beam sensor.
+     *
+     * @param ox    The x-coordinate of the apex.
+     * @param oy    The y-coordinate of the apex.
+     * @param dirX  The x component of the unit heading.
+     * @param dirY  The y component of the unit heading.
+     * @param cos   The cosine of the sector's half-angle, below a quarter turn.
+     * @param sin   The sine of the half-angle.
+     * @param range The radius of the sector.
+     * @return True if the outline and the sector share a point.
+     */
+    public boolean intersectsSector(double ox, double oy, double dirX, double dirY, double cos, double sin,
+                                    double range) {
+        return shape.intersectsSector(ox - x, oy - y, dirX, dirY, cos, sin, range);
+    }
+
+    /**
+     * Casts a ray against the obstacle.
+     *
+     * @param ox      The x-coordinate of the ray origin.
+     * @param oy      The y-coordinate of the ray origin.
+     * @param dirX    The x component of the unit ray direction.
+     * @param dirY    The y component of the unit ray direction.
+     * @param maxDist The length of the ray.
+     * @return The distance to the first hit, or positive infinity if the ray misses within maxDist.
+     */
+    public double raycast(double ox, double oy, double dirX, double dirY, double maxDist) {
+        return shape.raycast(ox - x, oy - y, dirX, dirY, maxDist);
+    }
+
+    /**
+     * Checks whether a circle overlaps the obstacle.
+     *
+     * @param cx The x-coordinate of the circle's centre.
+     * @param cy The y-coordinate of the circle's centre.
+     * @param r  The radius of the circle.
+     * @return True if the circle overlaps the obstacle's outline.
+     */
+    public boolean overlapsCircle(double cx, double cy, double r) {
+        return distanceTo(cx, cy) < r;
+    }
+
+    /**
+     * Checks if this obstacle overlaps another item, using the exact outline.
+     * @param other The other ArenaItem.
+     * @return True if the items overlap, false otherwise.
+     */
+    @Override
+    public boolean overlaps(ArenaItem other) {
+        if (other instanceof Obstacle) {
+            return shape.overlaps(((Obstacle) other).shape, other.x - x, other.y - y);
+        }
+        return overlapsCircle(other.x, other.y, other.radius);
+    }
+
+    /**
+     * Returns the left edge of the bounding box of the exact outline.
+     * @return The minimum x-coordinate of the outline's bounding box.
+     */
+    @Override
+    public double getMinX() {
+        return x + shape.getMinX();
+    }
+
+    /**
+     * Returns the top edge of the bounding box of the exact outline.
+     * @return The minimum y-coordinate of the outline's bounding box.
+     */
+    @Override
+    public double getMinY() {
+        return y + shape.getMinY();
+    }
+
+    /**
+     * Returns the right edge of the bounding box of the exact outline.
+     * @return The maximum x-coordinate of the outline's bounding box.
+     */
+    @Override
+    public double getMaxX() {
+        return x + shape.getMaxX();
+    }
+
+    /**
+     * Returns the bottom edge of the bounding box of the exact outline.
+     * @return The maximum y-coordinate of the outline's bounding box.
+     */
+    @Override
+    public double getMaxY() {
+        return y + shape.getMaxY();
     }
 
     /**
@@ -35,7 +206,7 @@ public class Obstacle extends ArenaItem {
     }
 
     /**
-     * Draws the obstacle as a triangular shape.
+     * Draws the obstacle's outline.
      *
      * @param gc The GraphicsContext used for rendering.
      */
@@ -50,16 +221,39 @@ public class Obstacle extends ArenaItem {
 
         // Set fill and stroke color
         gc.setFill(gradient); // Apply gradient fill to the obstacle
-        gc.setStroke(Color.BLACK); // Outline color for the triangle
+        gc.setStroke(Color.BLACK); // Outline color for the polygon
 
-        // Define the three points of the triangle
-        double[] xPoints = {x, x - radius, x + radius}; // X-coordinates of the triangle's vertices
-        double[] yPoints = {y - radius, y + radius, y + radius}; // Y-coordinates of the triangle's vertices
+        // Translate the outline's vertices to the obstacle's position
+        int n = shape.getVertexCount();
+        double[] xPoints = new double[n];
+        double[] yPoints = new double[n];
+        for (int i = 0; i < n; i++) {
+            xPoints[i] = x + shape.getX(i);
+            yPoints[i] = y + shape.getY(i);
+        }
 
-        // Draw filled triangle
-        gc.fillPolygon(xPoints, yPoints, 3); // Fill the triangle with the gradient
+        // Draw filled polygon
+        gc.fillPolygon(xPoints, yPoints, n); // Fill the polygon with the gradient
 
-        // Draw triangle border
-        gc.strokePolygon(xPoints, yPoints, 3); // Draw the triangle's outline
+        // Draw polygon border
+        gc.strokePolygon(xPoints, yPoints, n); // Draw the polygon's outline
+    }
+
+    /**
+     * Obstacles never move by themselves, so they are kept in the arena's static index and skipped by updates.
+     * @return true
+     */
+    @Override
+    public boolean isStatic() {
+        return true;
+    }
+
+    /**
+     * Returns the type of this item.
+     * @return ItemType.OBSTACLE
+     */
+    @Override
+    public ItemType getType() {
+        return ItemType.OBSTACLE;
     }
 }
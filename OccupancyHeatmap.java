@@ -0,0 +1,158 @@
+package com.example.robotgui;
+
+import java.util.Arrays;
+
+/**
+ * Counts, per robot type and grid cell, how many ticks robots have spent in each part of the arena.
+ * <p>
+ * The arena is divided into square cells, and each robot type has a plain int array with one counter per cell.
+ * Every tick the counters of the cells holding a robot's centre are incremented, in one pass over each type's
+ * {@link PackedItems} coordinates. Counters stop at {@link Integer#MAX_VALUE} rather than wrapping.
+ * Rewound ticks are counted again when they are replayed, since the map shows where robots were observed.
+ * Kept free of JavaFX so headless tools can collect occupancy too.
+ */
+public class OccupancyHeatmap implements TickRecorder {
+    /** Default side length of a cell. */
+    public static final double DEFAULT_CELL_SIZE = 10;
+    private static final ItemType[] ROBOT_TYPES = {ItemType.WHISKER_ROBOT, ItemType.PREDATOR_ROBOT,
+            ItemType.BEAM_SENSOR_ROBOT, ItemType.CONTROLLABLE_ROBOT,
+            ItemType.LIDAR_ROBOT}; // The types counted
+
+    private final double cellSize; // Side length of a cell
+    private final int columns, rows; // Grid dimensions
+    private final int[][] counts = new int[ItemType.values().length][]; // Ticks per cell, by type ordinal
+    private long ticks; // Number of ticks recorded
+
+    /**
+     * Creates a heatmap for an arena of the given size with the default cell size.
+     *
+     * @param width  The width of the arena.
+     * @param height The height of the arena.
+     */
+    public OccupancyHeatmap(double width, double height) {
+        this(width, height, DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Creates a heatmap for an arena of the given size.
+     *
+     * @param width    The width of the arena.
+     * @param height   The height of the arena.
+     * @param cellSize The side length of a cell.
+     */
+    public OccupancyHeatmap(double width, double height, double cellSize) {
+        this.cellSize = cellSize;
+        columns = Math.max(1, (int) Math.ceil(width / cellSize));
+        rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        for (ItemType type : ROBOT_TYPES) {
+            counts[type.ordinal()] = new int[columns * rows];
+        }
+    }
+
+    /**
+     * Counts the robots' current cells.
+     *
+     * @param arena The arena that was just updated.
+     */
+    @Override
+    public void record(RobotArena arena) {
+        for (ItemType type : ROBOT_TYPES) {
+            if (arena.getCount(type) == 0) {
+                continue;
+            }
+            PackedItems robots = arena.getPacked(type);
+            int[] cells = counts[type.ordinal()];
+            double[] xs = robots.x, ys = robots.y;
+            for (int i = 0; i < robots.size; i++) {
+                int column = (int) (xs[i] / cellSize);
+                int row = (int) (ys[i] / cellSize);
+                // Removed robots have infinite coordinates, which land outside the grid
+                if (column >= 0 && column < columns && row >= 0 && row < rows) {
+                    int cell = row * columns + column;
+                    if (cells[cell] != Integer.MAX_VALUE) {
+                        cells[cell]++;
+                    }
+                }
+            }
+        }
+        ticks++;
+    }
+
+    /**
+     * Resets every counter.
+     */
+    public void clear() {
+        for (ItemType type : ROBOT_TYPES) {
+            Arrays.fill(counts[type.ordinal()], 0);
+        }
+        ticks = 0;
+    }
+
+    /**
+     * Adds up the counters of some types into one array.
+     *
+     * @param type The type to read, or null for all robot types.
+     * @param out  Receives the count of each cell, row by row, at least columns * rows long.
+     * @return The largest count written.
+     */
+    public int totals(ItemType type, int[] out) {
+        int cellCount = columns * rows;
+        if (type != null) {
+            int[] cells = counts[type.ordinal()];
+            if (cells == null) {
+                throw new IllegalArgumentException("Not a robot type: " + type);
+            }
+            System.arraycopy(cells, 0, out, 0, cellCount);
+        } else {
+            Arrays.fill(out, 0, cellCount, 0);
+            for (ItemType robotType : ROBOT_TYPES) {
+                int[] cells = counts[robotType.ordinal()];
+                for (int i = 0; i < cellCount; i++) {
+                    long sum = (long) out[i] + cells[i];
+                    out[i] = (int) Math.min(sum, Integer.MAX_VALUE);
+                }
+            }
+        }
+        int largest = 0;
+        for (int i = 0; i < cellCount; i++) {
+            largest = Math.max(largest, out[i]);
+        }
+        return largest;
+    }
+
+    /**
+     * Returns the number of grid columns.
+     *
+     * @return The column count.
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns the number of grid rows.
+     *
+     * @return The row count.
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the side length of a cell.
+     *
+     * @return The cell size.
+     */
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Returns the number of ticks recorded since the last clear.
+     *
+     * @return The tick count.
+     */
+    public long getTicks() {
+        return ticks;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.robotgui;
+
+import java.util.Arrays;
+
+/**
+ * The positions and radii of the arena's items of one type, packed into parallel arrays for
+ * {@link DistanceKernels} scans.
+ * <p>
+ * The arena builds the arrays in arena order when they are first asked for, appends items of the type as they are
+ * added, writes each item's new position back after it updates, and marks removed items with infinite coordinates
+ * so they are never near anything. An instance is reused for the life of the arena to keep scans free of garbage.
+ */
+public final class PackedItems {
+    /** X-coordinates of the items. */
+    public double[] x = new double[16];
+    /** Y-coordinates of the items. */
+    public double[] y = new double[16];
+    /** Radii of the items. */
+    public double[] radius = new double[16];
+    /** The items themselves, null where an item has been removed. */
+    public ArenaItem[] items = new ArenaItem[16];
+    /** Number of entries in use. */
+    public int size;
+    int removed; // Entries of removed items
+    boolean stale = true; // Set when the arrays must be rebuilt before the next use
+
+    /**
+     * Empties the arrays before they are filled again.
+     */
+    void clear() {
+        Arrays.fill(items, 0, size, null);
+        size = 0;
+        removed = 0;
+    }
+
+    /**
+     * Appends an item.
+     *
+     * @param item The item to append.
+     */
+    void add(ArenaItem item) {
+        if (size == x.length) {
+            int capacity = size * 2;
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            radius = Arrays.copyOf(radius, capacity);
+            items = Arrays.copyOf(items, capacity);
+        }
+        item.packedIndex = size;
+        items[size] = item;
+        x[size] = item.x;
+        y[size] = item.y;
+        radius[size] = item.radius;
+        size++;
+    }
+
+    /**
+     * Copies an item's current position and radius into its entry.
+     *
+     * @param item An item previously added.
+     */
+    void refresh(ArenaItem item) {
+        int i = item.packedIndex;
+        x[i] = item.x;
+        y[i] = item.y;
+        radius[i] = item.radius;
+    }
+
+    /**
+     * Moves an item's entry to infinity, where no scan finds it.
+     *
+     * @param item An item previously added.
+     */
+    void remove(ArenaItem item) {
+        int i = item.packedIndex;
+        x[i] = Double.POSITIVE_INFINITY;
+        y[i] = Double.POSITIVE_INFINITY;
+        radius[i] = 0;
+        items[i] = null;
+        removed++;
+    }
+}
@@ -0,0 +1,522 @@
+package com.example.robotgui;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tunes {@link RobotParameters} with a genetic algorithm whose fitness is measured by running short headless arenas.
+ * <p>
+ * The fitness of a parameter set is the mean fraction of whisker and beam sensor robots alive per tick over a fixed
+ * number of ticks, averaged over several generated worlds that differ only in their seed and are stepped in
+ * lockstep. Eaten food is topped up every {@link #FOOD_INTERVAL} ticks from a seeded stream, so runs stay
+ * deterministic and the same parameters always score the same.
+ * <p>
+ * The population is split into islands that evolve independently on their own threads, each with its own seeded
+ * random stream, and exchange their best members along a ring between epochs. Migration happens only while every
+ * island is paused, so results do not depend on thread timing. Evaluations are shared through a cache keyed by the
+ * packed genome. A run is cut short at a checkpoint once even the survival of every robot still alive could not lift
+ * it to the weakest elite of its island; the optimistic bound then stands in for its fitness, and the simulated
+ * prefix is cached, so a later request with a lower bar replays the same decision or simulates again from the start.
+ */
+public final class ParameterTuner {
+    /** Number of points during a run at which it may be cut short. */
+    public static final int CHECKPOINTS = 10;
+    /** Ticks between food top-ups. */
+    public static final int FOOD_INTERVAL = 100;
+
+    private static final double MUTATION_RATE = 0.3; // Probability that a gene of a child is changed
+    private static final double MUTATION_SIGMA = 0.08; // Size of a change, as a fraction of the gene's range
+    private static final int TOURNAMENT = 3; // Members compared to pick a parent
+    private static final int ELITE = 2; // Best members carried unchanged into the next generation
+    private static final Comparator<Candidate> BEST_FIRST = Comparator.comparingDouble((Candidate c) -> -c.fitness)
+            .thenComparingLong(c -> c.parameters.key()); // Ties broken by genome, so order is deterministic
+
+    /**
+     * A parameter set with its fitness.
+     */
+    public static final class Candidate {
+        private final RobotParameters parameters;
+        private final double fitness;
+
+        Candidate(RobotParameters parameters, double fitness) {
+            this.parameters = parameters;
+            this.fitness = fitness;
+        }
+
+        /**
+         * Returns the parameters.
+         *
+         * @return The parameters.
+         */
+        public RobotParameters getParameters() {
+            return parameters;
+        }
+
+        /**
+         * Returns the fitness, or an upper bound on it below the island's elite if the run was cut short.
+         *
+         * @return The mean fraction of robots alive, from 0 to 1.
+         */
+        public double getFitness() {
+            return fitness;
+        }
+    }
+
+    /**
+     * The simulated part of a run: survival summed up to each checkpoint reached, and the fraction alive there.
+     * Both are averaged over the worlds. Never changed once cached.
+     */
+    private static final class Evaluation {
+        final double[] survival = new double[CHECKPOINTS]; // Sum of the fraction alive over the ticks so far
+        final double[] alive = new double[CHECKPOINTS]; // Fraction alive at the checkpoint
+        int reached; // Checkpoints simulated
+    }
+
+    private final ScenarioSpec spec; // World every run starts from, apart from its seed
+    private final int ticks; // Length of a run
+    private final int worlds; // Runs averaged per evaluation
+    private final ConcurrentHashMap<Long, Evaluation> cache = new ConcurrentHashMap<>();
+    private final AtomicLong evaluations = new AtomicLong(); // Fitness requests
+    private final AtomicLong cacheHits = new AtomicLong(); // Requests answered without simulating
+    private final AtomicLong cutShort = new AtomicLong(); // Requests answered by a bound
+    private final AtomicLong simulatedTicks = new AtomicLong(); // Arena ticks run, over every world
+
+    /**
+     * Creates a tuner.
+     *
+     * @param spec   The world runs are generated from; seeds {@code spec.getSeed()} onwards are used.
+     * @param ticks  The number of ticks of a run, at least {@link #CHECKPOINTS}.
+     * @param worlds The number of worlds a parameter set is run in.
+     */
+    public ParameterTuner(ScenarioSpec spec, int ticks, int worlds) {
+        if (ticks < CHECKPOINTS || worlds < 1) {
+            throw new IllegalArgumentException("Invalid tuning run: " + ticks + " ticks, " + worlds + " worlds");
+        }
+        this.spec = spec;
+        this.ticks = ticks;
+        this.worlds = worlds;
+    }
+
+    /**
+     * Generates a world of the tuning scenario with parameters applied to its robots.
+     *
+     * @param parameters The parameters.
+     * @param world      The index of the world, added to the spec's seed.
+     * @return The arena.
+     */
+    public RobotArena createArena(RobotParameters parameters, int world) {
+        ScenarioSpec worldSpec = ScenarioSpec.parse(spec.getName(), spec.format()).seed(spec.getSeed() + world);
+        RobotArena arena = ScenarioGenerator.generate(worldSpec);
+        parameters.applyTo(arena);
+        return arena;
+    }
+
+    /**
+     * Returns the fitness of a parameter set, running it to the end.
+     *
+     * @param parameters The parameters.
+     * @return The mean fraction of robots alive, from 0 to 1.
+     */
+    public double evaluate(RobotParameters parameters) {
+        return evaluate(parameters, Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * Returns the fitness of a parameter set, or an upper bound on it below the bar if the run is cut short.
+     *
+     * @param parameters The parameters.
+     * @param bar        The fitness the run has to be able to reach to continue.
+     * @return The fitness, or a bound below the bar.
+     */
+    double evaluate(RobotParameters parameters, double bar) {
+        evaluations.incrementAndGet();
+        Evaluation cached = cache.get(parameters.key());
+        if (cached != null) {
+            double fitness = replay(cached, bar);
+            if (!Double.isNaN(fitness)) {
+                cacheHits.incrementAndGet();
+                return fitness;
+            }
+        }
+        Evaluation evaluation = simulate(parameters, bar);
+        cache.merge(parameters.key(), evaluation, (a, b) -> a.reached >= b.reached ? a : b);
+        return replay(evaluation, bar);
+    }
+
+    /**
+     * Decides a run from its simulated checkpoints, exactly as simulating it with the bar would.
+     *
+     * @return The fitness or bound, or NaN if the run has to be simulated further.
+     */
+    private double replay(Evaluation evaluation, double bar) {
+        for (int k = 0; k < evaluation.reached; k++) {
+            if (k == CHECKPOINTS - 1) {
+                return evaluation.survival[k] / ticks;
+            }
+            double bound = bound(evaluation, k);
+            if (bound < bar) {
+                cutShort.incrementAndGet();
+                return bound;
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Returns the best fitness a run can still reach: robots never come back, so at most those alive at the
+     * checkpoint survive every remaining tick.
+     */
+    private double bound(Evaluation evaluation, int checkpoint) {
+        return (evaluation.survival[checkpoint] + (ticks - tickOf(checkpoint)) * evaluation.alive[checkpoint]) / ticks;
+    }
+
+    private int tickOf(int checkpoint) {
+        return (int) ((long) ticks * (checkpoint + 1) / CHECKPOINTS);
+    }
+
+    private Evaluation simulate(RobotParameters parameters, double bar) {
+        RobotArena[] arenas = new RobotArena[worlds];
+        Random[] foodRandoms = new Random[worlds];
+        int[] robots = new int[worlds], food = new int[worlds];
+        for (int w = 0; w < worlds; w++) {
+            arenas[w] = createArena(parameters, w);
+            foodRandoms[w] = new Random((spec.getSeed() + w) * 0x9E3779B97F4A7C15L + ItemType.FOOD.getCode() + 1);
+            robots[w] = aliveRobots(arenas[w]);
+            food[w] = arenas[w].getCount(ItemType.FOOD);
+        }
+
+        Evaluation evaluation = new Evaluation();
+        double survival = 0;
+        int tick = 0;
+        for (int k = 0; k < CHECKPOINTS; k++) {
+            double alive = 0;
+            for (; tick < tickOf(k); tick++) {
+                alive = 0;
+                for (int w = 0; w < worlds; w++) {
+                    RobotArena arena = arenas[w];
+                    arena.update();
+                    if (arena.getTick() % FOOD_INTERVAL == 0) {
+                        topUpFood(arena, food[w], foodRandoms[w]);
+                    }
+                    alive += robots[w] == 0 ? 0 : (double) aliveRobots(arena) / robots[w];
+                }
+                alive /= worlds;
+                survival += alive;
+            }
+            simulatedTicks.addAndGet((long) (tickOf(k) - (k == 0 ? 0 : tickOf(k - 1))) * worlds);
+            evaluation.survival[k] = survival;
+            evaluation.alive[k] = alive;
+            evaluation.reached = k + 1;
+            if (alive == 0) {
+                // Nobody left to survive: the remaining checkpoints are known without simulating them
+                for (int rest = k + 1; rest < CHECKPOINTS; rest++) {
+                    evaluation.survival[rest] = survival;
+                }
+                evaluation.reached = CHECKPOINTS;
+                break;
+            }
+            if (k < CHECKPOINTS - 1 && bound(evaluation, k) < bar) {
+                break;
+            }
+        }
+        return evaluation;
+    }
+
+    private static int aliveRobots(RobotArena arena) {
+        return arena.getCount(ItemType.WHISKER_ROBOT) + arena.getCount(ItemType.BEAM_SENSOR_ROBOT);
+    }
+
+    /**
+     * Places food at random positions until the arena holds as much as it started with.
+     */
+    private void topUpFood(RobotArena arena, int target, Random random) {
+        double radius = spec.getRadius(ItemType.FOOD);
+        for (int n = arena.getCount(ItemType.FOOD); n < target; n++) {
+            double x = radius + random.nextDouble() * (arena.getWidth() - 2 * radius);
+            double y = radius + random.nextDouble() * (arena.getHeight() - 2 * radius);
+            arena.addItem(arena.obtain(ItemType.FOOD, x, y, radius));
+        }
+    }
+
+    /**
+     * One independently evolving population.
+     */
+    private final class Island {
+        final Random random; // Only used by the island's thread, or while every island is paused
+        List<Candidate> members = new ArrayList<>(); // Sorted best first
+
+        Island(Random random) {
+            this.random = random;
+        }
+
+        void evolve(int generations) {
+            for (int g = 0; g < generations; g++) {
+                int size = members.size();
+                double bar = members.get(Math.min(ELITE, size) - 1).fitness; // The weakest elite
+                List<Candidate> next = new ArrayList<>(members.subList(0, Math.min(ELITE, size)));
+                while (next.size() < size) {
+                    RobotParameters child = select().parameters.crossover(select().parameters, random)
+                            .mutate(random, MUTATION_RATE, MUTATION_SIGMA);
+                    next.add(new Candidate(child, evaluate(child, bar)));
+                }
+                next.sort(BEST_FIRST);
+                members = next;
+            }
+        }
+
+        Candidate select() {
+            Candidate best = null;
+            for (int i = 0; i < TOURNAMENT; i++) {
+                Candidate c = members.get(random.nextInt(members.size()));
+                if (best == null || BEST_FIRST.compare(c, best) < 0) {
+                    best = c;
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Runs the genetic algorithm.
+     *
+     * @param islandCount    The number of islands, each evolved on its own thread.
+     * @param population     The number of members of an island.
+     * @param generations    The number of generations.
+     * @param migrationEvery The number of generations between migrations.
+     * @param migrants       The number of best members each island sends to the next.
+     * @param seed           The seed of every random choice.
+     * @param listener       Called after every epoch with the generations done and the best candidate so far,
+     *                       or null.
+     * @return Every distinct parameter set of the final populations, best first.
+     */
+    public List<Candidate> tune(int islandCount, int population, int generations, int migrationEvery, int migrants,
+                                long seed, EpochListener listener) {
+        if (islandCount < 1 || population <= ELITE || migrationEvery < 1 || migrants >= population) {
+            throw new IllegalArgumentException("Invalid tuning: " + islandCount + " islands of " + population);
+        }
+        Random master = new Random(seed);
+        List<Island> islands = new ArrayList<>();
+        for (int i = 0; i < islandCount; i++) {
+            Island island = new Island(new Random(master.nextLong()));
+            for (int m = 0; m < population; m++) {
+                RobotParameters parameters = i == 0 && m == 0 ? RobotParameters.defaults()
+                        : RobotParameters.random(island.random); // The defaults are a baseline to beat
+                island.members.add(new Candidate(parameters, Double.NaN));
+            }
+            islands.add(island);
+        }
+        runIslands(islands, island -> {
+            island.members.replaceAll(c -> new Candidate(c.parameters, evaluate(c.parameters)));
+            island.members.sort(BEST_FIRST);
+        });
+
+        for (int done = 0; done < generations; ) {
+            int epoch = Math.min(migrationEvery, generations - done);
+            runIslands(islands, island -> island.evolve(epoch));
+            done += epoch;
+            if (islandCount > 1 && done < generations) {
+                migrate(islands, migrants);
+            }
+            if (listener != null) {
+                listener.epochDone(done, best(islands).get(0));
+            }
+        }
+        return best(islands);
+    }
+
+    /**
+     * Receives progress reports from {@link #tune}.
+     */
+    public interface EpochListener {
+        /**
+         * Called after an epoch.
+         *
+         * @param generations The generations done so far.
+         * @param best        The best candidate over every island.
+         */
+        void epochDone(int generations, Candidate best);
+    }
+
+    private interface IslandTask {
+        void run(Island island);
+    }
+
+    /**
+     * Runs a task on every island, each on its own thread, and waits for all of them.
+     */
+    private static void runIslands(List<Island> islands, IslandTask task) {
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < islands.size(); i++) {
+            Island island = islands.get(i);
+            Thread thread = new Thread(() -> {
+                try {
+                    task.run(island);
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "tuner-island-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while tuning", e);
+            }
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    /**
+     * Copies the best members of every island over the worst of the next one along the ring.
+     */
+    private static void migrate(List<Island> islands, int migrants) {
+        List<List<Candidate>> sent = new ArrayList<>();
+        for (Island island : islands) {
+            sent.add(new ArrayList<>(island.members.subList(0, migrants)));
+        }
+        for (int i = 0; i < islands.size(); i++) {
+            List<Candidate> members = islands.get((i + 1) % islands.size()).members;
+            for (int m = 0; m < migrants; m++) {
+                members.set(members.size() - 1 - m, sent.get(i).get(m));
+            }
+            members.sort(BEST_FIRST);
+        }
+    }
+
+    private static List<Candidate> best(List<Island> islands) {
+        Map<Long, Candidate> distinct = new LinkedHashMap<>();
+        for (Island island : islands) {
+            for (Candidate c : island.members) {
+                distinct.putIfAbsent(c.parameters.key(), c);
+            }
+        }
+        List<Candidate> all = new ArrayList<>(distinct.values());
+        all.sort(BEST_FIRST);
+        return all;
+    }
+
+    /**
+     * Returns the number of fitness requests so far.
+     *
+     * @return The evaluation count.
+     */
+    public long getEvaluations() {
+        return evaluations.get();
+    }
+
+    /**
+     * Returns the number of fitness requests answered from the cache.
+     *
+     * @return The cache hit count.
+     */
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * Returns the number of fitness requests answered by a bound because the run could not reach its bar.
+     *
+     * @return The count of runs cut short.
+     */
+    public long getCutShort() {
+        return cutShort.get();
+    }
+
+    /**
+     * Returns the number of arena ticks simulated, counting every world.
+     *
+     * @return The tick count.
+     */
+    public long getSimulatedTicks() {
+        return simulatedTicks.get();
+    }
+
+    /**
+     * Returns the world tuning runs in when no scenario is given: a few robots of each tuned kind, predators, food
+     * and obstacles in an arena the size of the UI canvas, so tuned configurations load into the UI unchanged.
+     *
+     * @return The spec.
+     */
+    public static ScenarioSpec defaultSpec() {
+        return new ScenarioSpec("Tuning").seed(100)
+                .count(ItemType.WHISKER_ROBOT, 8).count(ItemType.BEAM_SENSOR_ROBOT, 8)
+                .count(ItemType.PREDATOR_ROBOT, 2).count(ItemType.FOOD, 30).scatteredObstacles(6, 30);
+    }
+
+    /**
+     * Tunes the robot parameters headlessly and writes the best sets as arena configurations.
+     * Usage: {@code ParameterTuner [--islands N] [--population N] [--generations N] [--migrate-every N]
+     * [--ticks N] [--worlds N] [--seed N] [--scenario name|file] [--top N] [--out directory]}
+     * <p>
+     * The best sets are written as {@code best-1.txt} onwards: the first tuning world with the parameters applied,
+     * in the format of the File menu's Load, which reads them into an 800 by 600 arena.
+     *
+     * @param args Command line arguments.
+     * @throws IOException If a spec file cannot be read or a configuration cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        int islands = Math.max(2, Runtime.getRuntime().availableProcessors());
+        int population = 16, generations = 20, migrationEvery = 5, ticks = 1500, worlds = 3, top = 3;
+        long seed = 1;
+        ScenarioSpec spec = defaultSpec();
+        File out = new File("tuned");
+        for (int i = 0; i < args.length - 1; i += 2) {
+            switch (args[i]) {
+                case "--islands" -> islands = Integer.parseInt(args[i + 1]);
+                case "--population" -> population = Integer.parseInt(args[i + 1]);
+                case "--generations" -> generations = Integer.parseInt(args[i + 1]);
+                case "--migrate-every" -> migrationEvery = Integer.parseInt(args[i + 1]);
+                case "--ticks" -> ticks = Integer.parseInt(args[i + 1]);
+                case "--worlds" -> worlds = Integer.parseInt(args[i + 1]);
+                case "--seed" -> seed = Long.parseLong(args[i + 1]);
+                case "--top" -> top = Integer.parseInt(args[i + 1]);
+                case "--out" -> out = new File(args[i + 1]);
+                case "--scenario" -> {
+                    File specFile = new File(args[i + 1]);
+                    spec = specFile.isFile() ? ScenarioSpec.load(specFile) : ScenarioLibrary.byName(args[i + 1]);
+                }
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (!out.isDirectory() && !out.mkdirs()) {
+            throw new IOException("Cannot create directory " + out);
+        }
+
+        ParameterTuner tuner = new ParameterTuner(spec, ticks, worlds);
+        double defaultFitness = tuner.evaluate(RobotParameters.defaults());
+        System.out.printf("Tuning on '%s': %d islands of %d, %d generations, %d ticks in %d worlds%n",
+                spec.getName(), islands, population, generations, ticks, worlds);
+        System.out.printf("defaults         fitness %.4f  %s%n", defaultFitness, RobotParameters.defaults());
+        long start = System.nanoTime();
+        List<Candidate> best = tuner.tune(islands, population, generations, migrationEvery, 2, seed,
+                (done, candidate) -> System.out.printf("generation %4d  fitness %.4f  %s%n",
+                        done, candidate.getFitness(), candidate.getParameters()));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d evaluations, %d from cache, %d cut short, %d ticks simulated in %.1f s%n",
+                tuner.getEvaluations(), tuner.getCacheHits(), tuner.getCutShort(), tuner.getSimulatedTicks(),
+                seconds);
+
+        for (int i = 0; i < Math.min(top, best.size()); i++) {
+            Candidate candidate = best.get(i);
+            File file = new File(out, "best-" + (i + 1) + ".txt");
+            ArenaConfig.save(tuner.createArena(candidate.getParameters(), 0), file);
+            System.out.printf("%s  fitness %.4f  %s%n", file, candidate.getFitness(), candidate.getParameters());
+        }
+    }
+}
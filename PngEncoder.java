@@ -0,0 +1,135 @@
+package com.example.robotgui;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes ARGB pixel arrays as 8-bit RGB PNG images, dropping the alpha channel.
+ * <p>
+ * Each row is stored with the Sub filter, which turns the long runs of one colour in simulation frames into runs of
+ * zeros, and compressed with a reused {@link Deflater} at a fast level. Buffers are reused between images, so an
+ * encoder writes a frame sequence without garbage. Kept free of AWT and JavaFX so headless tools can encode frames.
+ * An instance is not thread-safe.
+ */
+public class PngEncoder {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] IHDR = chunkType("IHDR"), IDAT = chunkType("IDAT"), IEND = chunkType("IEND");
+    private static final int FILTER_SUB = 1; // Each byte minus the same channel of the pixel to its left
+
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private byte[] row = new byte[0]; // Filtered bytes of one row, led by the filter type
+    private final byte[] compressed = new byte[64 * 1024]; // Reused output of the deflater, one IDAT chunk
+    private final byte[] header = new byte[13]; // Reused IHDR contents
+
+    /**
+     * Creates an encoder that favours speed over size.
+     */
+    public PngEncoder() {
+        this(Deflater.BEST_SPEED);
+    }
+
+    /**
+     * Creates an encoder.
+     *
+     * @param level The compression level, from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}.
+     */
+    public PngEncoder(int level) {
+        deflater = new Deflater(level);
+    }
+
+    /**
+     * Writes an image.
+     *
+     * @param pixels The ARGB pixels, row by row.
+     * @param width  The width of the image.
+     * @param height The height of the image.
+     * @param out    The stream to write to. It is not closed.
+     * @throws IOException If writing fails.
+     */
+    public void write(int[] pixels, int width, int height, OutputStream out) throws IOException {
+        out.write(SIGNATURE);
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = 8; // Bits per channel
+        header[9] = 2; // Colour type: RGB
+        header[10] = 0; // Deflate compression
+        header[11] = 0; // Adaptive filtering
+        header[12] = 0; // No interlacing
+        writeChunk(out, IHDR, header, 13);
+
+        int rowLength = 1 + width * 3;
+        if (row.length < rowLength) {
+            row = new byte[rowLength];
+        }
+        deflater.reset();
+        for (int y = 0; y < height; y++) {
+            row[0] = FILTER_SUB;
+            int left = 0; // The pixel left of the first counts as black
+            for (int x = 0, i = y * width, j = 1; x < width; x++, i++, j += 3) {
+                int pixel = pixels[i];
+                row[j] = (byte) ((pixel >> 16) - (left >> 16));
+                row[j + 1] = (byte) ((pixel >> 8) - (left >> 8));
+                row[j + 2] = (byte) (pixel - left);
+                left = pixel;
+            }
+            deflater.setInput(row, 0, rowLength);
+            while (!deflater.needsInput()) {
+                drain(out);
+            }
+        }
+        deflater.finish();
+        while (!deflater.finished()) {
+            drain(out);
+        }
+        writeChunk(out, IEND, compressed, 0);
+    }
+
+    /**
+     * Writes whatever the deflater has produced as an IDAT chunk.
+     */
+    private void drain(OutputStream out) throws IOException {
+        int length = deflater.deflate(compressed);
+        if (length > 0) {
+            writeChunk(out, IDAT, compressed, length);
+        }
+    }
+
+    private static byte[] chunkType(String type) {
+        return type.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private void writeChunk(OutputStream out, byte[] typeBytes, byte[] data, int length) throws IOException {
+        writeInt(out, length);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        crc.reset();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        writeInt(out, (int) crc.getValue());
+    }
+
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static void putInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    /**
+     * Releases the deflater's native memory. The encoder cannot be used afterwards.
+     */
+    public void close() {
+        deflater.end();
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.robotgui;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+/**
+ * A live chart of the statistics recorded by a {@link PopulationRecorder} over the whole run.
+ * <p>
+ * The upper plot shows the population of each type and the food count, the lower one the average energy and
+ * health on a fixed 0 to 100 scale. Each series is read from the recorder, at most about one ring's worth of
+ * points, and reduced with {@link Lttb} to one point per pixel column, so drawing costs the same however long
+ * the run has been going.
+ */
+public class PopulationChart extends Canvas {
+    private static final PopulationRecorder.Channel[] COUNT_CHANNELS = {
+            PopulationRecorder.Channel.WHISKER_ROBOTS, PopulationRecorder.Channel.PREDATOR_ROBOTS,
+            PopulationRecorder.Channel.BEAM_SENSOR_ROBOTS, PopulationRecorder.Channel.CONTROLLABLE_ROBOTS,
+            PopulationRecorder.Channel.LIDAR_ROBOTS, PopulationRecorder.Channel.FOOD};
+    private static final Color[] COUNT_COLORS = {Color.TURQUOISE, Color.DARKRED, Color.DARKBLUE, Color.BLUEVIOLET,
+            Color.DARKORANGE, Color.GREEN}; // The colours the items are drawn in
+    private static final PopulationRecorder.Channel[] LEVEL_CHANNELS = {
+            PopulationRecorder.Channel.AVERAGE_ENERGY, PopulationRecorder.Channel.AVERAGE_HEALTH};
+    private static final Color[] LEVEL_COLORS = {Color.ORANGE, Color.CRIMSON};
+    private static final double MARGIN = 6; // Space around each plot
+    private static final double LEGEND_HEIGHT = 14; // Height of a legend line
+    private static final int COUNT_LEGEND_LINES = 3; // Lines reserved for the population legend
+
+    private final double[] ticks, values, maxs; // Reused query results
+    private final double[] shownX, shownY; // Reused downsampled points
+
+    /**
+     * Creates a chart for a recorder.
+     *
+     * @param recorder The recorder whose series will be drawn.
+     * @param width    The width of the chart.
+     * @param height   The height of the chart.
+     */
+    public PopulationChart(PopulationRecorder recorder, double width, double height) {
+        super(width, height);
+        int points = recorder.getMaxPoints();
+        ticks = new double[points];
+        values = new double[points];
+        maxs = new double[points];
+        shownX = new double[points];
+        shownY = new double[points];
+    }
+
+    /**
+     * Redraws the chart from the recorder's current contents.
+     *
+     * @param recorder The recorder to read.
+     */
+    public void draw(PopulationRecorder recorder) {
+        GraphicsContext gc = getGraphicsContext2D();
+        gc.clearRect(0, 0, getWidth(), getHeight());
+        gc.setFill(Color.BLACK);
+        if (recorder.isEmpty()) {
+            gc.fillText("No statistics recorded yet", MARGIN, LEGEND_HEIGHT);
+            return;
+        }
+        long first = recorder.getFirstTick(), last = recorder.getLastTick();
+        gc.fillText(String.format("Ticks %d - %d", first, last), MARGIN, LEGEND_HEIGHT);
+
+        double plotHeight = (getHeight() - (2 + COUNT_LEGEND_LINES) * LEGEND_HEIGHT - 4 * MARGIN) / 2;
+        double countTop = LEGEND_HEIGHT + 2 * MARGIN;
+        double levelTop = countTop + plotHeight + 2 * MARGIN + COUNT_LEGEND_LINES * LEGEND_HEIGHT;
+
+        // Population: scaled to the largest value any point reached
+        double largest = 1;
+        for (PopulationRecorder.Channel channel : COUNT_CHANNELS) {
+            int count = recorder.query(channel, first, ticks, values, null, maxs);
+            for (int i = 0; i < count; i++) {
+                largest = Math.max(largest, maxs[i]);
+            }
+        }
+        drawPlot(gc, recorder, COUNT_CHANNELS, COUNT_COLORS, first, last, countTop, plotHeight, largest);
+        drawPlot(gc, recorder, LEVEL_CHANNELS, LEVEL_COLORS, first, last, levelTop, plotHeight, 100);
+    }
+
+    /**
+     * Draws a frame, the series of some channels scaled to it, and their legend below it.
+     */
+    private void drawPlot(GraphicsContext gc, PopulationRecorder recorder, PopulationRecorder.Channel[] channels,
+                          Color[] colors, long first, long last, double top, double height, double scale) {
+        double left = MARGIN, width = getWidth() - 2 * MARGIN;
+        gc.setStroke(Color.LIGHTGRAY);
+        gc.setLineWidth(1);
+        gc.strokeRect(left, top, width, height);
+        gc.setFill(Color.GRAY);
+        gc.fillText(String.format("%.0f", scale), left + 2, top + 11);
+
+        double span = Math.max(1, last - first);
+        int columns = Math.max(3, (int) width); // One point per pixel column
+        double legendX = left, legendY = top + height + LEGEND_HEIGHT;
+        for (int c = 0; c < channels.length; c++) {
+            int count = recorder.query(channels[c], first, ticks, values);
+            int shown = Lttb.downsample(ticks, values, count, columns, shownX, shownY);
+            gc.setStroke(colors[c]);
+            gc.setLineWidth(1.5);
+            gc.beginPath();
+            for (int i = 0; i < shown; i++) {
+                double px = left + (shownX[i] - first) / span * width;
+                double py = top + height - Math.min(1, shownY[i] / scale) * height;
+                if (i == 0) {
+                    gc.moveTo(px, py);
+                } else {
+                    gc.lineTo(px, py);
+                }
+            }
+            gc.stroke();
+
+            // Legend entry with the latest value
+            String label = String.format("%s %.0f", channels[c], count > 0 ? values[count - 1] : 0);
+            double labelWidth = label.length() * 6 + 8; // Approximate width in the default font
+            if (legendX > left && legendX + labelWidth > left + width) {
+                legendX = left; // Wrap to the next line
+                legendY += LEGEND_HEIGHT;
+            }
+            gc.setFill(colors[c]);
+            gc.fillText(label, legendX, legendY);
+            legendX += labelWidth;
+        }
+    }
+}
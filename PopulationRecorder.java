@@ -0,0 +1,330 @@
+package com.example.robotgui;
+
+import java.util.Arrays;
+
+/**
+ * Records population statistics of an arena every tick, in a fixed amount of memory however long the run.
+ * <p>
+ * Samples are kept at several resolutions. Level 0 holds the latest raw samples; each entry of level k + 1
+ * summarises {@link #ROLLUP_FACTOR} consecutive entries of level k by their minimum, maximum and mean. Every
+ * level is a ring of the same capacity, so finer levels cover recent ticks and coarser levels cover the whole run.
+ * A query over a tick range reads the finest level that still reaches back to its start, so it returns at most one
+ * ring's worth of points, whether the run is a thousand ticks or ten million.
+ * <p>
+ * When the arena is rewound, entries after the restored tick are dropped and the series continue from there.
+ * Kept free of JavaFX so headless tools can record the same statistics.
+ */
+public class PopulationRecorder implements TickRecorder {
+    /** Number of entries of one level summarised by an entry of the next. */
+    public static final int ROLLUP_FACTOR = 4;
+    /** Default number of entries kept per level. */
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final int LEVELS = 12; // With the default capacity, the top level covers over 4 billion ticks
+
+    /**
+     * The recorded statistics.
+     */
+    public enum Channel {
+        WHISKER_ROBOTS("Whisker robots"),
+        PREDATOR_ROBOTS("Predators"),
+        BEAM_SENSOR_ROBOTS("Beam sensor robots"),
+        CONTROLLABLE_ROBOTS("Controllable robots"),
+        LIDAR_ROBOTS("Lidar robots"),
+        FOOD("Food"),
+        AVERAGE_ENERGY("Average energy"), // Of whisker, beam sensor and lidar robots
+        AVERAGE_HEALTH("Average health"); // Of predators and controllable robots
+
+        private final String label;
+
+        Channel(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Returns the name shown in charts.
+         *
+         * @return The label.
+         */
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private static final int CHANNELS = Channel.values().length;
+
+    private final int capacity; // Entries per level
+    private final long[][] start = new long[LEVELS][]; // First tick summarised by each entry, by level
+    private final double[][] min = new double[LEVELS][], max = new double[LEVELS][], sum = new double[LEVELS][];
+    private final int[][] samples = new int[LEVELS][]; // Number of ticks summarised by each entry, by level
+    private final int[] head = new int[LEVELS]; // Index of the next entry to write, by level
+    private final int[] size = new int[LEVELS]; // Entries in use, by level
+    // Entry of the next level being built from entries of this level
+    private final long[] pendingStart = new long[LEVELS];
+    private final int[] pendingEntries = new int[LEVELS], pendingSamples = new int[LEVELS];
+    private final double[][] pendingMin = new double[LEVELS][CHANNELS], pendingMax = new double[LEVELS][CHANNELS];
+    private final double[][] pendingSum = new double[LEVELS][CHANNELS];
+    private final double[] sample = new double[CHANNELS]; // Reused values of the current tick
+    private long lastTick = -1; // Tick of the latest sample, -1 before the first
+
+    /**
+     * Creates a recorder with the default capacity.
+     */
+    public PopulationRecorder() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a recorder.
+     *
+     * @param capacity The number of entries kept per level, about the most points a query returns.
+     */
+    public PopulationRecorder(int capacity) {
+        this.capacity = capacity;
+        for (int level = 0; level < LEVELS; level++) {
+            start[level] = new long[capacity];
+            samples[level] = new int[capacity];
+            min[level] = new double[capacity * CHANNELS];
+            max[level] = new double[capacity * CHANNELS];
+            sum[level] = new double[capacity * CHANNELS];
+        }
+    }
+
+    /**
+     * Samples the arena's current state. Call once per tick, after the update.
+     *
+     * @param arena The arena to sample.
+     */
+    @Override
+    public void record(RobotArena arena) {
+        long tick = arena.getTick();
+        if (tick <= lastTick) {
+            truncate(tick); // Rewound: the recorded future no longer happened
+        }
+        lastTick = tick;
+
+        double energy = 0, health = 0;
+        int energyCount = 0, healthCount = 0;
+        for (ArenaItem item : arena.getDynamicItems()) {
+            if (item instanceof WhiskerRobot) {
+                energy += ((WhiskerRobot) item).getEnergy();
+                energyCount++;
+            } else if (item instanceof BeamSensorRobot) {
+                energy += ((BeamSensorRobot) item).getEnergy();
+                energyCount++;
+            } else if (item instanceof LidarRobot) {
+                energy += ((LidarRobot) item).getEnergy();
+                energyCount++;
+            } else if (item instanceof PredatorRobot) {
+                health += ((PredatorRobot) item).getHealth();
+                healthCount++;
+            } else if (item instanceof ControllableRobot) {
+                health += ((ControllableRobot) item).getHealth();
+                healthCount++;
+            }
+        }
+        sample[Channel.WHISKER_ROBOTS.ordinal()] = arena.getCount(ItemType.WHISKER_ROBOT);
+        sample[Channel.PREDATOR_ROBOTS.ordinal()] = arena.getCount(ItemType.PREDATOR_ROBOT);
+        sample[Channel.BEAM_SENSOR_ROBOTS.ordinal()] = arena.getCount(ItemType.BEAM_SENSOR_ROBOT);
+        sample[Channel.CONTROLLABLE_ROBOTS.ordinal()] = arena.getCount(ItemType.CONTROLLABLE_ROBOT);
+        sample[Channel.LIDAR_ROBOTS.ordinal()] = arena.getCount(ItemType.LIDAR_ROBOT);
+        sample[Channel.FOOD.ordinal()] = arena.getCount(ItemType.FOOD);
+        sample[Channel.AVERAGE_ENERGY.ordinal()] = energyCount > 0 ? energy / energyCount : 0;
+        sample[Channel.AVERAGE_HEALTH.ordinal()] = healthCount > 0 ? health / healthCount : 0;
+        append(0, tick, 1, sample, sample, sample);
+    }
+
+    /**
+     * Writes an entry to a level and folds it into the entry being built for the next level.
+     */
+    private void append(int level, long entryStart, int entrySamples,
+                        double[] entryMin, double[] entryMax, double[] entrySum) {
+        int index = head[level];
+        start[level][index] = entryStart;
+        samples[level][index] = entrySamples;
+        System.arraycopy(entryMin, 0, min[level], index * CHANNELS, CHANNELS);
+        System.arraycopy(entryMax, 0, max[level], index * CHANNELS, CHANNELS);
+        System.arraycopy(entrySum, 0, sum[level], index * CHANNELS, CHANNELS);
+        head[level] = (index + 1) % capacity;
+        size[level] = Math.min(size[level] + 1, capacity);
+
+        if (level + 1 == LEVELS) {
+            return; // The top level only forgets its oldest entries
+        }
+        double[] rollMin = pendingMin[level], rollMax = pendingMax[level], rollSum = pendingSum[level];
+        if (pendingEntries[level] == 0) {
+            pendingStart[level] = entryStart;
+            System.arraycopy(entryMin, 0, rollMin, 0, CHANNELS);
+            System.arraycopy(entryMax, 0, rollMax, 0, CHANNELS);
+            System.arraycopy(entrySum, 0, rollSum, 0, CHANNELS);
+        } else {
+            for (int c = 0; c < CHANNELS; c++) {
+                rollMin[c] = Math.min(rollMin[c], entryMin[c]);
+                rollMax[c] = Math.max(rollMax[c], entryMax[c]);
+                rollSum[c] += entrySum[c];
+            }
+        }
+        pendingSamples[level] += entrySamples;
+        if (++pendingEntries[level] == ROLLUP_FACTOR) {
+            int rolledSamples = pendingSamples[level];
+            pendingEntries[level] = 0;
+            pendingSamples[level] = 0;
+            append(level + 1, pendingStart[level], rolledSamples, rollMin, rollMax, rollSum);
+        }
+    }
+
+    /**
+     * Drops every entry that summarises a tick from the given one on. Entries straddling the tick, and those being
+     * built for coarser levels, are dropped too, so coarse levels skip the earlier ticks they had collected;
+     * finer levels still hold them where their capacity reaches.
+     */
+    private void truncate(long tick) {
+        for (int level = 0; level < LEVELS; level++) {
+            while (size[level] > 0) {
+                int last = (head[level] - 1 + capacity) % capacity;
+                if (start[level][last] + samples[level][last] <= tick) {
+                    break; // Entirely before the tick
+                }
+                head[level] = last;
+                size[level]--;
+            }
+            pendingEntries[level] = 0;
+            pendingSamples[level] = 0;
+        }
+    }
+
+    /**
+     * Forgets everything recorded, for example when a different arena is loaded.
+     */
+    public void clear() {
+        Arrays.fill(head, 0);
+        Arrays.fill(size, 0);
+        Arrays.fill(pendingEntries, 0);
+        Arrays.fill(pendingSamples, 0);
+        lastTick = -1;
+    }
+
+    /**
+     * Returns whether anything has been recorded.
+     *
+     * @return True if no sample has been recorded.
+     */
+    public boolean isEmpty() {
+        return size[0] == 0;
+    }
+
+    /**
+     * Returns the first tick still covered by the recording.
+     *
+     * @return The earliest recorded tick, or -1 if nothing has been recorded.
+     */
+    public long getFirstTick() {
+        long first = -1;
+        for (int level = 0; level < LEVELS; level++) {
+            if (size[level] > 0) {
+                first = first < 0 ? oldestStart(level) : Math.min(first, oldestStart(level));
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Returns the first tick summarised by the oldest entry of a non-empty level.
+     */
+    private long oldestStart(int level) {
+        return start[level][(head[level] - size[level] + capacity) % capacity];
+    }
+
+    /**
+     * Returns the tick of the latest sample.
+     *
+     * @return The latest recorded tick, or -1 if nothing has been recorded.
+     */
+    public long getLastTick() {
+        return isEmpty() ? -1 : lastTick;
+    }
+
+    /**
+     * Reads one statistic from a tick to the latest sample. Points come from the finest level that covers the
+     * start of the range, followed by the few finer entries not yet summarised by that level.
+     * Each point is the mean over the ticks its entry summarises, placed at the entry's first tick.
+     *
+     * @param channel  The statistic to read.
+     * @param fromTick The first tick of interest.
+     * @param ticks    Receives the tick of each point, at least {@link #getMaxPoints()} long.
+     * @param values   Receives the value of each point, at least {@link #getMaxPoints()} long.
+     * @return The number of points written.
+     */
+    public int query(Channel channel, long fromTick, double[] ticks, double[] values) {
+        return query(channel, fromTick, ticks, values, null, null);
+    }
+
+    /**
+     * Reads one statistic like {@link #query(Channel, long, double[], double[])}, together with the smallest and
+     * largest value within each point's ticks, which a mean hides.
+     *
+     * @param channel  The statistic to read.
+     * @param fromTick The first tick of interest.
+     * @param ticks    Receives the tick of each point, at least {@link #getMaxPoints()} long.
+     * @param values   Receives the mean of each point, at least {@link #getMaxPoints()} long.
+     * @param mins     Receives the minimum of each point, or null.
+     * @param maxs     Receives the maximum of each point, or null.
+     * @return The number of points written.
+     */
+    public int query(Channel channel, long fromTick, double[] ticks, double[] values, double[] mins, double[] maxs) {
+        int coarsest = -1;
+        for (int level = 0; level < LEVELS; level++) {
+            if (size[level] > 0) {
+                coarsest = level;
+                if (oldestStart(level) <= fromTick) {
+                    break; // Finer levels have already forgotten the start of the range
+                }
+            }
+        }
+        if (coarsest < 0) {
+            return 0;
+        }
+        int c = channel.ordinal();
+        int count = 0;
+        long covered = fromTick; // Ticks before this are already represented
+        for (int level = coarsest; level >= 0; level--) {
+            for (int i = 0; i < size[level]; i++) {
+                int index = (head[level] - size[level] + i + capacity) % capacity;
+                long entryStart = start[level][index];
+                long entryEnd = entryStart + samples[level][index];
+                if (entryEnd <= covered || (level < coarsest && entryStart < covered)) {
+                    continue;
+                }
+                ticks[count] = entryStart;
+                values[count] = sum[level][index * CHANNELS + c] / samples[level][index];
+                if (mins != null) {
+                    mins[count] = min[level][index * CHANNELS + c];
+                }
+                if (maxs != null) {
+                    maxs[count] = max[level][index * CHANNELS + c];
+                }
+                count++;
+                covered = entryEnd;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the most points a query can return.
+     *
+     * @return The capacity plus the unsummarised entries of every level.
+     */
+    public int getMaxPoints() {
+        return capacity + LEVELS * ROLLUP_FACTOR;
+    }
+
+    /**
+     * Returns the number of entries kept per level, the most points a query returns.
+     *
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -32,34 +32,61 @@ public class PredatorRobot extends Robot {
     @Override
     public void update(RobotArena arena) {
         if (health <= 0) {
+            arena.publishEvent(SimulationEvent.DEATH, this, null);
             arena.removeItem(this); // Remove the bot if health is zero
             return;
         }
 
         // Reduce health over time
-        health -= 0.05;
+        health -= 0.05 * arena.getTimeStep();
 
         // Find the nearest prey bot
         ArenaItem nearestPrey = findNearestPrey(arena);
         if (nearestPrey != null) {
-            double dx = nearestPrey.x - this.x;
-            double dy = nearestPrey.y - this.y;
-            this.angle = Math.atan2(dy, dx); // Adjust angle to move toward the prey
+            navigateToward(arena, nearestPrey.x, nearestPrey.y); // Head for the prey, around obstacles in the way
 
             // Eat prey if overlapping
             if (this.overlaps(nearestPrey)) {
-                arena.removeItem(nearestPrey);
-                health = Math.min(health + 30, 100); // Regain health, max 100
-                this.radius += 2; // Increase size slightly
+                eat(nearestPrey, arena);
+                nearestPrey = null;
             }
         }
 
-        move();
+        double startX = x, startY = y;
+        move(arena);
+
+        // Eat prey the predator passed through during a long step
+        if (nearestPrey != null && nearestPrey.alive && Contact.timeOfImpact(startX, startY, x - startX, y - startY,
+                nearestPrey.x, nearestPrey.y, radius + nearestPrey.radius) <= 1) {
+            eat(nearestPrey, arena);
+        }
         avoidCollisions(arena); // Handle predator collision avoidance
         avoidObstacles(arena); // Handle obstacle avoidance
         stayInArenaBounds(arena); // Ensure predator stays within bounds
     }
 
+    /**
+     * Returns the predator's health level.
+     *
+     * @return The health, from 0 to 100.
+     */
+    public double getHealth() {
+        return health;
+    }
+
+    /**
+     * Eats a prey bot, regaining health and growing slightly.
+     *
+     * @param prey  The prey bot to eat.
+     * @param arena The arena containing all items.
+     */
+    private void eat(ArenaItem prey, RobotArena arena) {
+        arena.publishEvent(SimulationEvent.KILL, this, prey);
+        arena.removeItem(prey);
+        health = Math.min(health + 30, 100); // Regain health, max 100
+        this.radius += 2; // Increase size slightly
+    }
+
     /**
      * Draws the predator robot and its health level.
      *
@@ -95,10 +122,10 @@ public class PredatorRobot extends Robot {
         gc.setStroke(Color.BLACK);
         gc.setLineWidth(5);
         double wheelLength = 20; // Length of the wheel
-        double offsetX = Math.cos(angle + Math.PI / 2) * radius; // X-offset for left/right wheels
-        double offsetY = Math.sin(angle + Math.PI / 2) * radius; // Y-offset for left/right wheels
-        double perpendicularX = Math.cos(angle) * wheelLength / 2;
-        double perpendicularY = Math.sin(angle) * wheelLength / 2;
+        double offsetX = -dirY * radius; // X-offset for left/right wheels (heading rotated by 90 degrees)
+        double offsetY = dirX * radius; // Y-offset for left/right wheels
+        double perpendicularX = dirX * wheelLength / 2;
+        double perpendicularY = dirY * wheelLength / 2;
 
         // Left wheel
         double wheelXLeftStart = x - offsetX - perpendicularX;
@@ -127,19 +154,9 @@ public class PredatorRobot extends Robot {
      * @return The nearest prey bot, or null if no prey is found.
      */
     private ArenaItem findNearestPrey(RobotArena arena) {
-        ArenaItem nearest = null;
-        double nearestDistance = Double.MAX_VALUE;
-
-        for (ArenaItem item : arena.getItems()) {
-            if (item instanceof WhiskerRobot) { // Identify prey bots
-                double distance = Math.sqrt(Math.pow(item.x - this.x, 2) + Math.pow(item.y - this.y, 2));
-                if (distance < nearestDistance) {
-                    nearestDistance = distance;
-                    nearest = item;
-                }
-            }
-        }
-        return nearest;
+        PackedItems prey = arena.getPacked(ItemType.WHISKER_ROBOT); // Prey bots are the whisker robots
+        int nearest = DistanceKernels.nearest(prey.x, prey.y, prey.size, x, y);
+        return nearest < 0 ? null : prey.items[nearest];
     }
 
     /**
@@ -148,8 +165,9 @@ public class PredatorRobot extends Robot {
      * @param arena The arena containing all items.
      */
     private void avoidCollisions(RobotArena arena) {
-        for (ArenaItem item : arena.getItems()) {
-            if (item instanceof PredatorRobot && item != this) {
+        collectNearby(arena, getMinX(), getMinY(), getMaxX(), getMaxY()); // Only robots whose bounds touch ours
+        for (ArenaItem item : nearby) {
+            if (item instanceof PredatorRobot) {
                 double dx = this.x - item.x;
                 double dy = this.y - item.y;
                 double distance = Math.sqrt(dx * dx + dy * dy);
@@ -157,17 +175,65 @@ public class PredatorRobot extends Robot {
                 // If overlapping, adjust position to avoid collision
                 if (distance < this.radius + item.radius) {
                     double overlap = (this.radius + item.radius) - distance;
-                    double angleAway = Math.atan2(dy, dx);
+                    // Unit vector pointing away from the other predator (along x if exactly on top of it)
+                    double awayX = distance > 0 ? dx / distance : 1;
+                    double awayY = distance > 0 ? dy / distance : 0;
 
                     // Move this predator slightly away
-                    this.x += Math.cos(angleAway) * overlap / 2;
-                    this.y += Math.sin(angleAway) * overlap / 2;
+                    this.x += awayX * overlap / 2;
+                    this.y += awayY * overlap / 2;
 
                     // Move the other predator slightly away
-                    item.x -= Math.cos(angleAway) * overlap / 2;
-                    item.y -= Math.sin(angleAway) * overlap / 2;
+                    item.x -= awayX * overlap / 2;
+                    item.y -= awayY * overlap / 2;
+                    arena.positionChanged(item);
                 }
             }
         }
     }
+
+    /**
+     * Returns the number of state values, including the health.
+     *
+     * @return The number of state values.
+     */
+    @Override
+    public int getStateSize() {
+        return super.getStateSize() + 1;
+    }
+
+    /**
+     * Writes the robot's state, including the health, into an array.
+     *
+     * @param state  The array to write to.
+     * @param offset The index of the first value.
+     */
+    @Override
+    public void saveState(double[] state, int offset) {
+        super.saveState(state, offset);
+        int i = offset + super.getStateSize();
+        state[i] = health;
+    }
+
+    /**
+     * Restores the robot's state, including the health, from an array.
+     *
+     * @param state  The array to read from.
+     * @param offset The index of the first value.
+     */
+    @Override
+    public void loadState(double[] state, int offset) {
+        super.loadState(state, offset);
+        int i = offset + super.getStateSize();
+        health = state[i];
+    }
+
+    /**
+     * Returns the type of this item.
+     * @return ItemType.PREDATOR_ROBOT
+     */
+    @Override
+    public ItemType getType() {
+        return ItemType.PREDATOR_ROBOT;
+    }
 }
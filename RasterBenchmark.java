@@ -0,0 +1,69 @@
+package com.example.robotgui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures how long a {@link TileRasterizer} takes to draw library scenarios with different numbers of threads.
+ * Usage: {@code RasterBenchmark [--frames N] [scenario...]}
+ * <p>
+ * Each scenario is drawn into an 800 by 600 image scaled to show the whole arena, with one thread and then with
+ * a thread per available processor, and the frames are checked to be identical. The arena is advanced one tick
+ * between frames, so every frame draws new positions.
+ */
+public final class RasterBenchmark {
+    private static final int WIDTH = 800, HEIGHT = 600; // The size of the UI canvas
+
+    private RasterBenchmark() {
+        // Utility class
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Command line arguments.
+     */
+    public static void main(String[] args) {
+        int frames = 20;
+        List<ScenarioSpec> specs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--frames")) {
+                frames = Integer.parseInt(args[++i]);
+            } else {
+                specs.add(ScenarioLibrary.byName(args[i]));
+            }
+        }
+        if (specs.isEmpty()) {
+            specs.addAll(ScenarioLibrary.all());
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%-22s %9s %12s %12s %s%n", "scenario", "items", "1 thread ms",
+                processors + " threads ms", "same");
+        for (ScenarioSpec spec : specs) {
+            RobotArena arena = ScenarioGenerator.generate(spec);
+            double scale = Math.min(WIDTH / spec.getWidth(), HEIGHT / spec.getHeight());
+            try (TileRasterizer single = new TileRasterizer(WIDTH, HEIGHT, 1);
+                 TileRasterizer parallel = new TileRasterizer(WIDTH, HEIGHT, processors)) {
+                single.setViewport(0, 0, scale);
+                parallel.setViewport(0, 0, scale);
+                single.render(arena); // Warm up
+                parallel.render(arena);
+                long singleNanos = 0, parallelNanos = 0;
+                boolean same = true;
+                for (int f = 0; f < frames; f++) {
+                    long start = System.nanoTime();
+                    single.render(arena);
+                    singleNanos += System.nanoTime() - start;
+                    start = System.nanoTime();
+                    parallel.render(arena);
+                    parallelNanos += System.nanoTime() - start;
+                    same &= Arrays.equals(single.getPixels(), parallel.getPixels());
+                    arena.update();
+                }
+                System.out.printf("%-22s %9d %12.2f %12.2f %s%n", spec.getName(), arena.getItems().size(),
+                        singleNanos / 1e6 / frames, parallelNanos / 1e6 / frames, same);
+            }
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.robotgui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Casts the rays of every {@link LidarRobot} in an arena as one batch, filling each robot's distances and hit types.
+ * <p>
+ * All the rays of a robot leave the same origin, so they are cast together as a bundle rather than one at a time:
+ * the arena's indexes are searched once per robot for the items within its range, and each item is only tested
+ * against the rays inside the angle it subtends from the origin, the few rays that can hit it. Walls are
+ * intersected directly. A ray that starts inside an item reports a distance of 0.
+ * <p>
+ * Distances match {@link #castReference(RobotArena, LidarRobot, double[], ItemType[])}, which tests every ray
+ * against every item, exactly; when two items are hit at the same distance, the one added to the arena first
+ * is reported by both. Kept free of JavaFX so headless tools can cast rays too.
+ */
+public final class RayCaster {
+    private static final double ANGLE_MARGIN = 1e-5; // Widens the angle an item subtends against approximation
+    private static final double DISTANCE_MARGIN = 1e-6; // Brings an item's nearest possible hit closer, likewise
+    private static final ConcurrentHashMap<Integer, double[]> DIRECTIONS = new ConcurrentHashMap<>();
+
+    private final ArrayList<ArenaItem> candidates = new ArrayList<>(); // Reused result list of range queries
+    private long[] hitSequence = new long[64]; // Arena sequence of the item each ray hits, to break ties
+    private long[] order = new long[64]; // Morton code of each robot's cell above its batch index
+
+    /**
+     * Returns the directions of a fan of rays spread evenly around a full turn, relative to the heading:
+     * the cosine and sine of ray k's angle are at indexes 2k and 2k + 1. Ray 0 points along the heading, and
+     * angles increase the way {@link Robot#getAngle()} does. Tables are shared and must not be modified.
+     *
+     * @param rays The number of rays.
+     * @return The interleaved cosines and sines.
+     */
+    public static double[] directions(int rays) {
+        return DIRECTIONS.computeIfAbsent(rays, count -> {
+            double[] table = new double[2 * count];
+            for (int k = 0; k < count; k++) {
+                double angle = 2 * Math.PI * k / count;
+                table[2 * k] = Math.cos(angle);
+                table[2 * k + 1] = Math.sin(angle);
+            }
+            return table;
+        });
+    }
+
+    /**
+     * Casts the rays of a batch of robots against the arena as it is now. The robots are visited along a Morton
+     * curve through cells the size of their range, so consecutive robots search the same parts of the indexes
+     * while those are still in the cache.
+     *
+     * @param arena  The arena.
+     * @param robots The robots whose scans to fill.
+     */
+    public void cast(RobotArena arena, List<LidarRobot> robots) {
+        int count = robots.size();
+        if (order.length < count) {
+            order = new long[Math.max(count, order.length * 2)];
+        }
+        double cellSize = 1;
+        for (int i = 0; i < count; i++) {
+            cellSize = Math.max(cellSize, robots.get(i).getRange());
+        }
+        for (int i = 0; i < count; i++) {
+            LidarRobot robot = robots.get(i);
+            int column = (int) Math.max(0, Math.min(0xFFFF, robot.x / cellSize));
+            int row = (int) Math.max(0, Math.min(0xFFFF, robot.y / cellSize));
+            order[i] = (spread(column) | spread(row) << 1) << 32 | i;
+        }
+        Arrays.sort(order, 0, count);
+        for (int i = 0; i < count; i++) {
+            cast(arena, robots.get((int) order[i]));
+        }
+    }
+
+    /**
+     * Spreads the 16 low bits of a value to the even bits of the result, to interleave two of them.
+     */
+    private static long spread(int value) {
+        long bits = value & 0xFFFFL;
+        bits = (bits | bits << 8) & 0x00FF00FFL;
+        bits = (bits | bits << 4) & 0x0F0F0F0FL;
+        bits = (bits | bits << 2) & 0x33333333L;
+        return (bits | bits << 1) & 0x55555555L;
+    }
+
+    /**
+     * Casts the rays of one robot as a bundle.
+     */
+    private void cast(RobotArena arena, LidarRobot robot) {
+        int rays = robot.getRayCount();
+        double range = robot.getRange();
+        double[] table = directions(rays);
+        double[] distances = robot.getDistances();
+        ItemType[] hits = robot.getHitTypes();
+        if (hitSequence.length < rays) {
+            hitSequence = new long[rays];
+        }
+        double ox = robot.x, oy = robot.y, headX = robot.dirX, headY = robot.dirY;
+        for (int k = 0; k < rays; k++) {
+            double rayX = headX * table[2 * k] - headY * table[2 * k + 1];
+            double rayY = headX * table[2 * k + 1] + headY * table[2 * k];
+            distances[k] = wallDistance(arena, ox, oy, rayX, rayY, range);
+            hits[k] = null;
+            hitSequence[k] = Long.MAX_VALUE;
+        }
+
+        candidates.clear();
+        arena.queryItems(ox - range, oy - range, ox + range, oy + range, candidates);
+        double step = 2 * Math.PI / rays;
+        for (int c = 0; c < candidates.size(); c++) {
+            ArenaItem item = candidates.get(c);
+            if (item == robot || !item.alive) {
+                continue;
+            }
+            double dx = item.x - ox, dy = item.y - oy;
+            double distance = Math.sqrt(dx * dx + dy * dy);
+            double bound = boundingRadius(item);
+            double nearest = distance - bound - DISTANCE_MARGIN; // No ray meets the item closer than this
+            if (nearest > range) {
+                continue; // Out of reach of every ray
+            }
+            int first = 0, last = rays - 1;
+            if (distance > bound) {
+                // Only rays within the angle the bounding circle subtends, measured from ray 0, can hit the item.
+                // The angle is overestimated, by the error of the approximate atan2 and by taking the tangent of
+                // the half angle for the half angle, so culling never drops a ray that would hit
+                double centre = FastTrig.approxAtan2(headX * dy - headY * dx, headX * dx + headY * dy);
+                double half = bound / Math.sqrt((distance - bound) * (distance + bound)) + ANGLE_MARGIN;
+                int low = (int) Math.ceil((centre - half) / step);
+                int high = (int) Math.floor((centre + half) / step);
+                if (high - low + 1 < rays) {
+                    first = low;
+                    last = high;
+                }
+            }
+            for (int j = first; j <= last; j++) {
+                int k = Math.floorMod(j, rays);
+                if (nearest > distances[k]) {
+                    continue;
+                }
+                double rayX = headX * table[2 * k] - headY * table[2 * k + 1];
+                double rayY = headX * table[2 * k + 1] + headY * table[2 * k];
+                double t = intersect(item, ox, oy, rayX, rayY, distances[k]);
+                if (t < distances[k] || t == distances[k] && item.sequence < hitSequence[k]) {
+                    distances[k] = t;
+                    hits[k] = item.getType();
+                    hitSequence[k] = item.sequence;
+                }
+            }
+        }
+    }
+
+    /**
+     * Casts the rays of a robot one at a time against every item in the arena, without the indexes or any culling.
+     * Slow; serves as the reference the batched cast is checked against.
+     *
+     * @param arena     The arena.
+     * @param robot     The robot whose rays to cast.
+     * @param distances Receives the distance along each ray, at most the robot's range.
+     * @param hits      Receives the type of the item each ray hits, or null for a wall or nothing.
+     */
+    public static void castReference(RobotArena arena, LidarRobot robot, double[] distances, ItemType[] hits) {
+        int rays = robot.getRayCount();
+        double range = robot.getRange();
+        double[] table = directions(rays);
+        for (int k = 0; k < rays; k++) {
+            double rayX = robot.dirX * table[2 * k] - robot.dirY * table[2 * k + 1];
+            double rayY = robot.dirX * table[2 * k + 1] + robot.dirY * table[2 * k];
+            double best = wallDistance(arena, robot.x, robot.y, rayX, rayY, range);
+            ItemType hit = null;
+            long bestSequence = Long.MAX_VALUE;
+            for (ArenaItem item : arena.getItems()) {
+                if (item == robot) {
+                    continue;
+                }
+                double t = intersect(item, robot.x, robot.y, rayX, rayY, best);
+                if (t < best || t == best && item.sequence < bestSequence) {
+                    best = t;
+                    hit = item.getType();
+                    bestSequence = item.sequence;
+                }
+            }
+            distances[k] = best;
+            hits[k] = hit;
+        }
+    }
+
+    /**
+     * Returns the distance along a ray to the arena's edge, or the range if the edge is farther.
+     */
+    private static double wallDistance(RobotArena arena, double ox, double oy, double rayX, double rayY,
+                                       double range) {
+        double t = range;
+        if (rayX > 0) t = Math.min(t, (arena.getWidth() - ox) / rayX);
+        if (rayX < 0) t = Math.min(t, -ox / rayX);
+        if (rayY > 0) t = Math.min(t, (arena.getHeight() - oy) / rayY);
+        if (rayY < 0) t = Math.min(t, -oy / rayY);
+        return Math.max(0, t);
+    }
+
+    /**
+     * Returns the distance along a ray to an item, or positive infinity if the ray misses it within maxT.
+     * Obstacles are intersected with their exact outline, other items as circles.
+     */
+    private static double intersect(ArenaItem item, double ox, double oy, double rayX, double rayY, double maxT) {
+        if (item instanceof Obstacle) {
+            return ((Obstacle) item).raycast(ox, oy, rayX, rayY, maxT);
+        }
+        double dx = item.x - ox, dy = item.y - oy;
+        double along = dx * rayX + dy * rayY;
+        double outside = dx * dx + dy * dy - item.radius * item.radius; // Negative when the origin is inside
+        if (outside <= 0) {
+            return 0;
+        }
+        double discriminant = along * along - outside;
+        if (along <= 0 || discriminant < 0) {
+            return Double.POSITIVE_INFINITY; // Pointing away or passing beside
+        }
+        double t = along - Math.sqrt(discriminant);
+        return t <= maxT ? t : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the radius of a circle around the item's position that contains all of it.
+     */
+    private static double boundingRadius(ArenaItem item) {
+        if (!(item instanceof Obstacle)) {
+            return item.radius;
+        }
+        double dx = Math.max(item.x - item.getMinX(), item.getMaxX() - item.x);
+        double dy = Math.max(item.y - item.getMinY(), item.getMaxY() - item.y);
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
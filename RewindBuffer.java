@@ -0,0 +1,616 @@
+package com.example.robotgui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Keeps the recent history of an arena in memory so it can be rewound to any recorded tick and re-run.
+ * <p>
+ * Every recorded tick is stored as one binary frame in a ring buffer. Every {@code keyframeInterval} ticks the
+ * frame is a keyframe holding the full state of every item; the frames in between are deltas holding only
+ * removed items, added items and the state values that changed since the previous tick. State values are stored
+ * exactly (as the XOR of their bits with the previous value), so a restored arena continues exactly as the
+ * original did. When the frames exceed the memory budget the oldest keyframe and its deltas are dropped,
+ * so the covered history shrinks or grows to fit the budget.
+ * <p>
+ * Frame layout (integers are unsigned varints):
+ * <pre>
+ * byte frameType, varlong tick
+ * KEYFRAME: varint count, count x record
+ * DELTA:    varint removedCount, removedCount x varint id,
+ *           varint addedCount, addedCount x record,
+ *           varint changedCount, changedCount x (varint id, varint mask, popcount(mask) x varlong xorBits)
+ * record:   varint id, varint generation, byte type, [varint n, 2n x long vertexBits],
+ *           varint size, size x long stateBits
+ * </pre>
+ * The vertices are only present for obstacles. Items appear in records in arena order, which restoring keeps.
+ * An id whose slot got a new item since the previous tick is listed as removed and then added again.
+ */
+public class RewindBuffer implements TickRecorder {
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 120; // Ticks between keyframes
+    private static final int KEYFRAME = 1; // Frame type of a full snapshot
+    private static final int DELTA = 2; // Frame type of a change set
+    private static final int FRAME_OVERHEAD = 32; // Approximate heap cost of a frame besides its bytes
+    private static final int MAX_STATE_SIZE = 31; // State values per item, limited by the delta mask
+
+    private final int keyframeInterval;
+    private long memoryBudget; // Maximum bytes held by the frames
+
+    // Ring buffer of frames for consecutive ticks
+    private byte[][] frames = new byte[256][];
+    private int head; // Index of the oldest frame
+    private int count; // Number of frames held
+    private long firstTick; // Tick of the oldest frame
+    private long usedBytes; // Bytes held by the frames, including overhead
+    private int sinceKeyframe; // Frames recorded since the last keyframe
+    private boolean keyframeNeeded = true; // Set when the next frame must be a keyframe
+    private boolean overBudget; // Set when a single keyframe did not fit the budget; recording is paused
+
+    // State of the last recorded frame, indexed by item id
+    private final State baseline = new State();
+    private final StateStreamEncoder.ByteSink frame = new StateStreamEncoder.ByteSink();
+    private final StateStreamEncoder.ByteSink added = new StateStreamEncoder.ByteSink();
+    private final StateStreamEncoder.ByteSink changed = new StateStreamEncoder.ByteSink();
+    private double[] scratch = new double[16]; // Reused state array of one item
+    private int[] replaced = new int[16]; // Ids whose slot got a new item in the current delta
+    private int replacedCount;
+
+    // Frame being decoded
+    private byte[] data;
+    private int position;
+
+    /**
+     * Creates a rewind buffer.
+     *
+     * @param memoryBudget     The maximum number of bytes the recorded frames may occupy.
+     * @param keyframeInterval The number of ticks between keyframes.
+     */
+    public RewindBuffer(long memoryBudget, int keyframeInterval) {
+        if (keyframeInterval < 1) {
+            throw new IllegalArgumentException("Keyframe interval must be at least 1: " + keyframeInterval);
+        }
+        this.memoryBudget = memoryBudget;
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    /**
+     * Returns the maximum number of bytes the recorded frames may occupy.
+     *
+     * @return The memory budget in bytes.
+     */
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Changes the memory budget, dropping the oldest history at once if it no longer fits.
+     * Resumes recording if it was paused because a keyframe did not fit the old budget.
+     *
+     * @param memoryBudget The new memory budget in bytes.
+     */
+    public void setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+        overBudget = false;
+        evictToBudget();
+    }
+
+    /**
+     * Returns whether recording is paused because the budget is too small for a single keyframe.
+     * Recording resumes when the budget is changed or the history is cleared.
+     *
+     * @return True if recording is paused.
+     */
+    public boolean isOverBudget() {
+        return overBudget;
+    }
+
+    /**
+     * Returns the bytes currently held by the recorded frames.
+     *
+     * @return The used memory in bytes.
+     */
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Returns whether any tick has been recorded.
+     *
+     * @return True if the buffer is empty.
+     */
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Returns the oldest tick that can be restored.
+     *
+     * @return The oldest recorded tick. Undefined while the buffer is empty.
+     */
+    public long getFirstTick() {
+        return firstTick;
+    }
+
+    /**
+     * Returns the newest tick that can be restored.
+     *
+     * @return The newest recorded tick. Undefined while the buffer is empty.
+     */
+    public long getLastTick() {
+        return firstTick + count - 1;
+    }
+
+    /**
+     * Forgets all recorded history, for example when the arena is replaced, and resumes paused recording.
+     */
+    public void clear() {
+        Arrays.fill(frames, null);
+        head = 0;
+        count = 0;
+        usedBytes = 0;
+        keyframeNeeded = true;
+        overBudget = false;
+    }
+
+    /**
+     * Records the current state of the arena. Called once per tick, after the arena has been updated.
+     * A tick that does not directly follow the last recorded one, for example after the arena was replaced,
+     * starts a new history. Does nothing while recording is paused, see {@link #isOverBudget()}.
+     *
+     * @param arena The arena to record.
+     */
+    @Override
+    public void record(RobotArena arena) {
+        if (overBudget) {
+            return;
+        }
+        long tick = arena.getTick();
+        if (count > 0 && tick != getLastTick() + 1) {
+            clear(); // History is no longer contiguous
+        }
+        boolean keyframe = keyframeNeeded || sinceKeyframe >= keyframeInterval;
+        byte[] encoded = keyframe ? encodeKeyframe(arena) : encodeDelta(arena);
+        if (keyframe) {
+            sinceKeyframe = 0;
+            keyframeNeeded = false;
+        }
+        sinceKeyframe++;
+        append(tick, encoded);
+        evictToBudget();
+    }
+
+    /**
+     * Restores the arena to a recorded tick. History after that tick is discarded,
+     * since the simulation will be re-run from there.
+     *
+     * @param tick  The tick to restore, between {@link #getFirstTick()} and {@link #getLastTick()}.
+     * @param arena The arena whose items are replaced.
+     * @throws IllegalArgumentException If the tick is not recorded.
+     */
+    public void restore(long tick, RobotArena arena) {
+        if (count == 0 || tick < firstTick || tick > getLastTick()) {
+            throw new IllegalArgumentException("Tick " + tick + " is not recorded");
+        }
+        int target = (int) (tick - firstTick);
+        int start = target;
+        while (frames[slot(start)][0] != KEYFRAME) {
+            start--; // The oldest frame is always a keyframe, so this stops
+        }
+
+        State state = new State();
+        for (int i = start; i <= target; i++) {
+            decode(frames[slot(i)], state);
+        }
+
+        state.compact();
+        ArrayList<ArenaItem> restored = new ArrayList<>(state.size);
+        for (int i = 0; i < state.size; i++) {
+            restored.add(state.createItem(state.order[i]));
+        }
+        arena.restore(tick, restored);
+
+        // Drop the frames after the restored tick; the next recorded frame starts a new segment
+        for (int i = target + 1; i < count; i++) {
+            usedBytes -= frames[slot(i)].length + FRAME_OVERHEAD;
+            frames[slot(i)] = null;
+        }
+        count = target + 1;
+        keyframeNeeded = true;
+    }
+
+    private int slot(int index) {
+        return (head + index) % frames.length;
+    }
+
+    private void append(long tick, byte[] encoded) {
+        if (count == frames.length) {
+            byte[][] grown = new byte[frames.length * 2][];
+            for (int i = 0; i < count; i++) {
+                grown[i] = frames[slot(i)];
+            }
+            frames = grown;
+            head = 0;
+        }
+        if (count == 0) {
+            firstTick = tick;
+        }
+        frames[slot(count)] = encoded;
+        count++;
+        usedBytes += encoded.length + FRAME_OVERHEAD;
+    }
+
+    /**
+     * Drops whole segments (a keyframe and its deltas) from the old end until the frames fit the budget.
+     * The newest segment is never dropped; instead a keyframe is forced so it can be dropped later.
+     * If that keyframe alone exceeds the budget, the history is dropped and recording pauses,
+     * rather than recording a keyframe every tick without ever fitting.
+     */
+    private void evictToBudget() {
+        while (usedBytes > memoryBudget && count > 0) {
+            int end = 1;
+            while (end < count && frames[slot(end)][0] != KEYFRAME) {
+                end++;
+            }
+            if (end == count) {
+                keyframeNeeded = true; // Only the current segment is left
+                if (count == 1) {
+                    clear();
+                    overBudget = true; // Budget too small for one keyframe
+                }
+                return;
+            }
+            for (int i = 0; i < end; i++) {
+                usedBytes -= frames[head].length + FRAME_OVERHEAD;
+                frames[head] = null;
+                head = (head + 1) % frames.length;
+            }
+            count -= end;
+            firstTick += end;
+        }
+    }
+
+    private byte[] encodeKeyframe(RobotArena arena) {
+        frame.reset();
+        writeHeader(KEYFRAME, arena);
+        frame.writeVarInt(arena.getItems().size());
+        baseline.clear();
+        for (ArenaItem item : arena.getItems()) {
+            double[] values = saveItem(item);
+            baseline.put(item.getId(), item.getGeneration(), item.getType(), shapeOf(item), values,
+                    item.getStateSize());
+            writeRecord(frame, item.getId());
+        }
+        return frame.toByteArray();
+    }
+
+    private byte[] encodeDelta(RobotArena arena) {
+        baseline.stamp++;
+        added.reset();
+        changed.reset();
+        replacedCount = 0;
+        int addedCount = 0;
+        int changedCount = 0;
+
+        for (ArenaItem item : arena.getItems()) {
+            int id = item.getId();
+            double[] values = saveItem(item);
+            int size = item.getStateSize();
+            if (baseline.contains(id) && baseline.generations[id] != item.getGeneration()) {
+                // The slot was reused: report the old item as removed and the new one as added
+                if (replacedCount == replaced.length) {
+                    replaced = Arrays.copyOf(replaced, replacedCount * 2);
+                }
+                replaced[replacedCount++] = id;
+                baseline.remove(id);
+            }
+            if (!baseline.contains(id)) {
+                baseline.put(id, item.getGeneration(), item.getType(), shapeOf(item), values, size);
+                writeRecord(added, id);
+                addedCount++;
+                continue;
+            }
+            baseline.seen[id] = baseline.stamp;
+
+            // Mask of values that changed, each written as the XOR of its bits with the previous value
+            double[] previous = baseline.values[id];
+            int mask = 0;
+            for (int i = 0; i < size; i++) {
+                if (Double.doubleToRawLongBits(values[i]) != Double.doubleToRawLongBits(previous[i])) {
+                    mask |= 1 << i;
+                }
+            }
+            if (mask != 0) {
+                changed.writeVarInt(id);
+                changed.writeVarInt(mask);
+                for (int i = 0; i < size; i++) {
+                    if ((mask & (1 << i)) != 0) {
+                        changed.writeVarLong(Double.doubleToRawLongBits(values[i])
+                                ^ Double.doubleToRawLongBits(previous[i]));
+                        previous[i] = values[i];
+                    }
+                }
+                changedCount++;
+            }
+        }
+
+        frame.reset();
+        writeHeader(DELTA, arena);
+        baseline.removeUnseen(frame, replaced, replacedCount);
+        frame.writeVarInt(addedCount);
+        frame.writeBytes(added);
+        frame.writeVarInt(changedCount);
+        frame.writeBytes(changed);
+        return frame.toByteArray();
+    }
+
+    private double[] saveItem(ArenaItem item) {
+        int size = item.getStateSize();
+        if (size > MAX_STATE_SIZE) {
+            throw new IllegalStateException(item.getType() + " has more than " + MAX_STATE_SIZE + " state values");
+        }
+        if (scratch.length < size) {
+            scratch = new double[size];
+        }
+        item.saveState(scratch, 0);
+        return scratch;
+    }
+
+    private static ConvexPolygon shapeOf(ArenaItem item) {
+        return item instanceof Obstacle ? ((Obstacle) item).getShape() : null;
+    }
+
+    private void writeHeader(int frameType, RobotArena arena) {
+        frame.writeByte(frameType);
+        frame.writeVarLong(arena.getTick());
+    }
+
+    private void writeRecord(StateStreamEncoder.ByteSink sink, int id) {
+        sink.writeVarInt(id);
+        sink.writeVarInt(baseline.generations[id]);
+        sink.writeByte(baseline.types[id].getCode());
+        ConvexPolygon shape = baseline.shapes[id];
+        if (shape != null) {
+            sink.writeVarInt(shape.getVertexCount());
+            for (int i = 0; i < shape.getVertexCount(); i++) {
+                writeDouble(sink, shape.getX(i));
+                writeDouble(sink, shape.getY(i));
+            }
+        }
+        double[] values = baseline.values[id];
+        sink.writeVarInt(values.length);
+        for (double value : values) {
+            writeDouble(sink, value);
+        }
+    }
+
+    private static void writeDouble(StateStreamEncoder.ByteSink sink, double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        for (int shift = 0; shift < 64; shift += 8) {
+            sink.writeByte((int) (bits >>> shift));
+        }
+    }
+
+    /**
+     * Applies a frame to a decoded state.
+     *
+     * @param encoded The frame.
+     * @param state   The state to update; a keyframe replaces it.
+     */
+    private void decode(byte[] encoded, State state) {
+        data = encoded;
+        position = 0;
+        int frameType = readByte();
+        readVarLong(); // Tick, implied by the frame's position
+        if (frameType == KEYFRAME) {
+            state.clear();
+            int itemCount = readVarInt();
+            for (int i = 0; i < itemCount; i++) {
+                readRecord(state);
+            }
+            return;
+        }
+
+        int removedCount = readVarInt();
+        for (int i = 0; i < removedCount; i++) {
+            state.remove(readVarInt());
+        }
+        int addedCount = readVarInt();
+        for (int i = 0; i < addedCount; i++) {
+            readRecord(state);
+        }
+        int changedCount = readVarInt();
+        for (int i = 0; i < changedCount; i++) {
+            int id = readVarInt();
+            int mask = readVarInt();
+            double[] values = state.values[id];
+            for (int j = 0; j < values.length; j++) {
+                if ((mask & (1 << j)) != 0) {
+                    values[j] = Double.longBitsToDouble(Double.doubleToRawLongBits(values[j]) ^ readVarLong());
+                }
+            }
+        }
+    }
+
+    private void readRecord(State state) {
+        int id = readVarInt();
+        int generation = readVarInt();
+        ItemType type = ItemType.fromCode(readByte());
+        ConvexPolygon shape = null;
+        if (type == ItemType.OBSTACLE) {
+            int vertexCount = readVarInt();
+            double[] xs = new double[vertexCount];
+            double[] ys = new double[vertexCount];
+            for (int i = 0; i < vertexCount; i++) {
+                xs[i] = readDouble();
+                ys[i] = readDouble();
+            }
+            shape = new ConvexPolygon(xs, ys);
+        }
+        int size = readVarInt();
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = readDouble();
+        }
+        state.put(id, generation, type, shape, values, size);
+    }
+
+    private int readByte() {
+        return data[position++] & 0xFF;
+    }
+
+    private int readVarInt() {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = readByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private long readVarLong() {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private double readDouble() {
+        long bits = 0;
+        for (int shift = 0; shift < 64; shift += 8) {
+            bits |= (long) readByte() << shift;
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * The state of every item at one tick, indexed by item id, with the items' arena order.
+     */
+    private static final class State {
+        int[] generations = new int[64];
+        ItemType[] types = new ItemType[64];
+        ConvexPolygon[] shapes = new ConvexPolygon[64];
+        double[][] values = new double[64][];
+        long[] seen = new long[64]; // Stamp of the delta in which each id was last seen
+        boolean[] present = new boolean[64];
+        int[] positions = new int[64]; // Index of each id in the order
+        int[] order = new int[64]; // Ids in arena order, -1 for removed ids until the next compaction
+        int size;
+        long stamp; // Current delta encode pass
+
+        void clear() {
+            for (int i = 0; i < size; i++) {
+                if (order[i] >= 0) {
+                    present[order[i]] = false;
+                }
+            }
+            size = 0;
+        }
+
+        boolean contains(int id) {
+            return id < present.length && present[id];
+        }
+
+        void put(int id, int generation, ItemType type, ConvexPolygon shape, double[] source, int length) {
+            if (id >= present.length) {
+                int grown = Math.max(id + 1, present.length * 2);
+                generations = Arrays.copyOf(generations, grown);
+                types = Arrays.copyOf(types, grown);
+                shapes = Arrays.copyOf(shapes, grown);
+                values = Arrays.copyOf(values, grown);
+                seen = Arrays.copyOf(seen, grown);
+                present = Arrays.copyOf(present, grown);
+                positions = Arrays.copyOf(positions, grown);
+            }
+            if (size == order.length) {
+                order = Arrays.copyOf(order, size * 2);
+            }
+            generations[id] = generation;
+            types[id] = type;
+            shapes[id] = shape;
+            values[id] = Arrays.copyOf(source, length);
+            seen[id] = stamp;
+            present[id] = true;
+            positions[id] = size;
+            order[size++] = id;
+        }
+
+        /**
+         * Removes an item, leaving a hole in the order that the next compaction closes.
+         */
+        void remove(int id) {
+            present[id] = false;
+            values[id] = null;
+            shapes[id] = null;
+            order[positions[id]] = -1;
+        }
+
+        /**
+         * Closes the holes left in the order by removed items.
+         */
+        void compact() {
+            int write = 0;
+            for (int i = 0; i < size; i++) {
+                int id = order[i];
+                if (id >= 0) {
+                    positions[id] = write;
+                    order[write++] = id;
+                }
+            }
+            size = write;
+        }
+
+        /**
+         * Removes every item not seen in the current pass and writes their count and ids,
+         * followed by the ids of replaced items, which have already been removed.
+         * Compacts the order in the same pass.
+         */
+        void removeUnseen(StateStreamEncoder.ByteSink sink, int[] replacedIds, int replacedCount) {
+            int removed = replacedCount;
+            for (int i = 0; i < size; i++) {
+                if (order[i] >= 0 && seen[order[i]] != stamp) {
+                    removed++;
+                }
+            }
+            sink.writeVarInt(removed);
+            int write = 0;
+            for (int i = 0; i < size; i++) {
+                int id = order[i];
+                if (id < 0) {
+                    continue; // Replaced item, written below
+                }
+                if (seen[id] != stamp) {
+                    sink.writeVarInt(id);
+                    present[id] = false;
+                    values[id] = null;
+                    shapes[id] = null;
+                } else {
+                    positions[id] = write;
+                    order[write++] = id;
+                }
+            }
+            size = write;
+            for (int i = 0; i < replacedCount; i++) {
+                sink.writeVarInt(replacedIds[i]);
+            }
+        }
+
+        ArenaItem createItem(int id) {
+            double[] state = values[id];
+            ArenaItem item = shapes[id] != null
+                    ? new Obstacle(state[0], state[1], state[2], shapes[id])
+                    : types[id].newInstance(state[0], state[1], state[2]);
+            item.loadState(state, 0);
+            item.id = id;
+            item.generation = generations[id];
+            return item;
+        }
+    }
+}
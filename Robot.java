@@ -3,13 +3,36 @@ package com.example.robotgui;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+
 /**
  * Abstract base class for all robot types with wheels.
  * Provides shared functionality for movement, obstacle avoidance, and boundary handling.
+ * <p>
+ * The heading is kept as a unit direction vector, which is what movement, steering and drawing need,
+ * so the steady-state tick does not call any trigonometric function. The heading as an angle is only
+ * computed when someone asks for it.
+ * <p>
+ * Each robot keeps a Verlet neighbour list: the items within its sensing reach plus the arena's skin margin.
+ * The arena rebuilds the lists only once items have moved far enough that one could have crossed the skin,
+ * so a sensor query costs the size of the list rather than a search of the whole arena.
  */
 public abstract class Robot extends ArenaItem {
-    protected double angle; // Movement direction in radians
+    protected static final double QUARTER_TURN_COS = 0; // cos(90 degrees)
+    protected static final double QUARTER_TURN_SIN = 1; // sin(90 degrees)
+    private static final Comparator<ArenaItem> ARENA_ORDER = Comparator.comparingLong(item -> item.sequence);
+
+    private double angle; // Movement direction in radians, only valid while angleValid is set
+    private boolean angleValid; // False when the direction vector has changed since angle was computed
+    protected double dirX, dirY; // Movement direction as a unit vector
     protected double speed; // Movement speed
+    protected final ArrayList<ArenaItem> nearby = new ArrayList<>(); // Reused result list of neighbourhood queries
+    protected final Contact contact = new Contact(); // Reused result of movement sweeps
+    private final ArrayList<ArenaItem> neighbours = new ArrayList<>(); // Items within sensing reach plus the skin
+    private long neighbourEpoch = -1; // Arena neighbour epoch the list was built in
+    private double neighbourReach; // Sensing reach the list was built for, which it keeps covering until rebuilt
+    private final double[] waypoint = new double[2]; // Reused direction read from the navigator
 
     /**
      * Constructs a robot with the specified position, size, direction, and speed.
@@ -22,16 +45,212 @@ public abstract class Robot extends ArenaItem {
      */
     public Robot(double x, double y, double radius, double angle, double speed) {
         super(x, y, radius);
+        setAngle(angle);
+        this.speed = speed;
+    }
+
+    /**
+     * Returns the current movement direction of the robot.
+     *
+     * @return The heading in radians.
+     */
+    public double getAngle() {
+        if (!angleValid) {
+            angle = FastTrig.atan2(dirY, dirX); // Only computed when the angle itself is needed
+            angleValid = true;
+        }
+        return angle;
+    }
+
+    /**
+     * Sets the movement direction of the robot.
+     *
+     * @param angle The new heading in radians.
+     */
+    public void setAngle(double angle) {
         this.angle = angle;
+        this.angleValid = true;
+        dirX = FastTrig.cos(angle);
+        dirY = FastTrig.sin(angle);
+    }
+
+    /**
+     * Turns the robot by a fixed angle given as its cosine and sine, so constant turns need no trigonometry.
+     *
+     * @param cos The cosine of the turn angle.
+     * @param sin The sine of the turn angle (positive turns the same way as increasing the angle).
+     */
+    protected void turn(double cos, double sin) {
+        double newX = dirX * cos - dirY * sin;
+        double newY = dirX * sin + dirY * cos;
+        double length = Math.sqrt(newX * newX + newY * newY); // Renormalise so rounding errors do not build up
+        dirX = newX / length;
+        dirY = newY / length;
+        angleValid = false;
+    }
+
+    /**
+     * Points the robot along a vector, for example towards a target.
+     * Leaves the heading unchanged if the vector has zero length.
+     *
+     * @param dx The x component of the desired direction.
+     * @param dy The y component of the desired direction.
+     */
+    protected void steerToward(double dx, double dy) {
+        double length = Math.sqrt(dx * dx + dy * dy);
+        if (length > 0) {
+            dirX = dx / length;
+            dirY = dy / length;
+            angleValid = false;
+        }
+    }
+
+    /**
+     * Steers toward a target: straight at it when nothing blocks the way, otherwise along a path around the
+     * obstacles from the arena's {@link Navigator}. Falls back to steering straight at a target no path reaches.
+     *
+     * @param arena   The arena containing the robot.
+     * @param targetX The x-coordinate of the target.
+     * @param targetY The y-coordinate of the target.
+     */
+    protected void navigateToward(RobotArena arena, double targetX, double targetY) {
+        Navigator navigator = arena.getNavigator();
+        if (!navigator.hasLineOfSight(x, y, targetX, targetY) && navigator.steer(x, y, targetX, targetY, waypoint)) {
+            steerToward(waypoint[0], waypoint[1]);
+        } else {
+            steerToward(targetX - x, targetY - y);
+        }
+    }
+
+    /**
+     * Removes the robot from the arena if it has run out of energy, as its own update does first thing.
+     * Robots without energy never run out.
+     *
+     * @param arena The arena containing the robot.
+     * @return True if the robot died and was removed.
+     */
+    protected boolean removeIfExhausted(RobotArena arena) {
+        return false;
+    }
+
+    /**
+     * Spends the energy a tick of activity costs. Robots without energy spend none.
+     *
+     * @param arena  The arena containing the robot.
+     * @param turned Whether the robot turned away from something this tick.
+     */
+    protected void spendEnergy(RobotArena arena, boolean turned) {
+        // No energy to spend
+    }
+
+    /**
+     * Regains the energy a meal of food gives. Robots without energy gain none.
+     */
+    protected void gainMealEnergy() {
+        // No energy to gain
+    }
+
+    /**
+     * Mirrors the heading horizontally, as when bouncing off a left or right wall.
+     */
+    protected void reflectHorizontally() {
+        dirX = -dirX;
+        angleValid = false;
+    }
+
+    /**
+     * Mirrors the heading vertically, as when bouncing off a top or bottom wall.
+     */
+    protected void reflectVertically() {
+        dirY = -dirY;
+        angleValid = false;
+    }
+
+    /**
+     * Returns the movement speed.
+     *
+     * @return The distance moved per unit of simulated time.
+     */
+    public double getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Sets the movement speed.
+     *
+     * @param speed The distance moved per unit of simulated time.
+     */
+    public void setSpeed(double speed) {
         this.speed = speed;
     }
 
     /**
-     * Moves the robot in the current direction based on its speed and angle.
+     * Returns the number of state values, including the heading and speed.
+     *
+     * @return The number of state values.
+     */
+    @Override
+    public int getStateSize() {
+        return super.getStateSize() + 3;
+    }
+
+    /**
+     * Writes the position, heading and speed into an array.
+     *
+     * @param state  The array to write to.
+     * @param offset The index of the first value.
+     */
+    @Override
+    public void saveState(double[] state, int offset) {
+        super.saveState(state, offset);
+        int i = offset + super.getStateSize();
+        state[i] = dirX;
+        state[i + 1] = dirY;
+        state[i + 2] = speed;
+    }
+
+    /**
+     * Restores the position, heading and speed from an array.
+     *
+     * @param state  The array to read from.
+     * @param offset The index of the first value.
+     */
+    @Override
+    public void loadState(double[] state, int offset) {
+        super.loadState(state, offset);
+        int i = offset + super.getStateSize();
+        dirX = state[i];
+        dirY = state[i + 1];
+        speed = state[i + 2];
+        angleValid = false;
+    }
+
+    /**
+     * Moves the robot in the current direction for one timestep of the arena.
+     * The movement is swept against walls and obstacles: if the robot would touch one on the way, it stops
+     * at the point of contact and its heading is reflected off the surface, so fast robots and large
+     * timesteps cannot tunnel through thin obstacles.
+     *
+     * @param arena The RobotArena the robot moves in.
      */
-    protected void move() {
-        x += speed * Math.cos(angle); // Update x-coordinate
-        y += speed * Math.sin(angle); // Update y-coordinate
+    protected void move(RobotArena arena) {
+        double step = speed * arena.getTimeStep();
+        double dx = step * dirX;
+        double dy = step * dirY;
+        if (arena.sweep(x, y, radius, dx, dy, contact)) {
+            double t = Math.max(0, contact.time - 1e-6); // Stop just short of the surface
+            x += t * dx;
+            y += t * dy;
+            double along = dirX * contact.normalX + dirY * contact.normalY;
+            if (along < 0) {
+                dirX -= 2 * along * contact.normalX; // Bounce off the surface
+                dirY -= 2 * along * contact.normalY;
+                angleValid = false;
+            }
+        } else {
+            x += dx; // Update x-coordinate
+            y += dy; // Update y-coordinate
+        }
     }
 
     /**
@@ -42,11 +261,11 @@ public abstract class Robot extends ArenaItem {
     protected void stayInArenaBounds(RobotArena arena) {
         // Reflect angle if the robot hits the left or right boundary
         if (x - radius < 0 || x + radius > arena.getWidth()) {
-            angle = Math.PI - angle;
+            reflectHorizontally();
         }
         // Reflect angle if the robot hits the top or bottom boundary
         if (y - radius < 0 || y + radius > arena.getHeight()) {
-            angle = -angle;
+            reflectVertically();
         }
     }
 
@@ -56,17 +275,85 @@ public abstract class Robot extends ArenaItem {
      * @param arena The RobotArena for obstacle detection.
      */
     protected void avoidObstacles(RobotArena arena) {
-        for (ArenaItem item : arena.getItems()) {
+        double reach = this.radius + 10;
+        collectNearby(arena, x - reach, y - reach, x + reach, y + reach); // Only obstacles that can be close
+        for (ArenaItem item : nearby) {
             if (item instanceof Obstacle) {
-                double dx = item.x - this.x;
-                double dy = item.y - this.y;
-                double distance = Math.sqrt(dx * dx + dy * dy);
+                // Distance from the robot's centre to the obstacle's exact outline
+                double distance = ((Obstacle) item).distanceTo(this.x, this.y);
 
                 // If close to an obstacle, adjust angle to avoid collision
-                if (distance < this.radius + item.radius + 10) {
-                    angle += Math.PI / 2; // Turn 90 degrees to avoid the obstacle
+                if (distance < this.radius + 10) {
+                    turn(QUARTER_TURN_COS, QUARTER_TURN_SIN); // Turn 90 degrees to avoid the obstacle
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns how far from its centre the robot senses: every box passed to
+     * {@link #collectNearby(RobotArena, double, double, double, double)} must lie within this distance.
+     *
+     * @return The sensing reach. The default covers obstacle avoidance and contact with other robots.
+     */
+    protected double getSensingReach() {
+        return radius + 10;
+    }
+
+    /**
+     * Rebuilds the neighbour list from the arena's indexes. Called by the arena when the lists may be out of date.
+     *
+     * @param arena The RobotArena to search.
+     * @param skin  The margin added to the sensing reach.
+     * @param epoch The arena's neighbour epoch the list is valid for.
+     */
+    void rebuildNeighbours(RobotArena arena, double skin, long epoch) {
+        neighbourReach = getSensingReach();
+        double reach = neighbourReach + skin;
+        neighbours.clear();
+        arena.queryItems(x - reach, y - reach, x + reach, y + reach, neighbours);
+        neighbours.remove(this);
+        neighbours.sort(ARENA_ORDER); // Queries report items in arena order, whichever way they are answered
+        neighbourEpoch = epoch;
+    }
+
+    /**
+     * Fills {@link #nearby} with the other items, static or dynamic, whose bounding boxes overlap a box,
+     * in the order they appear in the arena. Served from the neighbour list; a box beyond the sensing reach the list
+     * was built for, which a setter may since have widened, or a list from an older epoch, falls back to searching
+     * the arena.
+     *
+     * @param arena The RobotArena to search.
+     * @param minX  Left edge of the box.
+     * @param minY  Top edge of the box.
+     * @param maxX  Right edge of the box.
+     * @param maxY  Bottom edge of the box.
+     */
+    protected void collectNearby(RobotArena arena, double minX, double minY, double maxX, double maxY) {
+        nearby.clear();
+        double reach = neighbourReach;
+        boolean current = neighbourEpoch == arena.getNeighbourEpoch();
+        boolean covered = current && minX >= x - reach && maxX <= x + reach && minY >= y - reach && maxY <= y + reach;
+        if (!covered) {
+            if (current && getSensingReach() > reach) {
+                arena.invalidateNeighbourLists(); // The reach was widened; list the new reach from the next tick
+            }
+            arena.queryStatic(minX, minY, maxX, maxY, nearby);
+            for (ArenaItem item : arena.getDynamicItems()) {
+                if (item != this && item.getMinX() <= maxX && item.getMaxX() >= minX
+                        && item.getMinY() <= maxY && item.getMaxY() >= minY) {
+                    nearby.add(item);
                 }
             }
+            nearby.sort(ARENA_ORDER);
+            return;
+        }
+        for (int i = 0; i < neighbours.size(); i++) {
+            ArenaItem item = neighbours.get(i);
+            if (item.alive && item.getMinX() <= maxX && item.getMaxX() >= minX
+                    && item.getMinY() <= maxY && item.getMaxY() >= minY) {
+                nearby.add(item);
+            }
         }
     }
 
@@ -94,13 +381,13 @@ public abstract class Robot extends ArenaItem {
         double wheelOffset = radius * 0.8; // Offset of the wheels from the center
 
         gc.setFill(Color.BLACK);
-        // Left wheel
-        gc.fillOval(x - wheelOffset * Math.cos(angle + Math.PI / 2) - wheelRadius,
-                y - wheelOffset * Math.sin(angle + Math.PI / 2) - wheelRadius,
+        // Left wheel, offset along the heading rotated by +90 degrees (-dirY, dirX)
+        gc.fillOval(x + wheelOffset * dirY - wheelRadius,
+                y - wheelOffset * dirX - wheelRadius,
                 wheelRadius * 2, wheelRadius * 2);
-        // Right wheel
-        gc.fillOval(x - wheelOffset * Math.cos(angle - Math.PI / 2) - wheelRadius,
-                y - wheelOffset * Math.sin(angle - Math.PI / 2) - wheelRadius,
+        // Right wheel, offset along the heading rotated by -90 degrees (dirY, -dirX)
+        gc.fillOval(x - wheelOffset * dirY - wheelRadius,
+                y + wheelOffset * dirX - wheelRadius,
                 wheelRadius * 2, wheelRadius * 2);
     }
 }
@@ -7,17 +7,101 @@ import javafx.scene.paint.Color;
 import javafx.util.Duration;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
  * Manages all objects in the arena, including robots, food, and obstacles.
  * Provides methods for adding, removing, updating, and drawing items, as well as managing arena dimensions.
+ * <p>
+ * Items are partitioned into dynamic items (robots), which are updated every tick, and static items
+ * (obstacles and food), which never update themselves. Static items are indexed in a {@link StaticBvh}
+ * that is rebuilt lazily after they change, so a tick costs in proportion to the number of robots. So that eating
+ * and spawning food in large worlds does not rebuild the index every time, removed items stay in it and are
+ * skipped by queries, and a few added items are scanned linearly, until either becomes worth a rebuild.
+ * <p>
+ * Every item occupies a numbered slot, which is its id. Slots are recycled, so each carries a generation that
+ * is incremented whenever the slot gets a new item; a handle combines the two and stops resolving once its item
+ * has left the arena. Removed items other than obstacles are returned to per-type pools at the end of the tick,
+ * and {@link #obtain(ItemType, double, double, double)} reuses them, so spawning and dying produce no garbage.
+ * <p>
+ * Robots sense through Verlet neighbour lists built with a skin margin. After each tick the arena measures how
+ * far every robot has moved since the lists were built; the lists are rebuilt before the next tick only when
+ * that distance, plus the largest single-tick step, exceeds half the skin, or when items were added or moved
+ * from outside the simulation.
+ * <p>
+ * Foragers find food through a {@link FoodField}, created when first asked for and kept up to date from the
+ * arena's own additions and removals. Robots whose target is hidden behind obstacles follow paths from a
+ * {@link Navigator}, likewise created on first use and told about every obstacle that is added, removed or moved.
+ * <p>
+ * Scans that still need every item of a type, such as a predator looking for the nearest prey, read the
+ * type's {@link PackedItems}: coordinate arrays kept current as items update, scanned by {@link DistanceKernels}.
+ * <p>
+ * The rays of all {@link LidarRobot}s are cast as one batch by a {@link RayCaster} at the start of each tick,
+ * before any robot moves.
+ * <p>
+ * With {@link #setReferenceQueries(boolean)}, all of these accelerations give way to brute force, so a
+ * {@link DifferentialCheck} can run the same world both ways and compare the results.
+ * <p>
+ * Changes from outside the simulation, such as the UI adding, moving or deleting items, are submitted as
+ * {@link ArenaCommand}s from any thread and applied in one batch before the next update, or by
+ * {@link #applyCommands()} while the simulation is paused, so they never interleave with a tick.
+ * <p>
+ * Removing an item only marks it dead; the item lists drop their dead entries, in one pass that keeps arena order,
+ * the next time they are read. A tick in which many robots eat therefore scans the list of all items at most once.
  */
 public class RobotArena {
     private ArrayList<ArenaItem> items; // List of all items in the arena
+    private final ArrayList<ArenaItem> dynamicItems = new ArrayList<>(); // Items updated every tick
+    private final ArrayList<ArenaItem> staticItems = new ArrayList<>(); // Items that never move by themselves
+    private final ArrayList<Food> food = new ArrayList<>(); // Food items, a subset of staticItems
+    private final ArrayList<Obstacle> obstacles = new ArrayList<>(); // Obstacles, a subset of staticItems
+    private int removedItems, removedDynamic, removedStatic; // Removed items each list still holds until compacted
+    private int removedFood, removedObstacles;
+    private StaticBvh staticIndex; // Index of staticItems, null when it needs rebuilding
+    private final ArrayList<ArenaItem> unindexedStatic = new ArrayList<>(); // Static items added since the build
+    private final ArrayList<ArenaItem> indexedReleased = new ArrayList<>(); // Removed items the index still holds
+    private static final int MAX_UNINDEXED = 64; // Static items scanned linearly before the index is rebuilt
+    private StaticBvh dynamicIndex; // Index of dynamicItems as they are between updates, null when stale
+    private final ArrayList<ArenaItem> pickCandidates = new ArrayList<>(); // Reused result list of picking queries
+    public static final double DEFAULT_NEIGHBOUR_SKIN = 24; // Default margin of the robots' neighbour lists
+    private double neighbourSkin = DEFAULT_NEIGHBOUR_SKIN; // Margin added to sensing reach in neighbour lists
+    private long neighbourEpoch; // Incremented whenever the neighbour lists are rebuilt
+    private boolean neighboursStale = true; // Set when the lists must be rebuilt before the next tick
+    private boolean neighbourListsEnabled = true; // False to make robots search the arena for every query
+    private boolean referenceQueries; // True to answer every query by brute force, for differential checks
+    private long nextSequence; // Sequence number given to the next inserted item
+    private double[] referenceX = new double[64], referenceY = new double[64]; // Positions at the last rebuild, by id
+    private double[] referenceRadius = new double[64]; // Radii at the last rebuild, by id
+    private double[] previousX = new double[64], previousY = new double[64]; // Positions after the previous tick, by id
     private double width, height; // Dimensions of the arena
     private Set<Food> targetedFood; // Set to track food items that are being targeted
+    private ArenaItem[] slots = new ArenaItem[64]; // Items by id
+    private int[] slotGenerations = new int[64]; // Highest generation handed out in each slot
+    private final BitSet usedSlots = new BitSet(); // Slots currently holding an item
+    private int freeSlotHint; // No slot below this is free, so searches for the lowest free slot start here
+    private final ArrayList<ArrayList<ArenaItem>> pools = new ArrayList<>(); // Reusable items, by ItemType ordinal
+    private final double[][] initialStates = new double[ItemType.values().length][]; // State of a new item, by type
+    private final ArrayList<ArenaItem> released = new ArrayList<>(); // Removed items waiting for the tick boundary
+    private long tick; // Number of completed updates
+    private ArenaItem[] updateBuffer = new ArenaItem[16]; // Reused copy of the items iterated during an update
+    private EventRing eventRing = new EventRing(4096); // Events published while updating
+    private double timeStep = 1; // Simulated time advanced per update, in units of the original tick
+    private final ArrayList<ArenaItem> sweepCandidates = new ArrayList<>(); // Reused result list of sweep queries
+    private static final Comparator<ArenaItem> ARENA_ORDER = Comparator.comparingLong(item -> item.sequence);
+    private FoodField foodField; // Distances to food for foragers, created on first use
+    private Navigator navigator; // Paths around obstacles, created on first use
+    private final PackedItems[] packed = new PackedItems[ItemType.values().length]; // By type, created on first use
+    private final int[] typeCounts = new int[ItemType.values().length]; // Number of items of each type
+    private final CommandQueue commands = new CommandQueue(); // Changes from outside, applied between ticks
+    private RobotController robotController; // Moves robots in place of their own behaviour, or null
+    private final RayCaster rayCaster = new RayCaster(); // Casts the lidar robots' rays
+    private final ArrayList<LidarRobot> lidarBatch = new ArrayList<>(); // Reused list of the robots scanned
+    private final ArrayList<Runnable> beforeChange = new ArrayList<>(); // Run once before the items next change
 
     /**
      * Constructs a RobotArena with the specified width and height.
@@ -30,6 +114,58 @@ public class RobotArena {
         this.height = height;
         items = new ArrayList<>();
         targetedFood = new HashSet<>();
+        for (int i = 0; i < ItemType.values().length; i++) {
+            pools.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Returns an item of the given type in its initial state, reusing a previously removed one when possible.
+     * The item is not added to the arena.
+     *
+     * @param type   The type of item.
+     * @param x      The x-coordinate of the item.
+     * @param y      The y-coordinate of the item.
+     * @param radius The radius of the item.
+     * @return An item equal to {@code type.newInstance(x, y, radius)}.
+     */
+    public ArenaItem obtain(ItemType type, double x, double y, double radius) {
+        ArrayList<ArenaItem> pool = pools.get(type.ordinal());
+        if (pool.isEmpty()) {
+            return type.newInstance(x, y, radius);
+        }
+        ArenaItem item = pool.remove(pool.size() - 1);
+        double[] initial = initialStates[type.ordinal()];
+        if (initial == null) {
+            ArenaItem template = type.newInstance(0, 0, 0);
+            initial = new double[template.getStateSize()];
+            template.saveState(initial, 0);
+            initialStates[type.ordinal()] = initial;
+        }
+        item.loadState(initial, 0); // Back to the state of a new item
+        item.x = x;
+        item.y = y;
+        item.radius = radius;
+        return item;
+    }
+
+    /**
+     * Resolves a handle to the item it was created for.
+     *
+     * @param handle A handle from {@link ArenaItem#getHandle()}, or {@link ArenaItem#NO_HANDLE}.
+     * @return The item, or null if it has left the arena since the handle was taken.
+     */
+    public ArenaItem resolve(long handle) {
+        if (handle == ArenaItem.NO_HANDLE) {
+            return null;
+        }
+        int slot = (int) handle;
+        int generation = (int) (handle >>> 32);
+        if (slot < 0 || slot >= slots.length) {
+            return null;
+        }
+        ArenaItem item = slots[slot];
+        return item != null && item.generation == generation ? item : null;
     }
 
     /**
@@ -38,28 +174,590 @@ public class RobotArena {
      * @param item The item to be added.
      */
     public void addItem(ArenaItem item) {
+        beforeChange();
+        int slot = usedSlots.nextClearBit(freeSlotHint); // Lowest free slot, so slot choice depends only on occupancy
+        freeSlotHint = slot + 1;
+        ensureSlot(slot);
+        item.id = slot;
+        item.generation = ++slotGenerations[slot]; // Handles to earlier items of this slot no longer resolve
+        insert(item);
+    }
+
+    private void ensureSlot(int slot) {
+        if (slot >= slots.length) {
+            int size = Math.max(slot + 1, slots.length * 2);
+            slots = Arrays.copyOf(slots, size);
+            slotGenerations = Arrays.copyOf(slotGenerations, size);
+            referenceX = Arrays.copyOf(referenceX, size);
+            referenceY = Arrays.copyOf(referenceY, size);
+            referenceRadius = Arrays.copyOf(referenceRadius, size);
+            previousX = Arrays.copyOf(previousX, size);
+            previousY = Arrays.copyOf(previousY, size);
+        }
+    }
+
+    /**
+     * Puts an item that already has its identifier into the item lists.
+     *
+     * @param item The item to insert.
+     */
+    private void insert(ArenaItem item) {
+        if (item.tombstone) {
+            compactLists(); // The lists may still hold the item from before its removal
+            item.tombstone = false;
+        }
+        item.alive = true;
+        item.sequence = nextSequence++;
+        slots[item.id] = item;
+        usedSlots.set(item.id);
+        neighboursStale = true; // The new item must appear in neighbour lists
         items.add(item);
+        typeCounts[item.getType().ordinal()]++;
+        PackedItems typePacked = packed[item.getType().ordinal()];
+        if (typePacked != null && !typePacked.stale) {
+            typePacked.add(item); // It has the highest sequence, so appending keeps arena order
+        }
+        if (item.isStatic()) {
+            staticItems.add(item);
+            if (item instanceof Food) food.add((Food) item);
+            if (item instanceof Obstacle) obstacles.add((Obstacle) item);
+            if (staticIndex != null && unindexedStatic.size() < MAX_UNINDEXED) {
+                unindexedStatic.add(item); // Scanned linearly until enough accumulate to be worth a rebuild
+            } else {
+                dropStaticIndex();
+            }
+            if (foodField != null) {
+                if (item instanceof Food) {
+                    foodField.foodAdded((Food) item);
+                } else {
+                    foodField.invalidate();
+                }
+            }
+            if (navigator != null && item instanceof Obstacle) {
+                navigator.obstacleAdded((Obstacle) item);
+            }
+        } else {
+            dynamicItems.add(item);
+            dynamicIndex = null;
+        }
     }
 
     /**
-     * Removes an item from the arena.
+     * Removes an item from the arena. The item lists keep it as a dead entry until they are next read.
      *
      * @param item The item to be removed.
      */
     public void removeItem(ArenaItem item) {
-        items.remove(item); // Remove the item from the list
+        beforeChange();
+        if (item.alive && item.id >= 0 && item.id < slots.length && slots[item.id] == item) {
+            item.alive = false; // Items removed mid-update are skipped for the rest of the tick
+            item.tombstone = true;
+            removedItems++;
+            slots[item.id] = null;
+            usedSlots.clear(item.id);
+            freeSlotHint = Math.min(freeSlotHint, item.id);
+            typeCounts[item.getType().ordinal()]--;
+            boolean indexed = false;
+            if (item.isStatic() && staticIndex != null && !unindexedStatic.remove(item)) {
+                indexed = true; // Queries skip it as dead until the next rebuild drops it
+                if (indexedReleased.size() >= MAX_UNINDEXED && indexedReleased.size() > staticIndex.size() / 4) {
+                    dropStaticIndex(); // Mostly dead entries: cheaper to rebuild
+                    indexed = false;
+                }
+            }
+            if (item.getType() != ItemType.OBSTACLE) {
+                // Pooled once nothing in this tick can still be using it, and once no index holds it, so a reused
+                // item is never found at its old place
+                (indexed ? indexedReleased : released).add(item);
+            }
+            PackedItems typePacked = packed[item.getType().ordinal()];
+            if (typePacked != null && !typePacked.stale) {
+                typePacked.remove(item);
+                if (typePacked.removed > typePacked.size / 2) {
+                    typePacked.stale = true; // Mostly removed entries: cheaper to repack than to keep scanning
+                }
+            }
+            if (item.isStatic()) {
+                removedStatic++;
+                if (item instanceof Food) removedFood++;
+                if (item instanceof Obstacle) removedObstacles++;
+                if (foodField != null) {
+                    if (item instanceof Food) {
+                        foodField.foodRemoved((Food) item);
+                    } else {
+                        foodField.invalidate();
+                    }
+                }
+                if (navigator != null && item instanceof Obstacle) {
+                    navigator.obstacleRemoved((Obstacle) item);
+                }
+            } else {
+                removedDynamic++;
+                dynamicIndex = null;
+            }
+        }
         targetedFood.remove(item); // Also remove it from the targeted food set if applicable
     }
 
+    /**
+     * Replaces every item in the arena with previously saved ones, for example when rewinding.
+     * The items keep the ids and generations they were saved with, so handles taken before the items were saved
+     * resolve to the restored copies.
+     *
+     * @param restoredTick The tick at which the items were saved.
+     * @param restored     The items, in the order they appeared in the arena.
+     */
+    public void restore(long restoredTick, List<? extends ArenaItem> restored) {
+        beforeChange();
+        compactLists(); // Dead entries would otherwise be released twice
+        for (ArenaItem item : items) {
+            item.alive = false;
+            slots[item.id] = null;
+            if (item.getType() != ItemType.OBSTACLE) {
+                released.add(item);
+            }
+        }
+        usedSlots.clear();
+        freeSlotHint = 0;
+        Arrays.fill(typeCounts, 0);
+        items.clear();
+        dynamicItems.clear();
+        staticItems.clear();
+        food.clear();
+        obstacles.clear();
+        targetedFood.clear();
+        dropStaticIndex();
+        dynamicIndex = null;
+        if (foodField != null) {
+            foodField.invalidate();
+        }
+        if (navigator != null) {
+            navigator.invalidate();
+        }
+        for (PackedItems typePacked : packed) {
+            if (typePacked != null) {
+                typePacked.stale = true;
+            }
+        }
+        for (ArenaItem item : restored) {
+            ensureSlot(item.id);
+            // Later items of the slot may have had higher generations; never hand those out again
+            slotGenerations[item.id] = Math.max(slotGenerations[item.id], item.generation);
+            insert(item);
+        }
+        tick = restoredTick;
+        releasePending();
+    }
+
     /**
      * Returns the list of all items in the arena.
      *
      * @return ArrayList of ArenaItem objects.
      */
     public ArrayList<ArenaItem> getItems() {
+        removedItems = compact(items, removedItems);
         return items;
     }
 
+    /**
+     * Returns the items that are updated every tick, i.e. the robots.
+     *
+     * @return ArrayList of dynamic items. Must not be modified directly.
+     */
+    public ArrayList<ArenaItem> getDynamicItems() {
+        removedDynamic = compact(dynamicItems, removedDynamic);
+        return dynamicItems;
+    }
+
+    /**
+     * Returns the number of items of a type in the arena.
+     *
+     * @param type The type of item.
+     * @return The item count.
+     */
+    public int getCount(ItemType type) {
+        return typeCounts[type.ordinal()];
+    }
+
+    /**
+     * Returns the food items in the arena.
+     *
+     * @return ArrayList of Food. Must not be modified directly.
+     */
+    public ArrayList<Food> getFood() {
+        removedFood = compact(food, removedFood);
+        return food;
+    }
+
+    /**
+     * Returns the obstacles in the arena.
+     *
+     * @return ArrayList of Obstacle. Must not be modified directly.
+     */
+    public ArrayList<Obstacle> getObstacles() {
+        removedObstacles = compact(obstacles, removedObstacles);
+        return obstacles;
+    }
+
+    /**
+     * Drops the dead entries of every item list.
+     */
+    private void compactLists() {
+        removedItems = compact(items, removedItems);
+        removedDynamic = compact(dynamicItems, removedDynamic);
+        removedStatic = compact(staticItems, removedStatic);
+        removedFood = compact(food, removedFood);
+        removedObstacles = compact(obstacles, removedObstacles);
+    }
+
+    /**
+     * Drops the removed items from a list if it holds any, keeping the rest in arena order.
+     *
+     * @param list    The list.
+     * @param removed The number of removed items the list holds.
+     * @return The number it holds afterwards: zero.
+     */
+    private static int compact(ArrayList<? extends ArenaItem> list, int removed) {
+        if (removed > 0) {
+            list.removeIf(item -> !item.alive);
+        }
+        return 0;
+    }
+
+    /**
+     * Finds the static items (obstacles and food) whose bounding boxes overlap a box.
+     *
+     * @param minX Left edge of the box.
+     * @param minY Top edge of the box.
+     * @param maxX Right edge of the box.
+     * @param maxY Bottom edge of the box.
+     * @param out  The list receiving the items. It is not cleared first.
+     */
+    public void queryStatic(double minX, double minY, double maxX, double maxY, List<ArenaItem> out) {
+        if (referenceQueries) {
+            addOverlapping(staticItems, minX, minY, maxX, maxY, out);
+            return;
+        }
+        if (staticIndex == null) {
+            removedStatic = compact(staticItems, removedStatic);
+            staticIndex = new StaticBvh(staticItems); // Rebuild only after static items changed
+        }
+        int first = out.size();
+        staticIndex.query(minX, minY, maxX, maxY, out);
+        if (!indexedReleased.isEmpty()) {
+            // Drop entries of items removed since the build
+            int kept = first;
+            for (int i = first; i < out.size(); i++) {
+                ArenaItem item = out.get(i);
+                if (item.alive) {
+                    out.set(kept++, item);
+                }
+            }
+            out.subList(kept, out.size()).clear();
+        }
+        for (int i = 0; i < unindexedStatic.size(); i++) {
+            ArenaItem item = unindexedStatic.get(i);
+            if (item.getMinX() <= maxX && item.getMaxX() >= minX && item.getMinY() <= maxY && item.getMaxY() >= minY) {
+                out.add(item);
+            }
+        }
+    }
+
+    /**
+     * Discards the static index so the next query rebuilds it. Items kept out of the pools because the index
+     * still held them become available at the next tick boundary.
+     */
+    private void dropStaticIndex() {
+        staticIndex = null;
+        unindexedStatic.clear();
+        released.addAll(indexedReleased);
+        indexedReleased.clear();
+    }
+
+    /**
+     * Tells the arena that an item was moved or resized from outside the simulation, for example by dragging.
+     * Static items are indexed, so their index must be rebuilt.
+     *
+     * @param item The item that changed.
+     */
+    public void itemMoved(ArenaItem item) {
+        beforeChange(); // Late for the item itself, which was already moved, but in time for every other one
+        if (item.isStatic()) {
+            dropStaticIndex();
+            if (foodField != null) {
+                foodField.invalidate();
+            }
+            if (navigator != null && item instanceof Obstacle) {
+                navigator.obstacleMoved((Obstacle) item);
+            }
+        } else {
+            dynamicIndex = null;
+        }
+        positionChanged(item);
+        neighboursStale = true;
+    }
+
+    /**
+     * Finds every item, static or dynamic, whose bounding box overlaps a box.
+     * Dynamic items are found through an index of their positions at the time of the first query after they moved.
+     *
+     * @param minX Left edge of the box.
+     * @param minY Top edge of the box.
+     * @param maxX Right edge of the box.
+     * @param maxY Bottom edge of the box.
+     * @param out  The list receiving the items. It is not cleared first.
+     */
+    public void queryItems(double minX, double minY, double maxX, double maxY, List<ArenaItem> out) {
+        queryStatic(minX, minY, maxX, maxY, out);
+        if (referenceQueries) {
+            addOverlapping(dynamicItems, minX, minY, maxX, maxY, out);
+            return;
+        }
+        if (dynamicIndex == null) {
+            removedDynamic = compact(dynamicItems, removedDynamic);
+            dynamicIndex = new StaticBvh(dynamicItems);
+        }
+        dynamicIndex.query(minX, minY, maxX, maxY, out);
+    }
+
+    /**
+     * Adds the live items of a list whose bounding boxes overlap a box, testing every one.
+     */
+    private static void addOverlapping(List<? extends ArenaItem> candidates, double minX, double minY,
+                                       double maxX, double maxY, List<ArenaItem> out) {
+        for (int i = 0; i < candidates.size(); i++) {
+            ArenaItem item = candidates.get(i);
+            if (item.alive && item.getMinX() <= maxX && item.getMaxX() >= minX
+                    && item.getMinY() <= maxY && item.getMaxY() >= minY) {
+                out.add(item);
+            }
+        }
+    }
+
+    /**
+     * Returns the field of distances to the nearest food, creating it on first use.
+     *
+     * @return The food field.
+     */
+    public FoodField getFoodField() {
+        if (foodField == null) {
+            foodField = new FoodField(this);
+        }
+        return foodField;
+    }
+
+    /**
+     * Returns the navigator that plans paths around obstacles, creating it on first use.
+     *
+     * @return The navigator.
+     */
+    public Navigator getNavigator() {
+        if (navigator == null) {
+            navigator = new Navigator(this);
+        }
+        return navigator;
+    }
+
+    /**
+     * Returns the packed coordinates of every item of a type, in arena order, building them on first use.
+     * Removed items stay in place with infinite coordinates until more than half the entries are removed ones,
+     * when the items are packed afresh.
+     *
+     * @param type The type of item.
+     * @return The packed items. Must not be modified.
+     */
+    public PackedItems getPacked(ItemType type) {
+        PackedItems typePacked = packed[type.ordinal()];
+        if (typePacked == null) {
+            typePacked = new PackedItems();
+            packed[type.ordinal()] = typePacked;
+        }
+        if (typePacked.stale || referenceQueries) { // The reference packs the items afresh for every scan
+            typePacked.clear();
+            removedItems = compact(items, removedItems);
+            for (ArenaItem item : items) {
+                if (item.getType() == type) {
+                    typePacked.add(item);
+                }
+            }
+            typePacked.stale = false;
+        }
+        return typePacked;
+    }
+
+    /**
+     * Updates the packed coordinates of an item that was moved or resized by another item's update, such as a
+     * predator pushed aside by another. Items' own updates are picked up by the arena.
+     *
+     * @param item The item that changed.
+     */
+    public void positionChanged(ArenaItem item) {
+        PackedItems typePacked = packed[item.getType().ordinal()];
+        if (typePacked != null && !typePacked.stale && item.alive) {
+            typePacked.refresh(item);
+        }
+    }
+
+    /**
+     * Returns the current neighbour list epoch. Robot lists built in an older epoch are out of date.
+     *
+     * @return The neighbour epoch.
+     */
+    public long getNeighbourEpoch() {
+        return neighbourEpoch;
+    }
+
+    /**
+     * Returns the margin added to each robot's sensing reach when building its neighbour list.
+     *
+     * @return The skin in pixels.
+     */
+    public double getNeighbourSkin() {
+        return neighbourSkin;
+    }
+
+    /**
+     * Sets the margin added to each robot's sensing reach when building its neighbour list.
+     * A larger skin means longer lists that need rebuilding less often.
+     *
+     * @param neighbourSkin The skin in pixels.
+     */
+    public void setNeighbourSkin(double neighbourSkin) {
+        this.neighbourSkin = neighbourSkin;
+        neighboursStale = true;
+    }
+
+    /**
+     * Makes the neighbour lists be rebuilt before the next tick, for example because a robot's sensing reach grew
+     * beyond the one its list was built for.
+     */
+    void invalidateNeighbourLists() {
+        neighboursStale = true;
+    }
+
+    /**
+     * Returns whether robots sense through neighbour lists.
+     *
+     * @return True if neighbour lists are used.
+     */
+    public boolean isNeighbourListsEnabled() {
+        return neighbourListsEnabled;
+    }
+
+    /**
+     * Turns the neighbour lists on or off. Without them every sensor query searches the arena's indexes;
+     * the results, and so the simulation, are the same either way.
+     *
+     * @param enabled True to use neighbour lists.
+     */
+    public void setNeighbourListsEnabled(boolean enabled) {
+        neighbourListsEnabled = enabled;
+        neighbourEpoch++; // Existing lists are no longer used
+        neighboursStale = true;
+    }
+
+    /**
+     * Returns whether queries are answered by brute force.
+     *
+     * @return True in reference mode.
+     */
+    public boolean isReferenceQueries() {
+        return referenceQueries;
+    }
+
+    /**
+     * Turns reference mode on or off. In reference mode every query is answered by brute force: without
+     * neighbour lists or indexes, with packed items gathered afresh for every scan, with each lidar ray cast alone
+     * against every item, and with the food field rebuilt every tick. The simulation must come out exactly the same
+     * as with the accelerations, only far slower. SIMD kernels are switched separately, by
+     * {@link DistanceKernels#setVectorEnabled(boolean)}.
+     *
+     * @param reference True to answer queries by brute force.
+     */
+    public void setReferenceQueries(boolean reference) {
+        referenceQueries = reference;
+        setNeighbourListsEnabled(!reference);
+    }
+
+    /**
+     * Rebuilds every robot's neighbour list and remembers the positions they were built for.
+     */
+    private void rebuildNeighbourLists() {
+        neighbourEpoch++;
+        dynamicIndex = null; // Positions may have changed without the index noticing
+        removedDynamic = compact(dynamicItems, removedDynamic);
+        for (int i = 0; i < dynamicItems.size(); i++) {
+            ArenaItem item = dynamicItems.get(i);
+            referenceX[item.id] = item.x;
+            referenceY[item.id] = item.y;
+            referenceRadius[item.id] = item.radius;
+            previousX[item.id] = item.x;
+            previousY[item.id] = item.y;
+            if (item instanceof Robot) {
+                ((Robot) item).rebuildNeighbours(this, neighbourSkin, neighbourEpoch);
+            }
+        }
+        neighboursStale = false;
+    }
+
+    /**
+     * Marks the neighbour lists stale if an item may cross the skin during the next tick:
+     * when the largest distance moved since the rebuild, plus the largest step of the last tick
+     * as an estimate of the next one, exceeds half the skin. Growth in radius counts as movement.
+     */
+    private void checkNeighbourLists() {
+        double maxDisplacement = 0;
+        double maxStep = 0;
+        removedDynamic = compact(dynamicItems, removedDynamic);
+        for (int i = 0; i < dynamicItems.size(); i++) {
+            ArenaItem item = dynamicItems.get(i);
+            int id = item.id;
+            double dx = item.x - referenceX[id];
+            double dy = item.y - referenceY[id];
+            double displacement = Math.sqrt(dx * dx + dy * dy) + Math.abs(item.radius - referenceRadius[id]);
+            double stepX = item.x - previousX[id];
+            double stepY = item.y - previousY[id];
+            double step = Math.sqrt(stepX * stepX + stepY * stepY);
+            maxDisplacement = Math.max(maxDisplacement, displacement);
+            maxStep = Math.max(maxStep, step);
+            previousX[id] = item.x;
+            previousY[id] = item.y;
+        }
+        if (maxDisplacement + maxStep > neighbourSkin / 2) {
+            neighboursStale = true;
+        }
+    }
+
+    /**
+     * Finds the item under a point, for example for selecting with the mouse.
+     * Served by the static index and an index of the robots that is built on demand and kept until the next
+     * update, so repeated picks while the simulation is paused do not scan every item.
+     *
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The item whose centre is closest to the point among those whose radius covers it, or null.
+     */
+    public ArenaItem pick(double x, double y) {
+        pickCandidates.clear();
+        queryStatic(x, y, x, y, pickCandidates);
+        if (dynamicIndex == null) {
+            removedDynamic = compact(dynamicItems, removedDynamic);
+            dynamicIndex = new StaticBvh(dynamicItems);
+        }
+        dynamicIndex.query(x, y, x, y, pickCandidates);
+
+        ArenaItem picked = null;
+        double minDistance = Double.MAX_VALUE;
+        for (ArenaItem item : pickCandidates) {
+            double distance = Math.sqrt((item.x - x) * (item.x - x) + (item.y - y) * (item.y - y));
+            if (distance < item.radius && distance < minDistance) {
+                picked = item;
+                minDistance = distance;
+            }
+        }
+        return picked;
+    }
+
     /**
      * Returns the width of the arena.
      *
@@ -78,6 +776,110 @@ public class RobotArena {
         return height;
     }
 
+    /**
+     * Returns the number of updates performed so far.
+     *
+     * @return The current tick count.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Returns the simulated time advanced by one update. Movement, energy and health changes scale with it.
+     *
+     * @return The timestep, 1 for the original tick length.
+     */
+    public double getTimeStep() {
+        return timeStep;
+    }
+
+    /**
+     * Sets the simulated time advanced by one update. Larger steps need fewer updates per simulated second;
+     * robots sweep their movement against walls and obstacles, so they do not pass through them.
+     *
+     * @param timeStep The timestep, 1 for the original tick length.
+     * @throws IllegalArgumentException If the timestep is not positive.
+     */
+    public void setTimeStep(double timeStep) {
+        if (!(timeStep > 0)) {
+            throw new IllegalArgumentException("Timestep must be positive: " + timeStep);
+        }
+        this.timeStep = timeStep;
+    }
+
+    /**
+     * Sweeps a circle along a movement and finds the first wall or obstacle it would touch.
+     * Walls only stop circles that start inside the arena, so a robot dragged out of bounds can move back in.
+     * Of obstacles touched at the same time, such as two walls meeting at a corner, the one added to the arena
+     * first is reported, however the index happens to order them.
+     *
+     * @param x       X-coordinate of the circle's centre at the start of the movement.
+     * @param y       Y-coordinate of the circle's centre at the start of the movement.
+     * @param radius  The radius of the circle.
+     * @param dx      X component of the movement.
+     * @param dy      Y component of the movement.
+     * @param contact Receives the earliest hit; it is cleared first.
+     * @return True if something is hit within the movement.
+     */
+    public boolean sweep(double x, double y, double radius, double dx, double dy, Contact contact) {
+        contact.clear();
+
+        // Walls: the centre must stay within the arena shrunk by the radius
+        if (dx < 0 && x >= radius) contact.offer((radius - x) / dx, 1, 0);
+        if (dx > 0 && x <= width - radius) contact.offer((width - radius - x) / dx, -1, 0);
+        if (dy < 0 && y >= radius) contact.offer((radius - y) / dy, 0, 1);
+        if (dy > 0 && y <= height - radius) contact.offer((height - radius - y) / dy, 0, -1);
+
+        // Obstacles whose bounds the swept circle can reach
+        sweepCandidates.clear();
+        queryStatic(Math.min(x, x + dx) - radius, Math.min(y, y + dy) - radius,
+                Math.max(x, x + dx) + radius, Math.max(y, y + dy) + radius, sweepCandidates);
+        if (sweepCandidates.size() > 1) {
+            sweepCandidates.sort(ARENA_ORDER); // Ties go to the first obstacle offered
+        }
+        for (ArenaItem item : sweepCandidates) {
+            if (item instanceof Obstacle
+                    && ((Obstacle) item).getShape().sweepCircle(x - item.x, y - item.y, radius, dx, dy, contact)) {
+                contact.item = item;
+            }
+        }
+        return contact.isHit();
+    }
+
+    /**
+     * Returns the ring buffer that receives the events of this arena.
+     *
+     * @return The arena's EventRing.
+     */
+    public EventRing getEventRing() {
+        return eventRing;
+    }
+
+    /**
+     * Replaces the ring buffer that receives the events of this arena,
+     * so that consumers can keep reading one ring when the arena is replaced.
+     *
+     * @param eventRing The ring to publish to.
+     */
+    public void setEventRing(EventRing eventRing) {
+        this.eventRing = eventRing;
+    }
+
+    /**
+     * Publishes an event that happened during the current tick. Only called from the thread updating the arena.
+     * The items are published as handles, so consumers can tell them apart from later items in the same slots.
+     *
+     * @param type    The kind of event.
+     * @param subject The item that caused the event.
+     * @param object  The item affected by the event, or null if there is none.
+     */
+    public void publishEvent(SimulationEvent type, ArenaItem subject, ArenaItem object) {
+        ArenaItem location = object != null ? object : subject;
+        eventRing.publish(type, tick, subject.getHandle(), object != null ? object.getHandle() : ArenaItem.NO_HANDLE,
+                location.x, location.y);
+    }
+
     /**
      * Returns the set of currently targeted food items.
      *
@@ -104,12 +906,151 @@ public class RobotArena {
     }
 
     /**
-     * Updates the state of all items in the arena by calling their respective update methods.
+     * Updates the state of all dynamic items in the arena by calling their respective update methods.
+     * Static items have no behaviour and are skipped. Queued commands are applied first.
      */
     public void update() {
-        for (ArenaItem item : items) {
-            item.update(this);
+        beforeChange();
+        commands.drain(this); // Before the neighbour lists are checked, as commands may add or move items
+        if (neighboursStale && neighbourListsEnabled) {
+            rebuildNeighbourLists();
+        }
+        if (referenceQueries && foodField != null) {
+            foodField.invalidate(); // Checks the incremental updates of the last tick against a rebuild
+        }
+        if (typeCounts[ItemType.LIDAR_ROBOT.ordinal()] > 0) {
+            scanLidar();
+        }
+        RobotController controller = robotController;
+        if (controller != null) {
+            controller.prepare(this);
+        }
+
+        // Iterate over a copy so items may remove themselves or others while updating
+        removedDynamic = compact(dynamicItems, removedDynamic);
+        int count = dynamicItems.size();
+        if (updateBuffer.length < count) {
+            updateBuffer = new ArenaItem[Math.max(count, updateBuffer.length * 2)];
+        }
+        ArenaItem[] buffer = dynamicItems.toArray(updateBuffer);
+        for (int i = 0; i < count; i++) {
+            ArenaItem item = buffer[i];
+            buffer[i] = null; // Do not keep removed items reachable
+            if (item.alive) {
+                if (controller != null && item instanceof Robot) {
+                    controller.control((Robot) item, this);
+                } else {
+                    item.update(this);
+                }
+                positionChanged(item); // Keeps scans of the item's type current within the tick
+            }
+        }
+        tick++;
+        dynamicIndex = null; // Robots have moved
+        if (!neighboursStale && neighbourListsEnabled) {
+            checkNeighbourLists();
+        }
+        releasePending();
+    }
+
+    /**
+     * Casts the rays of every lidar robot against the arena as it is before the tick, one ray at a time in
+     * reference mode.
+     */
+    private void scanLidar() {
+        lidarBatch.clear();
+        removedDynamic = compact(dynamicItems, removedDynamic);
+        for (int i = 0; i < dynamicItems.size(); i++) {
+            ArenaItem item = dynamicItems.get(i);
+            if (item instanceof LidarRobot) {
+                LidarRobot robot = (LidarRobot) item;
+                if (referenceQueries) {
+                    RayCaster.castReference(this, robot, robot.getDistances(), robot.getHitTypes());
+                } else {
+                    lidarBatch.add(robot);
+                }
+            }
+        }
+        rayCaster.cast(this, lidarBatch);
+        lidarBatch.clear(); // Do not keep removed robots reachable
+    }
+
+    /**
+     * Returns the controller that moves robots in place of their own behaviour.
+     *
+     * @return The controller, or null if robots update themselves.
+     */
+    public RobotController getRobotController() {
+        return robotController;
+    }
+
+    /**
+     * Sets a controller that moves robots in place of their own behaviour, from the next update.
+     *
+     * @param robotController The controller, or null to let robots update themselves.
+     */
+    public void setRobotController(RobotController robotController) {
+        this.robotController = robotController;
+    }
+
+    /**
+     * Queues a change to be applied by the simulation thread before the next update. Safe to call from any thread.
+     *
+     * @param command The change.
+     */
+    public void submit(ArenaCommand command) {
+        commands.submit(command);
+    }
+
+    /**
+     * Applies the queued changes without updating, for hosts whose simulation is paused. Must be called on the
+     * simulation thread.
+     *
+     * @return The number of changes applied.
+     */
+    public int applyCommands() {
+        if (commands.isEmpty()) {
+            return 0;
+        }
+        beforeChange();
+        int applied = commands.drain(this);
+        releasePending(); // This is a tick boundary too
+        return applied;
+    }
+
+    /**
+     * Registers an action to run once on the simulation thread before the items next change: before the next update,
+     * batch of commands or restore, or item added, removed or moved from outside an update. Lets a reader such as
+     * {@link Autosave} capture the items by reference at a tick boundary and read them later, finishing in time.
+     * Must be called on the simulation thread.
+     *
+     * @param action The action.
+     */
+    public void runBeforeChange(Runnable action) {
+        beforeChange.add(action);
+    }
+
+    /**
+     * Runs and forgets the actions registered to run before the items change.
+     */
+    private void beforeChange() {
+        if (!beforeChange.isEmpty()) {
+            for (int i = 0; i < beforeChange.size(); i++) {
+                beforeChange.get(i).run();
+            }
+            beforeChange.clear();
+        }
+    }
+
+    /**
+     * Returns the items removed since the last tick boundary to their pools.
+     */
+    private void releasePending() {
+        for (int i = 0; i < released.size(); i++) {
+            ArenaItem item = released.get(i);
+            pools.get(item.getType().ordinal()).add(item);
         }
+        released.clear();
     }
 
     /**
@@ -118,6 +1059,7 @@ public class RobotArena {
      * @param gc The GraphicsContext used for drawing.
      */
     public void draw(GraphicsContext gc) {
+        removedItems = compact(items, removedItems);
         for (ArenaItem item : items) {
             item.draw(gc);
         }
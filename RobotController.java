@@ -0,0 +1,24 @@
+package com.example.robotgui;
+
+/**
+ * Moves robots in place of their own behaviour, for alternative execution modes such as {@link ActorMode}.
+ * Set on an arena with {@link RobotArena#setRobotController(RobotController)}; both methods are called on the
+ * simulation thread during {@link RobotArena#update()}.
+ */
+public interface RobotController {
+
+    /**
+     * Prepares a tick, after queued commands are applied and before any item is updated.
+     *
+     * @param arena The arena about to be updated.
+     */
+    void prepare(RobotArena arena);
+
+    /**
+     * Updates a robot in the arena's order, or lets it update itself.
+     *
+     * @param robot The robot to update.
+     * @param arena The arena being updated.
+     */
+    void control(Robot robot, RobotArena arena);
+}
@@ -0,0 +1,186 @@
+package com.example.robotgui;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A set of tunable robot parameters, stored as a genome for {@link ParameterTuner}: the whisker robots' whisker
+ * length and speed, and the beam sensor robots' sensor range, speed, turn angle and detection angle.
+ * <p>
+ * Each gene is quantised to one of {@link #LEVELS} evenly spaced values between its bounds, so a genome packs into
+ * a single long that identifies it exactly in fitness caches, and mutation cannot produce near-duplicates that
+ * would each have to be simulated. Instances are immutable. Kept free of JavaFX so headless tools can use them.
+ */
+public final class RobotParameters {
+    /** Number of genes. */
+    public static final int GENES = 6;
+    /** Number of bits of a gene. */
+    public static final int BITS = 10;
+    /** Number of values a gene can take. */
+    public static final int LEVELS = 1 << BITS;
+
+    /** Gene indexes. */
+    public static final int WHISKER_LENGTH = 0, WHISKER_SPEED = 1, SENSOR_RANGE = 2, BEAM_SPEED = 3,
+            TURN_ANGLE = 4, DETECTION_ANGLE = 5;
+
+    private static final String[] NAMES = {"whisker length", "whisker speed", "sensor range", "beam speed",
+            "turn angle", "detection angle"};
+    private static final double[] MIN = {10, 0.5, 20, 0.5, Math.PI / 16, Math.PI / 36};
+    private static final double[] MAX = {150, 4, 250, 4, Math.PI, Math.PI * 4 / 9}; // Detection stays below 90 degrees
+
+    private final int[] levels; // Quantised value of each gene, from 0 to LEVELS - 1
+
+    private RobotParameters(int[] levels) {
+        this.levels = levels;
+    }
+
+    /**
+     * Returns the parameters robots are created with, rounded to the nearest levels.
+     *
+     * @return The default parameters.
+     */
+    public static RobotParameters defaults() {
+        double[] values = new double[GENES];
+        values[WHISKER_LENGTH] = 50;
+        values[WHISKER_SPEED] = 2;
+        values[SENSOR_RANGE] = 100;
+        values[BEAM_SPEED] = 1.5;
+        values[TURN_ANGLE] = BeamSensorRobot.DEFAULT_TURN_ANGLE;
+        values[DETECTION_ANGLE] = BeamSensorRobot.DEFAULT_DETECTION_ANGLE;
+        return of(values);
+    }
+
+    /**
+     * Returns the parameters nearest to the given values, which are clamped to the genes' bounds.
+     *
+     * @param values The value of each gene, indexed by the gene constants.
+     * @return The parameters.
+     */
+    public static RobotParameters of(double... values) {
+        if (values.length != GENES) {
+            throw new IllegalArgumentException("Expected " + GENES + " values, got " + values.length);
+        }
+        int[] levels = new int[GENES];
+        for (int g = 0; g < GENES; g++) {
+            double level = (values[g] - MIN[g]) / (MAX[g] - MIN[g]) * (LEVELS - 1);
+            levels[g] = clamp((int) Math.round(level));
+        }
+        return new RobotParameters(levels);
+    }
+
+    /**
+     * Returns parameters with every gene drawn uniformly from its levels.
+     *
+     * @param random The source of randomness.
+     * @return The parameters.
+     */
+    public static RobotParameters random(Random random) {
+        int[] levels = new int[GENES];
+        for (int g = 0; g < GENES; g++) {
+            levels[g] = random.nextInt(LEVELS);
+        }
+        return new RobotParameters(levels);
+    }
+
+    /**
+     * Returns parameters taking each gene from this or the other parameters with equal probability.
+     *
+     * @param other  The other parent.
+     * @param random The source of randomness.
+     * @return The child parameters.
+     */
+    public RobotParameters crossover(RobotParameters other, Random random) {
+        int[] child = new int[GENES];
+        for (int g = 0; g < GENES; g++) {
+            child[g] = random.nextBoolean() ? levels[g] : other.levels[g];
+        }
+        return new RobotParameters(child);
+    }
+
+    /**
+     * Returns parameters with some genes moved by a normally distributed number of levels.
+     *
+     * @param random The source of randomness.
+     * @param rate   The probability that a gene is changed.
+     * @param sigma  The standard deviation of a change, as a fraction of the gene's range.
+     * @return The mutated parameters.
+     */
+    public RobotParameters mutate(Random random, double rate, double sigma) {
+        int[] child = levels.clone();
+        for (int g = 0; g < GENES; g++) {
+            if (random.nextDouble() < rate) {
+                child[g] = clamp(child[g] + (int) Math.round(random.nextGaussian() * sigma * LEVELS));
+            }
+        }
+        return new RobotParameters(child);
+    }
+
+    private static int clamp(int level) {
+        return Math.max(0, Math.min(LEVELS - 1, level));
+    }
+
+    /**
+     * Returns the value of a gene.
+     *
+     * @param gene The gene index.
+     * @return The value, between the gene's bounds.
+     */
+    public double get(int gene) {
+        return MIN[gene] + (MAX[gene] - MIN[gene]) * levels[gene] / (LEVELS - 1);
+    }
+
+    /**
+     * Returns the genome packed into a long, BITS bits per gene, which identifies the parameters exactly.
+     *
+     * @return The key.
+     */
+    public long key() {
+        long key = 0;
+        for (int g = 0; g < GENES; g++) {
+            key = key << BITS | levels[g];
+        }
+        return key;
+    }
+
+    /**
+     * Sets the parameters of every whisker and beam sensor robot in an arena.
+     *
+     * @param arena The arena.
+     */
+    public void applyTo(RobotArena arena) {
+        for (ArenaItem item : arena.getDynamicItems()) {
+            if (item instanceof WhiskerRobot) {
+                WhiskerRobot robot = (WhiskerRobot) item;
+                robot.setWhiskerLength(get(WHISKER_LENGTH));
+                robot.setSpeed(get(WHISKER_SPEED));
+            } else if (item instanceof BeamSensorRobot) {
+                BeamSensorRobot robot = (BeamSensorRobot) item;
+                robot.setSensorRange(get(SENSOR_RANGE));
+                robot.setSpeed(get(BEAM_SPEED));
+                robot.setTurnAngle(get(TURN_ANGLE));
+                robot.setDetectionAngle(get(DETECTION_ANGLE));
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof RobotParameters && Arrays.equals(levels, ((RobotParameters) o).levels);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(key());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (int g = 0; g < GENES; g++) {
+            double value = g >= TURN_ANGLE ? Math.toDegrees(get(g)) : get(g);
+            text.append(g == 0 ? "" : ", ").append(NAMES[g]).append(String.format(" %.1f", value))
+                    .append(g >= TURN_ANGLE ? " deg" : "");
+        }
+        return text.toString();
+    }
+}
@@ -4,37 +4,75 @@ import javafx.animation.AnimationTimer;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Alert;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.CheckMenuItem;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuBar;
 import javafx.scene.control.MenuItem;
+import javafx.scene.control.RadioMenuItem;
+import javafx.scene.control.SeparatorMenuItem;
+import javafx.scene.control.Slider;
+import javafx.scene.control.TextInputDialog;
+import javafx.scene.control.ToggleGroup;
+import javafx.scene.input.KeyCode;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
 import javafx.scene.text.Text;
 import javafx.scene.paint.Color;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.util.Duration;
 import javafx.scene.control.Button;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.util.List;
+import java.util.ArrayList;
+import java.util.function.Function;
 /**
  * Main class for the Robot Simulation application.
  * This class manages the UI, robot behaviors, and interaction.
  */
 public class RobotSimulation extends Application {
     private RobotArena arena; // The arena that has all items
-    private AnimationTimer animationTimer;// Timer
+    private AnimationTimer animationTimer;// Timer, runs for the lifetime of the window and draws at most once per pulse
+    private boolean simulationRunning; // True while the simulation advances every pulse
+    private boolean redrawRequested = true; // Set when the view is out of date, cleared by the next pulse
     private Timeline foodSpawner;// Flag to control food
     private boolean isFoodSpawning = false; // Flag to control food spawning
-    private ArenaItem selectedRobot; // selected bot
+    private volatile long selectedHandle = ArenaItem.NO_HANDLE; // Selected bot, stops resolving once it is gone
     private Text selectedRobotInfo;// To display info of selected bot
-    private ControllableRobot controllableRobot; // Reference to the user-controlled robot
+    private volatile long controllableHandle = ArenaItem.NO_HANDLE; // User-controlled robot, set by commands
+    private ViewerClient viewerClient; // Connection to a simulation server while in viewer mode
+    private int scenarioRequest; // Number of the latest scenario generation started, only used on the FX thread
+    private final EventRing eventRing = new EventRing(8192); // Shared by every arena so consumers survive resets
+    private final EventStatistics eventStatistics = new EventStatistics(); // Totals of kills, meals and deaths
+    private Text eventInfo; // To display the event totals
+    private final TimeWarp timeWarp = new TimeWarp(); // Runs several updates per frame when fast-forwarding
+    private Label ticksPerSecondLabel; // To display the achieved simulation rate
+    private final RewindBuffer rewindBuffer = new RewindBuffer(DEFAULT_REWIND_BUDGET_MB << 20,
+            RewindBuffer.DEFAULT_KEYFRAME_INTERVAL); // Recent history for scrubbing back
+    private Slider timelineSlider; // Scrubs through the recorded history
+    private Label timelineLabel; // To display the shown tick and the covered history
+    private boolean updatingTimeline; // Set while the slider is moved by the simulation rather than the user
+    private final PopulationRecorder populationRecorder = new PopulationRecorder(); // Statistics of the whole run
+    private PopulationChart populationChart; // Live chart of the recorded statistics
+    private final OccupancyHeatmap occupancyHeatmap = new OccupancyHeatmap(800, 600); // Where robots spend time
+    private final HeatmapOverlay heatmapOverlay = new HeatmapOverlay(occupancyHeatmap); // Draws the heatmap
+    private boolean heatmapVisible; // Whether the heatmap is drawn over the arena
+    private TiledArenaView tiledView; // Draws the items on worker threads when tiled rendering is on, or null
+    private TickRecorder[] tickRecorders = {rewindBuffer, populationRecorder, occupancyHeatmap}; // Every tick
+    private FrameCapture frameCapture; // Records frames of the run while capturing, otherwise null
+    private Autosave autosave; // Saves the arena periodically while autosave is on, otherwise null
+    private ActorMode actorMode; // Runs foragers as actors while actor mode is on, otherwise null
+    private final ArrayList<ArenaItem> overlapCandidates = new ArrayList<>(); // Reused result list of placement checks
 
         /**Entry point of the JavaFX application.
             *
@@ -42,6 +80,8 @@ public class RobotSimulation extends Application {
             */
 
     private static final int MAX_FOOD_ITEMS = 10; // Maximum number of food items allowed in the arena
+    private static final int DEFAULT_REWIND_BUDGET_MB = 64; // Memory for rewind history, in megabytes
+    private static final File AUTOSAVE_DIRECTORY = new File("autosave"); // Next to the default configuration
 
     @Override
     public void start(Stage primaryStage) {
@@ -62,30 +102,62 @@ public class RobotSimulation extends Application {
 
         // Toolbar
         HBox toolbar = createToolbar(canvas.getWidth(), canvas.getHeight(), canvas);
-        root.setBottom(toolbar);
+        root.setBottom(new VBox(5, createTimelineBar(), toolbar));
 
         // Info section for selected robot
         selectedRobotInfo = new Text("Selected Robot: None");
-        root.setRight(selectedRobotInfo);
+        eventInfo = new Text();
+        populationChart = new PopulationChart(populationRecorder, 300, 320);
+        root.setRight(new VBox(10, selectedRobotInfo, eventInfo, populationChart));
+
+        // Count events on a separate thread so the statistics never slow down the simulation
+        new EventProcessor(eventRing, eventStatistics, "event-statistics").start();
 
         // Initialise arena
         arena = new RobotArena(canvas.getWidth(), canvas.getHeight());
+        arena.setEventRing(eventRing);
         if (!loadDefaultConfiguration()) {
             setupDefaultArena();
         }
 
-        // Animation loop
+        // Animation loop: input handlers only request a redraw, so the arena is drawn at most once per pulse
         animationTimer = new AnimationTimer() {
             @Override
             public void handle(long now) {
-                gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
-                arena.drawWalls(gc); // Draw walls first
-                arena.update();
-                arena.draw(gc);
-                drawSelectedRobotHighlight(gc);
-                updateSelectedRobotInfo(); // Update live location of the selected robot
+                if (viewerClient != null) {
+                    gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+                    drawRemoteState(gc); // Viewer mode: show the server's state instead of simulating
+                    return;
+                }
+                if (simulationRunning) {
+                    timeWarp.advance(arena, tickRecorders); // One or more updates, only the latest state is drawn
+                    updateTicksPerSecond();
+                    redrawRequested = true;
+                } else if (arena.applyCommands() > 0) {
+                    redrawRequested = true; // Changes made while paused
+                }
+                if (redrawRequested) {
+                    redrawRequested = false;
+                    gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+                    arena.drawWalls(gc); // Draw walls first
+                    if (heatmapVisible) {
+                        heatmapOverlay.refresh();
+                        heatmapOverlay.draw(gc); // Under the items, so robots stay visible
+                    }
+                    if (tiledView != null) {
+                        tiledView.draw(gc, arena); // One image instead of canvas commands per item
+                    } else {
+                        arena.draw(gc);
+                    }
+                    drawSelectedRobotHighlight(gc);
+                    updateSelectedRobotInfo(); // Update live location of the selected robot
+                    updateEventInfo();
+                    updateTimeline();
+                    populationChart.draw(populationRecorder);
+                }
             }
         };
+        animationTimer.start();
 
         // Initialise food spawner timeline (disabled by default)
         foodSpawner = new Timeline(new KeyFrame(Duration.seconds(5), e -> spawnFood()));
@@ -93,24 +165,67 @@ public class RobotSimulation extends Application {
 
         // Add keyboard event handlers for controlling the bot
         scene.setOnKeyPressed(event -> {
-            if (controllableRobot != null) {
-                switch (event.getCode()) {
-                    case W -> controllableRobot.moveUp();                // Move up
-                    case S -> controllableRobot.moveDown(canvas.getHeight()); // Move down
-                    case A -> controllableRobot.moveLeft();              // Move left
-                    case D -> controllableRobot.moveRight(canvas.getWidth()); // Move right
-                }
-                // Refresh canvas
-                gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
-                arena.drawWalls(gc);
-                arena.draw(gc); // Redraw all arena items
+            KeyCode key = event.getCode();
+            if (key != KeyCode.W && key != KeyCode.S && key != KeyCode.A && key != KeyCode.D) {
+                return;
             }
+            long handle = controllableHandle;
+            arena.submit(target -> {
+                ArenaItem item = target.resolve(handle);
+                if (item instanceof ControllableRobot) {
+                    ControllableRobot controllableRobot = (ControllableRobot) item;
+                    switch (key) {
+                        case W -> controllableRobot.moveUp();                // Move up
+                        case S -> controllableRobot.moveDown(canvas.getHeight()); // Move down
+                        case A -> controllableRobot.moveLeft();              // Move left
+                        case D -> controllableRobot.moveRight(canvas.getWidth()); // Move right
+                        default -> { }
+                    }
+                    target.itemMoved(controllableRobot);
+                }
+            });
+            requestRedraw(); // Key repeats between pulses share one redraw
         });
 
 
         // Set title and show the primary stage
         primaryStage.setTitle("Robot Simulation");
         primaryStage.show();
+
+        offerRecovery(); // Before autosaving starts again, which marks the run as unfinished
+        startAutosave();
+    }
+
+    /**
+     * Stops autosaving when the application exits, marking a clean shutdown.
+     */
+    @Override
+    public void stop() {
+        stopAutosave();
+        setActorMode(false);
+    }
+
+    /**
+     * Switches foraging robots between updating themselves and running as actors, on virtual threads where the JDK
+     * has them and otherwise inline on the tick thread: a platform thread per robot would exhaust native threads in
+     * the library's larger scenarios. The switch takes effect at the next tick boundary.
+     *
+     * @param enabled True to run robots as actors.
+     */
+    private void setActorMode(boolean enabled) {
+        if (enabled == (actorMode != null)) {
+            return;
+        }
+        ActorMode previous = actorMode;
+        actorMode = enabled ? new ActorMode(ActorMode.isVirtualThreadsAvailable()
+                ? ActorMode.Execution.VIRTUAL_THREADS : ActorMode.Execution.SEQUENTIAL) : null;
+        ActorMode next = actorMode;
+        arena.submit(target -> {
+            target.setRobotController(next);
+            if (previous != null) {
+                previous.close(); // No longer called by the arena
+            }
+        });
     }
     /**
      * Creates the menu bar for the application with options for saving, loading, and toggling food spawning.
@@ -131,7 +246,30 @@ public class RobotSimulation extends Application {
         MenuItem loadItem = new MenuItem("Load Configuration");
         loadItem.setOnAction(e -> loadConfiguration(stage));
 
-        fileMenu.getItems().addAll(saveItem, loadItem);
+        MenuItem capturePngItem = new MenuItem("Capture PNG Frames...");
+        capturePngItem.setOnAction(e -> startCapture(stage, FrameCapture.Format.PNG));
+
+        MenuItem captureRawItem = new MenuItem("Capture Raw Frames...");
+        captureRawItem.setOnAction(e -> startCapture(stage, FrameCapture.Format.RAW));
+
+        MenuItem stopCaptureItem = new MenuItem("Stop Capture");
+        stopCaptureItem.setOnAction(e -> stopCapture());
+
+        CheckMenuItem autosaveItem = new CheckMenuItem("Autosave");
+        autosaveItem.setSelected(true); // Started once the window is shown
+        autosaveItem.setOnAction(e -> {
+            if (autosaveItem.isSelected()) {
+                startAutosave();
+            } else {
+                stopAutosave();
+            }
+        });
+
+        MenuItem restoreAutosaveItem = new MenuItem("Restore Autosave");
+        restoreAutosaveItem.setOnAction(e -> restoreAutosave());
+
+        fileMenu.getItems().addAll(saveItem, loadItem, new SeparatorMenuItem(), capturePngItem, captureRawItem,
+                stopCaptureItem, new SeparatorMenuItem(), autosaveItem, restoreAutosaveItem);
 
         // Food Menu (acts as a toggle button)
         Menu foodMenu = new Menu("Food");
@@ -162,10 +300,129 @@ public class RobotSimulation extends Application {
 
         resetMenu.getItems().add(resetItem); // Add Reset functionality to its own menu
 
+        // Network Menu for viewing a simulation server
+        Menu networkMenu = new Menu("Network");
+        MenuItem connectItem = new MenuItem("Connect to Server...");
+        connectItem.setOnAction(e -> connectToServer());
+        MenuItem disconnectItem = new MenuItem("Disconnect");
+        disconnectItem.setOnAction(e -> disconnectFromServer());
+        networkMenu.getItems().addAll(connectItem, disconnectItem);
+
+        // History Menu for the rewind buffer
+        Menu historyMenu = new Menu("History");
+        MenuItem budgetItem = new MenuItem("Rewind Memory...");
+        budgetItem.setOnAction(e -> setRewindBudget());
+        historyMenu.getItems().add(budgetItem);
+
+        // View Menu for the occupancy heatmap
+        Menu viewMenu = new Menu("View");
+        Menu heatmapMenu = new Menu("Heatmap");
+        ToggleGroup heatmapGroup = new ToggleGroup();
+        String[] heatmapLabels = {"Off", "All Robots", "Whisker Robots", "Predators", "Beam Sensor Robots",
+                "Controllable Robots", "Lidar Robots"};
+        ItemType[] heatmapTypes = {null, null, ItemType.WHISKER_ROBOT, ItemType.PREDATOR_ROBOT,
+                ItemType.BEAM_SENSOR_ROBOT, ItemType.CONTROLLABLE_ROBOT, ItemType.LIDAR_ROBOT};
+        for (int i = 0; i < heatmapLabels.length; i++) {
+            RadioMenuItem heatmapItem = new RadioMenuItem(heatmapLabels[i]);
+            heatmapItem.setToggleGroup(heatmapGroup);
+            heatmapItem.setSelected(i == 0);
+            boolean visible = i > 0;
+            ItemType type = heatmapTypes[i];
+            heatmapItem.setOnAction(e -> {
+                heatmapVisible = visible;
+                heatmapOverlay.setType(type);
+                requestRedraw();
+            });
+            heatmapMenu.getItems().add(heatmapItem);
+        }
+        MenuItem clearHeatmapItem = new MenuItem("Clear Heatmap");
+        clearHeatmapItem.setOnAction(e -> {
+            occupancyHeatmap.clear();
+            requestRedraw();
+        });
+        CheckMenuItem tiledItem = new CheckMenuItem("Tiled Renderer");
+        tiledItem.setOnAction(e -> {
+            if (tiledItem.isSelected()) {
+                tiledView = new TiledArenaView(800, 600); // The canvas size
+            } else {
+                tiledView.close();
+                tiledView = null;
+            }
+            requestRedraw();
+        });
+        CheckMenuItem actorItem = new CheckMenuItem("Robots as Actors");
+        actorItem.setOnAction(e -> setActorMode(actorItem.isSelected()));
+        viewMenu.getItems().addAll(heatmapMenu, clearHeatmapItem, new SeparatorMenuItem(), tiledItem, actorItem);
+
+        // Scenarios Menu for generated worlds; larger ones extend beyond the visible area
+        Menu scenarioMenu = new Menu("Scenarios");
+        for (ScenarioSpec spec : ScenarioLibrary.all()) {
+            MenuItem scenarioItem = new MenuItem(spec.getName());
+            scenarioItem.setOnAction(e -> generateScenario(spec));
+            scenarioMenu.getItems().add(scenarioItem);
+        }
+        MenuItem loadSpecItem = new MenuItem("Load Scenario Spec...");
+        loadSpecItem.setOnAction(e -> loadScenario(stage));
+        scenarioMenu.getItems().addAll(new SeparatorMenuItem(), loadSpecItem);
+
     // Add menus to the menu bar
-        menuBar.getMenus().addAll(fileMenu, foodMenu, helpMenu, aboutMenu, resetMenu);
+        menuBar.getMenus().addAll(fileMenu, foodMenu, helpMenu, aboutMenu, resetMenu, networkMenu, historyMenu,
+                viewMenu, scenarioMenu);
         return menuBar;
     }
+    /**
+     * Asks for a server address and switches to viewer mode, showing the server's arena instead of the local one.
+     */
+    private void connectToServer() {
+        TextInputDialog dialog = new TextInputDialog("localhost:" + SimulationServer.DEFAULT_PORT);
+        dialog.setTitle("Connect to Server");
+        dialog.setHeaderText("Enter the address of a running simulation server");
+        dialog.setContentText("host:port");
+        dialog.showAndWait().ifPresent(address -> {
+            String[] parts = address.trim().split(":");
+            try {
+                String host = parts[0];
+                int port = parts.length > 1 ? Integer.parseInt(parts[1]) : SimulationServer.DEFAULT_PORT;
+                disconnectFromServer();
+                viewerClient = new ViewerClient(host, port);
+                selectedHandle = ArenaItem.NO_HANDLE; // Local selection has no meaning in viewer mode
+                updateSelectedRobotInfo();
+            } catch (IOException | NumberFormatException ex) {
+                showError("Failed to connect to " + address + ".");
+            }
+        });
+    }
+
+    /**
+     * Leaves viewer mode and returns to the local simulation.
+     */
+    private void disconnectFromServer() {
+        if (viewerClient != null) {
+            viewerClient.close();
+            viewerClient = null;
+        }
+    }
+
+    /**
+     * Draws the latest state received from the simulation server.
+     *
+     * @param gc The graphics context used for drawing on the canvas.
+     */
+    private void drawRemoteState(GraphicsContext gc) {
+        StateFrame frame = viewerClient.getLatestFrame();
+        if (frame != null) {
+            gc.setStroke(Color.BLACK); // Outline the remote arena
+            gc.setLineWidth(3);
+            gc.strokeRect(0, 0, frame.getWidth(), frame.getHeight());
+            viewerClient.draw(gc);
+            selectedRobotInfo.setText(String.format("Server tick: %d\nItems: %d", frame.getTick(), frame.getCount()));
+        }
+        if (!viewerClient.isConnected()) {
+            selectedRobotInfo.setText("Disconnected from server");
+            disconnectFromServer();
+        }
+    }
+
     /**
      * Displays information about the application in a dialog box.
      */
@@ -198,32 +455,50 @@ public class RobotSimulation extends Application {
 
         // Start button
         Button startButton = new Button("Start");
-        startButton.setOnAction(e -> animationTimer.start());
+        startButton.setOnAction(e -> {
+            timeWarp.resetMeasurement(); // Do not count the paused time
+            simulationRunning = true;
+        });
 
         // Pause button
         Button pauseButton = new Button("Pause");
-        pauseButton.setOnAction(e -> animationTimer.stop());
+        pauseButton.setOnAction(e -> simulationRunning = false);
+
+        // Time-warp selector and achieved rate
+        ComboBox<TimeWarp.Speed> speedSelector = new ComboBox<>();
+        speedSelector.getItems().addAll(TimeWarp.Speed.values());
+        speedSelector.setValue(timeWarp.getSpeed());
+        speedSelector.setOnAction(e -> {
+            timeWarp.setSpeed(speedSelector.getValue());
+            timeWarp.resetMeasurement();
+        });
+        ticksPerSecondLabel = new Label("Ticks/s: -");
 
         // Add Robot button
         Button addRobotButton = new Button("Add Robot");
-        addRobotButton.setOnAction(e -> addNonOverlappingItem(new WhiskerRobot(
-                0, 0, 20, Math.random() * 2 * Math.PI, 2, 50), canvasWidth, canvasHeight));
+        addRobotButton.setOnAction(e -> addNonOverlappingItem(
+                target -> obtainRobot(target, ItemType.WHISKER_ROBOT), canvasWidth, canvasHeight));
 
         // Add Obstacle button
         Button addObstacleButton = new Button("Add Obstacle");
         addObstacleButton.setOnAction(e -> addNonOverlappingItem(
-                new Obstacle(0, 0, 30), canvasWidth, canvasHeight));
+                target -> new Obstacle(0, 0, 30), canvasWidth, canvasHeight));
 
         // Add Predator button
         Button addPredatorButton = new Button("Add Predator");
         addPredatorButton.setOnAction(e -> addNonOverlappingItem(
-                new PredatorRobot(0, 0, 20, Math.random() * 2 * Math.PI, 1.2), canvasWidth, canvasHeight));
+                target -> obtainRobot(target, ItemType.PREDATOR_ROBOT), canvasWidth, canvasHeight));
 
         // Add Control Bot button
         Button addControlBotButton = new Button("Add Control Bot");
         addControlBotButton.setOnAction(e -> {
-            controllableRobot = new ControllableRobot(100, 100, 20, 5); // Place at a default position
-            arena.addItem(controllableRobot);
+            arena.submit(target -> {
+                // Default position
+                ArenaItem controllableRobot = target.obtain(ItemType.CONTROLLABLE_ROBOT, 100, 100, 20);
+                target.addItem(controllableRobot);
+                controllableHandle = controllableRobot.getHandle();
+            });
+            requestRedraw();
         });
         toolbar.getChildren().add(addControlBotButton);
 
@@ -231,12 +506,15 @@ public class RobotSimulation extends Application {
         // Add this code in the createToolbar method
         Button addBeamRobotButton = new Button("Add Beam Sensor Robot");
         addBeamRobotButton.setOnAction(e -> addNonOverlappingItem(
-                new BeamSensorRobot(0, 0, 20, Math.random() * 2 * Math.PI, 1.5, 100, 50),
-
-                canvasWidth, canvasHeight));
+                target -> obtainRobot(target, ItemType.BEAM_SENSOR_ROBOT), canvasWidth, canvasHeight));
 
         toolbar.getChildren().addAll(addBeamRobotButton);
 
+        Button addLidarRobotButton = new Button("Add Lidar Robot");
+        addLidarRobotButton.setOnAction(e -> addNonOverlappingItem(
+                target -> obtainRobot(target, ItemType.LIDAR_ROBOT), canvasWidth, canvasHeight));
+        toolbar.getChildren().add(addLidarRobotButton);
+
 
 
         // Select Robot button
@@ -250,8 +528,8 @@ public class RobotSimulation extends Application {
         Button deleteRobotButton = new Button("Delete Selected ");
         deleteRobotButton.setOnAction(e -> deleteSelectedRobot());
 
-        toolbar.getChildren().addAll(startButton, pauseButton, addRobotButton, addObstacleButton, addPredatorButton,
-                selectRobotButton, deleteRobotButton);
+        toolbar.getChildren().addAll(startButton, pauseButton, speedSelector, ticksPerSecondLabel, addRobotButton,
+                addObstacleButton, addPredatorButton, selectRobotButton, deleteRobotButton);
         return toolbar;
     }
     /**
@@ -267,20 +545,12 @@ public class RobotSimulation extends Application {
             double mouseX = event.getX();
             double mouseY = event.getY();
 
-            // Find the robot closest to the click position
-            selectedRobot = null;
-            double minDistance = Double.MAX_VALUE;
-            // Iterate through all items in the arena
-            for (ArenaItem item : arena.getItems()) {
-                double distance = Math.sqrt(Math.pow(item.x - mouseX, 2) + Math.pow(item.y - mouseY, 2));
-                if (distance < item.radius && distance < minDistance) {
-                    selectedRobot = item;
-                    minDistance = distance;
-                }
-            }
+            // Find the robot closest to the click position, using the arena's spatial indexes
+            ArenaItem selectedRobot = arena.pick(mouseX, mouseY);
+            selectedHandle = selectedRobot != null ? selectedRobot.getHandle() : ArenaItem.NO_HANDLE;
 
-            // Update selected robot info
-            updateSelectedRobotInfo();
+            // Update selected robot info and highlight
+            requestRedraw();
         });
     }
     /**
@@ -292,34 +562,36 @@ public class RobotSimulation extends Application {
 
 
     private void enableRobotMovement(Canvas canvas) {
-        canvas.setOnMousePressed(event -> {
-            if (selectedRobot != null) {
-                // Record the initial position of the mouse and robot
-                selectedRobot.x = event.getX();
-                selectedRobot.y = event.getY();
-            }
-        });
+        // Record the initial position of the mouse and robot
+        canvas.setOnMousePressed(event -> moveSelectedRobot(event.getX(), event.getY()));
 
-        canvas.setOnMouseDragged(event -> {
-            if (selectedRobot != null) {
-                // Update the robot's position as the mouse moves
-                selectedRobot.x = event.getX();
-                selectedRobot.y = event.getY();
-                canvas.getGraphicsContext2D().clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
-                arena.drawWalls(canvas.getGraphicsContext2D());
-                arena.draw(canvas.getGraphicsContext2D());
-                drawSelectedRobotHighlight(canvas.getGraphicsContext2D());
-                updateSelectedRobotInfo();
-            }
-        });
+        // Update the robot's position as the mouse moves; moves between ticks are applied as one batch
+        canvas.setOnMouseDragged(event -> moveSelectedRobot(event.getX(), event.getY()));
+
+        // Finalise the robot's position
+        canvas.setOnMouseReleased(event -> moveSelectedRobot(event.getX(), event.getY()));
+    }
 
-        canvas.setOnMouseReleased(event -> {
+    /**
+     * Moves the selected robot, if any, to a position at the next tick boundary.
+     *
+     * @param x The new x-coordinate.
+     * @param y The new y-coordinate.
+     */
+    private void moveSelectedRobot(double x, double y) {
+        if (selectedHandle == ArenaItem.NO_HANDLE) {
+            return;
+        }
+        long handle = selectedHandle;
+        arena.submit(target -> {
+            ArenaItem selectedRobot = target.resolve(handle);
             if (selectedRobot != null) {
-                // Finalise the robot's position
-                selectedRobot.x = event.getX();
-                selectedRobot.y = event.getY();
+                selectedRobot.x = x;
+                selectedRobot.y = y;
+                target.itemMoved(selectedRobot); // Keep the arena's indexes up to date
             }
         });
+        requestRedraw(); // Mouse moves between pulses share one redraw
     }
     /**
      * Draws a highlight around the selected robot to indicate it is selected.
@@ -328,6 +600,7 @@ public class RobotSimulation extends Application {
      */
 
     private void drawSelectedRobotHighlight(GraphicsContext gc) {
+        ArenaItem selectedRobot = getSelectedRobot();
         if (selectedRobot != null) {
             gc.setStroke(Color.YELLOW);
             gc.setLineWidth(2);
@@ -341,6 +614,7 @@ public class RobotSimulation extends Application {
      */
 
     private void updateSelectedRobotInfo() {
+        ArenaItem selectedRobot = getSelectedRobot();
         if (selectedRobot != null) {
             selectedRobotInfo.setText(String.format("Selected Robot: %s\nPosition: (%.2f, %.2f)\nRadius: %.2f",
                     selectedRobot.getClass().getSimpleName(), selectedRobot.x, selectedRobot.y, selectedRobot.radius));
@@ -348,30 +622,161 @@ public class RobotSimulation extends Application {
             selectedRobotInfo.setText("Selected Robot: None");
         }
     }
+    /**
+     * Updates the display of event totals collected by the statistics consumer.
+     */
+
+    private void updateEventInfo() {
+        eventInfo.setText(String.format("Kills: %d\nMeals: %d\nDeaths: %d",
+                eventStatistics.getCount(SimulationEvent.KILL),
+                eventStatistics.getCount(SimulationEvent.MEAL),
+                eventStatistics.getCount(SimulationEvent.DEATH)));
+    }
+    /**
+     * Creates the timeline slider used to scrub back through the recorded history.
+     * Moving it pauses the simulation and shows the arena as it was at the chosen tick;
+     * pressing Start re-runs the simulation from there.
+     *
+     * @return An HBox containing the slider and its label.
+     */
+
+    private HBox createTimelineBar() {
+        timelineSlider = new Slider(0, 0, 0);
+        timelineSlider.setPrefWidth(600);
+        timelineLabel = new Label("Tick: 0");
+        timelineSlider.valueProperty().addListener((observable, oldValue, newValue) -> {
+            if (updatingTimeline || rewindBuffer.isEmpty() || viewerClient != null) {
+                return;
+            }
+            simulationRunning = false; // Scrubbing pauses the simulation
+            long tick = Math.max(rewindBuffer.getFirstTick(),
+                    Math.min(rewindBuffer.getLastTick(), Math.round(newValue.doubleValue())));
+            arena.submit(target -> {
+                if (tick != target.getTick()) {
+                    rewindBuffer.restore(tick, target); // Handles now resolve to the restored copies of their items
+                }
+            });
+            requestRedraw();
+        });
+        return new HBox(10, new Label("Timeline"), timelineSlider, timelineLabel);
+    }
+    /**
+     * Updates the timeline slider to cover the recorded history and show the current tick.
+     */
+
+    private void updateTimeline() {
+        updatingTimeline = true;
+        if (rewindBuffer.isEmpty()) {
+            timelineSlider.setMin(0);
+            timelineSlider.setMax(0);
+        } else {
+            timelineSlider.setMin(rewindBuffer.getFirstTick());
+            timelineSlider.setMax(rewindBuffer.getLastTick());
+        }
+        timelineSlider.setValue(arena.getTick());
+        updatingTimeline = false;
+        timelineLabel.setText(String.format("Tick: %d (history %d-%d, %.1f MB)", arena.getTick(),
+                rewindBuffer.isEmpty() ? 0 : rewindBuffer.getFirstTick(),
+                rewindBuffer.isEmpty() ? 0 : rewindBuffer.getLastTick(),
+                rewindBuffer.getUsedBytes() / (1024.0 * 1024.0))
+                + (rewindBuffer.isOverBudget() ? " - rewind paused: budget too small for one keyframe" : ""));
+    }
+    /**
+     * Asks the user for the memory budget of the rewind history.
+     */
+
+    private void setRewindBudget() {
+        TextInputDialog dialog = new TextInputDialog(Long.toString(rewindBuffer.getMemoryBudget() >> 20));
+        dialog.setTitle("Rewind Memory");
+        dialog.setHeaderText("Memory for rewind history, in megabytes");
+        dialog.showAndWait().ifPresent(text -> {
+            try {
+                long megabytes = Long.parseLong(text.trim());
+                if (megabytes < 1) {
+                    showError("The memory budget must be at least 1 MB.");
+                    return;
+                }
+                rewindBuffer.setMemoryBudget(megabytes << 20); // Covered history shrinks or grows to fit
+                updateTimeline();
+            } catch (NumberFormatException ex) {
+                showError("Invalid number: " + text);
+            }
+        });
+    }
+    /**
+     * Updates the display of the achieved simulation rate, and keeps food spawning in step with simulated time.
+     */
+
+    private void updateTicksPerSecond() {
+        double ticksPerSecond = timeWarp.getTicksPerSecond();
+        if (ticksPerSecond > 0) {
+            ticksPerSecondLabel.setText(String.format("Ticks/s: %.0f", ticksPerSecond));
+            // The spawner was timed for one update per 60 Hz frame; speed it up as the simulation speeds up
+            foodSpawner.setRate(Math.max(1, ticksPerSecond / 60));
+        }
+    }
+    /**
+     * Marks the view as out of date. The next animation pulse redraws it once, however many requests came in.
+     */
+
+    private void requestRedraw() {
+        redrawRequested = true;
+    }
+    /**
+     * Returns the selected robot, if it is still in the arena.
+     *
+     * @return The selected item, or null if nothing is selected or the selection has been removed.
+     */
+
+    private ArenaItem getSelectedRobot() {
+        return arena.resolve(selectedHandle);
+    }
+    /**
+     * Obtains a robot of the given type from the arena's pool, heading in a random direction.
+     *
+     * @param target The arena whose pool is used.
+     * @param type   The type of robot.
+     * @return The robot, not yet added to the arena.
+     */
+
+    private static ArenaItem obtainRobot(RobotArena target, ItemType type) {
+        Robot robot = (Robot) target.obtain(type, 0, 0, 20);
+        robot.setAngle(Math.random() * 2 * Math.PI);
+        return robot;
+    }
     /**
      * Deletes the currently selected robot from the arena.
      * Updates the display and clears the selection.
      */
 
     private void deleteSelectedRobot() {
-        if (selectedRobot != null) {
-            arena.removeItem(selectedRobot);
-            selectedRobot = null;
-            updateSelectedRobotInfo(); // Update the display after deletion
+        if (selectedHandle == ArenaItem.NO_HANDLE) {
+            return;
         }
+        long handle = selectedHandle;
+        arena.submit(target -> {
+            ArenaItem selectedRobot = target.resolve(handle);
+            if (selectedRobot != null) {
+                target.removeItem(selectedRobot);
+            }
+        });
+        selectedHandle = ArenaItem.NO_HANDLE;
+        requestRedraw(); // Update the display after deletion
     }
     /**
      * Spawns food items in the arena at random positions, ensuring the maximum limit is not exceeded.
      */
 
     private void spawnFood() {
-        // Count current food items
-        long currentFoodCount = arena.getItems().stream().filter(item -> item instanceof Food).count();
-
-        if (currentFoodCount < MAX_FOOD_ITEMS) {
-            // Add a new food item at a random position
-            addNonOverlappingItem(new Food(0, 0, 10), arena.getWidth(), arena.getHeight());
-        }
+        arena.submit(target -> {
+            // Count current food items when the spawn is applied, so queued spawns cannot exceed the limit
+            if (target.getCount(ItemType.FOOD) < MAX_FOOD_ITEMS) {
+                // Add a new food item at a random position
+                placeNonOverlapping(target, target.obtain(ItemType.FOOD, 0, 0, 10), target.getWidth(),
+                        target.getHeight());
+            }
+        });
+        requestRedraw();
     }
 
     /**
@@ -404,6 +809,8 @@ public class RobotSimulation extends Application {
                         "Here are the controls:\n" +
                         "- Start: Starts the simulation.\n" +
                         "- Pause: Pauses the simulation.\n" +
+                        "- Timeline: Drag to rewind to an earlier tick; Start re-runs from there.\n" +
+                        "- Speed: Runs several simulation steps per frame (1x, 10x, 100x or as fast as possible).\n" +
                         "- Add Robot: Adds a prey bot to the arena.\n" +
                         "- Add Obstacle: Adds an obstacle to the arena.\n" +
                         "- Add Predator: Adds a predator bot to the arena.\n" +
@@ -428,32 +835,56 @@ public class RobotSimulation extends Application {
      */
 
     private void resetArena() {
-        // Stop any ongoing animations or timers
-        animationTimer.stop();
+        // Stop the simulation and any timers
+        simulationRunning = false;
         foodSpawner.stop();
         isFoodSpawning = false;
 
         // Clear the arena and reload the default configuration
         arena = new RobotArena(800, 600); // Reset arena with default size
+        arena.setRobotController(actorMode);
+        rewindBuffer.clear(); // History belongs to the previous arena
+        populationRecorder.clear();
+        occupancyHeatmap.clear();
+        arena.setEventRing(eventRing);
+        eventStatistics.reset();
         setupDefaultArena(); // Load default arena setup
 
-        // Reset selected robot info
-        selectedRobot = null;
+        // Reset selected robot info; handles of the old arena must not resolve in the new one
+        selectedHandle = ArenaItem.NO_HANDLE;
+        controllableHandle = ArenaItem.NO_HANDLE;
         updateSelectedRobotInfo();
 
-        // Restart the animation timer
-        animationTimer.start();
+        // Restart the simulation
+        timeWarp.resetMeasurement();
+        simulationRunning = true;
+        requestRedraw();
     }
 
 
     /**
-     * Adds an item to the arena ensuring it does not overlap with existing items.
+     * Adds an item to the arena at the next tick boundary, ensuring it does not overlap with existing items.
+     *
+     * @param creator      Creates the item when the command is applied, for example from the arena's pool.
+     * @param canvasWidth  The width of the canvas, used to ensure placement within bounds.
+     * @param canvasHeight The height of the canvas, used to ensure placement within bounds.
+     */
+    private void addNonOverlappingItem(Function<RobotArena, ArenaItem> creator, double canvasWidth,
+                                       double canvasHeight) {
+        arena.submit(target -> placeNonOverlapping(target, creator.apply(target), canvasWidth, canvasHeight));
+        requestRedraw();
+    }
+
+    /**
+     * Adds an item to an arena at a random position where it does not overlap with existing items.
+     * Must be called on the simulation thread.
      *
+     * @param target       The arena.
      * @param item         The ArenaItem to add to the arena.
      * @param canvasWidth  The width of the canvas, used to ensure placement within bounds.
      * @param canvasHeight The height of the canvas, used to ensure placement within bounds.
      */
-    private void addNonOverlappingItem(ArenaItem item, double canvasWidth, double canvasHeight) {
+    private void placeNonOverlapping(RobotArena target, ArenaItem item, double canvasWidth, double canvasHeight) {
         boolean overlapping; // Flag to check for overlapping items
         do {
             overlapping = false;
@@ -463,20 +894,30 @@ public class RobotSimulation extends Application {
             item.y = item.radius + Math.random() * (canvasHeight - 2 * item.radius);
 
             // Check for overlap with existing items in the arena
-            for (ArenaItem other : arena.getItems()) {
-                double dx = item.x - other.x;
-                double dy = item.y - other.y;
-                double distance = Math.sqrt(dx * dx + dy * dy);
-
-                // If the distance between items is less than the sum of their radii, overlap exists
-                if (distance < item.radius + other.radius) {
-                    overlapping = true; // Set flag to true to retry position generation
-                    break;
-                }
-            }
+            overlapping = overlapsAnyItem(target, item); // Retry position generation if it overlaps
         } while (overlapping); // Repeat until a non-overlapping position is found
 
-        arena.addItem(item); // Add the item to the arena after finding a valid position
+        target.addItem(item); // Add the item to the arena after finding a valid position
+    }
+
+    /**
+     * Checks whether an item overlaps any item in the arena. Items overlap if their circles, or the exact outlines
+     * of obstacles, intersect. Only the items the arena's indexes find within the item's bounding box are tested,
+     * so placing an item costs the same however many items of other types, such as food, the arena holds.
+     *
+     * @param target The arena.
+     * @param item   The item to check, not yet in the arena.
+     * @return True if it overlaps an item.
+     */
+    private boolean overlapsAnyItem(RobotArena target, ArenaItem item) {
+        overlapCandidates.clear();
+        target.queryItems(item.getMinX(), item.getMinY(), item.getMaxX(), item.getMaxY(), overlapCandidates);
+        for (ArenaItem other : overlapCandidates) {
+            if (item.overlaps(other)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -484,9 +925,9 @@ public class RobotSimulation extends Application {
      * Adds only normal robots and obstacles initially, with predefined positions and attributes.
      */
     private void setupDefaultArena() {
-        addNonOverlappingItem(new WhiskerRobot(100, 100, 20, Math.PI / 4, 2, 50), 800, 600);
-        addNonOverlappingItem(new WhiskerRobot(200, 200, 20, Math.PI / 3, 1.8, 50), 800, 600);
-        addNonOverlappingItem(new Obstacle(400, 300, 30), 800, 600);
+        addNonOverlappingItem(target -> new WhiskerRobot(100, 100, 20, Math.PI / 4, 2, 50), 800, 600);
+        addNonOverlappingItem(target -> new WhiskerRobot(200, 200, 20, Math.PI / 3, 1.8, 50), 800, 600);
+        addNonOverlappingItem(target -> new Obstacle(400, 300, 30), 800, 600);
     }
 
     /**
@@ -520,24 +961,7 @@ public class RobotSimulation extends Application {
         File file = fileChooser.showSaveDialog(stage);
         if (file != null) {
             try {
-                StringBuilder data = new StringBuilder();
-                for (ArenaItem item : arena.getItems()) {
-                    data.append(item.getClass().getSimpleName()).append(",")
-                            .append(item.x).append(",")
-                            .append(item.y).append(",")
-                            .append(item.radius);
-
-                    // Include additional attributes for specific types
-                    if (item instanceof BeamSensorRobot) {
-                        BeamSensorRobot bot = (BeamSensorRobot) item;
-                        data.append(",").append(bot.getSensorRange()).append(",").append(bot.getEnergy());
-                    } else if (item instanceof ControllableRobot) {
-                        ControllableRobot bot = (ControllableRobot) item;
-                        data.append(",").append(bot.getSpeed()).append(",").append(bot.getHealth()).append(",").append(bot.getScore());
-                    }
-                    data.append("\n");
-                }
-                Files.write(file.toPath(), data.toString().getBytes()); // Write configuration to file
+                ArenaConfig.save(arena, file); // Write configuration to file
             } catch (IOException e) {
                 showError("Failed to save configuration."); // Show error if saving fails
             }
@@ -545,6 +969,146 @@ public class RobotSimulation extends Application {
     }
 
 
+    /**
+     * Asks for a directory and a tick interval, then records a frame of the run at every interval until stopped.
+     *
+     * @param stage  The primary stage, used to display a directory chooser dialog.
+     * @param format How the frames are written.
+     */
+    private void startCapture(Stage stage, FrameCapture.Format format) {
+        if (frameCapture != null) {
+            showError("Frames are already being captured to " + frameCapture.getDirectory());
+            return;
+        }
+        DirectoryChooser directoryChooser = new DirectoryChooser();
+        directoryChooser.setTitle("Capture Frames To");
+        File directory = directoryChooser.showDialog(stage);
+        if (directory == null) {
+            return;
+        }
+        TextInputDialog dialog = new TextInputDialog("1");
+        dialog.setTitle("Capture Frames");
+        dialog.setHeaderText("Capture a frame every how many ticks?");
+        dialog.showAndWait().ifPresent(text -> {
+            try {
+                int interval = Integer.parseInt(text.trim());
+                if (interval < 1) {
+                    showError("The interval must be at least 1 tick.");
+                    return;
+                }
+                frameCapture = new FrameCapture(directory, format, interval, 800, 600); // The canvas size
+                updateTickRecorders();
+            } catch (NumberFormatException ex) {
+                showError("Invalid number: " + text);
+            } catch (IOException ex) {
+                showError("Failed to start capture: " + ex.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Stops capturing frames once the queued ones are written, and reports how many were written and dropped.
+     */
+    private void stopCapture() {
+        if (frameCapture == null) {
+            return;
+        }
+        FrameCapture capture = frameCapture;
+        frameCapture = null;
+        updateTickRecorders();
+        try {
+            capture.close();
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle("Capture Finished");
+            alert.setHeaderText("Frames written to " + capture.getDirectory());
+            alert.setContentText(String.format("%d frames written, %d dropped while the writer was behind.",
+                    capture.getWritten(), capture.getDropped()));
+            alert.showAndWait();
+        } catch (IOException e) {
+            showError("Failed to write frames: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuilds the recorders called after every tick from the ones currently active.
+     */
+    private void updateTickRecorders() {
+        ArrayList<TickRecorder> recorders = new ArrayList<>();
+        recorders.add(rewindBuffer);
+        recorders.add(populationRecorder);
+        recorders.add(occupancyHeatmap);
+        if (frameCapture != null) {
+            recorders.add(frameCapture);
+        }
+        if (autosave != null) {
+            recorders.add(autosave);
+        }
+        tickRecorders = recorders.toArray(new TickRecorder[0]);
+    }
+
+    /**
+     * Starts saving the arena periodically in the background.
+     */
+    private void startAutosave() {
+        if (autosave != null) {
+            return;
+        }
+        try {
+            autosave = new Autosave(AUTOSAVE_DIRECTORY, Autosave.DEFAULT_INTERVAL_MILLIS);
+            updateTickRecorders();
+        } catch (IOException e) {
+            showError("Failed to start autosave: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops autosaving once a pending save is written.
+     */
+    private void stopAutosave() {
+        if (autosave == null) {
+            return;
+        }
+        Autosave stopped = autosave;
+        autosave = null;
+        updateTickRecorders();
+        try {
+            stopped.close();
+        } catch (IOException e) {
+            System.err.println("Failed to autosave: " + e.getMessage()); // May be called while exiting
+        }
+    }
+
+    /**
+     * Offers to restore the last autosave if the previous run did not shut down cleanly.
+     */
+    private void offerRecovery() {
+        if (!Autosave.wasInterrupted(AUTOSAVE_DIRECTORY)) {
+            return;
+        }
+        RobotArena recovered = Autosave.readLatest(AUTOSAVE_DIRECTORY);
+        if (recovered == null) {
+            return;
+        }
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        alert.setTitle("Recover Simulation");
+        alert.setHeaderText("The simulation did not shut down cleanly.");
+        alert.setContentText(String.format("Restore the autosave from tick %d with %d items?",
+                recovered.getTick(), recovered.getItems().size()));
+        alert.showAndWait().filter(button -> button == ButtonType.OK).ifPresent(button -> showArena(recovered));
+    }
+
+    /**
+     * Replaces the arena with the newest intact autosave.
+     */
+    private void restoreAutosave() {
+        RobotArena recovered = Autosave.readLatest(AUTOSAVE_DIRECTORY);
+        if (recovered == null) {
+            showError("There is no intact autosave in " + AUTOSAVE_DIRECTORY.getAbsolutePath());
+        } else {
+            showArena(recovered);
+        }
+    }
+
     /**
      * Loads the arena configuration from a file.
      *
@@ -572,45 +1136,73 @@ public class RobotSimulation extends Application {
      * @throws IOException If an error occurs while reading the file.
      */
     private void loadArenaFromFile(File file) throws IOException {
-        arena = new RobotArena(800, 600); // Reset the arena
-        List<String> lines = Files.readAllLines(file.toPath());
-        for (String line : lines) {
-            String[] parts = line.split(",");
-            String type = parts[0];
-            double x = Double.parseDouble(parts[1]);
-            double y = Double.parseDouble(parts[2]);
-            double radius = Double.parseDouble(parts[3]);
-
-            // Add items based on their type
-            switch (type) {
-                case "WhiskerRobot":
-                    arena.addItem(new WhiskerRobot(x, y, radius, Math.PI / 4, 2, 50));
-                    break;
-                case "Obstacle":
-                    arena.addItem(new Obstacle(x, y, radius));
-                    break;
-                case "PredatorRobot":
-                    arena.addItem(new PredatorRobot(x, y, radius, Math.PI / 4, 1.2));
-                    break;
-                case "Food":
-                    arena.addItem(new Food(x, y, radius));
-                    break;
-                case "BeamSensorRobot":
-                    double sensorRange = Double.parseDouble(parts[4]);
-                    double energy = Double.parseDouble(parts[5]);
-                    arena.addItem(new BeamSensorRobot(x, y, radius, Math.PI / 4, 2, sensorRange, energy));
-                    break;
-                case "ControllableRobot":
-                    double speed = Double.parseDouble(parts[4]);
-                    int health = Integer.parseInt(parts[5]);
-                    int score = Integer.parseInt(parts[6]);
-                    ControllableRobot controllableRobot = new ControllableRobot(x, y, radius, speed);
-                    controllableRobot.reduceHealth(100 - health); // Adjust health to match saved value
-                    controllableRobot.increaseScore(score);
-                    arena.addItem(controllableRobot);
-                    break;
+        showArena(ArenaConfig.load(file, 800, 600)); // Reset the arena
+    }
+
+    /**
+     * Generates a scenario from a spec file chosen by the user and shows it.
+     *
+     * @param stage The primary stage, used to display a file chooser dialog.
+     */
+    private void loadScenario(Stage stage) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Load Scenario Spec");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Scenario Specs", "*.properties"));
+
+        File file = fileChooser.showOpenDialog(stage);
+        if (file != null) {
+            try {
+                generateScenario(ScenarioSpec.load(file));
+            } catch (IOException | IllegalArgumentException e) {
+                showError("Failed to load scenario: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Generates a scenario on a background thread and shows it once it is ready, so that generating a large world
+     * does not freeze the UI. If another scenario is requested meanwhile, only the latest one is shown.
+     *
+     * @param spec The scenario to generate.
+     */
+    private void generateScenario(ScenarioSpec spec) {
+        int request = ++scenarioRequest;
+        Thread generator = new Thread(() -> {
+            try {
+                RobotArena generated = ScenarioGenerator.generate(spec);
+                Platform.runLater(() -> {
+                    if (request == scenarioRequest) {
+                        showArena(generated);
+                    }
+                });
+            } catch (RuntimeException e) {
+                Platform.runLater(() -> showError("Failed to generate scenario: " + e.getMessage()));
+            }
+        }, "scenario-generator");
+        generator.setDaemon(true);
+        generator.start();
+    }
+
+    /**
+     * Replaces the simulated arena, forgetting everything recorded about the previous one.
+     *
+     * @param newArena The arena to simulate from now on.
+     */
+    private void showArena(RobotArena newArena) {
+        arena = newArena;
+        arena.setRobotController(actorMode);
+        rewindBuffer.clear(); // History belongs to the previous arena
+        populationRecorder.clear();
+        occupancyHeatmap.clear();
+        arena.setEventRing(eventRing);
+        selectedHandle = ArenaItem.NO_HANDLE; // Handles of the old arena must not resolve in the new one
+        controllableHandle = ArenaItem.NO_HANDLE;
+        for (ArenaItem item : arena.getDynamicItems()) {
+            if (item instanceof ControllableRobot) {
+                controllableHandle = item.getHandle(); // Keys control the loaded bot
             }
         }
+        requestRedraw();
     }
 
     /**
@@ -0,0 +1,66 @@
+package com.example.robotgui;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates scenarios headlessly and measures how long generation and simulation take.
+ * Usage: {@code ScenarioBenchmark [--ticks N] [name or spec file...]}
+ * <p>
+ * Arguments naming an existing file are read as {@link ScenarioSpec} properties, others are looked up in the
+ * {@link ScenarioLibrary}; without any, every library scenario is run. The first tick is reported on its own, as
+ * it also builds the arena's indexes, followed by the mean time of the remaining ticks.
+ */
+public final class ScenarioBenchmark {
+
+    private ScenarioBenchmark() {
+        // Utility class
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Command line arguments.
+     * @throws IOException If a spec file cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        int ticks = 20;
+        List<ScenarioSpec> specs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--ticks")) {
+                ticks = Integer.parseInt(args[++i]);
+            } else if (new File(args[i]).isFile()) {
+                specs.add(ScenarioSpec.load(new File(args[i])));
+            } else {
+                specs.add(ScenarioLibrary.byName(args[i]));
+            }
+        }
+        if (specs.isEmpty()) {
+            specs.addAll(ScenarioLibrary.all());
+        }
+
+        System.out.printf("%-22s %9s %9s %11s %11s %11s%n",
+                "scenario", "items", "obstacles", "generate ms", "1st tick ms", "ms/tick");
+        for (ScenarioSpec spec : specs) {
+            long start = System.nanoTime();
+            RobotArena arena = ScenarioGenerator.generate(spec);
+            double generateMillis = (System.nanoTime() - start) / 1e6;
+            int obstacles = arena.getObstacles().size();
+            int items = arena.getItems().size() - obstacles;
+
+            start = System.nanoTime();
+            arena.update();
+            double firstMillis = (System.nanoTime() - start) / 1e6;
+            start = System.nanoTime();
+            for (int t = 1; t < ticks; t++) {
+                arena.update();
+            }
+            double tickMillis = ticks > 1 ? (System.nanoTime() - start) / 1e6 / (ticks - 1) : 0;
+
+            System.out.printf("%-22s %9d %9d %11.1f %11.1f %11.2f%n", spec.getName(),
+                    items, obstacles, generateMillis, firstMillis, tickMillis);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.robotgui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Builds arenas from {@link ScenarioSpec}s, for stress tests, benchmarks and regression runs.
+ * <p>
+ * Obstacles are laid out first and indexed once in a {@link StaticBvh}, so placing each later item costs a tree
+ * query rather than a scan or an index rebuild. Robots are kept apart from obstacles and, where space allows, from
+ * each other, using a uniform grid of the robots placed so far; food only avoids obstacles. An item that finds
+ * no free spot within a few attempts is placed at its last candidate that avoids obstacles, so dense specs still
+ * get their full counts. Each type draws from its own random stream derived from the seed, so changing one count
+ * leaves the positions of the other types unchanged. A million items generate in a few seconds.
+ */
+public final class ScenarioGenerator {
+    private static final int ATTEMPTS = 8; // Candidate positions tried per item
+    private static final int MAX_WALL_CELLS = 4; // Longest run of maze cell walls merged into one obstacle
+    private static final long MAX_GRID_CELLS = 1 << 22; // Cells of the robot spacing grid at most
+    private static final ItemType[] ROBOT_TYPES = {ItemType.WHISKER_ROBOT, ItemType.PREDATOR_ROBOT,
+            ItemType.BEAM_SENSOR_ROBOT, ItemType.CONTROLLABLE_ROBOT,
+            ItemType.LIDAR_ROBOT}; // Placed in this order, before food
+
+    private ScenarioGenerator() {
+        // Utility class
+    }
+
+    /**
+     * Generates the world a spec describes.
+     *
+     * @param spec The scenario to generate.
+     * @return A new arena holding the scenario's items, at tick 0.
+     */
+    public static RobotArena generate(ScenarioSpec spec) {
+        RobotArena arena = new RobotArena(spec.getWidth(), spec.getHeight());
+        ArrayList<ArenaItem> obstacles = new ArrayList<>();
+        Random random = stream(spec, ItemType.OBSTACLE);
+        if (spec.getLayout() == ScenarioSpec.Layout.MAZE) {
+            buildMaze(spec, random, obstacles);
+        } else if (spec.getLayout() == ScenarioSpec.Layout.SCATTERED) {
+            for (int i = 0; i < spec.getObstacleCount(); i++) {
+                double size = spec.getObstacleSize();
+                obstacles.add(new Obstacle(size + random.nextDouble() * Math.max(0, spec.getWidth() - 2 * size),
+                        size + random.nextDouble() * Math.max(0, spec.getHeight() - 2 * size), size));
+            }
+        }
+        for (ArenaItem obstacle : obstacles) {
+            arena.addItem(obstacle);
+        }
+        Placer placer = new Placer(spec, new StaticBvh(obstacles));
+
+        for (ItemType type : ROBOT_TYPES) {
+            place(arena, spec, type, placer, true);
+        }
+        place(arena, spec, ItemType.FOOD, placer, false);
+        return arena;
+    }
+
+    /**
+     * Returns the random stream of one type, independent of the other types' streams.
+     */
+    private static Random stream(ScenarioSpec spec, ItemType type) {
+        return new Random(spec.getSeed() * 0x9E3779B97F4A7C15L + type.getCode());
+    }
+
+    /**
+     * Places the items of one type.
+     */
+    private static void place(RobotArena arena, ScenarioSpec spec, ItemType type, Placer placer, boolean spaced) {
+        int count = spec.getCount(type);
+        if (count == 0) {
+            return;
+        }
+        Random random = stream(spec, type);
+        double radius = spec.getRadius(type);
+        double[] centreX = null, centreY = null;
+        if (spec.getDistribution(type) == ScenarioSpec.Distribution.CLUSTERED) {
+            centreX = new double[spec.getClusters(type)];
+            centreY = new double[spec.getClusters(type)];
+            for (int c = 0; c < centreX.length; c++) {
+                centreX[c] = random.nextDouble() * spec.getWidth();
+                centreY[c] = random.nextDouble() * spec.getHeight();
+            }
+        }
+        double[] position = new double[2];
+        for (int i = 0; i < count; i++) {
+            int cluster = centreX != null ? random.nextInt(centreX.length) : -1;
+            boolean found = false, clear = false;
+            for (int attempt = 0; attempt < ATTEMPTS && !found; attempt++) {
+                double x, y;
+                if (cluster >= 0) {
+                    x = centreX[cluster] + random.nextGaussian() * spec.getSpread(type);
+                    y = centreY[cluster] + random.nextGaussian() * spec.getSpread(type);
+                } else {
+                    x = random.nextDouble() * spec.getWidth();
+                    y = random.nextDouble() * spec.getHeight();
+                }
+                x = clamp(x, radius, spec.getWidth() - radius);
+                y = clamp(y, radius, spec.getHeight() - radius);
+                if (placer.hitsObstacle(x, y, radius)) {
+                    continue;
+                }
+                position[0] = x;
+                position[1] = y;
+                clear = true;
+                found = !spaced || !placer.hitsRobot(x, y, radius);
+            }
+            if (!clear) {
+                continue; // Every candidate was inside an obstacle; the arena is too cluttered for this item
+            }
+            ArenaItem item = arena.obtain(type, position[0], position[1], radius);
+            if (item instanceof Robot) {
+                ((Robot) item).setAngle(random.nextDouble() * 2 * Math.PI);
+            }
+            arena.addItem(item);
+            if (spaced) {
+                placer.addRobot(item);
+            }
+        }
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return min > max ? (min + max) / 2 : Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * Carves a maze with an iterative randomized depth-first search, then adds the walls left standing between
+     * cells, merging short runs of collinear walls. The arena's border is not walled, as the arena has its own.
+     */
+    private static void buildMaze(ScenarioSpec spec, Random random, ArrayList<ArenaItem> out) {
+        int columns = Math.max(1, (int) (spec.getWidth() / spec.getMazeCellSize()));
+        int rows = Math.max(1, (int) (spec.getHeight() / spec.getMazeCellSize()));
+        double cellWidth = spec.getWidth() / columns, cellHeight = spec.getHeight() / rows;
+        double thickness = spec.getWallThickness();
+        boolean[] eastOpen = new boolean[columns * rows], southOpen = new boolean[columns * rows];
+        boolean[] visited = new boolean[columns * rows];
+        int[] stack = new int[columns * rows];
+        int[] choices = new int[4];
+        int depth = 0;
+        stack[depth++] = random.nextInt(columns * rows);
+        visited[stack[0]] = true;
+        while (depth > 0) {
+            int cell = stack[depth - 1];
+            int column = cell % columns, row = cell / columns;
+            int options = 0;
+            if (column > 0 && !visited[cell - 1]) choices[options++] = cell - 1;
+            if (column < columns - 1 && !visited[cell + 1]) choices[options++] = cell + 1;
+            if (row > 0 && !visited[cell - columns]) choices[options++] = cell - columns;
+            if (row < rows - 1 && !visited[cell + columns]) choices[options++] = cell + columns;
+            if (options == 0) {
+                depth--; // Dead end: back up
+                continue;
+            }
+            int next = choices[random.nextInt(options)];
+            if (next == cell + 1) eastOpen[cell] = true;
+            else if (next == cell - 1) eastOpen[next] = true;
+            else if (next == cell + columns) southOpen[cell] = true;
+            else southOpen[next] = true;
+            visited[next] = true;
+            stack[depth++] = next;
+        }
+
+        // Vertical walls on the east side of cells, merged down each column line
+        for (int column = 0; column < columns - 1; column++) {
+            double x = (column + 1) * cellWidth;
+            for (int row = 0; row < rows; ) {
+                if (eastOpen[row * columns + column]) {
+                    row++;
+                    continue;
+                }
+                int end = row;
+                while (end < rows && end - row < MAX_WALL_CELLS && !eastOpen[end * columns + column]) {
+                    end++;
+                }
+                out.add(Obstacle.wall(x, row * cellHeight - thickness / 2, x, end * cellHeight + thickness / 2,
+                        thickness));
+                row = end;
+            }
+        }
+        // Horizontal walls on the south side of cells, merged along each row line
+        for (int row = 0; row < rows - 1; row++) {
+            double y = (row + 1) * cellHeight;
+            for (int column = 0; column < columns; ) {
+                if (southOpen[row * columns + column]) {
+                    column++;
+                    continue;
+                }
+                int end = column;
+                while (end < columns && end - column < MAX_WALL_CELLS && !southOpen[row * columns + end]) {
+                    end++;
+                }
+                out.add(Obstacle.wall(column * cellWidth - thickness / 2, y, end * cellWidth + thickness / 2, y,
+                        thickness));
+                column = end;
+            }
+        }
+    }
+
+    /**
+     * Answers whether a candidate position is free, from the obstacle tree and a grid of the robots placed so far.
+     */
+    private static final class Placer {
+        private final StaticBvh obstacles; // Every obstacle of the scenario
+        private final ArrayList<ArenaItem> candidates = new ArrayList<>(); // Reused result list of tree queries
+        private final double cellSize; // Side length of a grid cell, at least the largest robot diameter
+        private final int columns, rows; // Grid dimensions
+        private final int[] head; // First robot of each cell, -1 if none
+        private int[] next = new int[1024]; // Next robot in the same cell, by placement order
+        private double[] robotX = new double[1024], robotY = new double[1024], robotRadius = new double[1024];
+        private int robots; // Robots placed
+
+        Placer(ScenarioSpec spec, StaticBvh obstacles) {
+            this.obstacles = obstacles;
+            double largest = 0;
+            for (ItemType type : ROBOT_TYPES) {
+                if (spec.getCount(type) > 0) {
+                    largest = Math.max(largest, spec.getRadius(type));
+                }
+            }
+            double area = spec.getWidth() * spec.getHeight();
+            cellSize = Math.max(Math.max(2 * largest, 1), Math.sqrt(area / MAX_GRID_CELLS));
+            columns = Math.max(1, (int) Math.ceil(spec.getWidth() / cellSize));
+            rows = Math.max(1, (int) Math.ceil(spec.getHeight() / cellSize));
+            head = new int[columns * rows];
+            Arrays.fill(head, -1);
+        }
+
+        boolean hitsObstacle(double x, double y, double radius) {
+            candidates.clear();
+            obstacles.query(x - radius, y - radius, x + radius, y + radius, candidates);
+            for (ArenaItem candidate : candidates) {
+                if (((Obstacle) candidate).overlapsCircle(x, y, radius)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean hitsRobot(double x, double y, double radius) {
+            int column = Math.min(columns - 1, (int) (x / cellSize));
+            int row = Math.min(rows - 1, (int) (y / cellSize));
+            // Cells are at least a robot diameter wide, so any overlapping robot is centred in a neighbouring cell
+            for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+                for (int c = Math.max(0, column - 1); c <= Math.min(columns - 1, column + 1); c++) {
+                    for (int i = head[r * columns + c]; i >= 0; i = next[i]) {
+                        double dx = robotX[i] - x, dy = robotY[i] - y, reach = robotRadius[i] + radius;
+                        if (dx * dx + dy * dy < reach * reach) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+
+        void addRobot(ArenaItem robot) {
+            if (robots == next.length) {
+                int capacity = robots * 2;
+                next = Arrays.copyOf(next, capacity);
+                robotX = Arrays.copyOf(robotX, capacity);
+                robotY = Arrays.copyOf(robotY, capacity);
+                robotRadius = Arrays.copyOf(robotRadius, capacity);
+            }
+            int cell = Math.min(rows - 1, (int) (robot.y / cellSize)) * columns
+                    + Math.min(columns - 1, (int) (robot.x / cellSize));
+            robotX[robots] = robot.x;
+            robotY[robots] = robot.y;
+            robotRadius[robots] = robot.radius;
+            next[robots] = head[cell];
+            head[cell] = robots++;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.robotgui;
+
+import java.util.List;
+
+/**
+ * The named scenarios offered in the Scenarios menu and by the headless tools, from the small default world to a
+ * million items. Each call returns fresh specs, so callers may adjust them before generating.
+ */
+public final class ScenarioLibrary {
+
+    private ScenarioLibrary() {
+        // Utility class
+    }
+
+    /**
+     * Returns every named scenario, smallest first.
+     *
+     * @return The scenarios.
+     */
+    public static List<ScenarioSpec> all() {
+        return List.of(
+                // A few robots of each kind among scattered obstacles and food, at the UI's scale
+                new ScenarioSpec("Sampler").seed(1)
+                        .count(ItemType.WHISKER_ROBOT, 6).count(ItemType.PREDATOR_ROBOT, 2)
+                        .count(ItemType.BEAM_SENSOR_ROBOT, 3).count(ItemType.CONTROLLABLE_ROBOT, 1)
+                        .count(ItemType.FOOD, 20).scatteredObstacles(5, 30),
+                // Foragers finding their way to food through corridors
+                new ScenarioSpec("Maze foragers").seed(2)
+                        .count(ItemType.WHISKER_ROBOT, 12).radius(ItemType.WHISKER_ROBOT, 12)
+                        .count(ItemType.FOOD, 30).maze(100, 8),
+                // Lidar robots scanning among obstacles and food patches, for the batched ray caster
+                new ScenarioSpec("Lidar swarm 1k").seed(6).size(2400, 1800)
+                        .count(ItemType.LIDAR_ROBOT, 1_000).radius(ItemType.LIDAR_ROBOT, 8)
+                        .count(ItemType.FOOD, 1_500).radius(ItemType.FOOD, 5)
+                        .clustered(ItemType.FOOD, 12, 120).scatteredObstacles(80, 40),
+                // Dense foragers around food patches, for neighbour queries and food removal
+                new ScenarioSpec("Forager swarm 10k").seed(3).size(4000, 3000)
+                        .count(ItemType.WHISKER_ROBOT, 10_000).radius(ItemType.WHISKER_ROBOT, 6)
+                        .count(ItemType.FOOD, 5_000).radius(ItemType.FOOD, 4)
+                        .clustered(ItemType.FOOD, 25, 150).scatteredObstacles(100, 30),
+                // Predators hunting a large uniform population
+                new ScenarioSpec("Predator prey 100k").seed(4).size(16000, 12000)
+                        .count(ItemType.WHISKER_ROBOT, 90_000).radius(ItemType.WHISKER_ROBOT, 6)
+                        .count(ItemType.PREDATOR_ROBOT, 5_000).radius(ItemType.PREDATOR_ROBOT, 8)
+                        .count(ItemType.BEAM_SENSOR_ROBOT, 5_000).radius(ItemType.BEAM_SENSOR_ROBOT, 6)
+                        .count(ItemType.FOOD, 20_000).radius(ItemType.FOOD, 4).scatteredObstacles(500, 40),
+                // A large maze, mostly food, for static indexing and the food distance field
+                new ScenarioSpec("Maze world 1M").seed(5).size(40000, 30000)
+                        .count(ItemType.WHISKER_ROBOT, 50_000).radius(ItemType.WHISKER_ROBOT, 6)
+                        .count(ItemType.PREDATOR_ROBOT, 2_000).radius(ItemType.PREDATOR_ROBOT, 8)
+                        .count(ItemType.FOOD, 948_000).radius(ItemType.FOOD, 3)
+                        .clustered(ItemType.FOOD, 400, 300).maze(500, 10));
+    }
+
+    /**
+     * Looks up a scenario by name, ignoring case.
+     *
+     * @param name The scenario's name.
+     * @return The scenario.
+     * @throws IllegalArgumentException If no scenario has the name.
+     */
+    public static ScenarioSpec byName(String name) {
+        for (ScenarioSpec spec : all()) {
+            if (spec.getName().equalsIgnoreCase(name)) {
+                return spec;
+            }
+        }
+        throw new IllegalArgumentException("Unknown scenario: " + name);
+    }
+}
@@ -0,0 +1,472 @@
+package com.example.robotgui;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * A declarative description of a world for {@link ScenarioGenerator}: arena size, seed, how many items of each type
+ * to place and how to spread them, and the obstacle layout.
+ * <p>
+ * Specs are built with chained setters or read from properties text such as
+ * <pre>
+ * seed = 42
+ * width = 4000
+ * height = 3000
+ * whisker_robot.count = 5000
+ * whisker_robot.radius = 6
+ * food.count = 20000
+ * food.distribution = clustered
+ * food.clusters = 40
+ * food.spread = 120
+ * obstacles = maze
+ * maze.cell = 200
+ * maze.wall = 8
+ * </pre>
+ * Type keys are the lower-case {@link ItemType} names. The same spec and seed always generate the same world.
+ * Kept free of JavaFX so headless tools can generate scenarios too.
+ */
+public final class ScenarioSpec {
+    /**
+     * How the items of a type are spread over the arena.
+     */
+    public enum Distribution {
+        UNIFORM, // Anywhere in the arena with equal probability
+        CLUSTERED // Normally distributed around a few uniformly placed centres
+    }
+
+    /**
+     * How obstacles are laid out.
+     */
+    public enum Layout {
+        NONE, // No obstacles
+        SCATTERED, // Triangles of a fixed size at uniform positions
+        MAZE // Walls of a randomly carved maze with a passage between every pair of cells
+    }
+
+    private static final ItemType[] PLACED_TYPES = {ItemType.WHISKER_ROBOT, ItemType.PREDATOR_ROBOT,
+            ItemType.BEAM_SENSOR_ROBOT, ItemType.CONTROLLABLE_ROBOT, ItemType.LIDAR_ROBOT,
+            ItemType.FOOD}; // Types placed by count
+
+    private final String name; // Name shown in menus and reports
+    private long seed; // Seed of every random choice
+    private double width = 800, height = 600; // Dimensions of the arena
+    private final int[] counts = new int[ItemType.values().length]; // Items to place, by type ordinal
+    private final double[] radii = new double[ItemType.values().length]; // Item radius, by type ordinal
+    private final Distribution[] distributions = new Distribution[ItemType.values().length];
+    private final int[] clusters = new int[ItemType.values().length]; // Cluster count, by type ordinal
+    private final double[] spreads = new double[ItemType.values().length]; // Cluster standard deviation
+    private Layout layout = Layout.NONE; // Obstacle layout
+    private int obstacleCount; // Obstacles of a scattered layout
+    private double obstacleSize = 30; // Radius of scattered obstacles
+    private double mazeCellSize = 100; // Side length of a maze cell
+    private double wallThickness = 6; // Thickness of maze walls
+
+    /**
+     * Creates an empty spec with an 800 by 600 arena and seed 0.
+     *
+     * @param name The scenario's name.
+     */
+    public ScenarioSpec(String name) {
+        this.name = name;
+        for (ItemType type : PLACED_TYPES) {
+            radii[type.ordinal()] = type == ItemType.FOOD ? 10 : 20; // The sizes the UI creates
+            distributions[type.ordinal()] = Distribution.UNIFORM;
+            clusters[type.ordinal()] = 8;
+            spreads[type.ordinal()] = 50;
+        }
+    }
+
+    /**
+     * Sets the seed.
+     *
+     * @param seed The seed of every random choice.
+     * @return This spec.
+     */
+    public ScenarioSpec seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Sets the arena size.
+     *
+     * @param width  The width of the arena.
+     * @param height The height of the arena.
+     * @return This spec.
+     */
+    public ScenarioSpec size(double width, double height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Arena size must be positive: " + width + " x " + height);
+        }
+        this.width = width;
+        this.height = height;
+        return this;
+    }
+
+    /**
+     * Sets how many items of a type to place, spread uniformly unless changed.
+     *
+     * @param type  A robot type or food.
+     * @param count The number of items.
+     * @return This spec.
+     */
+    public ScenarioSpec count(ItemType type, int count) {
+        checkPlaced(type);
+        if (count < 0) {
+            throw new IllegalArgumentException("Negative count for " + type + ": " + count);
+        }
+        counts[type.ordinal()] = count;
+        return this;
+    }
+
+    /**
+     * Sets the radius of the items of a type.
+     *
+     * @param type   A robot type or food.
+     * @param radius The radius.
+     * @return This spec.
+     */
+    public ScenarioSpec radius(ItemType type, double radius) {
+        checkPlaced(type);
+        if (radius <= 0) {
+            throw new IllegalArgumentException("Radius must be positive for " + type + ": " + radius);
+        }
+        radii[type.ordinal()] = radius;
+        return this;
+    }
+
+    /**
+     * Spreads the items of a type uniformly over the arena.
+     *
+     * @param type A robot type or food.
+     * @return This spec.
+     */
+    public ScenarioSpec uniform(ItemType type) {
+        checkPlaced(type);
+        distributions[type.ordinal()] = Distribution.UNIFORM;
+        return this;
+    }
+
+    /**
+     * Gathers the items of a type around randomly placed centres.
+     *
+     * @param type     A robot type or food.
+     * @param clusters The number of centres.
+     * @param spread   The standard deviation of the distance from a centre.
+     * @return This spec.
+     */
+    public ScenarioSpec clustered(ItemType type, int clusters, double spread) {
+        checkPlaced(type);
+        if (clusters < 1 || spread <= 0) {
+            throw new IllegalArgumentException("Invalid clusters for " + type + ": " + clusters + ", " + spread);
+        }
+        distributions[type.ordinal()] = Distribution.CLUSTERED;
+        this.clusters[type.ordinal()] = clusters;
+        spreads[type.ordinal()] = spread;
+        return this;
+    }
+
+    /**
+     * Removes all obstacles.
+     *
+     * @return This spec.
+     */
+    public ScenarioSpec noObstacles() {
+        layout = Layout.NONE;
+        return this;
+    }
+
+    /**
+     * Scatters triangular obstacles uniformly over the arena.
+     *
+     * @param count The number of obstacles.
+     * @param size  Their radius.
+     * @return This spec.
+     */
+    public ScenarioSpec scatteredObstacles(int count, double size) {
+        if (count < 0 || size <= 0) {
+            throw new IllegalArgumentException("Invalid obstacles: " + count + ", " + size);
+        }
+        layout = Layout.SCATTERED;
+        obstacleCount = count;
+        obstacleSize = size;
+        return this;
+    }
+
+    /**
+     * Divides the arena into a maze of square cells separated by walls.
+     *
+     * @param cellSize  The side length of a cell; should be well above a robot's diameter.
+     * @param thickness The thickness of the walls.
+     * @return This spec.
+     */
+    public ScenarioSpec maze(double cellSize, double thickness) {
+        if (cellSize <= thickness || thickness <= 0) {
+            throw new IllegalArgumentException("Invalid maze: cell " + cellSize + ", wall " + thickness);
+        }
+        layout = Layout.MAZE;
+        mazeCellSize = cellSize;
+        wallThickness = thickness;
+        return this;
+    }
+
+    private static void checkPlaced(ItemType type) {
+        if (type == ItemType.OBSTACLE) {
+            throw new IllegalArgumentException("Obstacles are placed by the layout, not by count");
+        }
+    }
+
+    /**
+     * Returns the scenario's name.
+     *
+     * @return The name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the seed.
+     *
+     * @return The seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the width of the arena.
+     *
+     * @return The width.
+     */
+    public double getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the arena.
+     *
+     * @return The height.
+     */
+    public double getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns how many items of a type are placed.
+     *
+     * @param type The type.
+     * @return The count, 0 for obstacles.
+     */
+    public int getCount(ItemType type) {
+        return counts[type.ordinal()];
+    }
+
+    /**
+     * Returns the radius of the items of a type.
+     *
+     * @param type A robot type or food.
+     * @return The radius.
+     */
+    public double getRadius(ItemType type) {
+        return radii[type.ordinal()];
+    }
+
+    /**
+     * Returns how the items of a type are spread.
+     *
+     * @param type A robot type or food.
+     * @return The distribution.
+     */
+    public Distribution getDistribution(ItemType type) {
+        return distributions[type.ordinal()];
+    }
+
+    /**
+     * Returns the number of cluster centres of a type.
+     *
+     * @param type A robot type or food.
+     * @return The cluster count.
+     */
+    public int getClusters(ItemType type) {
+        return clusters[type.ordinal()];
+    }
+
+    /**
+     * Returns the standard deviation of the distance from a cluster centre of a type.
+     *
+     * @param type A robot type or food.
+     * @return The spread.
+     */
+    public double getSpread(ItemType type) {
+        return spreads[type.ordinal()];
+    }
+
+    /**
+     * Returns the obstacle layout.
+     *
+     * @return The layout.
+     */
+    public Layout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Returns the number of obstacles of a scattered layout.
+     *
+     * @return The obstacle count.
+     */
+    public int getObstacleCount() {
+        return obstacleCount;
+    }
+
+    /**
+     * Returns the radius of scattered obstacles.
+     *
+     * @return The obstacle size.
+     */
+    public double getObstacleSize() {
+        return obstacleSize;
+    }
+
+    /**
+     * Returns the side length of a maze cell.
+     *
+     * @return The cell size.
+     */
+    public double getMazeCellSize() {
+        return mazeCellSize;
+    }
+
+    /**
+     * Returns the thickness of maze walls.
+     *
+     * @return The wall thickness.
+     */
+    public double getWallThickness() {
+        return wallThickness;
+    }
+
+    /**
+     * Returns the total number of robots and food items placed, not counting obstacles.
+     *
+     * @return The item count.
+     */
+    public long getTotalCount() {
+        long total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Reads a spec from a properties file, named after the file.
+     *
+     * @param file The file to read.
+     * @return The spec.
+     * @throws IOException If the file cannot be read.
+     */
+    public static ScenarioSpec load(File file) throws IOException {
+        String name = file.getName().replaceFirst("\\.[^.]*$", "");
+        try (Reader reader = Files.newBufferedReader(file.toPath())) {
+            return parse(name, reader);
+        }
+    }
+
+    /**
+     * Reads a spec from properties text.
+     *
+     * @param name The scenario's name.
+     * @param text The properties text.
+     * @return The spec.
+     */
+    public static ScenarioSpec parse(String name, String text) {
+        try {
+            return parse(name, new StringReader(text));
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // Cannot happen when reading a string
+        }
+    }
+
+    private static ScenarioSpec parse(String name, Reader reader) throws IOException {
+        Properties properties = new Properties();
+        properties.load(reader);
+        ScenarioSpec spec = new ScenarioSpec(properties.getProperty("name", name));
+        try {
+            spec.seed(Long.parseLong(properties.getProperty("seed", "0").trim()));
+            spec.size(number(properties, "width", spec.width), number(properties, "height", spec.height));
+            for (ItemType type : PLACED_TYPES) {
+                String key = type.name().toLowerCase(Locale.ROOT);
+                spec.count(type, (int) number(properties, key + ".count", 0));
+                spec.radius(type, number(properties, key + ".radius", spec.getRadius(type)));
+                String distribution = properties.getProperty(key + ".distribution", "uniform").trim();
+                if (Distribution.valueOf(distribution.toUpperCase(Locale.ROOT)) == Distribution.CLUSTERED) {
+                    spec.clustered(type, (int) number(properties, key + ".clusters", spec.getClusters(type)),
+                            number(properties, key + ".spread", spec.getSpread(type)));
+                }
+            }
+            String layout = properties.getProperty("obstacles", "none").trim();
+            switch (Layout.valueOf(layout.toUpperCase(Locale.ROOT))) {
+                case SCATTERED -> spec.scatteredObstacles((int) number(properties, "obstacles.count", 0),
+                        number(properties, "obstacles.size", spec.obstacleSize));
+                case MAZE -> spec.maze(number(properties, "maze.cell", spec.mazeCellSize),
+                        number(properties, "maze.wall", spec.wallThickness));
+                default -> spec.noObstacles();
+            }
+        } catch (IllegalArgumentException e) { // Includes NumberFormatException
+            throw new IllegalArgumentException("Invalid scenario " + name + ": " + e.getMessage(), e);
+        }
+        return spec;
+    }
+
+    private static double number(Properties properties, String key, double fallback) {
+        String value = properties.getProperty(key);
+        return value == null ? fallback : Double.parseDouble(value.trim());
+    }
+
+    /**
+     * Writes the spec as properties text that {@link #parse(String, String)} reads back.
+     *
+     * @return The properties text.
+     */
+    public String format() {
+        StringBuilder text = new StringBuilder();
+        text.append("name = ").append(name).append('\n');
+        text.append("seed = ").append(seed).append('\n');
+        text.append("width = ").append(width).append('\n');
+        text.append("height = ").append(height).append('\n');
+        for (ItemType type : PLACED_TYPES) {
+            if (getCount(type) == 0) {
+                continue;
+            }
+            String key = type.name().toLowerCase(Locale.ROOT);
+            text.append(key).append(".count = ").append(getCount(type)).append('\n');
+            text.append(key).append(".radius = ").append(getRadius(type)).append('\n');
+            if (getDistribution(type) == Distribution.CLUSTERED) {
+                text.append(key).append(".distribution = clustered\n");
+                text.append(key).append(".clusters = ").append(getClusters(type)).append('\n');
+                text.append(key).append(".spread = ").append(getSpread(type)).append('\n');
+            }
+        }
+        text.append("obstacles = ").append(layout.name().toLowerCase(Locale.ROOT)).append('\n');
+        if (layout == Layout.SCATTERED) {
+            text.append("obstacles.count = ").append(obstacleCount).append('\n');
+            text.append("obstacles.size = ").append(obstacleSize).append('\n');
+        } else if (layout == Layout.MAZE) {
+            text.append("maze.cell = ").append(mazeCellSize).append('\n');
+            text.append("maze.wall = ").append(wallThickness).append('\n');
+        }
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
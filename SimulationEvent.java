@@ -0,0 +1,26 @@
+package com.example.robotgui;
+
+/**
+ * Types of notable events that happen while the arena updates.
+ * Events are published to the arena's {@link EventRing} as primitive fields, so no event objects are allocated.
+ */
+public enum SimulationEvent {
+    /** A predator ate a prey robot. Subject is the predator, object is the prey. */
+    KILL,
+    /** A robot consumed a food item. Subject is the robot, object is the food. */
+    MEAL,
+    /** A robot ran out of energy or health and was removed. Subject is the robot, there is no object. */
+    DEATH;
+
+    private static final SimulationEvent[] VALUES = values(); // Cached to avoid copying on every lookup
+
+    /**
+     * Looks up an event type by ordinal without allocating.
+     *
+     * @param ordinal The ordinal of the event type.
+     * @return The matching SimulationEvent.
+     */
+    static SimulationEvent fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
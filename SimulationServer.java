@@ -0,0 +1,390 @@
+package com.example.robotgui;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a RobotArena without JavaFX and streams its state to viewers over a local socket.
+ * <p>
+ * The arena is owned by a single simulation thread. After every tick the state is encoded once as a delta
+ * frame and handed to every connected viewer. Viewers that have just connected, or that fell so far behind
+ * that frames had to be dropped, are sent a keyframe instead so they can resynchronise. Each viewer has its
+ * own bounded queue and writer thread, so a slow viewer never slows down the simulation or other viewers.
+ * <p>
+ * On the wire every frame is preceded by its length as a 4 byte big-endian integer.
+ */
+public class SimulationServer {
+    public static final int DEFAULT_PORT = 5757; // Port used when none is given
+    private static final int KEYFRAME_INTERVAL = 300; // Ticks between keyframes sent to all viewers
+    private static final int VIEWER_QUEUE_FRAMES = 64; // Frames buffered per viewer before dropping
+
+    private final RobotArena arena; // Arena being simulated, only touched by the simulation thread
+    private final double ticksPerSecond; // Target tick rate, 0 or less to run as fast as possible
+    private final ServerSocket serverSocket;
+    private final List<ViewerConnection> viewers = new CopyOnWriteArrayList<>();
+    private final StateStreamEncoder encoder = new StateStreamEncoder();
+    private volatile TickRecorder[] recorders = {}; // Observers of every tick, called on the simulation thread
+    private volatile boolean running;
+    private Thread simulationThread;
+    private Thread acceptThread;
+
+    /**
+     * Creates a server for the given arena, listening on the loopback interface.
+     *
+     * @param arena          The arena to simulate.
+     * @param port           The port to listen on, or 0 to pick a free port.
+     * @param ticksPerSecond The target tick rate, or 0 to run as fast as possible.
+     * @throws IOException If the socket cannot be opened.
+     */
+    public SimulationServer(RobotArena arena, int port, double ticksPerSecond) throws IOException {
+        this.arena = arena;
+        this.ticksPerSecond = ticksPerSecond;
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * Returns the port the server is listening on.
+     *
+     * @return The local port.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Returns the number of currently connected viewers.
+     *
+     * @return The viewer count.
+     */
+    public int getViewerCount() {
+        return viewers.size();
+    }
+
+    /**
+     * Sets the recorders that observe the arena after every tick, such as a {@link FrameCapture}.
+     *
+     * @param recorders The recorders, called on the simulation thread.
+     */
+    public void setRecorders(TickRecorder... recorders) {
+        this.recorders = recorders.clone();
+    }
+
+    /**
+     * Starts accepting viewers and running the simulation on background threads.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        acceptThread = new Thread(this::acceptViewers, "simulation-server-accept");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        simulationThread = new Thread(this::runSimulation, "simulation-server-tick");
+        simulationThread.start();
+    }
+
+    /**
+     * Stops the simulation, disconnects all viewers and closes the server socket.
+     * Returns once the simulation thread has finished its last tick, so the recorders are no longer in use.
+     */
+    public synchronized void stop() {
+        running = false;
+        try {
+            serverSocket.close(); // Unblocks the accept thread
+        } catch (IOException e) {
+            // Already closed
+        }
+        for (ViewerConnection viewer : viewers) {
+            viewer.close();
+        }
+        if (simulationThread != null) {
+            try {
+                simulationThread.join(); // Finishes the current tick and its recorders
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Makes every connected viewer resynchronise with a keyframe on the next tick, as when its queue overflows.
+     * Used by {@link LoopbackCheck} to exercise the resync path.
+     */
+    void resyncViewers() {
+        for (ViewerConnection viewer : viewers) {
+            viewer.needsKeyframe = true;
+        }
+    }
+
+    /**
+     * Accepts viewer connections until the server is stopped.
+     */
+    private void acceptViewers() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                ViewerConnection viewer = new ViewerConnection(socket);
+                viewers.add(viewer);
+                viewer.start();
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Failed to accept viewer: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * The simulation loop: update, encode, broadcast, then wait for the next tick.
+     */
+    private void runSimulation() {
+        long tickNanos = ticksPerSecond > 0 ? (long) (1_000_000_000L / ticksPerSecond) : 0;
+        long nextTick = System.nanoTime();
+        while (running) {
+            arena.update();
+            for (TickRecorder recorder : recorders) {
+                recorder.record(arena);
+            }
+            broadcast();
+
+            if (tickNanos > 0) {
+                nextTick += tickNanos;
+                long wait = nextTick - System.nanoTime();
+                if (wait > 0) {
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                } else {
+                    nextTick = System.nanoTime(); // Running behind, do not try to catch up
+                }
+            }
+        }
+    }
+
+    /**
+     * Encodes the current state once and queues it for every viewer.
+     */
+    private void broadcast() {
+        // The encoder must see every tick so its baseline stays in step, even with no viewers
+        byte[] delta = encoder.encodeDelta(arena);
+        boolean periodicKeyframe = arena.getTick() % KEYFRAME_INTERVAL == 0;
+        byte[] keyframe = null;
+        for (ViewerConnection viewer : viewers) {
+            if (viewer.closed) {
+                viewers.remove(viewer);
+                continue;
+            }
+            if (viewer.needsKeyframe || periodicKeyframe) {
+                if (keyframe == null) {
+                    keyframe = encoder.encodeKeyframe();
+                }
+                viewer.offer(keyframe, true);
+            } else {
+                viewer.offer(delta, false);
+            }
+        }
+    }
+
+    /**
+     * A connected viewer with its own frame queue and writer thread.
+     */
+    private static final class ViewerConnection {
+        private final Socket socket;
+        private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(VIEWER_QUEUE_FRAMES);
+        private volatile boolean needsKeyframe = true; // Set until a keyframe has been queued
+        private volatile boolean closed;
+
+        ViewerConnection(Socket socket) {
+            this.socket = socket;
+        }
+
+        void start() {
+            Thread writer = new Thread(this::writeFrames, "simulation-server-viewer-" + socket.getPort());
+            writer.setDaemon(true);
+            writer.start();
+        }
+
+        /**
+         * Queues a frame without blocking. If the queue is full the delta chain is broken,
+         * so the backlog is discarded and the viewer is resynchronised with the next keyframe.
+         *
+         * @param frame    The encoded frame.
+         * @param keyframe True if the frame is a keyframe.
+         */
+        void offer(byte[] frame, boolean keyframe) {
+            if (keyframe) {
+                queue.clear(); // Older deltas are superseded by the keyframe
+                needsKeyframe = false;
+            }
+            if (!queue.offer(frame)) {
+                queue.clear();
+                needsKeyframe = true;
+            }
+        }
+
+        private void writeFrames() {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+                while (!closed) {
+                    byte[] frame = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (frame == null) {
+                        continue;
+                    }
+                    out.writeInt(frame.length);
+                    out.write(frame);
+                    if (queue.isEmpty()) {
+                        out.flush(); // Flush once the backlog has been written
+                    }
+                }
+            } catch (SocketException e) {
+                // Viewer disconnected
+            } catch (IOException e) {
+                System.err.println("Viewer connection failed: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+            }
+        }
+
+        void close() {
+            closed = true;
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+
+    /**
+     * Runs a headless simulation server.
+     * Usage: {@code SimulationServer [--port N] [--tps N] [--config file] [--scenario name|file]
+     * [--fast-trig true|false] [--dt N] [--simd true|false] [--capture directory] [--capture-every N]
+     * [--capture-format png|raw] [--capture-size WIDTHxHEIGHT] [--autosave directory] [--autosave-every seconds]}
+     * <p>
+     * With {@code --capture}, frames are recorded showing the whole arena, and written until the server stops.
+     * With {@code --autosave}, the arena is saved periodically; if the last server using the directory did not
+     * stop cleanly, the simulation resumes from its newest intact save instead of the given arena.
+     *
+     * @param args Command line arguments.
+     * @throws IOException If the configuration cannot be read or the socket cannot be opened.
+     * @throws IllegalArgumentException If an option is unknown or has no value.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        double tps = 60;
+        File config = null;
+        String scenario = null;
+        double timeStep = 1;
+        File captureDirectory = null;
+        int captureInterval = 1, captureWidth = 800, captureHeight = 600;
+        FrameCapture.Format captureFormat = FrameCapture.Format.PNG;
+        File autosaveDirectory = null;
+        long autosaveMillis = Autosave.DEFAULT_INTERVAL_MILLIS;
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for option: " + args[i]);
+            }
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[i + 1]);
+                case "--tps" -> tps = Double.parseDouble(args[i + 1]);
+                case "--config" -> config = new File(args[i + 1]);
+                case "--scenario" -> scenario = args[i + 1];
+                case "--fast-trig" -> FastTrig.setEnabled(Boolean.parseBoolean(args[i + 1]));
+                case "--dt" -> timeStep = Double.parseDouble(args[i + 1]);
+                case "--simd" -> DistanceKernels.setVectorEnabled(Boolean.parseBoolean(args[i + 1]));
+                case "--capture" -> captureDirectory = new File(args[i + 1]);
+                case "--capture-every" -> captureInterval = Integer.parseInt(args[i + 1]);
+                case "--capture-format" ->
+                        captureFormat = FrameCapture.Format.valueOf(args[i + 1].toUpperCase(Locale.ROOT));
+                case "--capture-size" -> {
+                    String[] size = args[i + 1].split("x");
+                    captureWidth = Integer.parseInt(size[0]);
+                    captureHeight = Integer.parseInt(size[1]);
+                }
+                case "--autosave" -> autosaveDirectory = new File(args[i + 1]);
+                case "--autosave-every" -> autosaveMillis = Math.round(Double.parseDouble(args[i + 1]) * 1000);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        RobotArena arena;
+        RobotArena recovered = autosaveDirectory != null && Autosave.wasInterrupted(autosaveDirectory)
+                ? Autosave.readLatest(autosaveDirectory) : null;
+        if (recovered != null) {
+            arena = recovered;
+            System.out.println("Recovered autosave from tick " + arena.getTick());
+        } else if (config != null) {
+            arena = ArenaConfig.load(config, 800, 600);
+        } else if (scenario != null) {
+            File specFile = new File(scenario);
+            arena = ScenarioGenerator.generate(specFile.isFile() ? ScenarioSpec.load(specFile)
+                    : ScenarioLibrary.byName(scenario));
+        } else {
+            arena = new RobotArena(800, 600);
+            arena.addItem(new WhiskerRobot(100, 100, 20, Math.PI / 4, 2, 50));
+            arena.addItem(new WhiskerRobot(200, 200, 20, Math.PI / 3, 1.8, 50));
+            arena.addItem(new Obstacle(400, 300, 30));
+        }
+
+        if (recovered == null) {
+            arena.setTimeStep(timeStep); // A recovered arena keeps its saved time step
+        }
+
+        SimulationServer server = new SimulationServer(arena, port, tps);
+        List<TickRecorder> recorders = new ArrayList<>();
+        FrameCapture capture = null;
+        if (captureDirectory != null) {
+            capture = new FrameCapture(captureDirectory, captureFormat, captureInterval, captureWidth, captureHeight);
+            capture.setViewport(0, 0, Math.min(captureWidth / arena.getWidth(), captureHeight / arena.getHeight()));
+            recorders.add(capture);
+        }
+        Autosave autosave = autosaveDirectory != null ? new Autosave(autosaveDirectory, autosaveMillis) : null;
+        if (autosave != null) {
+            recorders.add(autosave);
+        }
+        server.setRecorders(recorders.toArray(new TickRecorder[0]));
+        FrameCapture finalCapture = capture;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            if (autosave != null) {
+                try {
+                    autosave.close(); // Marks a clean shutdown
+                    System.out.printf("Autosaved %d times, last at tick %d%n", autosave.getWritten(),
+                            autosave.getLastWrittenTick());
+                } catch (IOException e) {
+                    System.err.println("Failed to autosave: " + e.getMessage());
+                }
+            }
+            if (finalCapture != null) {
+                try {
+                    finalCapture.close(); // Writes the queued frames
+                    System.out.printf("Captured %d frames, dropped %d%n", finalCapture.getWritten(),
+                            finalCapture.getDropped());
+                } catch (IOException e) {
+                    System.err.println("Failed to write frames: " + e.getMessage());
+                }
+            }
+        }));
+        server.start();
+        System.out.println("Simulation server listening on port " + server.getPort());
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.robotgui;
+
+/**
+ * An immutable snapshot of arena state as reconstructed by a remote viewer.
+ * Holds the decoded (de-quantised) type, position, heading and radius of every item at one tick, and the outline of
+ * every obstacle.
+ */
+public final class StateFrame {
+    private final long tick; // Simulation tick the frame describes
+    private final double width, height; // Arena dimensions
+    private final int count; // Number of items
+    private final int[] ids;
+    private final ItemType[] types;
+    private final double[] xs, ys, angles, radii;
+    private final ConvexPolygon[] shapes; // Outline of obstacles, null for other items
+
+    StateFrame(long tick, double width, double height, int count, int[] ids, ItemType[] types,
+               double[] xs, double[] ys, double[] angles, double[] radii, ConvexPolygon[] shapes) {
+        this.tick = tick;
+        this.width = width;
+        this.height = height;
+        this.count = count;
+        this.ids = ids;
+        this.types = types;
+        this.xs = xs;
+        this.ys = ys;
+        this.angles = angles;
+        this.radii = radii;
+        this.shapes = shapes;
+    }
+
+    /**
+     * @return The simulation tick the frame describes.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return The width of the remote arena.
+     */
+    public double getWidth() {
+        return width;
+    }
+
+    /**
+     * @return The height of the remote arena.
+     */
+    public double getHeight() {
+        return height;
+    }
+
+    /**
+     * @return The number of items in the frame.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @param index Index of the item, from 0 to getCount() - 1.
+     * @return The arena id of the item.
+     */
+    public int getId(int index) {
+        return ids[index];
+    }
+
+    /**
+     * @param index Index of the item.
+     * @return The type of the item.
+     */
+    public ItemType getType(int index) {
+        return types[index];
+    }
+
+    /**
+     * @param index Index of the item.
+     * @return The x-coordinate of the item.
+     */
+    public double getX(int index) {
+        return xs[index];
+    }
+
+    /**
+     * @param index Index of the item.
+     * @return The y-coordinate of the item.
+     */
+    public double getY(int index) {
+        return ys[index];
+    }
+
+    /**
+     * @param index Index of the item.
+     * @return The heading of the item in radians, 0 for items without a heading.
+     */
+    public double getAngle(int index) {
+        return angles[index];
+    }
+
+    /**
+     * @param index Index of the item.
+     * @return The radius of the item.
+     */
+    public double getRadius(int index) {
+        return radii[index];
+    }
+
+    /**
+     * @param index Index of the item.
+     * @return The outline of the item relative to its position if it is an obstacle, otherwise null.
+     */
+    public ConvexPolygon getShape(int index) {
+        return shapes[index];
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.robotgui;
+
+import java.util.Arrays;
+
+/**
+ * Rebuilds arena state from the frames produced by {@link StateStreamEncoder}.
+ * Keyframes replace the whole state, delta frames are applied on top of it. Obstacle outlines are rebuilt from
+ * their quantised vertices when they arrive and shared by every snapshot until they change.
+ * Deltas received before the first keyframe cannot be applied and are rejected.
+ */
+public class StateStreamDecoder {
+    // Quantised state, indexed by item id
+    private int[] stateX = new int[64];
+    private int[] stateY = new int[64];
+    private int[] stateRadius = new int[64];
+    private byte[] stateAngle = new byte[64];
+    private ItemType[] stateType = new ItemType[64];
+    private ConvexPolygon[] stateShape = new ConvexPolygon[64]; // Outline of obstacles, null for other items
+    private boolean[] present = new boolean[64];
+
+    private int[] ids = new int[64]; // Ids currently present, in arrival order
+    private int count;
+    private boolean synced; // True once a keyframe has been applied
+    private long tick;
+    private double width, height;
+
+    private byte[] data; // Frame being decoded
+    private int position; // Read position in the frame
+
+    /**
+     * Applies one frame to the decoded state.
+     *
+     * @param frame The encoded frame.
+     * @return True if the frame was applied, false if it was a delta received before any keyframe.
+     * @throws IllegalArgumentException If the frame is malformed.
+     */
+    public boolean apply(byte[] frame) {
+        data = frame;
+        position = 0;
+        try {
+            int frameType = readByte();
+            long frameTick = readVarLong();
+            int frameWidth = readVarInt();
+            int frameHeight = readVarInt();
+
+            if (frameType == StateStreamEncoder.KEYFRAME) {
+                clear();
+                int records = readVarInt();
+                for (int i = 0; i < records; i++) {
+                    readRecord();
+                }
+                synced = true;
+            } else if (frameType == StateStreamEncoder.DELTA) {
+                if (!synced) {
+                    return false; // Wait for a keyframe
+                }
+                int removed = readVarInt();
+                for (int i = 0; i < removed; i++) {
+                    int id = readVarInt();
+                    if (id < present.length) {
+                        present[id] = false;
+                        stateShape[id] = null;
+                    }
+                }
+                if (removed > 0) {
+                    compactIds();
+                }
+                int added = readVarInt();
+                for (int i = 0; i < added; i++) {
+                    readRecord();
+                }
+                int changed = readVarInt();
+                for (int i = 0; i < changed; i++) {
+                    int id = readVarInt();
+                    int mask = readByte();
+                    if ((mask & StateStreamEncoder.CHANGED_POSITION) != 0) {
+                        stateX[id] += readZigZag();
+                        stateY[id] += readZigZag();
+                    }
+                    if ((mask & StateStreamEncoder.CHANGED_ANGLE) != 0) stateAngle[id] = (byte) readByte();
+                    if ((mask & StateStreamEncoder.CHANGED_RADIUS) != 0) stateRadius[id] = readVarInt();
+                    if ((mask & StateStreamEncoder.CHANGED_SHAPE) != 0) stateShape[id] = readShape();
+                }
+            } else {
+                throw new IllegalArgumentException("Unknown frame type: " + frameType);
+            }
+            tick = frameTick;
+            width = frameWidth;
+            height = frameHeight;
+            return true;
+        } catch (ArrayIndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException("Truncated or corrupt frame", e);
+        } finally {
+            data = null;
+        }
+    }
+
+    /**
+     * Returns whether a keyframe has been applied, i.e. whether the decoded state is meaningful.
+     *
+     * @return True once synchronised with the stream.
+     */
+    public boolean isSynced() {
+        return synced;
+    }
+
+    /**
+     * Forgets all state so that the next delta is rejected until a keyframe arrives.
+     */
+    public void reset() {
+        clear();
+        synced = false;
+    }
+
+    /**
+     * Creates an immutable, de-quantised copy of the current state.
+     *
+     * @return The current state as a StateFrame.
+     */
+    public StateFrame snapshot() {
+        int[] frameIds = new int[count];
+        ItemType[] types = new ItemType[count];
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        double[] angles = new double[count];
+        double[] radii = new double[count];
+        ConvexPolygon[] shapes = new ConvexPolygon[count];
+        for (int i = 0; i < count; i++) {
+            int id = ids[i];
+            frameIds[i] = id;
+            types[i] = stateType[id];
+            xs[i] = stateX[id] / (double) StateStreamEncoder.POSITION_SCALE;
+            ys[i] = stateY[id] / (double) StateStreamEncoder.POSITION_SCALE;
+            angles[i] = stateAngle[id] * 2 * Math.PI / StateStreamEncoder.ANGLE_STEPS;
+            radii[i] = stateRadius[id] / (double) StateStreamEncoder.POSITION_SCALE;
+            shapes[i] = stateShape[id];
+        }
+        return new StateFrame(tick, width, height, count, frameIds, types, xs, ys, angles, radii, shapes);
+    }
+
+    private void clear() {
+        for (int i = 0; i < count; i++) {
+            present[ids[i]] = false;
+            stateShape[ids[i]] = null;
+        }
+        count = 0;
+    }
+
+    private void readRecord() {
+        int id = readVarInt();
+        ensureCapacity(id);
+        stateType[id] = ItemType.fromCode(readByte());
+        stateX[id] = readZigZag();
+        stateY[id] = readZigZag();
+        stateAngle[id] = (byte) readByte();
+        stateRadius[id] = readVarInt();
+        stateShape[id] = stateType[id] == ItemType.OBSTACLE ? readShape() : null;
+        if (!present[id]) {
+            present[id] = true;
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            ids[count++] = id;
+        }
+    }
+
+    /**
+     * Reads an obstacle outline written by the encoder.
+     *
+     * @return The outline, relative to the obstacle's position.
+     */
+    private ConvexPolygon readShape() {
+        int n = readVarInt();
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = readZigZag() / (double) StateStreamEncoder.POSITION_SCALE;
+            ys[i] = readZigZag() / (double) StateStreamEncoder.POSITION_SCALE;
+        }
+        return new ConvexPolygon(xs, ys);
+    }
+
+    /**
+     * Drops ids that are no longer present while keeping the remaining order.
+     */
+    private void compactIds() {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (present[ids[i]]) {
+                ids[kept++] = ids[i];
+            }
+        }
+        count = kept;
+    }
+
+    private void ensureCapacity(int id) {
+        if (id < stateX.length) {
+            return;
+        }
+        int size = Math.max(id + 1, stateX.length * 2);
+        stateX = Arrays.copyOf(stateX, size);
+        stateY = Arrays.copyOf(stateY, size);
+        stateRadius = Arrays.copyOf(stateRadius, size);
+        stateAngle = Arrays.copyOf(stateAngle, size);
+        stateType = Arrays.copyOf(stateType, size);
+        stateShape = Arrays.copyOf(stateShape, size);
+        present = Arrays.copyOf(present, size);
+    }
+
+    private int readByte() {
+        return data[position++] & 0xFF;
+    }
+
+    private int readVarInt() {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = readByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private long readVarLong() {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private int readZigZag() {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,351 @@
+package com.example.robotgui;
+
+import java.util.Arrays;
+
+/**
+ * Encodes the state of a RobotArena into the compact binary frames streamed to remote viewers.
+ * <p>
+ * Positions and radii are quantised to 1/{@value #POSITION_SCALE} of a pixel and headings to
+ * {@value #ANGLE_STEPS} steps. A keyframe lists every item; a delta frame lists only removed items,
+ * added items and the quantised changes of moved items relative to the previously encoded state.
+ * Deltas are taken against the quantised baseline rather than the exact positions, so rounding never drifts.
+ * When an id's slot has been given to a new item, the id is listed as removed and then added again.
+ * Obstacles carry their outline, as vertices relative to their position, in their records and again in a delta
+ * whenever an obstacle takes a different outline.
+ * <p>
+ * Frame layout (integers are unsigned varints, signed values are zig-zag varints):
+ * <pre>
+ * byte frameType, varint tick, varint width, varint height
+ * KEYFRAME: varint count, count x record
+ * DELTA:    varint removedCount, removedCount x varint id,
+ *           varint addedCount, addedCount x record,
+ *           varint changedCount, changedCount x change
+ * change:   varint id, byte mask, [zz dx, zz dy], [byte angle], [varint radius], [shape]
+ * record:   varint id, byte type, zz x, zz y, byte angle, varint radius, [shape]
+ * shape:    varint n, n x (zz vertex x, zz vertex y)
+ * </pre>
+ * Records have a shape only for obstacles.
+ */
+public class StateStreamEncoder {
+    public static final int KEYFRAME = 1; // Frame type of a full snapshot
+    public static final int DELTA = 2; // Frame type of a change set
+    public static final int POSITION_SCALE = 16; // Quantisation steps per pixel
+    public static final int ANGLE_STEPS = 256; // Quantisation steps per full turn
+
+    static final int CHANGED_POSITION = 1; // Delta mask bit: position changed
+    static final int CHANGED_ANGLE = 2; // Delta mask bit: heading changed
+    static final int CHANGED_RADIUS = 4; // Delta mask bit: radius changed
+    static final int CHANGED_SHAPE = 8; // Delta mask bit: obstacle outline changed
+
+    // Quantised baseline, indexed by item id
+    private int[] baseX = new int[64];
+    private int[] baseY = new int[64];
+    private int[] baseRadius = new int[64];
+    private byte[] baseAngle = new byte[64];
+    private byte[] baseType = new byte[64];
+    private int[] baseGeneration = new int[64]; // Generation of the item each id belonged to
+    private ConvexPolygon[] baseShape = new ConvexPolygon[64]; // Outline of obstacles, null for other items
+    private long[] seenStamp = new long[64]; // Encode pass in which each id was last seen, 0 if never
+    private long[] replacedStamp = new long[64]; // Encode pass in which each id's slot last got a new item
+
+    private int[] baseIds = new int[64]; // Ids currently in the baseline
+    private int baseCount;
+    private int[] addedIds = new int[64]; // Ids added or replaced in the current pass, in arena order
+    private long stamp; // Current encode pass
+    private long tick; // Tick of the last encoded state
+    private int width, height; // Arena size of the last encoded state
+
+    private final ByteSink frame = new ByteSink();
+    private final ByteSink added = new ByteSink();
+    private final ByteSink changed = new ByteSink();
+    private final ByteSink replaced = new ByteSink(); // Ids whose slot got a new item since the last frame
+
+    /**
+     * Encodes the changes in the arena since the previous call and makes the current state the new baseline.
+     * The first call reports every item as added.
+     *
+     * @param arena The arena to encode.
+     * @return The encoded delta frame.
+     */
+    public byte[] encodeDelta(RobotArena arena) {
+        stamp++;
+        tick = arena.getTick();
+        width = (int) Math.ceil(arena.getWidth());
+        height = (int) Math.ceil(arena.getHeight());
+        added.reset();
+        changed.reset();
+        replaced.reset();
+        int replacedCount = 0;
+        int addedCount = 0;
+        int changedCount = 0;
+
+        for (ArenaItem item : arena.getItems()) {
+            int id = item.getId();
+            ensureCapacity(id);
+            int qx = quantise(item.x);
+            int qy = quantise(item.y);
+            int qr = quantise(item.radius);
+            byte qa = quantiseAngle(item);
+            ConvexPolygon shape = item instanceof Obstacle ? ((Obstacle) item).getShape() : null;
+
+            if (seenStamp[id] == 0) {
+                // Item is new to the baseline
+                storeBaseline(id, item.getGeneration(), item.getType(), qx, qy, qa, qr, shape);
+                writeRecord(added, id);
+                addedId(addedCount++, id);
+            } else if (baseGeneration[id] != item.getGeneration()) {
+                // The id's slot holds a new item: remove the old one and add the new one
+                replaced.writeVarInt(id);
+                replacedCount++;
+                replacedStamp[id] = stamp;
+                storeBaseline(id, item.getGeneration(), item.getType(), qx, qy, qa, qr, shape);
+                writeRecord(added, id);
+                addedId(addedCount++, id);
+            } else {
+                int mask = 0;
+                if (qx != baseX[id] || qy != baseY[id]) mask |= CHANGED_POSITION;
+                if (qa != baseAngle[id]) mask |= CHANGED_ANGLE;
+                if (qr != baseRadius[id]) mask |= CHANGED_RADIUS;
+                if (shape != baseShape[id]) mask |= CHANGED_SHAPE;
+                if (mask != 0) {
+                    changed.writeVarInt(id);
+                    changed.writeByte(mask);
+                    if ((mask & CHANGED_POSITION) != 0) {
+                        changed.writeZigZag(qx - baseX[id]);
+                        changed.writeZigZag(qy - baseY[id]);
+                    }
+                    if ((mask & CHANGED_ANGLE) != 0) changed.writeByte(qa);
+                    if ((mask & CHANGED_RADIUS) != 0) changed.writeVarInt(qr);
+                    if ((mask & CHANGED_SHAPE) != 0) writeShape(changed, shape);
+                    baseX[id] = qx;
+                    baseY[id] = qy;
+                    baseAngle[id] = qa;
+                    baseRadius[id] = qr;
+                    baseShape[id] = shape;
+                    changedCount++;
+                }
+            }
+            seenStamp[id] = stamp;
+        }
+
+        writeHeader(DELTA);
+
+        // Any baseline id not seen in this pass has been removed
+        int removedCount = 0;
+        for (int i = 0; i < baseCount; i++) {
+            if (seenStamp[baseIds[i]] != stamp) removedCount++;
+        }
+        frame.writeVarInt(removedCount + replacedCount);
+        int kept = 0;
+        for (int i = 0; i < baseCount; i++) {
+            int id = baseIds[i];
+            if (seenStamp[id] != stamp) {
+                frame.writeVarInt(id);
+                seenStamp[id] = 0; // The id may be reported as added again later
+                baseShape[id] = null; // Do not keep the outline of a removed obstacle reachable
+            } else if (replacedStamp[id] != stamp) {
+                baseIds[kept++] = id; // Replaced ids move to the end below, as they do in viewers
+            }
+        }
+        baseCount = kept;
+        for (int i = 0; i < addedCount; i++) {
+            addIdToBaseline(addedIds[i]);
+        }
+        frame.writeBytes(replaced); // Removed before the added records bring the ids back
+
+        frame.writeVarInt(addedCount);
+        frame.writeBytes(added);
+        frame.writeVarInt(changedCount);
+        frame.writeBytes(changed);
+        return frame.toByteArray();
+    }
+
+    /**
+     * Encodes the current baseline as a keyframe.
+     * Call after {@link #encodeDelta(RobotArena)} to give newly connected or resynchronising viewers
+     * a starting point from which the following deltas apply.
+     *
+     * @return The encoded keyframe.
+     */
+    public byte[] encodeKeyframe() {
+        writeHeader(KEYFRAME);
+        frame.writeVarInt(baseCount);
+        for (int i = 0; i < baseCount; i++) {
+            writeRecord(frame, baseIds[i]);
+        }
+        return frame.toByteArray();
+    }
+
+    /**
+     * Starts a new frame with the common header.
+     *
+     * @param frameType KEYFRAME or DELTA.
+     */
+    private void writeHeader(int frameType) {
+        frame.reset();
+        frame.writeByte(frameType);
+        frame.writeVarLong(tick);
+        frame.writeVarInt(width);
+        frame.writeVarInt(height);
+    }
+
+    /**
+     * Writes the full baseline record of an item.
+     *
+     * @param sink The buffer to write to.
+     * @param id   The item id.
+     */
+    private void writeRecord(ByteSink sink, int id) {
+        sink.writeVarInt(id);
+        sink.writeByte(baseType[id]);
+        sink.writeZigZag(baseX[id]);
+        sink.writeZigZag(baseY[id]);
+        sink.writeByte(baseAngle[id]);
+        sink.writeVarInt(baseRadius[id]);
+        if (baseShape[id] != null) {
+            writeShape(sink, baseShape[id]);
+        }
+    }
+
+    /**
+     * Writes an obstacle outline with its vertices quantised like positions.
+     *
+     * @param sink  The buffer to write to.
+     * @param shape The outline, relative to the obstacle's position.
+     */
+    private static void writeShape(ByteSink sink, ConvexPolygon shape) {
+        sink.writeVarInt(shape.getVertexCount());
+        for (int i = 0; i < shape.getVertexCount(); i++) {
+            sink.writeZigZag(quantise(shape.getX(i)));
+            sink.writeZigZag(quantise(shape.getY(i)));
+        }
+    }
+
+    private void storeBaseline(int id, int generation, ItemType type, int qx, int qy, byte qa, int qr,
+                               ConvexPolygon shape) {
+        baseGeneration[id] = generation;
+        baseType[id] = (byte) type.getCode();
+        baseX[id] = qx;
+        baseY[id] = qy;
+        baseAngle[id] = qa;
+        baseRadius[id] = qr;
+        baseShape[id] = shape;
+    }
+
+    /**
+     * Remembers an id added in the current pass, to be appended to the baseline once removals are done.
+     *
+     * @param index The number of ids added before it in this pass.
+     * @param id    The item id.
+     */
+    private void addedId(int index, int id) {
+        if (index == addedIds.length) {
+            addedIds = Arrays.copyOf(addedIds, index * 2);
+        }
+        addedIds[index] = id;
+    }
+
+    private void addIdToBaseline(int id) {
+        if (baseCount == baseIds.length) {
+            baseIds = Arrays.copyOf(baseIds, baseCount * 2);
+        }
+        baseIds[baseCount++] = id;
+    }
+
+    /**
+     * Grows the per-id arrays so the given id can be stored.
+     *
+     * @param id The id that must fit.
+     */
+    private void ensureCapacity(int id) {
+        if (id < baseX.length) {
+            return;
+        }
+        int size = Math.max(id + 1, baseX.length * 2);
+        baseX = Arrays.copyOf(baseX, size);
+        baseY = Arrays.copyOf(baseY, size);
+        baseRadius = Arrays.copyOf(baseRadius, size);
+        baseAngle = Arrays.copyOf(baseAngle, size);
+        baseType = Arrays.copyOf(baseType, size);
+        baseGeneration = Arrays.copyOf(baseGeneration, size);
+        baseShape = Arrays.copyOf(baseShape, size);
+        seenStamp = Arrays.copyOf(seenStamp, size);
+        replacedStamp = Arrays.copyOf(replacedStamp, size);
+    }
+
+    /**
+     * Quantises a coordinate or length to the wire resolution.
+     *
+     * @param value The value in pixels.
+     * @return The quantised value.
+     */
+    static int quantise(double value) {
+        return (int) Math.round(value * POSITION_SCALE);
+    }
+
+    /**
+     * Quantises the heading of an item, which is 0 for items without a heading.
+     *
+     * @param item The item.
+     * @return The heading in 1/256 turns.
+     */
+    private static byte quantiseAngle(ArenaItem item) {
+        if (!(item instanceof Robot)) {
+            return 0;
+        }
+        Robot robot = (Robot) item;
+        double turns = FastTrig.approxAtan2(robot.dirY, robot.dirX) / (2 * Math.PI); // Coarse angle is enough here
+        return (byte) Math.round(turns * ANGLE_STEPS); // Wraps naturally modulo 256
+    }
+
+    /**
+     * A growable byte buffer with varint helpers, reused between frames to avoid per-tick garbage.
+     */
+    static final class ByteSink {
+        private byte[] data = new byte[256];
+        private int size;
+
+        void reset() {
+            size = 0;
+        }
+
+        void writeByte(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = (byte) value;
+        }
+
+        void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte(value);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        void writeZigZag(int value) {
+            writeVarInt((value << 1) ^ (value >> 31));
+        }
+
+        void writeBytes(ByteSink other) {
+            if (size + other.size > data.length) {
+                data = Arrays.copyOf(data, Math.max(size + other.size, data.length * 2));
+            }
+            System.arraycopy(other.data, 0, data, size, other.size);
+            size += other.size;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
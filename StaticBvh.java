@@ -0,0 +1,169 @@
+package com.example.robotgui;
+
+import java.util.List;
+
+/**
+ * A bounding volume hierarchy over items that do not move, such as obstacles and food.
+ * <p>
+ * The tree is built once from the items' axis-aligned bounding boxes and stored in flat arrays.
+ * Queries return every item whose box overlaps the query box, visiting only the branches that can contain one.
+ * The tree does not track changes; the arena rebuilds it when a static item is added, removed or moved.
+ * It also serves as a snapshot index of the robots between updates, for queries such as mouse picking.
+ */
+public class StaticBvh {
+    private static final int LEAF_SIZE = 4; // Maximum number of items in a leaf
+
+    private final ArenaItem[] items; // Items, reordered so every node covers a contiguous range
+    private final int[] nodeStart; // First item of a leaf, or the left child of an inner node
+    private final int[] nodeCount; // Item count of a leaf, 0 for inner nodes
+    private final double[] nodeMinX, nodeMinY, nodeMaxX, nodeMaxY;
+    private int nodeTotal;
+    private final int[] stack = new int[64]; // Traversal stack, reused between queries
+
+    /**
+     * Builds a hierarchy over the given items.
+     *
+     * @param source The items to index.
+     */
+    public StaticBvh(List<? extends ArenaItem> source) {
+        items = source.toArray(new ArenaItem[0]);
+        int maxNodes = Math.max(1, 2 * items.length);
+        nodeStart = new int[maxNodes];
+        nodeCount = new int[maxNodes];
+        nodeMinX = new double[maxNodes];
+        nodeMinY = new double[maxNodes];
+        nodeMaxX = new double[maxNodes];
+        nodeMaxY = new double[maxNodes];
+        if (items.length > 0) {
+            build(newNode(), 0, items.length);
+        }
+    }
+
+    /**
+     * Returns the number of indexed items.
+     *
+     * @return The item count.
+     */
+    public int size() {
+        return items.length;
+    }
+
+    /**
+     * Adds every item whose bounding box overlaps the query box to the output list.
+     *
+     * @param minX Left edge of the query box.
+     * @param minY Top edge of the query box.
+     * @param maxX Right edge of the query box.
+     * @param maxY Bottom edge of the query box.
+     * @param out  The list receiving the matching items. It is not cleared first.
+     */
+    public void query(double minX, double minY, double maxX, double maxY, List<ArenaItem> out) {
+        if (nodeTotal == 0) {
+            return;
+        }
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (nodeMinX[node] > maxX || nodeMaxX[node] < minX || nodeMinY[node] > maxY || nodeMaxY[node] < minY) {
+                continue; // Query box misses this branch
+            }
+            if (nodeCount[node] > 0) {
+                for (int i = nodeStart[node], end = i + nodeCount[node]; i < end; i++) {
+                    ArenaItem item = items[i];
+                    if (item.getMinX() <= maxX && item.getMaxX() >= minX
+                            && item.getMinY() <= maxY && item.getMaxY() >= minY) {
+                        out.add(item);
+                    }
+                }
+            } else {
+                stack[top++] = nodeStart[node];
+                stack[top++] = nodeStart[node] + 1;
+            }
+        }
+    }
+
+    private int newNode() {
+        return nodeTotal++;
+    }
+
+    /**
+     * Builds a node over items[start, end), splitting at the median of the longest axis.
+     *
+     * @param node  The node to fill.
+     * @param start First item of the range.
+     * @param end   One past the last item of the range.
+     */
+    private void build(int node, int start, int end) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        double centreMinX = Double.POSITIVE_INFINITY, centreMinY = Double.POSITIVE_INFINITY;
+        double centreMaxX = Double.NEGATIVE_INFINITY, centreMaxY = Double.NEGATIVE_INFINITY;
+        for (int i = start; i < end; i++) {
+            ArenaItem item = items[i];
+            minX = Math.min(minX, item.getMinX());
+            minY = Math.min(minY, item.getMinY());
+            maxX = Math.max(maxX, item.getMaxX());
+            maxY = Math.max(maxY, item.getMaxY());
+            centreMinX = Math.min(centreMinX, item.x);
+            centreMinY = Math.min(centreMinY, item.y);
+            centreMaxX = Math.max(centreMaxX, item.x);
+            centreMaxY = Math.max(centreMaxY, item.y);
+        }
+        nodeMinX[node] = minX;
+        nodeMinY[node] = minY;
+        nodeMaxX[node] = maxX;
+        nodeMaxY[node] = maxY;
+
+        int count = end - start;
+        if (count <= LEAF_SIZE) {
+            nodeStart[node] = start;
+            nodeCount[node] = count;
+            return;
+        }
+
+        // Split at the median centre along the axis with the largest spread of centres
+        boolean splitX = centreMaxX - centreMinX >= centreMaxY - centreMinY;
+        int middle = (start + end) >>> 1;
+        select(start, end - 1, middle, splitX);
+
+        int left = newNode();
+        newNode(); // Right child always directly follows the left one
+        nodeStart[node] = left;
+        nodeCount[node] = 0;
+        build(left, start, middle);
+        build(left + 1, middle, end);
+    }
+
+    /**
+     * Partially sorts items[low, high] so that the k-th item is in its sorted position (quickselect).
+     */
+    private void select(int low, int high, int k, boolean byX) {
+        while (low < high) {
+            double pivot = key(items[(low + high) >>> 1], byX);
+            int i = low, j = high;
+            while (i <= j) {
+                while (key(items[i], byX) < pivot) i++;
+                while (key(items[j], byX) > pivot) j--;
+                if (i <= j) {
+                    ArenaItem swap = items[i];
+                    items[i] = items[j];
+                    items[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                high = j;
+            } else if (k >= i) {
+                low = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static double key(ArenaItem item, boolean byX) {
+        return byX ? item.x : item.y;
+    }
+}
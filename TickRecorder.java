@@ -0,0 +1,15 @@
+package com.example.robotgui;
+
+/**
+ * Something that observes the arena after every tick, such as the rewind history or the population statistics.
+ * {@link TimeWarp} calls each recorder once per update, however many updates a frame performs.
+ */
+public interface TickRecorder {
+
+    /**
+     * Observes the arena's state after an update.
+     *
+     * @param arena The arena that was just updated.
+     */
+    void record(RobotArena arena);
+}
@@ -0,0 +1,498 @@
+package com.example.robotgui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Draws an arena into an int ARGB pixel array, splitting the viewport into square tiles drawn by several threads.
+ * <p>
+ * A frame is drawn in three steps. The calling thread copies what each item needs to be drawn into parallel
+ * arrays, skipping items outside the viewport, and appends the item to a bin for every tile its drawing touches.
+ * The tiles are then drawn by a fixed set of worker threads together with the calling thread, each taking the
+ * next undrawn tile from a shared counter; a tile clears its pixels and draws the items of its bin in arena order,
+ * clipped to itself. As no two tiles share a pixel, workers never contend, and the result does not depend on which
+ * thread drew what. The call returns once every tile is drawn.
+ * <p>
+ * Items are drawn in simplified form: discs with an outline and a heading line for robots, an energy or health bar
+ * for robots large enough to show one, discs for food and filled outlines for obstacles. Pixels outside every item
+ * are transparent unless a background is set, so the image can be drawn over the walls and the heatmap. Pixels are
+ * opaque or fully transparent, so they are valid both as plain and as premultiplied ARGB. Kept free of JavaFX so
+ * headless tools can draw frames too.
+ */
+public class TileRasterizer implements AutoCloseable {
+    /** Side length of a tile in pixels. */
+    public static final int TILE_SIZE = 64;
+    private static final int KIND_DISC = 0, KIND_POLYGON = 1; // How an item's shape is drawn
+    private static final int BLACK = 0xFF000000;
+    private static final int BAR_BACKGROUND = 0xFFFFFFFF;
+    private static final double BAR_GAP = 10, BAR_HEIGHT = 5; // Position and height of bars, in arena units
+    private static final double MIN_DETAIL_RADIUS = 4; // Smallest radius in pixels with outline and heading
+    private static final double MIN_BAR_RADIUS = 8; // Smallest radius in pixels with a bar
+
+    private final int width, height; // Size of the image in pixels
+    private final int columns, rows; // Tile grid dimensions
+    private final int[] pixels; // ARGB pixels, row by row
+    private double originX, originY, scale = 1; // Arena point at the top-left pixel, and pixels per arena unit
+    private int background; // Colour of pixels outside every item, transparent by default
+
+    // Items of the current frame, in screen coordinates
+    private int count; // Number of items
+    private int[] kind = new int[256], fill = new int[256], outline = new int[256], barColor = new int[256];
+    private double[] centerX = new double[256], centerY = new double[256], radius = new double[256];
+    private double[] headingX = new double[256], headingY = new double[256], bar = new double[256];
+    private int[] polygonStart = new int[256], polygonSize = new int[256]; // Vertices of each obstacle
+    private double[] vertexX = new double[64], vertexY = new double[64]; // Obstacle vertices, in screen coordinates
+    private int vertexCount; // Vertices in use
+
+    private final int[][] bins; // Items overlapping each tile, in arena order
+    private final int[] binSize; // Items in each tile's bin
+    private final AtomicInteger nextTile = new AtomicInteger(); // Next tile to be drawn
+    private final CyclicBarrier start, finish; // Release the workers into a frame, and wait for them to finish it
+    private final ArrayList<Thread> workers = new ArrayList<>();
+    private volatile boolean closed; // Set to stop the workers
+    private volatile RuntimeException failure; // First error a worker hit during the frame
+
+    /**
+     * Creates a rasteriser with a worker thread per available processor, besides the calling thread.
+     *
+     * @param width  The width of the image in pixels.
+     * @param height The height of the image in pixels.
+     */
+    public TileRasterizer(int width, int height) {
+        this(width, height, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a rasteriser.
+     *
+     * @param width   The width of the image in pixels.
+     * @param height  The height of the image in pixels.
+     * @param threads The number of threads drawing tiles, including the calling thread.
+     */
+    public TileRasterizer(int width, int height, int threads) {
+        if (width <= 0 || height <= 0 || threads < 1) {
+            throw new IllegalArgumentException("Invalid rasteriser: " + width + " x " + height + ", " + threads);
+        }
+        this.width = width;
+        this.height = height;
+        columns = (width + TILE_SIZE - 1) / TILE_SIZE;
+        rows = (height + TILE_SIZE - 1) / TILE_SIZE;
+        pixels = new int[width * height];
+        bins = new int[columns * rows][16];
+        binSize = new int[columns * rows];
+        start = new CyclicBarrier(threads);
+        finish = new CyclicBarrier(threads);
+        for (int i = 1; i < threads; i++) {
+            Thread worker = new Thread(this::work, "tile-rasterizer-" + i);
+            worker.setDaemon(true); // Never keeps the application alive
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    /**
+     * Sets which part of the arena is drawn.
+     *
+     * @param originX The x-coordinate of the arena point at the top-left pixel.
+     * @param originY The y-coordinate of the arena point at the top-left pixel.
+     * @param scale   The number of pixels per arena unit.
+     */
+    public void setViewport(double originX, double originY, double scale) {
+        if (scale <= 0) {
+            throw new IllegalArgumentException("Scale must be positive: " + scale);
+        }
+        this.originX = originX;
+        this.originY = originY;
+        this.scale = scale;
+    }
+
+    /**
+     * Sets the colour of pixels outside every item, for example opaque white for images saved on their own.
+     *
+     * @param background The ARGB colour, 0 for transparent.
+     */
+    public void setBackground(int background) {
+        this.background = background;
+    }
+
+    /**
+     * Draws the arena's items into the pixel array. Must not be called while the arena is updating.
+     *
+     * @param arena The arena to draw.
+     */
+    public void render(RobotArena arena) {
+        if (closed) {
+            throw new IllegalStateException("Rasteriser is closed");
+        }
+        collect(arena);
+        nextTile.set(0);
+        failure = null;
+        if (workers.isEmpty()) {
+            drawTiles();
+            return;
+        }
+        await(start);
+        try {
+            drawTiles();
+        } finally {
+            await(finish);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Body of a worker thread: draws tiles of every frame until closed.
+     */
+    private void work() {
+        while (true) {
+            await(start);
+            if (closed) {
+                return;
+            }
+            try {
+                drawTiles();
+            } catch (RuntimeException e) {
+                failure = e; // Reported by the thread that asked for the frame
+            }
+            await(finish);
+        }
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rasterising", e);
+        } catch (BrokenBarrierException e) {
+            throw new IllegalStateException("Rasteriser workers failed", e);
+        }
+    }
+
+    /**
+     * Copies the visible items into the frame arrays and bins them by tile.
+     */
+    private void collect(RobotArena arena) {
+        count = 0;
+        vertexCount = 0;
+        Arrays.fill(binSize, 0);
+        for (ArenaItem item : arena.getItems()) {
+            double x = (item.x - originX) * scale, y = (item.y - originY) * scale, r = item.radius * scale;
+            int itemFill, itemOutline = BLACK, itemBarColor = 0;
+            double itemBar = -1, dirX = 0, dirY = 0;
+            if (item instanceof WhiskerRobot) {
+                itemFill = 0xFF40E0D0; // Turquoise
+                itemBar = ((WhiskerRobot) item).getEnergy() / 100;
+                itemBarColor = 0xFF008000;
+            } else if (item instanceof PredatorRobot) {
+                itemFill = 0xFF8B0000; // Dark red
+                itemBar = ((PredatorRobot) item).getHealth() / 100;
+                itemBarColor = 0xFFFF0000;
+            } else if (item instanceof BeamSensorRobot) {
+                BeamSensorRobot robot = (BeamSensorRobot) item;
+                if (robot.getEnergy() <= 0) {
+                    continue; // Dead robots are not drawn
+                }
+                itemFill = 0xFF00008B; // Dark blue
+                itemBar = robot.getEnergy() / 100;
+                itemBarColor = 0xFF008000;
+            } else if (item instanceof LidarRobot) {
+                itemFill = 0xFFFF8C00; // Dark orange
+                itemBar = ((LidarRobot) item).getEnergy() / 100;
+                itemBarColor = 0xFF008000;
+            } else if (item instanceof ControllableRobot) {
+                ControllableRobot robot = (ControllableRobot) item;
+                if (robot.getHealth() <= 0) {
+                    continue;
+                }
+                itemFill = 0xFF8A2BE2; // Blue violet
+                itemOutline = 0xFFFFD700; // Gold
+                itemBar = robot.getHealth() / 100;
+                itemBarColor = 0xFFFF0000;
+            } else if (item instanceof Food) {
+                itemFill = 0xFF008000; // Green
+                itemOutline = itemFill;
+            } else {
+                itemFill = 0xFFBEBEBE; // Between the dark and light grey of the canvas gradient
+            }
+            if (item instanceof Robot) {
+                dirX = ((Robot) item).dirX;
+                dirY = ((Robot) item).dirY;
+            }
+            if (r < MIN_BAR_RADIUS) {
+                itemBar = -1;
+            }
+
+            // Screen box of everything drawn for the item, to cull it and find its tiles
+            double minX = x - r, maxX = x + r, minY = y - r, maxY = y + r;
+            if (itemBar >= 0) {
+                minY = y - r - BAR_GAP * scale;
+            }
+            if (item instanceof Obstacle) {
+                minX = (item.getMinX() - originX) * scale;
+                maxX = (item.getMaxX() - originX) * scale;
+                minY = (item.getMinY() - originY) * scale;
+                maxY = (item.getMaxY() - originY) * scale;
+            }
+            if (maxX < 0 || maxY < 0 || minX >= width || minY >= height) {
+                continue; // Outside the viewport
+            }
+
+            ensureItemCapacity();
+            int i = count++;
+            kind[i] = item instanceof Obstacle ? KIND_POLYGON : KIND_DISC;
+            centerX[i] = x;
+            centerY[i] = y;
+            radius[i] = r;
+            fill[i] = itemFill;
+            outline[i] = itemOutline;
+            headingX[i] = dirX;
+            headingY[i] = dirY;
+            bar[i] = itemBar >= 0 ? Math.min(1, itemBar) : -1; // Negative for no bar
+            barColor[i] = itemBarColor;
+            if (item instanceof Obstacle) {
+                ConvexPolygon shape = ((Obstacle) item).getShape();
+                polygonStart[i] = vertexCount;
+                polygonSize[i] = shape.getVertexCount();
+                for (int v = 0; v < shape.getVertexCount(); v++) {
+                    addVertex(x + shape.getX(v) * scale, y + shape.getY(v) * scale);
+                }
+            }
+
+            int firstColumn = Math.max(0, (int) minX / TILE_SIZE);
+            int lastColumn = Math.min(columns - 1, (int) maxX / TILE_SIZE);
+            int firstRow = Math.max(0, (int) minY / TILE_SIZE);
+            int lastRow = Math.min(rows - 1, (int) maxY / TILE_SIZE);
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    int tile = row * columns + column;
+                    if (binSize[tile] == bins[tile].length) {
+                        bins[tile] = Arrays.copyOf(bins[tile], binSize[tile] * 2);
+                    }
+                    bins[tile][binSize[tile]++] = i;
+                }
+            }
+        }
+    }
+
+    private void ensureItemCapacity() {
+        if (count < kind.length) {
+            return;
+        }
+        int capacity = count * 2;
+        kind = Arrays.copyOf(kind, capacity);
+        fill = Arrays.copyOf(fill, capacity);
+        outline = Arrays.copyOf(outline, capacity);
+        barColor = Arrays.copyOf(barColor, capacity);
+        centerX = Arrays.copyOf(centerX, capacity);
+        centerY = Arrays.copyOf(centerY, capacity);
+        radius = Arrays.copyOf(radius, capacity);
+        headingX = Arrays.copyOf(headingX, capacity);
+        headingY = Arrays.copyOf(headingY, capacity);
+        bar = Arrays.copyOf(bar, capacity);
+        polygonStart = Arrays.copyOf(polygonStart, capacity);
+        polygonSize = Arrays.copyOf(polygonSize, capacity);
+    }
+
+    private void addVertex(double x, double y) {
+        if (vertexCount == vertexX.length) {
+            vertexX = Arrays.copyOf(vertexX, vertexCount * 2);
+            vertexY = Arrays.copyOf(vertexY, vertexCount * 2);
+        }
+        vertexX[vertexCount] = x;
+        vertexY[vertexCount] = y;
+        vertexCount++;
+    }
+
+    /**
+     * Draws tiles until none are left.
+     */
+    private void drawTiles() {
+        int tiles = columns * rows;
+        for (int tile = nextTile.getAndIncrement(); tile < tiles; tile = nextTile.getAndIncrement()) {
+            int x0 = (tile % columns) * TILE_SIZE, y0 = (tile / columns) * TILE_SIZE;
+            int x1 = Math.min(width, x0 + TILE_SIZE), y1 = Math.min(height, y0 + TILE_SIZE);
+            for (int y = y0; y < y1; y++) {
+                Arrays.fill(pixels, y * width + x0, y * width + x1, background);
+            }
+            int[] bin = bins[tile];
+            for (int b = 0; b < binSize[tile]; b++) {
+                int i = bin[b];
+                if (kind[i] == KIND_POLYGON) {
+                    drawPolygon(i, x0, y0, x1, y1);
+                } else {
+                    drawDisc(i, x0, y0, x1, y1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Draws a disc item, its outline, heading and bar, clipped to a tile. Pixels are covered when their centre is.
+     */
+    private void drawDisc(int i, int x0, int y0, int x1, int y1) {
+        double cx = centerX[i], cy = centerY[i], r = radius[i];
+        boolean detailed = r >= MIN_DETAIL_RADIUS;
+        double inner = detailed ? r - Math.max(1, r / 10) : r; // Outline about as thick as the canvas' at size 20
+        int top = Math.max(y0, (int) Math.ceil(cy - r - 0.5));
+        int bottom = Math.min(y1 - 1, (int) Math.floor(cy + r - 0.5));
+        for (int y = top; y <= bottom; y++) {
+            double dy = y + 0.5 - cy;
+            double half = Math.sqrt(Math.max(0, r * r - dy * dy));
+            int left = Math.max(x0, (int) Math.ceil(cx - half - 0.5));
+            int right = Math.min(x1 - 1, (int) Math.floor(cx + half - 0.5));
+            if (left > right) {
+                continue;
+            }
+            int rowStart = y * width;
+            if (inner >= r || dy * dy >= inner * inner) {
+                Arrays.fill(pixels, rowStart + left, rowStart + right + 1, detailed ? outline[i] : fill[i]);
+                continue;
+            }
+            double innerHalf = Math.sqrt(inner * inner - dy * dy);
+            int innerLeft = Math.max(left, (int) Math.ceil(cx - innerHalf - 0.5));
+            int innerRight = Math.min(right, (int) Math.floor(cx + innerHalf - 0.5));
+            Arrays.fill(pixels, rowStart + left, rowStart + right + 1, outline[i]);
+            if (innerLeft <= innerRight) {
+                Arrays.fill(pixels, rowStart + innerLeft, rowStart + innerRight + 1, fill[i]);
+            }
+        }
+        if (detailed && (headingX[i] != 0 || headingY[i] != 0)) {
+            drawLine(cx, cy, cx + headingX[i] * r, cy + headingY[i] * r, BLACK, x0, y0, x1, y1);
+        }
+        if (bar[i] >= 0) {
+            double barTop = cy - r - BAR_GAP * scale, barBottom = barTop + BAR_HEIGHT * scale;
+            fillRect(cx - r, barTop, cx + r, barBottom, BLACK, x0, y0, x1, y1); // Border, as on the canvas
+            fillRect(cx - r + 1, barTop + 1, cx + r - 1, barBottom - 1, BAR_BACKGROUND, x0, y0, x1, y1);
+            fillRect(cx - r + 1, barTop + 1, cx - r + 1 + (2 * r - 2) * bar[i], barBottom - 1, barColor[i],
+                    x0, y0, x1, y1);
+        }
+    }
+
+    /**
+     * Fills the pixels whose centres lie in a box, clipped to a tile.
+     */
+    private void fillRect(double minX, double minY, double maxX, double maxY, int color,
+                          int x0, int y0, int x1, int y1) {
+        int left = Math.max(x0, (int) Math.ceil(minX - 0.5)), right = Math.min(x1 - 1, (int) Math.ceil(maxX - 0.5) - 1);
+        int top = Math.max(y0, (int) Math.ceil(minY - 0.5)), bottom = Math.min(y1 - 1, (int) Math.ceil(maxY - 0.5) - 1);
+        for (int y = top; y <= bottom && left <= right; y++) {
+            Arrays.fill(pixels, y * width + left, y * width + right + 1, color);
+        }
+    }
+
+    /**
+     * Draws a one pixel line by stepping along its longer axis, clipped to a tile.
+     */
+    private void drawLine(double ax, double ay, double bx, double by, int color, int x0, int y0, int x1, int y1) {
+        double dx = bx - ax, dy = by - ay;
+        int steps = (int) Math.ceil(Math.max(Math.abs(dx), Math.abs(dy)));
+        for (int s = 0; s <= steps; s++) {
+            double t = steps > 0 ? s / (double) steps : 0;
+            int x = (int) Math.floor(ax + dx * t), y = (int) Math.floor(ay + dy * t);
+            if (x >= x0 && x < x1 && y >= y0 && y < y1) {
+                pixels[y * width + x] = color;
+            }
+        }
+    }
+
+    /**
+     * Fills a convex obstacle outline clipped to a tile, with a one pixel black border. Each row's span is found
+     * by intersecting the pixel centre line with every edge.
+     */
+    private void drawPolygon(int i, int x0, int y0, int x1, int y1) {
+        int first = polygonStart[i], n = polygonSize[i];
+        double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int v = first; v < first + n; v++) {
+            minY = Math.min(minY, vertexY[v]);
+            maxY = Math.max(maxY, vertexY[v]);
+        }
+        int firstRow = (int) Math.ceil(minY - 0.5), lastRow = (int) Math.floor(maxY - 0.5);
+        int top = Math.max(y0, firstRow), bottom = Math.min(y1 - 1, lastRow);
+        for (int y = top; y <= bottom; y++) {
+            double sy = y + 0.5;
+            double spanLeft = Double.POSITIVE_INFINITY, spanRight = Double.NEGATIVE_INFINITY;
+            for (int e = 0; e < n; e++) {
+                int a = first + e, b = first + (e + 1) % n;
+                double ay = vertexY[a], by = vertexY[b];
+                if ((sy < ay) == (sy < by)) {
+                    continue; // The edge does not cross this row
+                }
+                double x = vertexX[a] + (sy - ay) / (by - ay) * (vertexX[b] - vertexX[a]);
+                spanLeft = Math.min(spanLeft, x);
+                spanRight = Math.max(spanRight, x);
+            }
+            int left = (int) Math.ceil(spanLeft - 0.5), right = (int) Math.floor(spanRight - 0.5);
+            if (left > right) {
+                continue;
+            }
+            boolean edgeRow = y == firstRow || y == lastRow;
+            int rowStart = y * width;
+            int clippedLeft = Math.max(x0, left), clippedRight = Math.min(x1 - 1, right);
+            if (clippedLeft <= clippedRight) {
+                Arrays.fill(pixels, rowStart + clippedLeft, rowStart + clippedRight + 1, edgeRow ? BLACK : fill[i]);
+            }
+            if (left >= x0 && left < x1) {
+                pixels[rowStart + left] = BLACK;
+            }
+            if (right >= x0 && right < x1) {
+                pixels[rowStart + right] = BLACK;
+            }
+        }
+    }
+
+    /**
+     * Returns the pixels of the last frame, row by row. Only valid until the next call to {@link #render}.
+     *
+     * @return The ARGB pixels, width * height long.
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * Returns the width of the image.
+     *
+     * @return The width in pixels.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the image.
+     *
+     * @return The height in pixels.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the number of threads drawing tiles, including the calling thread.
+     *
+     * @return The thread count.
+     */
+    public int getThreads() {
+        return workers.size() + 1;
+    }
+
+    /**
+     * Stops the worker threads. The rasteriser cannot draw afterwards.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (!workers.isEmpty()) {
+            await(start); // Releases the workers, which see the flag and exit
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.robotgui;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+/**
+ * Shows an arena drawn by a {@link TileRasterizer}, as one image upload and one image draw per frame instead of
+ * several canvas commands per item.
+ */
+public class TiledArenaView implements AutoCloseable {
+    private final TileRasterizer rasterizer; // Draws the items into pixels off the canvas
+    private final WritableImage image; // Receives the pixels of each frame
+
+    /**
+     * Creates a view covering the canvas area from the arena's origin at one pixel per arena unit.
+     *
+     * @param width  The width of the view in pixels.
+     * @param height The height of the view in pixels.
+     */
+    public TiledArenaView(int width, int height) {
+        rasterizer = new TileRasterizer(width, height);
+        image = new WritableImage(width, height);
+    }
+
+    /**
+     * Draws the arena's items. Walls and overlays are drawn by the caller, as with {@link RobotArena#draw}.
+     *
+     * @param gc    The GraphicsContext used for drawing.
+     * @param arena The arena to draw.
+     */
+    public void draw(GraphicsContext gc, RobotArena arena) {
+        rasterizer.render(arena);
+        // Every pixel is opaque or fully transparent, so the pixels are already in the premultiplied native format
+        image.getPixelWriter().setPixels(0, 0, rasterizer.getWidth(), rasterizer.getHeight(),
+                PixelFormat.getIntArgbPreInstance(), rasterizer.getPixels(), 0, rasterizer.getWidth());
+        gc.drawImage(image, 0, 0);
+    }
+
+    /**
+     * Stops the rasteriser's worker threads.
+     */
+    @Override
+    public void close() {
+        rasterizer.close();
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.robotgui;
+
+/**
+ * Runs the simulation faster than one update per rendered frame.
+ * <p>
+ * Each frame, {@link #advance(RobotArena, TickRecorder...)} performs as many arena updates as the selected speed
+ * asks for, but never spends more than the frame budget on them, so the UI stays responsive however busy the arena
+ * is.
+ * Only the state after the last update is rendered. The achieved rate is measured over one-second windows.
+ * Kept free of JavaFX so headless tools can drive an arena the same way.
+ */
+public class TimeWarp {
+    /** Default time per frame spent updating, leaving room for drawing within a 60 Hz frame. */
+    public static final long DEFAULT_FRAME_BUDGET_NANOS = 12_000_000;
+    private static final long MEASUREMENT_WINDOW_NANOS = 1_000_000_000; // Length of a ticks-per-second window
+
+    /**
+     * The selectable simulation speeds, as arena updates per rendered frame.
+     */
+    public enum Speed {
+        NORMAL("1x", 1),
+        FAST("10x", 10),
+        FASTER("100x", 100),
+        MAX("Max", Integer.MAX_VALUE); // As many updates as fit in the frame budget
+
+        private final String label;
+        private final int ticksPerFrame;
+
+        Speed(String label, int ticksPerFrame) {
+            this.label = label;
+            this.ticksPerFrame = ticksPerFrame;
+        }
+
+        /**
+         * Returns the number of updates this speed asks for per frame.
+         *
+         * @return Updates per frame, Integer.MAX_VALUE for as many as possible.
+         */
+        public int getTicksPerFrame() {
+            return ticksPerFrame;
+        }
+
+        /**
+         * Returns the label shown in the speed selector.
+         *
+         * @return The label, such as "10x".
+         */
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private Speed speed = Speed.NORMAL; // Selected speed
+    private long frameBudgetNanos = DEFAULT_FRAME_BUDGET_NANOS; // Maximum update time per frame
+    private long windowStart = -1; // Start of the current measurement window, -1 before the first frame
+    private long windowTicks; // Updates performed in the current measurement window
+    private double ticksPerSecond; // Rate measured over the last complete window
+    private int lastFrameTicks; // Updates performed in the last frame
+
+    /**
+     * Returns the selected speed.
+     *
+     * @return The speed.
+     */
+    public Speed getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Selects the speed used from the next frame on.
+     *
+     * @param speed The new speed.
+     */
+    public void setSpeed(Speed speed) {
+        this.speed = speed;
+    }
+
+    /**
+     * Returns the maximum time spent updating per frame.
+     *
+     * @return The frame budget in nanoseconds.
+     */
+    public long getFrameBudgetNanos() {
+        return frameBudgetNanos;
+    }
+
+    /**
+     * Sets the maximum time spent updating per frame. At least one update is always performed.
+     *
+     * @param frameBudgetNanos The frame budget in nanoseconds.
+     */
+    public void setFrameBudgetNanos(long frameBudgetNanos) {
+        this.frameBudgetNanos = frameBudgetNanos;
+    }
+
+    /**
+     * Performs this frame's updates: as many as the speed asks for, stopping early when the budget runs out.
+     * Each recorder observes every update, for example to record it for rewinding.
+     *
+     * @param arena     The arena to update.
+     * @param recorders The recorders to call after each update.
+     * @return The number of updates performed.
+     */
+    public int advance(RobotArena arena, TickRecorder... recorders) {
+        long start = System.nanoTime();
+        long deadline = start + frameBudgetNanos;
+        int target = speed.getTicksPerFrame();
+        int ticks = 0;
+        do {
+            arena.update();
+            for (TickRecorder recorder : recorders) {
+                recorder.record(arena);
+            }
+            ticks++;
+        } while (ticks < target && System.nanoTime() < deadline);
+        lastFrameTicks = ticks;
+        measure(start, ticks);
+        return ticks;
+    }
+
+    /**
+     * Adds a frame's updates to the measurement and closes the window once it is a second long.
+     */
+    private void measure(long frameStart, int ticks) {
+        if (windowStart < 0) {
+            windowStart = frameStart;
+        }
+        windowTicks += ticks;
+        long elapsed = System.nanoTime() - windowStart;
+        if (elapsed >= MEASUREMENT_WINDOW_NANOS) {
+            ticksPerSecond = windowTicks * 1e9 / elapsed;
+            windowStart += elapsed;
+            windowTicks = 0;
+        }
+    }
+
+    /**
+     * Forgets the measured rate, for example while the simulation is paused.
+     */
+    public void resetMeasurement() {
+        windowStart = -1;
+        windowTicks = 0;
+        ticksPerSecond = 0;
+    }
+
+    /**
+     * Returns the achieved update rate over the last complete one-second window.
+     *
+     * @return Simulated ticks per wall-clock second, 0 until a window has completed.
+     */
+    public double getTicksPerSecond() {
+        return ticksPerSecond;
+    }
+
+    /**
+     * Returns the number of updates performed in the last frame.
+     *
+     * @return Updates in the last frame.
+     */
+    public int getLastFrameTicks() {
+        return lastFrameTicks;
+    }
+}
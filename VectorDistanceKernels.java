@@ -0,0 +1,148 @@
+package com.example.robotgui;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The SIMD versions of the {@link DistanceKernels} scans, on the incubating Vector API.
+ * <p>
+ * Compiling and running this class needs {@code --add-modules jdk.incubator.vector}. It is only loaded once
+ * {@link DistanceKernels} has found the module, so the rest of the simulation runs without it.
+ * Each loop handles whole vectors of the preferred species and finishes the remainder with scalar code.
+ */
+final class VectorDistanceKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final double[] LANE_INDEX = new double[SPECIES.length()]; // 0, 1, 2, ... as doubles
+
+    static {
+        for (int i = 0; i < LANE_INDEX.length; i++) {
+            LANE_INDEX[i] = i;
+        }
+    }
+
+    private VectorDistanceKernels() {
+        // Utility class
+    }
+
+    static int lanes() {
+        return SPECIES.length();
+    }
+
+    static void squaredDistances(double[] xs, double[] ys, int count, double px, double py, double[] out) {
+        DoubleVector vx = DoubleVector.broadcast(SPECIES, px);
+        DoubleVector vy = DoubleVector.broadcast(SPECIES, py);
+        int bound = SPECIES.loopBound(count);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector dx = DoubleVector.fromArray(SPECIES, xs, i).sub(vx);
+            DoubleVector dy = DoubleVector.fromArray(SPECIES, ys, i).sub(vy);
+            dx.mul(dx).add(dy.mul(dy)).intoArray(out, i);
+        }
+        for (; i < count; i++) {
+            double dx = xs[i] - px;
+            double dy = ys[i] - py;
+            out[i] = dx * dx + dy * dy;
+        }
+    }
+
+    static int nearest(double[] xs, double[] ys, int count, double px, double py) {
+        DoubleVector vx = DoubleVector.broadcast(SPECIES, px);
+        DoubleVector vy = DoubleVector.broadcast(SPECIES, py);
+        DoubleVector best = DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY);
+        DoubleVector bestIndex = DoubleVector.broadcast(SPECIES, -1);
+        DoubleVector index = DoubleVector.fromArray(SPECIES, LANE_INDEX, 0);
+        DoubleVector step = DoubleVector.broadcast(SPECIES, SPECIES.length());
+        int bound = SPECIES.loopBound(count);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector dx = DoubleVector.fromArray(SPECIES, xs, i).sub(vx);
+            DoubleVector dy = DoubleVector.fromArray(SPECIES, ys, i).sub(vy);
+            DoubleVector distanceSq = dx.mul(dx).add(dy.mul(dy));
+            VectorMask<Double> closer = distanceSq.lt(best); // Strict, so each lane keeps its earliest minimum
+            best = best.blend(distanceSq, closer);
+            bestIndex = bestIndex.blend(index, closer);
+            index = index.add(step);
+        }
+
+        // Combine the lanes, preferring the lowest index among equal distances
+        int nearest = -1;
+        double nearestDistanceSq = Double.POSITIVE_INFINITY;
+        for (int lane = 0; lane < SPECIES.length(); lane++) {
+            int laneIndex = (int) bestIndex.lane(lane);
+            double laneDistanceSq = best.lane(lane);
+            if (laneIndex >= 0 && (laneDistanceSq < nearestDistanceSq
+                    || laneDistanceSq == nearestDistanceSq && laneIndex < nearest)) {
+                nearestDistanceSq = laneDistanceSq;
+                nearest = laneIndex;
+            }
+        }
+        for (; i < count; i++) {
+            double dx = xs[i] - px;
+            double dy = ys[i] - py;
+            double distanceSq = dx * dx + dy * dy;
+            if (distanceSq < nearestDistanceSq) {
+                nearestDistanceSq = distanceSq;
+                nearest = i;
+            }
+        }
+        return nearest;
+    }
+
+    static int firstWithin(double[] xs, double[] ys, double[] radii, int count,
+                           double px, double py, double radius) {
+        DoubleVector vx = DoubleVector.broadcast(SPECIES, px);
+        DoubleVector vy = DoubleVector.broadcast(SPECIES, py);
+        DoubleVector vr = DoubleVector.broadcast(SPECIES, radius);
+        int bound = SPECIES.loopBound(count);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            VectorMask<Double> within = withinMask(xs, ys, radii, i, vx, vy, vr);
+            if (within.anyTrue()) {
+                return i + within.firstTrue();
+            }
+        }
+        for (; i < count; i++) {
+            double dx = xs[i] - px;
+            double dy = ys[i] - py;
+            double limit = radii[i] + radius;
+            if (dx * dx + dy * dy < limit * limit) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static int countWithin(double[] xs, double[] ys, double[] radii, int count,
+                           double px, double py, double radius) {
+        DoubleVector vx = DoubleVector.broadcast(SPECIES, px);
+        DoubleVector vy = DoubleVector.broadcast(SPECIES, py);
+        DoubleVector vr = DoubleVector.broadcast(SPECIES, radius);
+        int bound = SPECIES.loopBound(count);
+        int within = 0;
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            within += withinMask(xs, ys, radii, i, vx, vy, vr).trueCount();
+        }
+        for (; i < count; i++) {
+            double dx = xs[i] - px;
+            double dy = ys[i] - py;
+            double limit = radii[i] + radius;
+            if (dx * dx + dy * dy < limit * limit) {
+                within++;
+            }
+        }
+        return within;
+    }
+
+    /**
+     * Returns which items of one vector's worth, starting at an index, overlap the circle.
+     */
+    private static VectorMask<Double> withinMask(double[] xs, double[] ys, double[] radii, int i,
+                                                 DoubleVector vx, DoubleVector vy, DoubleVector vr) {
+        DoubleVector dx = DoubleVector.fromArray(SPECIES, xs, i).sub(vx);
+        DoubleVector dy = DoubleVector.fromArray(SPECIES, ys, i).sub(vy);
+        DoubleVector limit = DoubleVector.fromArray(SPECIES, radii, i).add(vr);
+        return dx.mul(dx).add(dy.mul(dy)).lt(limit.mul(limit));
+    }
+}
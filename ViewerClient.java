@@ -0,0 +1,132 @@
+package com.example.robotgui;
+
+import javafx.scene.canvas.GraphicsContext;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * A thin viewer for a {@link SimulationServer}.
+ * A background thread reads and decodes frames as they arrive and publishes the latest decoded state,
+ * so rendering always shows the newest tick no matter how many frames arrived in between. A state is published
+ * whenever the reader has caught up with the stream, and at least every {@link #PUBLISH_INTERVAL_NANOS} while
+ * frames keep arriving, as from a server ticking as fast as it can.
+ */
+public class ViewerClient implements Closeable {
+    /** Longest time between published states while frames keep arriving: one display refresh at 60 Hz. */
+    public static final long PUBLISH_INTERVAL_NANOS = 16_000_000;
+
+    private final Socket socket;
+    private final StateStreamDecoder decoder = new StateStreamDecoder();
+    private final Map<ItemType, ArenaItem> templates = new EnumMap<>(ItemType.class); // Reused for drawing
+    private volatile StateFrame latestFrame; // Newest decoded state, null until synchronised
+    private volatile boolean connected;
+
+    /**
+     * Connects to a simulation server and starts receiving frames.
+     *
+     * @param host The server host, normally "localhost".
+     * @param port The server port.
+     * @throws IOException If the connection cannot be established.
+     */
+    public ViewerClient(String host, int port) throws IOException {
+        socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        connected = true;
+        Thread reader = new Thread(this::readFrames, "viewer-client-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Returns the newest decoded state.
+     *
+     * @return The latest frame, or null if no keyframe has been received yet.
+     */
+    public StateFrame getLatestFrame() {
+        return latestFrame;
+    }
+
+    /**
+     * Returns whether the connection to the server is still open.
+     *
+     * @return True while connected.
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Reads length-prefixed frames until the connection closes.
+     */
+    private void readFrames() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            long lastPublish = System.nanoTime();
+            while (connected) {
+                int length = in.readInt();
+                byte[] frame = new byte[length];
+                in.readFully(frame);
+                // Publish once caught up with the stream, or after a display refresh if it never lets up
+                if (decoder.apply(frame)
+                        && (in.available() == 0 || System.nanoTime() - lastPublish >= PUBLISH_INTERVAL_NANOS)) {
+                    latestFrame = decoder.snapshot();
+                    lastPublish = System.nanoTime();
+                }
+            }
+        } catch (EOFException | SocketException e) {
+            // Server closed the connection
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Viewer connection failed: " + e.getMessage());
+        } finally {
+            connected = false;
+        }
+    }
+
+    /**
+     * Draws the latest received state. Must be called on the JavaFX application thread.
+     *
+     * @param gc The GraphicsContext used for rendering.
+     */
+    public void draw(GraphicsContext gc) {
+        StateFrame frame = latestFrame;
+        if (frame == null) {
+            return;
+        }
+        for (int i = 0; i < frame.getCount(); i++) {
+            ConvexPolygon shape = frame.getShape(i);
+            if (shape != null) {
+                new Obstacle(frame.getX(i), frame.getY(i), frame.getRadius(i), shape).draw(gc); // Outlines differ
+                continue;
+            }
+            ItemType type = frame.getType(i);
+            ArenaItem item = templates.computeIfAbsent(type, t -> t.newInstance(0, 0, 0));
+            item.x = frame.getX(i);
+            item.y = frame.getY(i);
+            item.radius = frame.getRadius(i);
+            if (item instanceof Robot) {
+                ((Robot) item).setAngle(frame.getAngle(i));
+            }
+            item.draw(gc);
+        }
+    }
+
+    /**
+     * Disconnects from the server.
+     */
+    @Override
+    public void close() {
+        connected = false;
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+}
@@ -6,11 +6,18 @@ import javafx.scene.paint.Color;
 /**
  * A robot with whiskers that chases food and avoids obstacles.
  * This robot has energy that decreases over time and regains energy upon consuming food.
+ * <p>
+ * Food within whisker length is approached directly. Farther food is found by descending the arena's
+ * {@link FoodField}, whose paths lead around obstacles instead of straight into them.
  */
 public class WhiskerRobot extends Robot {
     private double whiskerLength; // Length of the robot's whiskers for detection
     private double energy; // Energy level of the robot
     private static final double SAFETY_MARGIN = 5.0; // Margin to avoid close collisions
+    private static final double WHISKER_ANGLE = Math.PI / 8; // Angle between whiskers and the robot's direction
+    private static final double WHISKER_COS = Math.cos(WHISKER_ANGLE);
+    private static final double WHISKER_SIN = Math.sin(WHISKER_ANGLE);
+    private final double[] descent = new double[2]; // Reused direction read from the food field
 
     /**
      * Constructs a WhiskerRobot with specified position, size, movement parameters, and whisker length.
@@ -35,37 +42,113 @@ public class WhiskerRobot extends Robot {
      */
     @Override
     public void update(RobotArena arena) {
-        if (energy <= 0) {
-            arena.removeItem(this); // Remove the robot if energy is depleted
+        if (removeIfExhausted(arena)) {
             return;
         }
 
         // Check if either whisker detects an obstacle or object
-        if (isWhiskerTouching(arena, -Math.PI / 8) || isWhiskerTouching(arena, Math.PI / 8)) {
-            angle += Math.PI / 2; // Immediately change direction by turning 90 degrees
+        if (isWhiskerTouching(arena, -WHISKER_SIN) || isWhiskerTouching(arena, WHISKER_SIN)) {
+            turn(QUARTER_TURN_COS, QUARTER_TURN_SIN); // Immediately change direction by turning 90 degrees
+            spendEnergy(arena, true);
         } else {
-            // Reduce energy over time
-            energy -= 0.05;
+            spendEnergy(arena, false);
 
-            // Move towards the nearest food item
+            // Move towards the nearest food item in reach, or follow the food field towards farther food
             ArenaItem nearestFood = findNearestFood(arena);
-            if (nearestFood != null) {
-                double dx = nearestFood.x - this.x;
-                double dy = nearestFood.y - this.y;
-                this.angle = Math.atan2(dy, dx); // Adjust angle to move toward food
+            if (nearestFood == null) {
+                if (arena.getFoodField().descend(x, y, descent)) {
+                    steerToward(descent[0], descent[1]);
+                }
+            } else {
+                navigateToward(arena, nearestFood.x, nearestFood.y); // Adjust heading to move toward food
 
                 // Check and absorb food if overlapping
                 if (this.isOverlapping(nearestFood)) {
+                    arena.publishEvent(SimulationEvent.MEAL, this, nearestFood);
                     arena.removeItem(nearestFood); // Remove the food item
-                    energy = Math.min(energy + 20, 100); // Regain energy, capped at 100
+                    gainMealEnergy();
                 }
             }
         }
 
-        move(); // Continue movement
+        move(arena); // Continue movement
         stayInArenaBounds(arena); // Ensure robot stays within the arena boundaries
     }
 
+    /**
+     * Removes the robot if its energy is depleted.
+     *
+     * @param arena The arena containing the robot.
+     * @return True if the robot died and was removed.
+     */
+    @Override
+    protected boolean removeIfExhausted(RobotArena arena) {
+        if (energy > 0) {
+            return false;
+        }
+        arena.publishEvent(SimulationEvent.DEATH, this, null);
+        arena.removeItem(this); // Remove the robot if energy is depleted
+        return true;
+    }
+
+    /**
+     * Reduces energy over time. Ticks spent turning away from something cost nothing.
+     *
+     * @param arena  The arena containing the robot.
+     * @param turned Whether the robot turned away from something this tick.
+     */
+    @Override
+    protected void spendEnergy(RobotArena arena, boolean turned) {
+        if (!turned) {
+            energy -= 0.05 * arena.getTimeStep();
+        }
+    }
+
+    /**
+     * Regains 20 energy, capped at 100.
+     */
+    @Override
+    protected void gainMealEnergy() {
+        energy = Math.min(energy + 20, 100);
+    }
+
+    /**
+     * Returns the robot's energy level.
+     *
+     * @return The energy, from 0 to 100.
+     */
+    public double getEnergy() {
+        return energy;
+    }
+
+    /**
+     * Returns the length of the whiskers.
+     *
+     * @return The whisker length.
+     */
+    public double getWhiskerLength() {
+        return whiskerLength;
+    }
+
+    /**
+     * Sets the length of the whiskers. Longer whiskers search the arena until the neighbour lists are rebuilt.
+     *
+     * @param whiskerLength The whisker length.
+     */
+    public void setWhiskerLength(double whiskerLength) {
+        this.whiskerLength = whiskerLength;
+    }
+
+    /**
+     * Returns how far the whiskers, including their safety margin, reach from the robot's centre.
+     *
+     * @return The sensing reach.
+     */
+    @Override
+    protected double getSensingReach() {
+        return Math.max(super.getSensingReach(), whiskerLength + SAFETY_MARGIN);
+    }
+
     /**
      * Ensures the robot stays within the boundaries of the arena.
      *
@@ -78,19 +161,19 @@ public class WhiskerRobot extends Robot {
         // Check horizontal bounds
         if (x - radius < 0) {
             x = radius; // Prevent going out of the left boundary
-            angle = Math.PI - angle; // Reflect angle horizontally
+            reflectHorizontally(); // Reflect heading horizontally
         } else if (x + radius > arenaWidth) {
             x = arenaWidth - radius; // Prevent going out of the right boundary
-            angle = Math.PI - angle; // Reflect angle horizontally
+            reflectHorizontally(); // Reflect heading horizontally
         }
 
         // Check vertical bounds
         if (y - radius < 0) {
             y = radius; // Prevent going out of the top boundary
-            angle = -angle; // Reflect angle vertically
+            reflectVertically(); // Reflect heading vertically
         } else if (y + radius > arenaHeight) {
             y = arenaHeight - radius; // Prevent going out of the bottom boundary
-            angle = -angle; // Reflect angle vertically
+            reflectVertically(); // Reflect heading vertically
         }
     }
 
@@ -114,10 +197,10 @@ public class WhiskerRobot extends Robot {
         gc.setStroke(Color.BLACK);
         gc.setLineWidth(5);
         double wheelLength = 20; // Length of the wheel
-        double offsetX = Math.cos(angle + Math.PI / 2) * radius; // X-offset for left/right wheels
-        double offsetY = Math.sin(angle + Math.PI / 2) * radius; // Y-offset for left/right wheels
-        double perpendicularX = Math.cos(angle) * wheelLength / 2;
-        double perpendicularY = Math.sin(angle) * wheelLength / 2;
+        double offsetX = -dirY * radius; // X-offset for left/right wheels (heading rotated by 90 degrees)
+        double offsetY = dirX * radius; // Y-offset for left/right wheels
+        double perpendicularX = dirX * wheelLength / 2;
+        double perpendicularY = dirY * wheelLength / 2;
 
         // Left wheel
         double wheelXLeftStart = x - offsetX - perpendicularX;
@@ -135,11 +218,10 @@ public class WhiskerRobot extends Robot {
 
         // Draw whiskers
         gc.setStroke(Color.RED); // Set whisker color to red
-        double whiskerAngle = Math.PI / 8; // Angle between whiskers and the robot's direction
-        gc.strokeLine(x, y, x + whiskerLength * Math.cos(angle - whiskerAngle),
-                y + whiskerLength * Math.sin(angle - whiskerAngle)); // Left whisker
-        gc.strokeLine(x, y, x + whiskerLength * Math.cos(angle + whiskerAngle),
-                y + whiskerLength * Math.sin(angle + whiskerAngle)); // Right whisker
+        gc.strokeLine(x, y, x + whiskerLength * (dirX * WHISKER_COS + dirY * WHISKER_SIN),
+                y + whiskerLength * (dirY * WHISKER_COS - dirX * WHISKER_SIN)); // Left whisker
+        gc.strokeLine(x, y, x + whiskerLength * (dirX * WHISKER_COS - dirY * WHISKER_SIN),
+                y + whiskerLength * (dirY * WHISKER_COS + dirX * WHISKER_SIN)); // Right whisker
 
         // Draw energy level below the robot
         gc.setFill(Color.BLACK);
@@ -148,20 +230,23 @@ public class WhiskerRobot extends Robot {
 
 
     /**
-     * Finds the nearest food item in the arena.
+     * Finds the nearest food item within whisker length.
      *
      * @param arena The arena to search for food.
-     * @return The nearest food item, or null if no food is found.
+     * @return The nearest food item in reach, or null if there is none.
      */
     private ArenaItem findNearestFood(RobotArena arena) {
         ArenaItem nearest = null;
-        double nearestDistance = Double.MAX_VALUE;
+        double nearestDistanceSq = whiskerLength * whiskerLength;
 
-        for (ArenaItem item : arena.getItems()) {
-            if (item instanceof Food) { // Check if the item is a food object
-                double distance = Math.sqrt(Math.pow(item.x - this.x, 2) + Math.pow(item.y - this.y, 2));
-                if (distance < nearestDistance) { // Update nearest food if this one is closer
-                    nearestDistance = distance;
+        collectNearby(arena, x - whiskerLength, y - whiskerLength, x + whiskerLength, y + whiskerLength);
+        for (ArenaItem item : nearby) {
+            if (item instanceof Food) { // Only food needs to be considered
+                double dx = item.x - this.x;
+                double dy = item.y - this.y;
+                double distanceSq = dx * dx + dy * dy;
+                if (distanceSq < nearestDistanceSq) { // Update nearest food if this one is closer
+                    nearestDistanceSq = distanceSq;
                     nearest = item;
                 }
             }
@@ -173,15 +258,32 @@ public class WhiskerRobot extends Robot {
      * Checks if the whisker is touching any other arena item or the arena walls.
      *
      * @param arena         The arena containing all items.
-     * @param whiskerOffset The angle offset for the whisker (-Math.PI / 8 for left, Math.PI / 8 for right).
+     * @param whiskerSin    The sine of the whisker's angle offset (-WHISKER_SIN for left, WHISKER_SIN for right).
      * @return True if the whisker is touching any arena item or the walls, false otherwise.
      */
-    private boolean isWhiskerTouching(RobotArena arena, double whiskerOffset) {
+    private boolean isWhiskerTouching(RobotArena arena, double whiskerSin) {
+        // Whisker direction is the heading rotated by the whisker offset
+        double whiskerDirX = dirX * WHISKER_COS - dirY * whiskerSin;
+        double whiskerDirY = dirX * whiskerSin + dirY * WHISKER_COS;
+        double endX = x + whiskerLength * whiskerDirX;
+        double endY = y + whiskerLength * whiskerDirY;
+
+        // Only items whose bounds come within the safety margin of the whisker can touch it
+        collectNearby(arena, Math.min(x, endX) - SAFETY_MARGIN, Math.min(y, endY) - SAFETY_MARGIN,
+                Math.max(x, endX) + SAFETY_MARGIN, Math.max(y, endY) + SAFETY_MARGIN);
+
+        // Obstacles are tested exactly against the whole whisker
+        for (ArenaItem item : nearby) {
+            if (item instanceof Obstacle && ((Obstacle) item).distanceToSegment(x, y, endX, endY) < SAFETY_MARGIN) {
+                return true; // Collision with obstacle detected
+            }
+        }
+
         double precisionStep = 2.0; // Distance between sampled points along the whisker for higher precision
         for (double length = 0; length <= whiskerLength; length += precisionStep) {
             // Calculate the position of the current point along the whisker
-            double whiskerX = x + length * Math.cos(angle + whiskerOffset);
-            double whiskerY = y + length * Math.sin(angle + whiskerOffset);
+            double whiskerX = x + length * whiskerDirX;
+            double whiskerY = y + length * whiskerDirY;
 
             // Check collision with arena walls
             if (whiskerX - SAFETY_MARGIN < 0 || whiskerX + SAFETY_MARGIN > arena.getWidth() ||
@@ -190,8 +292,8 @@ public class WhiskerRobot extends Robot {
             }
 
             // Check collision with other items in the arena
-            for (ArenaItem item : arena.getItems()) {
-                if (item == this) continue; // Skip self-collision check
+            for (ArenaItem item : nearby) {
+                if (item instanceof Obstacle) continue; // Already tested exactly
 
                 // Check if the current point on the whisker overlaps with the item
                 double dx = whiskerX - item.x;
@@ -218,4 +320,51 @@ public class WhiskerRobot extends Robot {
         double distance = Math.sqrt(dx * dx + dy * dy);
         return distance < (this.radius + item.radius);
     }
+
+    /**
+     * Returns the number of state values, including the energy and whisker length.
+     *
+     * @return The number of state values.
+     */
+    @Override
+    public int getStateSize() {
+        return super.getStateSize() + 2;
+    }
+
+    /**
+     * Writes the robot's state, including the energy and whisker length, into an array.
+     *
+     * @param state  The array to write to.
+     * @param offset The index of the first value.
+     */
+    @Override
+    public void saveState(double[] state, int offset) {
+        super.saveState(state, offset);
+        int i = offset + super.getStateSize();
+        state[i] = energy;
+        state[i + 1] = whiskerLength;
+    }
+
+    /**
+     * Restores the robot's state, including the energy and whisker length, from an array.
+     *
+     * @param state  The array to read from.
+     * @param offset The index of the first value.
+     */
+    @Override
+    public void loadState(double[] state, int offset) {
+        super.loadState(state, offset);
+        int i = offset + super.getStateSize();
+        energy = state[i];
+        whiskerLength = state[i + 1];
+    }
+
+    /**
+     * Returns the type of this item.
+     * @return ItemType.WHISKER_ROBOT
+     */
+    @Override
+    public ItemType getType() {
+        return ItemType.WHISKER_ROBOT;
+    }
 }